@@ -5,6 +5,7 @@ import java.lang.reflect.Method;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.NonRetainingInterceptor;
 import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
 
 /**
@@ -20,7 +21,7 @@ public abstract class Advices {
 	 * 
 	 * @author Rod Johnson
 	 */
-	public static class NopInterceptor implements MethodInterceptor {
+	public static class NopInterceptor implements MethodInterceptor, NonRetainingInterceptor {
 		public Object invoke(MethodInvocation mi) throws Throwable {
 			return mi.proceed();
 		}
@@ -31,7 +32,7 @@ public abstract class Advices {
 	 * 
 	 * @author Rod Johnson
 	 */
-	public static class ReadDataInterceptor implements MethodInterceptor {
+	public static class ReadDataInterceptor implements MethodInterceptor, NonRetainingInterceptor {
 		public Object invoke(MethodInvocation mi) throws Throwable {
 			mi.getArguments();
 			mi.getMethod().getName();
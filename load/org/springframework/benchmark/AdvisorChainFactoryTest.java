@@ -0,0 +1,41 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+ 
+package org.springframework.benchmark;
+
+import org.springframework.aop.framework.AdvisorChainFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.BeanUtils;
+
+/**
+ * StaticAopTest that uses a configurable AdvisorChainFactory, to compare
+ * the throughput of different chain caching strategies under load.
+ * See scripts/chainFactory.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class AdvisorChainFactoryTest extends StaticAopTest {
+
+	private Class advisorChainFactoryClass;
+
+	/**
+	 * Set the AdvisorChainFactory implementation to test.
+	 * A new instance will be created for the proxy.
+	 */
+	public void setAdvisorChainFactoryClass(Class advisorChainFactoryClass) {
+		this.advisorChainFactoryClass = advisorChainFactoryClass;
+	}
+
+	/**
+	 * @see org.springframework.benchmark.StaticAopTest#addFurtherAdvice(org.springframework.aop.framework.ProxyFactory)
+	 */
+	protected void addFurtherAdvice(ProxyFactory pf) {
+		if (this.advisorChainFactoryClass != null) {
+			pf.setAdvisorChainFactory((AdvisorChainFactory) BeanUtils.instantiateClass(this.advisorChainFactoryClass));
+		}
+		System.err.println("Using " + pf.getAdvisorChainFactory().getClass().getName());
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.sql.Types;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.object.BatchSqlUpdate;
+import org.springframework.jdbc.object.SqlUpdate;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Inserts rows into an in-memory HSQLDB table within a transaction,
+ * either through a SqlUpdate per row or through a BatchSqlUpdate.
+ * Each test instance uses its own connection and table, which is
+ * emptied after each pass. See scripts/batchInsert.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class BatchInsertTest extends AbstractTest implements InitializingBean {
+
+	private static int tableCount;
+
+	private int rows = 1000000;
+
+	private int batchSize;
+
+	private String tableName;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private TransactionTemplate transactionTemplate;
+
+	/**
+	 * Set the number of rows to insert in each pass. Default is 1000000.
+	 */
+	public void setRows(int rows) {
+		this.rows = rows;
+	}
+
+	/**
+	 * Set the batch size of the BatchSqlUpdate to use, or 0
+	 * to use a SqlUpdate per row. Default is 0.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public void afterPropertiesSet() {
+		synchronized (BatchInsertTest.class) {
+			this.tableName = "BATCH_INSERT_" + (tableCount++);
+		}
+		SingleConnectionDataSource dataSource =
+				new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true);
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.execute("CREATE TABLE " + this.tableName + " (ID INTEGER, NAME VARCHAR, AMOUNT DOUBLE)");
+		this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		final String sql = "INSERT INTO " + this.tableName + " VALUES (?, ?, ?)";
+		final int[] types = new int[] {Types.INTEGER, Types.VARCHAR, Types.DOUBLE};
+		this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				SqlUpdate update = (batchSize > 0 ?
+						new BatchSqlUpdate(jdbcTemplate.getDataSource(), sql, types, batchSize) :
+						new SqlUpdate(jdbcTemplate.getDataSource(), sql, types));
+				update.compile();
+				for (int j = 0; j < rows; j++) {
+					update.update(new Object[] {new Integer(j), "name" + j, new Double(j * 0.01)});
+				}
+				// a BatchSqlUpdate flushes its remaining updates on commit
+			}
+		});
+		int count = this.jdbcTemplate.queryForInt("SELECT COUNT(*) FROM " + this.tableName);
+		this.jdbcTemplate.update("DELETE FROM " + this.tableName);
+		if (count != this.rows) {
+			throw new TestFailedException("Expected " + this.rows + " rows but found " + count);
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.io.ByteArrayInputStream;
+
+import org.springframework.beans.TestBean;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Measures parsing of a synthetic large XML bean definition file, either
+ * through a DOM or in streaming mode. Each pass only registers the bean
+ * definitions, without instantiating any beans.
+ * <p>The first pass also prints the heap in use when the last bean definition
+ * gets registered, which includes the DOM if one is built. As the heap is
+ * shared, this figure is only meaningful with a single test in the suite.
+ * See scripts/parsing.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class BeanDefinitionParsingTest extends AbstractTest {
+
+	private int beanCount = 6000;
+
+	private boolean streaming;
+
+	private byte[] document;
+
+	/**
+	 * Set the number of beans in the generated document. Default is 6000.
+	 */
+	public void setBeanCount(int beanCount) {
+		this.beanCount = beanCount;
+	}
+
+	/**
+	 * Set whether to parse in streaming mode. Default is false.
+	 * @see XmlBeanDefinitionReader#setStreaming
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		DefaultListableBeanFactory bf = (i == 0 ? new HeapMeasuringBeanFactory() : new DefaultListableBeanFactory());
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(bf);
+		reader.setStreaming(this.streaming);
+		reader.loadBeanDefinitions(new InputStreamResource(new ByteArrayInputStream(getDocument()), "generated"));
+		assertEquals("All bean definitions registered", this.beanCount, bf.getBeanDefinitionCount());
+	}
+
+	private synchronized byte[] getDocument() {
+		if (this.document == null) {
+			String className = TestBean.class.getName();
+			StringBuffer sb = new StringBuffer();
+			sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			sb.append("<!DOCTYPE beans PUBLIC \"-//SPRING//DTD BEAN//EN\" \"http://www.springframework.org/dtd/spring-beans.dtd\">\n");
+			sb.append("<beans>\n");
+			for (int i = 0; i < this.beanCount; i++) {
+				sb.append("\t<bean id=\"bean").append(i).append("\" class=\"").append(className).append("\">\n");
+				sb.append("\t\t<property name=\"name\"><value>name").append(i).append("</value></property>\n");
+				sb.append("\t\t<property name=\"age\"><value>").append(i % 100).append("</value></property>\n");
+				sb.append("\t\t<property name=\"spouse\"><ref local=\"bean0\"/></property>\n");
+				sb.append("\t\t<property name=\"friends\"><list><ref bean=\"bean0\"/><value>friend</value></list></property>\n");
+				sb.append("\t\t<property name=\"someMap\"><map>\n");
+				sb.append("\t\t\t<entry key=\"inner\"><bean class=\"").append(className).append("\">");
+				sb.append("<property name=\"name\"><value>inner").append(i).append("</value></property></bean></entry>\n");
+				sb.append("\t\t</map></property>\n");
+				sb.append("\t</bean>\n");
+			}
+			sb.append("</beans>\n");
+			this.document = sb.toString().getBytes();
+		}
+		return this.document;
+	}
+
+
+	/**
+	 * Logs the heap in use when the last bean definition gets registered.
+	 */
+	private class HeapMeasuringBeanFactory extends DefaultListableBeanFactory {
+
+		public void registerBeanDefinition(String name, BeanDefinition beanDefinition)
+				throws BeanDefinitionStoreException {
+			super.registerBeanDefinition(name, beanDefinition);
+			if (getBeanDefinitionCount() == beanCount) {
+				Runtime runtime = Runtime.getRuntime();
+				System.gc();
+				long used = runtime.totalMemory() - runtime.freeMemory();
+				System.out.println("Heap in use after registering " + beanCount + " bean definitions " +
+						(streaming ? "in streaming mode" : "from DOM") + ": " + (used / 1024) + " KB");
+			}
+		}
+	}
+
+}
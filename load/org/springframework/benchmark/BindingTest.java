@@ -0,0 +1,49 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+import org.springframework.web.bind.ServletRequestDataBinder;
+import org.springframework.web.mock.MockHttpServletRequest;
+
+/**
+ * Binds a request with a parameter for each of the 30 properties of
+ * LargeCommand, as a form controller would. See scripts/binding.properties,
+ * which compares generated property accessors with reflection.
+ * @author agent
+ * @version $Id$
+ */
+public class BindingTest extends AbstractTest {
+
+	private final MockHttpServletRequest request = new MockHttpServletRequest(null, "POST", "/command");
+
+	public BindingTest() {
+		for (int i = 0; i < 30; i++) {
+			String value;
+			switch (i % 6) {
+				case 1: case 3: value = String.valueOf(i); break;
+				case 2: value = "true"; break;
+				case 5: value = i + ".5"; break;
+				default: value = "value" + i;
+			}
+			this.request.addParameter("field" + i, value);
+		}
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		LargeCommand command = new LargeCommand();
+		ServletRequestDataBinder binder = new ServletRequestDataBinder(command, "command");
+		binder.bind(this.request);
+		if (binder.getErrors().hasErrors() || command.getField29() != 29.5)
+			throw new TestFailedException("Binding failed: " + binder.getErrors());
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.beans.TestBean;
+import org.springframework.context.support.AbstractXmlApplicationContext;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Measures refreshing a context made up of many config files, like a web
+ * application context listing the files of each layer. Opening each file
+ * takes some time, as when reading it from a jar file or over the network.
+ * All beans are lazy, so each pass only loads the bean definitions.
+ * Compare configLoadingThreads values: see scripts/configLoading.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class ConfigLoadingTest extends AbstractTest {
+
+	private int fileCount = 40;
+
+	private int beansPerFile = 50;
+
+	private long openDelay = 5;
+
+	private int configLoadingThreads = 1;
+
+	private byte[][] documents;
+
+	/**
+	 * Set the number of config files. Default is 40.
+	 */
+	public void setFileCount(int fileCount) {
+		this.fileCount = fileCount;
+	}
+
+	/**
+	 * Set the number of beans per config file. Default is 50.
+	 */
+	public void setBeansPerFile(int beansPerFile) {
+		this.beansPerFile = beansPerFile;
+	}
+
+	/**
+	 * Set the time in milliseconds that opening a config file takes. Default is 5.
+	 */
+	public void setOpenDelay(long openDelay) {
+		this.openDelay = openDelay;
+	}
+
+	/**
+	 * @see AbstractXmlApplicationContext#setConfigLoadingThreads
+	 */
+	public void setConfigLoadingThreads(int configLoadingThreads) {
+		this.configLoadingThreads = configLoadingThreads;
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		GeneratedXmlApplicationContext ac = new GeneratedXmlApplicationContext(getDocuments());
+		ac.setConfigLoadingThreads(this.configLoadingThreads);
+		ac.refresh();
+		// each file overrides the first bean of the file before it
+		assertEquals("All bean definitions registered",
+				this.fileCount * (this.beansPerFile - 1), ac.getBeanDefinitionCount());
+		TestBean overridden = (TestBean) ac.getBean("file0bean0");
+		assertEquals("Last file wins", "file1", overridden.getName());
+		ac.close();
+	}
+
+	private synchronized byte[][] getDocuments() {
+		if (this.documents == null) {
+			String className = TestBean.class.getName();
+			this.documents = new byte[this.fileCount][];
+			for (int i = 0; i < this.fileCount; i++) {
+				StringBuffer sb = new StringBuffer();
+				sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+				sb.append("<!DOCTYPE beans PUBLIC \"-//SPRING//DTD BEAN//EN\" \"http://www.springframework.org/dtd/spring-beans.dtd\">\n");
+				sb.append("<beans default-lazy-init=\"true\">\n");
+				for (int j = 0; j < this.beansPerFile - 1; j++) {
+					sb.append("\t<bean id=\"file").append(i).append("bean").append(j);
+					sb.append("\" class=\"").append(className).append("\">\n");
+					sb.append("\t\t<property name=\"name\"><value>file").append(i).append("</value></property>\n");
+					sb.append("\t\t<property name=\"age\"><value>").append(j).append("</value></property>\n");
+					sb.append("\t</bean>\n");
+				}
+				if (i > 0) {
+					sb.append("\t<bean id=\"file").append(i - 1).append("bean0");
+					sb.append("\" class=\"").append(className).append("\">\n");
+					sb.append("\t\t<property name=\"name\"><value>file").append(i).append("</value></property>\n");
+					sb.append("\t</bean>\n");
+				}
+				sb.append("</beans>\n");
+				this.documents[i] = sb.toString().getBytes();
+			}
+		}
+		return this.documents;
+	}
+
+
+	/**
+	 * Application context whose config locations refer to generated documents.
+	 */
+	private class GeneratedXmlApplicationContext extends AbstractXmlApplicationContext {
+
+		private final byte[][] documents;
+
+		private final String[] configLocations;
+
+		public GeneratedXmlApplicationContext(byte[][] documents) {
+			this.documents = documents;
+			this.configLocations = new String[documents.length];
+			for (int i = 0; i < documents.length; i++) {
+				this.configLocations[i] = Integer.toString(i);
+			}
+		}
+
+		protected String[] getConfigLocations() {
+			return this.configLocations;
+		}
+
+		public Resource getResource(String location) {
+			return new GeneratedResource(this.documents[Integer.parseInt(location)], location);
+		}
+	}
+
+
+	private class GeneratedResource extends AbstractResource {
+
+		private final byte[] document;
+
+		private final String location;
+
+		public GeneratedResource(byte[] document, String location) {
+			this.document = document;
+			this.location = location;
+		}
+
+		public InputStream getInputStream() throws IOException {
+			try {
+				Thread.sleep(openDelay);
+			}
+			catch (InterruptedException ex) {
+				throw new IOException("Interrupted while opening config file " + this.location);
+			}
+			return new ByteArrayInputStream(this.document);
+		}
+
+		public String getDescription() {
+			return "generated config file " + this.location;
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ApplicationEventMulticasterImpl;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+import org.springframework.util.ResponseTimeMonitorImpl;
+import org.springframework.web.context.support.RequestHandledEvent;
+
+/**
+ * Publishes a RequestHandledEvent per pass to 50 listeners, as FrameworkServlet
+ * does per request. Half of the listeners only support RequestHandledEvents,
+ * the others are only interested in other events. Each interested listener
+ * records the response time, as PerformanceMonitorListener does.
+ * See scripts/events.properties, which compares synchronous delivery
+ * with asynchronous delivery.
+ * @author agent
+ * @version $Id$
+ */
+public class EventMulticastTest extends AbstractTest {
+
+	private static final int LISTENERS = 50;
+
+	private final ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+
+	private final ResponseTimeMonitorImpl[] monitors = new ResponseTimeMonitorImpl[LISTENERS];
+
+	public EventMulticastTest() {
+		for (int i = 0; i < LISTENERS; i++) {
+			this.monitors[i] = new ResponseTimeMonitorImpl();
+			this.multicaster.addApplicationListener(new MonitoringListener(this.monitors[i], i % 2 == 0));
+		}
+	}
+
+	public void setAsyncThreads(int asyncThreads) {
+		this.multicaster.setAsyncThreads(asyncThreads);
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.multicaster.setQueueCapacity(queueCapacity);
+	}
+
+	public void setBlockWhenFull(boolean blockWhenFull) {
+		this.multicaster.setBlockWhenFull(blockWhenFull);
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		this.multicaster.onApplicationEvent(
+				new RequestHandledEvent(this, "/request/" + i, i % 50, "127.0.0.1", "GET", "dispatcher"));
+	}
+
+	public String toString() {
+		return super.toString() + "; pending=" + this.multicaster.getPendingEventCount() +
+				"; discarded=" + this.multicaster.getDiscardedEventCount();
+	}
+
+
+	private static class MonitoringListener implements SmartApplicationListener {
+
+		private final ResponseTimeMonitorImpl monitor;
+
+		private final boolean requestListener;
+
+		public MonitoringListener(ResponseTimeMonitorImpl monitor, boolean requestListener) {
+			this.monitor = monitor;
+			this.requestListener = requestListener;
+		}
+
+		public boolean supportsEventType(Class eventType) {
+			return (RequestHandledEvent.class.isAssignableFrom(eventType) == this.requestListener);
+		}
+
+		public void onApplicationEvent(ApplicationEvent event) {
+			RequestHandledEvent rhe = (RequestHandledEvent) event;
+			this.monitor.recordResponseTime(rhe.getTimeMillis());
+			// stringify as a logging listener would
+			if (this.monitor.toString().length() == 0)
+				throw new IllegalStateException("No monitor output");
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Measures per-call overhead of the interceptor chain, by invoking a proxy
+ * with a configurable number of static interceptors on every method.
+ * Use with interceptors=0 as a baseline. See scripts/interceptorChain.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class InterceptorChainTest extends AbstractTest implements InitializingBean {
+
+	private int interceptors;
+
+	private boolean proxyTargetClass;
+
+	private int callsPerPass = 100;
+
+	private ITestBean advised;
+
+	/**
+	 * Set the number of NopInterceptors to apply to every method.
+	 */
+	public void setInterceptors(int interceptors) {
+		this.interceptors = interceptors;
+	}
+
+	/**
+	 * Set whether to create a CGLIB proxy rather than a JDK dynamic proxy.
+	 */
+	public void setProxyTargetClass(boolean proxyTargetClass) {
+		this.proxyTargetClass = proxyTargetClass;
+	}
+
+	/**
+	 * Set the number of proxy invocations in each pass.
+	 */
+	public void setCallsPerPass(int callsPerPass) {
+		this.callsPerPass = callsPerPass;
+	}
+
+	public void afterPropertiesSet() {
+		TestBean target = new TestBean();
+		target.setAge(21);
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.setProxyTargetClass(this.proxyTargetClass);
+		for (int i = 0; i < this.interceptors; i++) {
+			pf.addInterceptor(new Advices.NopInterceptor());
+		}
+		this.advised = (ITestBean) pf.getProxy();
+		System.out.println(this.advised.getClass().getName() + " with " + this.interceptors + " interceptors");
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		for (int j = 0; j < this.callsPerPass; j++) {
+			if (this.advised.getAge() != 21)
+				throw new TestFailedException("Age should have been 21");
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.lang.reflect.Method;
+
+import org.springframework.aop.framework.MethodInvokerCache;
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Compares reflective dispatch to a singleton target, as used by JDK dynamic
+ * proxies in StaticAopTest, with dispatch through generated invokers.
+ * See scripts/joinpointInvoker.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class JoinpointInvokerTest extends AbstractTest implements InitializingBean {
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+	private boolean generated;
+
+	private int callsPerPass = 100;
+
+	private MethodInvokerCache invokerCache;
+
+	private Method getAge;
+
+	private Method setName;
+
+	private TestBean target = new TestBean();
+
+	/**
+	 * Set whether to use generated invokers rather than Method.invoke.
+	 */
+	public void setGenerated(boolean generated) {
+		this.generated = generated;
+	}
+
+	/**
+	 * Set the number of method invocations in each pass.
+	 */
+	public void setCallsPerPass(int callsPerPass) {
+		this.callsPerPass = callsPerPass;
+	}
+
+	public void afterPropertiesSet() throws Exception {
+		this.getAge = ITestBean.class.getMethod("getAge", null);
+		this.setName = ITestBean.class.getMethod("setName", new Class[] {String.class});
+		this.target.setAge(21);
+		if (this.generated) {
+			this.invokerCache = new MethodInvokerCache();
+			if (!this.invokerCache.isGenerated(this.getAge)) {
+				throw new IllegalStateException("Couldn't generate invoker for " + this.getAge);
+			}
+		}
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		Object[] nameArgs = new Object[] {"tony"};
+		for (int j = 0; j < this.callsPerPass; j++) {
+			Object age = null;
+			if (this.generated) {
+				this.invokerCache.invoke(this.setName, this.target, nameArgs);
+				age = this.invokerCache.invoke(this.getAge, this.target, NO_ARGS);
+			}
+			else {
+				this.setName.invoke(this.target, nameArgs);
+				age = this.getAge.invoke(this.target, NO_ARGS);
+			}
+			if (((Integer) age).intValue() != 21)
+				throw new TestFailedException("Age should have been 21");
+		}
+	}
+
+}
@@ -0,0 +1,286 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+/**
+ * Command object with 30 properties of various types, as bound by BindingTest.
+ * @author agent
+ * @version $Id$
+ */
+public class LargeCommand {
+
+	private String field0;
+	private int field1;
+	private boolean field2;
+	private long field3;
+	private String field4;
+	private double field5;
+	private String field6;
+	private int field7;
+	private boolean field8;
+	private long field9;
+	private String field10;
+	private double field11;
+	private String field12;
+	private int field13;
+	private boolean field14;
+	private long field15;
+	private String field16;
+	private double field17;
+	private String field18;
+	private int field19;
+	private boolean field20;
+	private long field21;
+	private String field22;
+	private double field23;
+	private String field24;
+	private int field25;
+	private boolean field26;
+	private long field27;
+	private String field28;
+	private double field29;
+
+	public void setField0(String field0) {
+		this.field0 = field0;
+	}
+
+	public String getField0() {
+		return field0;
+	}
+
+	public void setField1(int field1) {
+		this.field1 = field1;
+	}
+
+	public int getField1() {
+		return field1;
+	}
+
+	public void setField2(boolean field2) {
+		this.field2 = field2;
+	}
+
+	public boolean isField2() {
+		return field2;
+	}
+
+	public void setField3(long field3) {
+		this.field3 = field3;
+	}
+
+	public long getField3() {
+		return field3;
+	}
+
+	public void setField4(String field4) {
+		this.field4 = field4;
+	}
+
+	public String getField4() {
+		return field4;
+	}
+
+	public void setField5(double field5) {
+		this.field5 = field5;
+	}
+
+	public double getField5() {
+		return field5;
+	}
+
+	public void setField6(String field6) {
+		this.field6 = field6;
+	}
+
+	public String getField6() {
+		return field6;
+	}
+
+	public void setField7(int field7) {
+		this.field7 = field7;
+	}
+
+	public int getField7() {
+		return field7;
+	}
+
+	public void setField8(boolean field8) {
+		this.field8 = field8;
+	}
+
+	public boolean isField8() {
+		return field8;
+	}
+
+	public void setField9(long field9) {
+		this.field9 = field9;
+	}
+
+	public long getField9() {
+		return field9;
+	}
+
+	public void setField10(String field10) {
+		this.field10 = field10;
+	}
+
+	public String getField10() {
+		return field10;
+	}
+
+	public void setField11(double field11) {
+		this.field11 = field11;
+	}
+
+	public double getField11() {
+		return field11;
+	}
+
+	public void setField12(String field12) {
+		this.field12 = field12;
+	}
+
+	public String getField12() {
+		return field12;
+	}
+
+	public void setField13(int field13) {
+		this.field13 = field13;
+	}
+
+	public int getField13() {
+		return field13;
+	}
+
+	public void setField14(boolean field14) {
+		this.field14 = field14;
+	}
+
+	public boolean isField14() {
+		return field14;
+	}
+
+	public void setField15(long field15) {
+		this.field15 = field15;
+	}
+
+	public long getField15() {
+		return field15;
+	}
+
+	public void setField16(String field16) {
+		this.field16 = field16;
+	}
+
+	public String getField16() {
+		return field16;
+	}
+
+	public void setField17(double field17) {
+		this.field17 = field17;
+	}
+
+	public double getField17() {
+		return field17;
+	}
+
+	public void setField18(String field18) {
+		this.field18 = field18;
+	}
+
+	public String getField18() {
+		return field18;
+	}
+
+	public void setField19(int field19) {
+		this.field19 = field19;
+	}
+
+	public int getField19() {
+		return field19;
+	}
+
+	public void setField20(boolean field20) {
+		this.field20 = field20;
+	}
+
+	public boolean isField20() {
+		return field20;
+	}
+
+	public void setField21(long field21) {
+		this.field21 = field21;
+	}
+
+	public long getField21() {
+		return field21;
+	}
+
+	public void setField22(String field22) {
+		this.field22 = field22;
+	}
+
+	public String getField22() {
+		return field22;
+	}
+
+	public void setField23(double field23) {
+		this.field23 = field23;
+	}
+
+	public double getField23() {
+		return field23;
+	}
+
+	public void setField24(String field24) {
+		this.field24 = field24;
+	}
+
+	public String getField24() {
+		return field24;
+	}
+
+	public void setField25(int field25) {
+		this.field25 = field25;
+	}
+
+	public int getField25() {
+		return field25;
+	}
+
+	public void setField26(boolean field26) {
+		this.field26 = field26;
+	}
+
+	public boolean isField26() {
+		return field26;
+	}
+
+	public void setField27(long field27) {
+		this.field27 = field27;
+	}
+
+	public long getField27() {
+		return field27;
+	}
+
+	public void setField28(String field28) {
+		this.field28 = field28;
+	}
+
+	public String getField28() {
+		return field28;
+	}
+
+	public void setField29(double field29) {
+		this.field29 = field29;
+	}
+
+	public double getField29() {
+		return field29;
+	}
+
+}
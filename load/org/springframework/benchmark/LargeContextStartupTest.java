@@ -0,0 +1,88 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.io.ByteArrayInputStream;
+
+import org.springframework.beans.factory.xml.XmlBeanFactory;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Measures startup of a synthetic large XML bean factory: each pass parses
+ * the document and pre-instantiates all singletons. All but one of the beans
+ * are autowired by type, half of them through child definitions, so startup
+ * time is dominated by type lookups. See scripts/startup.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class LargeContextStartupTest extends AbstractTest {
+
+	private int beanCount = 2000;
+
+	private byte[] document;
+
+	/**
+	 * Set the number of beans in the generated context. Default is 2000.
+	 */
+	public void setBeanCount(int beanCount) {
+		this.beanCount = beanCount;
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		XmlBeanFactory bf = new XmlBeanFactory(new ByteArrayInputStream(getDocument()));
+		bf.preInstantiateSingletons();
+		Client client = (Client) bf.getBean("client" + (this.beanCount - 2));
+		if (client.getService() != bf.getBean("service"))
+			throw new TestFailedException("Client should have been autowired with service");
+	}
+
+	private synchronized byte[] getDocument() {
+		if (this.document == null) {
+			StringBuffer sb = new StringBuffer();
+			sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			sb.append("<!DOCTYPE beans PUBLIC \"-//SPRING//DTD BEAN//EN\" \"http://www.springframework.org/dtd/spring-beans.dtd\">\n");
+			sb.append("<beans>\n");
+			sb.append("<bean id=\"service\" class=\"").append(Service.class.getName()).append("\"/>\n");
+			sb.append("<bean id=\"client0\" class=\"").append(Client.class.getName()).append("\" autowire=\"byType\"/>\n");
+			for (int i = 1; i < this.beanCount - 1; i++) {
+				if (i % 2 == 0) {
+					sb.append("<bean id=\"client").append(i).append("\" parent=\"client0\"/>\n");
+				}
+				else {
+					sb.append("<bean id=\"client").append(i).append("\" class=\"").append(Client.class.getName());
+					sb.append("\" autowire=\"byType\"/>\n");
+				}
+			}
+			sb.append("</beans>\n");
+			this.document = sb.toString().getBytes();
+		}
+		return this.document;
+	}
+
+
+	public static class Service {
+	}
+
+
+	public static class Client {
+
+		private Service service;
+
+		public void setService(Service service) {
+			this.service = service;
+		}
+
+		public Service getService() {
+			return service;
+		}
+	}
+
+}
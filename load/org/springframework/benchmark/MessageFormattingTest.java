@@ -0,0 +1,105 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Measures formatting of messages, either through precompiled
+ * MessageTemplates or through MessageFormats, with or without arguments.
+ * See scripts/messageFormatting.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class MessageFormattingTest extends AbstractTest {
+
+	private static final Locale LOCALE = Locale.ENGLISH;
+
+	private boolean templates = true;
+
+	private boolean arguments;
+
+	private int messagesPerPass = 1000;
+
+	private StaticMessageSource messageSource;
+
+	/**
+	 * Set whether to format through MessageTemplates rather than
+	 * MessageFormats. Default is true.
+	 */
+	public void setTemplates(boolean templates) {
+		this.templates = templates;
+	}
+
+	/**
+	 * Set whether to format messages with two arguments rather than
+	 * messages without arguments. Default is false.
+	 */
+	public void setArguments(boolean arguments) {
+		this.arguments = arguments;
+	}
+
+	/**
+	 * Set the number of messages formatted in each pass. Default is 1000.
+	 */
+	public void setMessagesPerPass(int messagesPerPass) {
+		this.messagesPerPass = messagesPerPass;
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		StaticMessageSource ms = getMessageSource();
+		Object[] args = (this.arguments ? new Object[] {"item" + i, "page"} : null);
+		String code = (this.arguments ? "withArguments" : "withoutArguments");
+		for (int j = 0; j < this.messagesPerPass; j++) {
+			String message = ms.getMessage(code, args, LOCALE);
+			if (message.length() == 0)
+				throw new TestFailedException("Message should not have been empty");
+		}
+	}
+
+	private synchronized StaticMessageSource getMessageSource() {
+		if (this.messageSource == null) {
+			this.messageSource = (this.templates ? new StaticMessageSource() : new MessageFormatMessageSource());
+			this.messageSource.addMessage("withoutArguments", LOCALE, "Please enter the name of the new owner");
+			this.messageSource.addMessage("withArguments", LOCALE, "Showing {0} of {1}");
+		}
+		return this.messageSource;
+	}
+
+
+	/**
+	 * Resolves messages to cached MessageFormats only: overriding
+	 * resolveCode keeps StaticMessageSource from using its templates.
+	 */
+	private static class MessageFormatMessageSource extends StaticMessageSource {
+
+		private final Map messageFormats = new HashMap();
+
+		protected MessageFormat resolveCode(String code, Locale locale) {
+			String key = code + "_" + locale;
+			synchronized (this.messageFormats) {
+				MessageFormat messageFormat = (MessageFormat) this.messageFormats.get(key);
+				if (messageFormat == null) {
+					messageFormat = super.resolveCode(code, locale);
+					this.messageFormats.put(key, messageFormat);
+				}
+				return messageFormat;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.MessageSource;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Renders a page of messages from a MessageSource shared by all instances
+ * of this test, like the message tags of a JSP page served to many users
+ * at once. Messages are resolved for Austrian German, falling back to
+ * German and then to the default messages. See scripts/messages.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class MessageRenderingTest extends AbstractTest implements InitializingBean {
+
+	private static final Locale LOCALE = new Locale("de", "AT");
+
+	private MessageSource messageSource;
+
+	private int messagesPerPage = 200;
+
+	private String[] codes;
+
+	/**
+	 * Set the MessageSource to share. Should be a reference
+	 * to a singleton bean.
+	 */
+	public void setMessageSource(MessageSource messageSource) {
+		this.messageSource = messageSource;
+	}
+
+	/**
+	 * Set the number of messages on each page. Default is 200.
+	 */
+	public void setMessagesPerPage(int messagesPerPage) {
+		this.messagesPerPage = messagesPerPage;
+	}
+
+	public void afterPropertiesSet() {
+		this.codes = new String[this.messagesPerPage];
+		for (int i = 0; i < this.codes.length; i++) {
+			this.codes[i] = "page.item" + i;
+		}
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		Object[] args = new Object[] {new Integer(i), "page"};
+		for (int j = 0; j < this.codes.length; j++) {
+			String message = this.messageSource.getMessage(this.codes[j], (j % 4 == 0 ? args : null), LOCALE);
+			if (message.length() == 0)
+				throw new TestFailedException("Message for code '" + this.codes[j] + "' should not have been empty");
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The original monitor-based ConcurrencyThrottleInterceptor, synchronizing
+ * on the interceptor and calling notify on every return. Kept as a baseline
+ * for ThrottleContentionTest.
+ * @author agent
+ * @version $Id$
+ * @see org.springframework.aop.interceptor.ConcurrencyThrottleInterceptor
+ */
+public class MonitorConcurrencyThrottleInterceptor implements MethodInterceptor {
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private int concurrencyLimit = 1;
+
+	private int concurrencyCount = 0;
+
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		this.concurrencyLimit = concurrencyLimit;
+	}
+
+	public Object invoke(MethodInvocation methodInvocation) throws Throwable {
+		boolean debug = logger.isDebugEnabled();
+		synchronized (this) {
+			while (this.concurrencyCount >= this.concurrencyLimit) {
+				if (debug) {
+					logger.debug("Concurrency count " + this.concurrencyCount +
+											 " has reached limit " + this.concurrencyLimit + " - blocking");
+				}
+				try {
+					wait();
+				}
+				catch (InterruptedException ex) {
+				}
+			}
+			if (debug) {
+				logger.debug("Entering method at concurrency count " + this.concurrencyCount);
+			}
+			this.concurrencyCount++;
+		}
+		try {
+			return methodInvocation.proceed();
+		}
+		finally {
+			synchronized (this) {
+				this.concurrencyCount--;
+				if (debug) {
+					logger.debug("Returning from method at concurrency count " + this.concurrencyCount);
+				}
+				notify();
+			}
+		}
+	}
+
+}
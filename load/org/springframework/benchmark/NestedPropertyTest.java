@@ -0,0 +1,56 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.IndexedTestBean;
+import org.springframework.beans.TestBean;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Reads nested and indexed properties through a new BeanWrapper per pass,
+ * as the bind tags of a form page like jpetstore's order confirmation do
+ * for paths like "order.billCity". See scripts/nestedProperties.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class NestedPropertyTest extends AbstractTest {
+
+	private static final String[] PATHS = {
+		"spouse.name", "spouse.age", "spouse.spouse.name", "spouse.spouse.age", "spouse.name",
+		"spouse.age", "spouse.spouse.name", "spouse.spouse.age", "spouse.nestedIndexedBean.array[1].name",
+		"nestedIndexedBean.array[0].name", "nestedIndexedBean.array[1].name",
+		"nestedIndexedBean.list[0].name", "nestedIndexedBean.list[1].age",
+		"nestedIndexedBean.map[key1].name", "nestedIndexedBean.map['key2'].name",
+		"nestedIndexedBean.map[\"key1\"].age", "spouse.nestedIndexedBean.array[0].age",
+		"spouse.nestedIndexedBean.list[1].name"
+	};
+
+	private final TestBean form = new TestBean("form", 1);
+
+	public NestedPropertyTest() {
+		TestBean order = new TestBean("order", 2);
+		order.setSpouse(new TestBean("address", 3));
+		order.setNestedIndexedBean(new IndexedTestBean());
+		this.form.setSpouse(order);
+		this.form.setNestedIndexedBean(new IndexedTestBean());
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		BeanWrapper bw = new BeanWrapperImpl(this.form);
+		for (int j = 0; j < PATHS.length; j++) {
+			if (bw.getPropertyValue(PATHS[j]) == null)
+				throw new TestFailedException("No value for property path '" + PATHS[j] + "'");
+		}
+	}
+
+}
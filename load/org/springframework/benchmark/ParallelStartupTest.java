@@ -0,0 +1,113 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Measures pre-instantiation of singletons whose initialization waits
+ * for external resources, like JNDI lookups or building a Hibernate
+ * SessionFactory. Each bean refers to the bean registered before it
+ * within its chain, so chains are independent of each other.
+ * Compare preInstantiationThreads values: see scripts/parallelStartup.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class ParallelStartupTest extends AbstractTest {
+
+	private int beanCount = 40;
+
+	private int chainLength = 4;
+
+	private long initDelay = 20;
+
+	private int preInstantiationThreads = 1;
+
+	/**
+	 * Set the number of singletons. Default is 40.
+	 */
+	public void setBeanCount(int beanCount) {
+		this.beanCount = beanCount;
+	}
+
+	/**
+	 * Set the number of singletons in each chain of references. Default is 4.
+	 */
+	public void setChainLength(int chainLength) {
+		this.chainLength = chainLength;
+	}
+
+	/**
+	 * Set the time each singleton takes to initialize, in milliseconds.
+	 * Default is 20.
+	 */
+	public void setInitDelay(long initDelay) {
+		this.initDelay = initDelay;
+	}
+
+	public void setPreInstantiationThreads(int preInstantiationThreads) {
+		this.preInstantiationThreads = preInstantiationThreads;
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.setPreInstantiationThreads(this.preInstantiationThreads);
+		for (int j = 0; j < this.beanCount; j++) {
+			MutablePropertyValues pvs = new MutablePropertyValues();
+			pvs.addPropertyValue("initDelay", new Long(this.initDelay));
+			if (j % this.chainLength != 0) {
+				pvs.addPropertyValue("previous", new RuntimeBeanReference("bean" + (j - 1)));
+			}
+			bf.registerBeanDefinition("bean" + j, new RootBeanDefinition(SlowInitBean.class, pvs));
+		}
+		bf.preInstantiateSingletons();
+		SlowInitBean last = (SlowInitBean) bf.getBean("bean" + (this.beanCount - 1));
+		if (!last.isInitialized() || (last.getPrevious() != null && !last.getPrevious().isInitialized()))
+			throw new TestFailedException("Beans should have been initialized");
+	}
+
+
+	public static class SlowInitBean implements InitializingBean {
+
+		private long initDelay;
+
+		private SlowInitBean previous;
+
+		private boolean initialized;
+
+		public void setInitDelay(long initDelay) {
+			this.initDelay = initDelay;
+		}
+
+		public void setPrevious(SlowInitBean previous) {
+			this.previous = previous;
+		}
+
+		public SlowInitBean getPrevious() {
+			return previous;
+		}
+
+		public void afterPropertiesSet() throws InterruptedException {
+			Thread.sleep(this.initDelay);
+			this.initialized = true;
+		}
+
+		public boolean isInitialized() {
+			return initialized;
+		}
+	}
+
+}
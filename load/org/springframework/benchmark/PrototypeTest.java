@@ -7,18 +7,29 @@ import org.springframework.load.AbortTestException;
 import org.springframework.load.TestFailedException;
 
 /**
- * 
+ * Repeatedly gets a prototype from beans.xml. Use the prototypeName
+ * property to test child definitions with deep parent chains.
+ * See scripts/prototype.properties.
  * @author Rod Johnson
  */
 public class PrototypeTest extends AbstractBeansTest {
 	
-		
+	private String prototypeName = "testPrototype";
+
+	/**
+	 * Set the name of the prototype bean to get. Default is "testPrototype".
+	 */
+	public void setPrototypeName(String prototypeName) {
+		this.prototypeName = prototypeName;
+	}
 
 	/**
 	 * @see org.springframework.load.AbstractTest#runPass(int)
 	 */
 	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
-		TestBean singleton = (TestBean) bf.getBean("testPrototype");
+		TestBean prototype = (TestBean) bf.getBean(this.prototypeName);
+		if (prototype.getAge() != 33)
+			throw new TestFailedException("Age should have been 33");
 	}
 
 
@@ -0,0 +1,62 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.framework.ThreadLocalMethodInvocationFactory;
+
+/**
+ * ManyAdviceStaticAopTest using a JDK dynamic proxy, optionally recycling
+ * MethodInvocations. Reports the number of MethodInvocations allocated,
+ * which should be close to the number of threads when recycling.
+ * See scripts/recyclingInvocation.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class RecyclingInvocationAopTest extends ManyAdviceStaticAopTest {
+
+	private boolean recycle;
+
+	private ThreadLocalMethodInvocationFactory methodInvocationFactory;
+
+	/**
+	 * Set whether to recycle MethodInvocations through a
+	 * ThreadLocalMethodInvocationFactory.
+	 */
+	public void setRecycle(boolean recycle) {
+		this.recycle = recycle;
+	}
+
+	/**
+	 * @see org.springframework.benchmark.StaticAopTest#addFurtherAdvice(org.springframework.aop.framework.ProxyFactory)
+	 */
+	protected void addFurtherAdvice(ProxyFactory pf) {
+		super.addFurtherAdvice(pf);
+		pf.setProxyTargetClass(false);
+		// Always count allocations, even if not recycling
+		this.methodInvocationFactory = new ThreadLocalMethodInvocationFactory();
+		pf.setMethodInvocationFactory(this.methodInvocationFactory);
+		if (!this.recycle) {
+			// Interceptors not tagged as NonRetainingInterceptor disable recycling
+			pf.addInterceptor(0, new UntaggedNopInterceptor());
+		}
+	}
+
+	public String toString() {
+		return super.toString() + "\tinvocationsCreated=" + this.methodInvocationFactory.getInvocationsCreated();
+	}
+
+
+	private static class UntaggedNopInterceptor implements MethodInterceptor {
+
+		public Object invoke(MethodInvocation mi) throws Throwable {
+			return mi.proceed();
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Exports a large table through a RowCallbackHandler, with the fetch size
+ * and maximum number of rows of the JdbcTemplate configurable.
+ * <p>Each test instance uses its own connection, as some drivers keep
+ * statement settings per connection. The table is created by the first
+ * test instance; an in-memory database lives as long as any connection
+ * to it is open.
+ * <p>The first pass prints the highest heap increase observed during the
+ * export. As the heap is shared, this figure is only meaningful with a
+ * single thread. See scripts/resultExport.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class ResultExportTest extends AbstractTest implements InitializingBean {
+
+	private static final String TABLE_NAME = "EXPORT_ROWS";
+
+	private static final Object SETUP_MONITOR = new Object();
+
+	private String driverClassName = "org.hsqldb.jdbcDriver";
+
+	private String url = "jdbc:hsqldb:.";
+
+	private int rowCount = 200000;
+
+	private int fetchSize;
+
+	private int maxRows;
+
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Set the JDBC driver class. Default is HSQLDB.
+	 */
+	public void setDriverClassName(String driverClassName) {
+		this.driverClassName = driverClassName;
+	}
+
+	/**
+	 * Set the JDBC URL. Default is an in-memory HSQLDB database.
+	 */
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	/**
+	 * Set the number of rows in the table. Default is 200000.
+	 */
+	public void setRowCount(int rowCount) {
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * @see JdbcTemplate#setFetchSize
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * @see JdbcTemplate#setMaxRows
+	 */
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows;
+	}
+
+	public void afterPropertiesSet() {
+		this.jdbcTemplate = new JdbcTemplate(
+				new SingleConnectionDataSource(this.driverClassName, this.url, "sa", "", true));
+		synchronized (SETUP_MONITOR) {
+			try {
+				this.jdbcTemplate.queryForInt("SELECT COUNT(*) FROM " + TABLE_NAME);
+			}
+			catch (DataAccessException ex) {
+				createTable(this.jdbcTemplate);
+			}
+		}
+		this.jdbcTemplate.setFetchSize(this.fetchSize);
+		this.jdbcTemplate.setMaxRows(this.maxRows);
+	}
+
+	private void createTable(JdbcTemplate setupTemplate) {
+		setupTemplate.execute("CREATE TABLE " + TABLE_NAME + " (ID INTEGER, NAME VARCHAR, AMOUNT DOUBLE)");
+		final int batchSize = 1000;
+		for (int i = 0; i < this.rowCount; i += batchSize) {
+			final int firstId = i;
+			setupTemplate.batchUpdate("INSERT INTO " + TABLE_NAME + " VALUES (?, ?, ?)",
+					new BatchPreparedStatementSetter() {
+						public void setValues(PreparedStatement ps, int i) throws SQLException {
+							ps.setInt(1, firstId + i);
+							ps.setString(2, "customer" + (firstId + i));
+							ps.setDouble(3, (firstId + i) * 0.01);
+						}
+						public int getBatchSize() {
+							return batchSize;
+						}
+					});
+		}
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		final Runtime runtime = Runtime.getRuntime();
+		final boolean measure = (i == 0);
+		if (measure) {
+			System.gc();
+		}
+		final long baseline = runtime.totalMemory() - runtime.freeMemory();
+		final long[] peak = new long[1];
+		final int[] count = new int[1];
+		this.jdbcTemplate.query("SELECT ID, NAME, AMOUNT FROM " + TABLE_NAME, new RowCallbackHandler() {
+			public void processRow(ResultSet rs) throws SQLException {
+				rs.getInt(1);
+				rs.getString(2);
+				rs.getDouble(3);
+				if (++count[0] % 10000 == 0 && measure) {
+					peak[0] = Math.max(peak[0], runtime.totalMemory() - runtime.freeMemory() - baseline);
+				}
+			}
+		});
+		int expected = (this.maxRows > 0 ? Math.min(this.maxRows, this.rowCount) : this.rowCount);
+		if (count[0] != expected) {
+			throw new TestFailedException("Expected " + expected + " rows but exported " + count[0]);
+		}
+		if (measure) {
+			System.out.println("Heap increase while exporting " + count[0] + " rows with fetchSize=" +
+					this.fetchSize + ", maxRows=" + this.maxRows + ": up to " + (peak[0] / 1024) + " KB");
+		}
+	}
+
+}
@@ -0,0 +1,193 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Measures JdbcTemplate.queryForList with its ColumnIndexedMap rows,
+ * or with a HashMap per row as before, on a large in-memory result set.
+ * The result set is a dynamic proxy returning the same value objects
+ * for every row, so that only the row containers are measured.
+ * <p>The first pass prints the heap retained by the list of rows.
+ * See scripts/rowMapList.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class RowMapListTest extends AbstractTest {
+
+	private static final String SQL = "SELECT * FROM REPORT";
+
+	private int rows = 100000;
+
+	private int columns = 20;
+
+	private boolean hashMaps;
+
+	/**
+	 * Set the number of rows of the result set. Default is 100000.
+	 */
+	public void setRows(int rows) {
+		this.rows = rows;
+	}
+
+	/**
+	 * Set the number of columns of the result set. Default is 20.
+	 */
+	public void setColumns(int columns) {
+		this.columns = columns;
+	}
+
+	/**
+	 * Set whether to build a HashMap per row, as queryForList used to do,
+	 * rather than calling queryForList. Default is false.
+	 */
+	public void setHashMaps(boolean hashMaps) {
+		this.hashMaps = hashMaps;
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		JdbcTemplate template = new JdbcTemplate(createDataSource());
+		Runtime runtime = Runtime.getRuntime();
+		boolean measure = (i == 0);
+		long baseline = 0;
+		if (measure) {
+			System.gc();
+			baseline = runtime.totalMemory() - runtime.freeMemory();
+		}
+		List result = (this.hashMaps ? queryForHashMaps(template) : template.queryForList(SQL));
+		if (result.size() != this.rows || ((Map) result.get(this.rows - 1)).get("COLUMN_1") == null) {
+			throw new TestFailedException("Unexpected result with " + result.size() + " rows");
+		}
+		if (measure) {
+			System.gc();
+			long retained = runtime.totalMemory() - runtime.freeMemory() - baseline;
+			System.out.println((this.hashMaps ? "HashMap" : "ColumnIndexedMap") + " rows for " + this.rows + "x" +
+					this.columns + " result: " + (retained / 1024) + " KB, " + (retained / this.rows) + " bytes per row");
+			// keep the result reachable until measured
+			result.clear();
+		}
+	}
+
+	/**
+	 * Build the rows the way queryForList used to.
+	 */
+	private List queryForHashMaps(JdbcTemplate template) {
+		final List listOfRows = new ArrayList();
+		template.query(SQL, new RowCallbackHandler() {
+			public void processRow(ResultSet rs) throws SQLException {
+				ResultSetMetaData rsmd = rs.getMetaData();
+				int numberOfColumns = rsmd.getColumnCount();
+				Map mapOfColValues = new HashMap(numberOfColumns);
+				for (int i = 1; i <= numberOfColumns; i++) {
+					mapOfColValues.put(rsmd.getColumnName(i), rs.getObject(i));
+				}
+				listOfRows.add(mapOfColValues);
+			}
+		});
+		return listOfRows;
+	}
+
+	private DataSource createDataSource() {
+		final Object[] values = new Object[this.columns];
+		final String[] columnNames = new String[this.columns];
+		for (int i = 0; i < this.columns; i++) {
+			values[i] = (i % 2 == 0 ? (Object) new Integer(i) : "value" + i);
+			columnNames[i] = "COLUMN_" + (i + 1);
+		}
+		final ResultSetMetaData rsmd = (ResultSetMetaData) createProxy(ResultSetMetaData.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getColumnCount")) {
+					return new Integer(columns);
+				}
+				if (method.getName().equals("getColumnName")) {
+					return columnNames[((Integer) args[0]).intValue() - 1];
+				}
+				return defaultValue(method);
+			}
+		});
+		final InvocationHandler resultSetHandler = new InvocationHandler() {
+			private int row;
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("next")) {
+					return new Boolean(++this.row <= rows);
+				}
+				if (method.getName().equals("getObject")) {
+					return values[((Integer) args[0]).intValue() - 1];
+				}
+				if (method.getName().equals("getMetaData")) {
+					return rsmd;
+				}
+				return defaultValue(method);
+			}
+		};
+		final Statement stmt = (Statement) createProxy(Statement.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("executeQuery")) {
+					return createProxy(ResultSet.class, resultSetHandler);
+				}
+				return defaultValue(method);
+			}
+		});
+		final Connection con = (Connection) createProxy(Connection.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("createStatement")) {
+					return stmt;
+				}
+				return defaultValue(method);
+			}
+		});
+		return (DataSource) createProxy(DataSource.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getConnection")) {
+					return con;
+				}
+				return defaultValue(method);
+			}
+		});
+	}
+
+	private static Object createProxy(Class interfaceClass, InvocationHandler handler) {
+		return Proxy.newProxyInstance(RowMapListTest.class.getClassLoader(), new Class[] {interfaceClass}, handler);
+	}
+
+	private static Object defaultValue(Method method) {
+		Class returnType = method.getReturnType();
+		if (returnType == boolean.class) {
+			return Boolean.FALSE;
+		}
+		if (returnType == int.class) {
+			return new Integer(0);
+		}
+		if (returnType == long.class) {
+			return new Long(0);
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,256 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Maps the rows of an in-memory HSQLDB table to beans, either manually,
+ * through a BeanPropertyRowMapper, or through a BeanWrapper per row with
+ * the column-to-property matching precomputed.
+ * See scripts/rowMapping.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class RowMappingTest extends AbstractTest implements InitializingBean {
+
+	public static final String MANUAL = "manual";
+
+	public static final String ROW_MAPPER = "rowMapper";
+
+	public static final String BEAN_WRAPPER = "beanWrapper";
+
+	private static final String TABLE_NAME = "CUSTOMERS";
+
+	private static final Object SETUP_MONITOR = new Object();
+
+	private int rowCount = 10000;
+
+	private String mapping = ROW_MAPPER;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private RowMapper rowMapper;
+
+	/**
+	 * Set the number of rows in the table. Default is 10000.
+	 */
+	public void setRowCount(int rowCount) {
+		this.rowCount = rowCount;
+	}
+
+	/**
+	 * Set how to map rows: "manual", "rowMapper" or "beanWrapper".
+	 * Default is "rowMapper".
+	 */
+	public void setMapping(String mapping) {
+		this.mapping = mapping;
+	}
+
+	public void afterPropertiesSet() {
+		this.jdbcTemplate = new JdbcTemplate(
+				new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true));
+		synchronized (SETUP_MONITOR) {
+			try {
+				this.jdbcTemplate.queryForInt("SELECT COUNT(*) FROM " + TABLE_NAME);
+			}
+			catch (DataAccessException ex) {
+				createTable();
+			}
+		}
+		if (MANUAL.equals(this.mapping)) {
+			this.rowMapper = new ManualRowMapper();
+		}
+		else if (ROW_MAPPER.equals(this.mapping)) {
+			this.rowMapper = new BeanPropertyRowMapper(Customer.class);
+		}
+		else if (BEAN_WRAPPER.equals(this.mapping)) {
+			this.rowMapper = new BeanWrapperRowMapper();
+		}
+		else {
+			throw new IllegalArgumentException("Unknown mapping '" + this.mapping + "'");
+		}
+	}
+
+	private void createTable() {
+		this.jdbcTemplate.execute("CREATE TABLE " + TABLE_NAME + " (ID INTEGER, FIRST_NAME VARCHAR, " +
+				"LAST_NAME VARCHAR, CITY VARCHAR, BALANCE DOUBLE, CREATED TIMESTAMP)");
+		final int batchSize = 1000;
+		final Timestamp created = new Timestamp(System.currentTimeMillis());
+		for (int i = 0; i < this.rowCount; i += batchSize) {
+			final int firstId = i;
+			this.jdbcTemplate.batchUpdate("INSERT INTO " + TABLE_NAME + " VALUES (?, ?, ?, ?, ?, ?)",
+					new BatchPreparedStatementSetter() {
+						public void setValues(PreparedStatement ps, int i) throws SQLException {
+							ps.setInt(1, firstId + i);
+							ps.setString(2, "first" + (firstId + i));
+							ps.setString(3, "last" + (firstId + i));
+							ps.setString(4, "city" + (i % 100));
+							ps.setDouble(5, (firstId + i) * 0.01);
+							ps.setTimestamp(6, created);
+						}
+						public int getBatchSize() {
+							return batchSize;
+						}
+					});
+		}
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		final Customer[] last = new Customer[1];
+		final int[] count = new int[1];
+		this.jdbcTemplate.query("SELECT ID, FIRST_NAME, LAST_NAME, CITY, BALANCE, CREATED FROM " + TABLE_NAME,
+				new RowCallbackHandler() {
+					public void processRow(ResultSet rs) throws SQLException {
+						last[0] = (Customer) rowMapper.mapRow(rs, count[0]++);
+					}
+				});
+		if (count[0] != this.rowCount || last[0].getLastName() == null || last[0].getCreated() == null) {
+			throw new TestFailedException("Unexpected result of " + count[0] + " rows");
+		}
+	}
+
+
+	private static class ManualRowMapper implements RowMapper {
+
+		public Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+			Customer customer = new Customer();
+			customer.setId(rs.getInt("ID"));
+			customer.setFirstName(rs.getString("FIRST_NAME"));
+			customer.setLastName(rs.getString("LAST_NAME"));
+			customer.setCity(rs.getString("CITY"));
+			customer.setBalance(rs.getDouble("BALANCE"));
+			customer.setCreated(rs.getTimestamp("CREATED"));
+			return customer;
+		}
+	}
+
+
+	private static class BeanWrapperRowMapper implements RowMapper {
+
+		private String[] propertyNames;
+
+		public Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+			if (rowNum == 0) {
+				ResultSetMetaData rsmd = rs.getMetaData();
+				String[] propertyNames = new String[rsmd.getColumnCount()];
+				for (int i = 0; i < propertyNames.length; i++) {
+					propertyNames[i] = toPropertyName(rsmd.getColumnName(i + 1));
+				}
+				this.propertyNames = propertyNames;
+			}
+			Customer customer = new Customer();
+			BeanWrapper bw = new BeanWrapperImpl(customer);
+			for (int i = 0; i < this.propertyNames.length; i++) {
+				bw.setPropertyValue(this.propertyNames[i], rs.getObject(i + 1));
+			}
+			return customer;
+		}
+
+		private static String toPropertyName(String columnName) {
+			StringBuffer sb = new StringBuffer();
+			boolean upperCase = false;
+			for (int i = 0; i < columnName.length(); i++) {
+				char ch = columnName.charAt(i);
+				if (ch == '_') {
+					upperCase = true;
+				}
+				else {
+					sb.append(upperCase ? Character.toUpperCase(ch) : Character.toLowerCase(ch));
+					upperCase = false;
+				}
+			}
+			return sb.toString();
+		}
+	}
+
+
+	public static class Customer {
+
+		private int id;
+
+		private String firstName;
+
+		private String lastName;
+
+		private String city;
+
+		private double balance;
+
+		private Date created;
+
+		public int getId() {
+			return id;
+		}
+
+		public void setId(int id) {
+			this.id = id;
+		}
+
+		public String getFirstName() {
+			return firstName;
+		}
+
+		public void setFirstName(String firstName) {
+			this.firstName = firstName;
+		}
+
+		public String getLastName() {
+			return lastName;
+		}
+
+		public void setLastName(String lastName) {
+			this.lastName = lastName;
+		}
+
+		public String getCity() {
+			return city;
+		}
+
+		public void setCity(String city) {
+			this.city = city;
+		}
+
+		public double getBalance() {
+			return balance;
+		}
+
+		public void setBalance(double balance) {
+			this.balance = balance;
+		}
+
+		public Date getCreated() {
+			return created;
+		}
+
+		public void setCreated(Date created) {
+			this.created = created;
+		}
+	}
+
+}
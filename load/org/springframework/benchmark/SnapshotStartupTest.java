@@ -0,0 +1,109 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.beans.TestBean;
+import org.springframework.context.support.AbstractXmlApplicationContext;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Measures the startup of a context with a large config file, either
+ * parsing the file each time or restoring the bean definitions from a
+ * snapshot. The first pass writes the snapshot, all later passes read it.
+ * All beans are lazy, so each pass only loads the bean definitions.
+ * See scripts/snapshot.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class SnapshotStartupTest extends AbstractTest {
+
+	private int beanCount = 6000;
+
+	private boolean snapshot;
+
+	private File configFile;
+
+	private File snapshotFile;
+
+	/**
+	 * Set the number of beans in the generated config file. Default is 6000.
+	 */
+	public void setBeanCount(int beanCount) {
+		this.beanCount = beanCount;
+	}
+
+	/**
+	 * Set whether to use a bean definition snapshot. Default is false.
+	 * @see AbstractXmlApplicationContext#setBeanDefinitionSnapshotFile
+	 */
+	public void setSnapshot(boolean snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		final String[] configLocations = new String[] {getConfigFile().toURL().toString()};
+		AbstractXmlApplicationContext ac = new AbstractXmlApplicationContext() {
+			protected String[] getConfigLocations() {
+				return configLocations;
+			}
+		};
+		if (this.snapshot) {
+			ac.setBeanDefinitionSnapshotFile(getSnapshotFile());
+		}
+		ac.refresh();
+		assertEquals("All bean definitions registered", this.beanCount, ac.getBeanDefinitionCount());
+		ac.close();
+	}
+
+	private synchronized File getSnapshotFile() throws IOException {
+		if (this.snapshotFile == null) {
+			this.snapshotFile = File.createTempFile("beanDefinitions", ".snapshot");
+			this.snapshotFile.delete();
+			this.snapshotFile.deleteOnExit();
+		}
+		return this.snapshotFile;
+	}
+
+	private synchronized File getConfigFile() throws IOException {
+		if (this.configFile == null) {
+			String className = TestBean.class.getName();
+			StringBuffer sb = new StringBuffer();
+			sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			sb.append("<!DOCTYPE beans PUBLIC \"-//SPRING//DTD BEAN//EN\" \"http://www.springframework.org/dtd/spring-beans.dtd\">\n");
+			sb.append("<beans default-lazy-init=\"true\">\n");
+			for (int i = 0; i < this.beanCount; i++) {
+				sb.append("\t<bean id=\"bean").append(i).append("\" class=\"").append(className).append("\">\n");
+				sb.append("\t\t<property name=\"name\"><value>name").append(i).append("</value></property>\n");
+				sb.append("\t\t<property name=\"age\"><value>").append(i % 100).append("</value></property>\n");
+				sb.append("\t\t<property name=\"spouse\"><ref local=\"bean0\"/></property>\n");
+				sb.append("\t\t<property name=\"friends\"><list><ref bean=\"bean0\"/><value>friend</value></list></property>\n");
+				sb.append("\t</bean>\n");
+			}
+			sb.append("</beans>\n");
+			this.configFile = File.createTempFile("startup", ".xml");
+			this.configFile.deleteOnExit();
+			OutputStream out = new FileOutputStream(this.configFile);
+			try {
+				out.write(sb.toString().getBytes());
+			}
+			finally {
+				out.close();
+			}
+		}
+		return this.configFile;
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.StatementCachingDataSource;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs a transaction of 50 prepared statements, 10 executions of each of
+ * 5 distinct statements, against an in-memory HSQLDB table, with or without
+ * a StatementCachingDataSource. Each test instance uses its own connection
+ * and table. See scripts/statementCache.properties.
+ * @author agent
+ * @version $Id$
+ */
+public class StatementCacheTest extends AbstractTest implements InitializingBean {
+
+	private static final int ROWS = 100;
+
+	private static int tableCount;
+
+	private boolean cacheStatements;
+
+	private String tableName;
+
+	private StatementCachingDataSource cachingDataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private TransactionTemplate transactionTemplate;
+
+	/**
+	 * Set whether to cache statements through a StatementCachingDataSource.
+	 * Default is false.
+	 */
+	public void setCacheStatements(boolean cacheStatements) {
+		this.cacheStatements = cacheStatements;
+	}
+
+	public void afterPropertiesSet() {
+		synchronized (StatementCacheTest.class) {
+			this.tableName = "STATEMENT_CACHE_" + (tableCount++);
+		}
+		DataSource dataSource =
+				new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true);
+		if (this.cacheStatements) {
+			this.cachingDataSource = new StatementCachingDataSource(dataSource);
+			dataSource = this.cachingDataSource;
+		}
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.execute("CREATE TABLE " + this.tableName + " (ID INTEGER, NAME VARCHAR, AMOUNT DOUBLE)");
+		for (int i = 0; i < ROWS; i++) {
+			this.jdbcTemplate.update("INSERT INTO " + this.tableName + " VALUES (?, ?, ?)",
+					new Object[] {new Integer(i), "name" + i, new Double(i)});
+		}
+		this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		final int firstId = (i * 10) % ROWS;
+		if (this.cachingDataSource != null) {
+			this.cachingDataSource.resetCounts();
+		}
+		this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				for (int j = 0; j < 10; j++) {
+					Object[] id = new Object[] {new Integer(firstId + j)};
+					jdbcTemplate.queryForInt("SELECT COUNT(*) FROM " + tableName + " WHERE ID = ?", id);
+					jdbcTemplate.queryForList("SELECT ID, NAME, AMOUNT FROM " + tableName + " WHERE ID = ?", id);
+					jdbcTemplate.queryForInt("SELECT COUNT(*) FROM " + tableName + " WHERE NAME = ? AND ID > ?",
+							new Object[] {"name" + (firstId + j), new Integer(0)});
+					jdbcTemplate.update("UPDATE " + tableName + " SET AMOUNT = AMOUNT + 1 WHERE ID = ?", id);
+					jdbcTemplate.update("UPDATE " + tableName + " SET NAME = ? WHERE ID = ?",
+							new Object[] {"name" + (firstId + j), id[0]});
+				}
+			}
+		});
+		if (this.cachingDataSource != null &&
+				(this.cachingDataSource.getHitCount() != 45 || this.cachingDataSource.getMissCount() != 5)) {
+			throw new TestFailedException("Expected 45 hits and 5 misses, but got " +
+					this.cachingDataSource.getHitCount() + " hits and " + this.cachingDataSource.getMissCount() +
+					" misses");
+		}
+	}
+
+}
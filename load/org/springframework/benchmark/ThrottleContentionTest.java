@@ -0,0 +1,78 @@
+/*
+ * The Spring Framework is published under the terms
+ * of the Apache Software License.
+ */
+
+package org.springframework.benchmark;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.interceptor.ConcurrencyThrottleInterceptor;
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.load.AbortTestException;
+import org.springframework.load.AbstractTest;
+import org.springframework.load.TestFailedException;
+
+/**
+ * Measures throughput of a concurrency throttle shared by all instances
+ * of this test, so that every thread running the test contends for the
+ * same permits. Each test instance proxies its own target with the shared
+ * throttle. See scripts/throttle*.properties, which compare the
+ * ConcurrencyThrottleInterceptor against the original monitor-based
+ * implementation at different thread counts.
+ * @author agent
+ * @version $Id$
+ */
+public class ThrottleContentionTest extends AbstractTest implements InitializingBean {
+
+	private MethodInterceptor throttle;
+
+	private int callsPerPass = 100;
+
+	private ITestBean advised;
+
+	/**
+	 * Set the throttle interceptor to share. Should be a reference
+	 * to a singleton bean.
+	 */
+	public void setThrottle(MethodInterceptor throttle) {
+		this.throttle = throttle;
+	}
+
+	/**
+	 * Set the number of proxy invocations in each pass.
+	 */
+	public void setCallsPerPass(int callsPerPass) {
+		this.callsPerPass = callsPerPass;
+	}
+
+	public void afterPropertiesSet() {
+		TestBean target = new TestBean();
+		target.setAge(21);
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.addInterceptor(this.throttle);
+		this.advised = (ITestBean) pf.getProxy();
+	}
+
+	/**
+	 * @see org.springframework.load.AbstractTest#runPass(int)
+	 */
+	protected void runPass(int i) throws TestFailedException, AbortTestException, Exception {
+		for (int j = 0; j < this.callsPerPass; j++) {
+			if (this.advised.getAge() != 21)
+				throw new TestFailedException("Age should have been 21");
+		}
+	}
+
+	public String toString() {
+		if (this.throttle instanceof ConcurrencyThrottleInterceptor) {
+			ConcurrencyThrottleInterceptor cti = (ConcurrencyThrottleInterceptor) this.throttle;
+			return super.toString() + "\tpeakConcurrency=" + cti.getPeakConcurrency() +
+					"\trejected=" + cti.getRejectedCount();
+		}
+		return super.toString();
+	}
+
+}
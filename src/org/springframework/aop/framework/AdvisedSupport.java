@@ -104,13 +104,15 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	
 	protected AdvisorChainFactory advisorChainFactory;
 	
+	/** Invokers for target methods, used by proxies instead of reflection */
+	final MethodInvokerCache methodInvokerCache = new MethodInvokerCache();
+	
 
 	/**
 	 * No arg constructor to allow use as a Java bean.
 	 */
 	public AdvisedSupport() {
-		setAdvisorChainFactory(new HashMapCachingAdvisorChainFactory());
-		//setMethodInvocationFactory(new SimpleMethodInvocationFactory());
+		setAdvisorChainFactory(new ConcurrentCachingAdvisorChainFactory());
 	}
 	
 	/**
@@ -150,6 +152,10 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	}
 	
 	public void setAdvisorChainFactory(AdvisorChainFactory advisorChainFactory) {
+		if (this.advisorChainFactory != null) {
+			// The replaced factory no longer needs to hear about advice changes
+			removeListener(this.advisorChainFactory);
+		}
 		this.advisorChainFactory = advisorChainFactory;
 		addListener(advisorChainFactory);
 	}
@@ -162,13 +168,19 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	}
 	
 	/**
-	 * @return Returns the methodInvocationFactory.
+	 * Return the MethodInvocationFactory used by JDK dynamic proxies,
+	 * or null if a new MethodInvocation is created for each call.
 	 */
 	public final MethodInvocationFactory getMethodInvocationFactory() {
 		return this.methodInvocationFactory;
 	}
+	
 	/**
-	 * @param methodInvocationFactory The methodInvocationFactory to set.
+	 * Set a MethodInvocationFactory for JDK dynamic proxies to obtain
+	 * and release MethodInvocations from, for example a
+	 * ThreadLocalMethodInvocationFactory to avoid allocating an invocation
+	 * on each call. Default is none. CGLIB proxies ignore this setting.
+	 * @see ThreadLocalMethodInvocationFactory
 	 */
 	public void setMethodInvocationFactory(MethodInvocationFactory methodInvocationFactory) {
 		this.methodInvocationFactory = methodInvocationFactory;
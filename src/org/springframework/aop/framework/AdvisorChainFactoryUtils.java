@@ -44,8 +44,8 @@ public abstract class AdvisorChainFactoryUtils {
 	 * @param proxy
 	 * @param method
 	 * @param targetClass
-	 * @return list of MethodInterceptor and InterceptionAdvice (if there's a dynamic
-	 * method matcher that needs evaluation at runtime)
+	 * @return immutable InterceptorChain of MethodInterceptor and InterceptionAdvice
+	 * (if there's a dynamic method matcher that needs evaluation at runtime)
 	 */
 	public static List calculateInterceptorsAndDynamicInterceptionAdvice(Advised config, Object proxy, Method method, Class targetClass) {
 		List interceptors = new ArrayList(config.getAdvisors().length);
@@ -77,7 +77,7 @@ public abstract class AdvisorChainFactoryUtils {
 				}
 			}
 		}	// for
-		return interceptors;
+		return new InterceptorChain(interceptors);
 	}	// calculateInterceptorsAndDynamicInterceptionAdvice
 	
 	
@@ -72,6 +72,35 @@ public abstract class AopProxyUtils {
 		 }
 	}
 	
+	/**
+	 * Invoke the given target via the given MethodInvokerCache,
+	 * rather than plain reflection where possible.
+	 * @param invokerCache cache of method invokers to use
+	 * @param target the target object
+	 * @param m the method to invoke
+	 * @param args the arguments for the method
+	 * @throws Throwable if thrown by the target method
+	 * @throws AspectException if encountering a reflection error
+	 * @see #invokeJoinpointUsingReflection
+	 */
+	public static Object invokeJoinpoint(MethodInvokerCache invokerCache, Object target, Method m, Object[] args)
+			throws Throwable {
+		try {
+			return invokerCache.invoke(m, target, args);
+		}
+		catch (InvocationTargetException ex) {
+			// Invoked method threw a checked exception. 
+			// We must rethrow it. The client won't see the interceptor.
+			throw ex.getTargetException();
+		}
+		catch (IllegalArgumentException ex) {
+			throw new AspectException("AOP configuration seems to be invalid: tried calling " + m + " on [" + target + "]: " +  ex);
+		}
+		catch (IllegalAccessException ex) {
+			throw new AspectException("Couldn't access method " + m, ex);
+		}
+	}
+	
 	/**
 	 * Note the same as equality of the AdvisedSupport objects.
 	 */
@@ -137,8 +137,15 @@ class Cglib2AopProxy implements AopProxy, MethodInterceptor, CallbackFilter {
 			}
 			else {
 				// We need to create a method invocation...
-				invocation = new MethodInvocationImpl(proxy, target, method, args, 
-							targetClass, chain, methodProxy);
+				if (chain instanceof InterceptorChain && ((InterceptorChain) chain).isStatic()) {
+					// No dynamic method matchers: no need to check the chain's element types
+					invocation = new StaticChainMethodInvocationImpl(proxy, target, method, args,
+								targetClass, (InterceptorChain) chain, methodProxy);
+				}
+				else {
+					invocation = new MethodInvocationImpl(proxy, target, method, args, 
+								targetClass, chain, methodProxy);
+				}
 				
 				// If we get here, we need to create a MethodInvocation
 				retVal = invocation.proceed();
@@ -393,4 +400,26 @@ class Cglib2AopProxy implements AopProxy, MethodInterceptor, CallbackFilter {
 		}
 	}
 
+
+	/**
+	 * Like MethodInvocationImpl, for use with a chain of static interceptors
+	 */
+	private static class StaticChainMethodInvocationImpl extends StaticChainMethodInvocation {
+
+		private MethodProxy methodProxy;
+
+		public StaticChainMethodInvocationImpl(Object proxy, Object target, Method m, Object[] arguments, Class targetClass,
+				InterceptorChain chain, MethodProxy methodProxy) {
+			super(proxy, target, m, arguments, targetClass, chain);
+			this.methodProxy = methodProxy;
+		}
+
+		/**
+		 * @see org.springframework.aop.framework.ReflectiveMethodInvocation#invokeJoinpoint()
+		 */
+		protected Object invokeJoinpoint() throws Throwable {
+			return methodProxy.invoke(target, arguments);
+		}
+	}
+
 }
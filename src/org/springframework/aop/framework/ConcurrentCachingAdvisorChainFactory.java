@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.JdkVersion;
+
+/**
+ * Thread-safe AdvisorChainFactory implementation that caches by method
+ * and target class.
+ *
+ * <p>The cache is a copy-on-write map: lookups read an immutable snapshot
+ * through a volatile reference and never acquire a lock on Java 1.5 or later.
+ * Older JVMs don't publish the snapshot safely that way, so lookups read the
+ * reference under the write lock there. A cache miss
+ * calculates the chain while holding the write lock, so each chain is
+ * calculated only once even when several threads miss at the same time.
+ * The new snapshot is published with a single reference assignment.
+ *
+ * <p>On adviceChanged, the current snapshot is atomically replaced by an
+ * empty one and the epoch is incremented. Invocations that already obtained
+ * a chain complete with it; all subsequent lookups see the new advice.
+ *
+ * <p>As proxies normally advise a small, fixed set of methods, the cost of
+ * copying the map on a miss is paid once per method during warm-up.
+ *
+ * @author agent
+ * @version $Id$
+ * @see HashMapCachingAdvisorChainFactory
+ */
+public final class ConcurrentCachingAdvisorChainFactory implements AdvisorChainFactory {
+
+	/** Guards writes to the cache and the epoch */
+	private final Object writeLock = new Object();
+
+	/** Immutable snapshot: MethodCacheKey to List of interceptors */
+	private volatile Map methodCache = Collections.EMPTY_MAP;
+
+	private volatile int epoch;
+
+
+	public List getInterceptorsAndDynamicInterceptionAdvice(Advised config, Object proxy, Method method, Class targetClass) {
+		MethodCacheKey key = new MethodCacheKey(method, targetClass);
+		List cached = (List) getMethodCache().get(key);
+		if (cached == null) {
+			synchronized (this.writeLock) {
+				// Another thread may have calculated the chain while we were waiting
+				cached = (List) this.methodCache.get(key);
+				if (cached == null) {
+					cached = AdvisorChainFactoryUtils.calculateInterceptorsAndDynamicInterceptionAdvice(config, proxy, method, targetClass);
+					Map newCache = new HashMap(this.methodCache);
+					newCache.put(key, cached);
+					this.methodCache = newCache;
+				}
+			}
+		}
+		return cached;
+	}
+
+	/**
+	 * Return the number of chains currently cached.
+	 */
+	public int getCacheSize() {
+		return getMethodCache().size();
+	}
+
+	private Map getMethodCache() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.methodCache;
+		}
+		synchronized (this.writeLock) {
+			return this.methodCache;
+		}
+	}
+
+	/**
+	 * Return the number of times the cache has been invalidated
+	 * because of advice changes.
+	 */
+	public int getEpoch() {
+		return this.epoch;
+	}
+
+
+	/**
+	 * @see org.springframework.aop.framework.AdvisedSupportListener#activated(org.springframework.aop.framework.AdvisedSupport)
+	 */
+	public void activated(AdvisedSupport advisedSupport) {
+	}
+
+	/**
+	 * @see org.springframework.aop.framework.AdvisedSupportListener#adviceChanged(org.springframework.aop.framework.AdvisedSupport)
+	 */
+	public void adviceChanged(AdvisedSupport advisedSupport) {
+		synchronized (this.writeLock) {
+			this.methodCache = Collections.EMPTY_MAP;
+			this.epoch++;
+		}
+	}
+
+
+	/**
+	 * Cache key comparing Method and target class by identity, which skips
+	 * the expensive Method.hashCode() and Method.equals() calls.
+	 */
+	private static final class MethodCacheKey {
+
+		private final Method method;
+
+		private final Class targetClass;
+
+		private final int hashCode;
+
+		public MethodCacheKey(Method method, Class targetClass) {
+			this.method = method;
+			this.targetClass = targetClass;
+			this.hashCode = 29 * System.identityHashCode(method) + System.identityHashCode(targetClass);
+		}
+
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MethodCacheKey)) {
+				return false;
+			}
+			MethodCacheKey otherKey = (MethodCacheKey) other;
+			return (this.method == otherKey.method && this.targetClass == otherKey.targetClass);
+		}
+
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+/**
+ * Immutable, array-based advice chain for one method, as returned by
+ * AdvisorChainFactoryUtils. Compiled once per method and cached by
+ * caching AdvisorChainFactory implementations.
+ *
+ * <p>Implements List for compatibility with the AdvisorChainFactory
+ * contract, but also exposes the chain as an array. If no element needs
+ * dynamic method matching, the chain is also available as a
+ * MethodInterceptor array, allowing proxies to use a
+ * StaticChainMethodInvocation that never needs to check element types.
+ *
+ * @author agent
+ * @version $Id$
+ * @see StaticChainMethodInvocation
+ * @see ReflectiveMethodInvocation
+ */
+public final class InterceptorChain extends AbstractList {
+
+	/** MethodInterceptor and InterceptorAndDynamicMethodMatcher elements */
+	private final Object[] interceptorsAndDynamicMethodMatchers;
+
+	/** Same elements as MethodInterceptors, or null if there are dynamic matchers */
+	private final MethodInterceptor[] staticInterceptors;
+
+	private final boolean invocationRecyclable;
+
+	/**
+	 * Create a new InterceptorChain.
+	 * @param interceptorsAndDynamicMethodMatchers list of MethodInterceptor
+	 * and InterceptorAndDynamicMethodMatcher. Will be copied.
+	 */
+	public InterceptorChain(List interceptorsAndDynamicMethodMatchers) {
+		this.interceptorsAndDynamicMethodMatchers = interceptorsAndDynamicMethodMatchers.toArray();
+		MethodInterceptor[] interceptors = new MethodInterceptor[this.interceptorsAndDynamicMethodMatchers.length];
+		boolean recyclable = true;
+		for (int i = 0; i < this.interceptorsAndDynamicMethodMatchers.length; i++) {
+			Object element = this.interceptorsAndDynamicMethodMatchers[i];
+			MethodInterceptor interceptor = null;
+			if (element instanceof InterceptorAndDynamicMethodMatcher) {
+				interceptor = ((InterceptorAndDynamicMethodMatcher) element).interceptor;
+				interceptors = null;
+			}
+			else {
+				interceptor = (MethodInterceptor) element;
+				if (interceptors != null) {
+					interceptors[i] = interceptor;
+				}
+			}
+			if (!(interceptor instanceof NonRetainingInterceptor)) {
+				recyclable = false;
+			}
+		}
+		this.staticInterceptors = interceptors;
+		this.invocationRecyclable = recyclable;
+	}
+
+	/**
+	 * Return whether this chain contains only static interceptors,
+	 * that is, no advice requiring dynamic method matching.
+	 */
+	public boolean isStatic() {
+		return (this.staticInterceptors != null);
+	}
+
+	/**
+	 * Return the interceptors of an all-static chain.
+	 * Must not be modified by the caller.
+	 * @return the interceptors, or null if this chain is not static
+	 * @see #isStatic
+	 */
+	public MethodInterceptor[] getStaticInterceptors() {
+		return this.staticInterceptors;
+	}
+
+	/**
+	 * Return whether all interceptors in this chain are known not to keep
+	 * a reference to the MethodInvocation after the invocation has completed,
+	 * so that the invocation can be recycled.
+	 * @see NonRetainingInterceptor
+	 */
+	public boolean isInvocationRecyclable() {
+		return this.invocationRecyclable;
+	}
+
+	/**
+	 * Return the MethodInterceptor and InterceptorAndDynamicMethodMatcher
+	 * elements of this chain. Must not be modified by the caller.
+	 */
+	Object[] getInterceptorsAndDynamicMethodMatchers() {
+		return this.interceptorsAndDynamicMethodMatchers;
+	}
+
+	public Object get(int index) {
+		return this.interceptorsAndDynamicMethodMatchers[index];
+	}
+
+	public int size() {
+		return this.interceptorsAndDynamicMethodMatchers.length;
+	}
+
+}
@@ -87,6 +87,7 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler {
 	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
 	
 		MethodInvocation invocation = null;
+		MethodInvocationFactory invocationFactory = null;
 		Object oldProxy = null;
 		boolean setProxyContext = false;
 	
@@ -135,14 +136,26 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler {
 				// We can skip creating a MethodInvocation: just invoke the target directly
 				// Note that the final invoker must be an InvokerInterceptor so we know it does
 				// nothing but a reflective operation on the target, and no hot swapping or fancy proxying
-				retVal = AopProxyUtils.invokeJoinpointUsingReflection(target, method, args);
+				retVal = AopProxyUtils.invokeJoinpoint(this.advised.methodInvokerCache, target, method, args);
 			}
 			else {
 				// We need to create a method invocation...
-				//invocation = advised.getMethodInvocationFactory().getMethodInvocation(proxy, method, targetClass, target, args, chain, advised);
-				
-				invocation = new ReflectiveMethodInvocation(proxy, target,
-									method, args, targetClass, chain);
+				invocationFactory = this.advised.getMethodInvocationFactory();
+				if (invocationFactory != null) {
+					// The factory may recycle invocations: it will get it back in the finally block
+					invocation = invocationFactory.getMethodInvocation(proxy, method, targetClass, target, args, chain, this.advised);
+				}
+				else if (chain instanceof InterceptorChain && ((InterceptorChain) chain).isStatic()) {
+					// No dynamic method matchers: no need to check the chain's element types
+					invocation = new StaticChainMethodInvocationImpl(proxy, target,
+									method, args, targetClass, (InterceptorChain) chain,
+									this.advised.methodInvokerCache);
+				}
+				else {
+					invocation = new MethodInvocationImpl(proxy, target,
+									method, args, targetClass, chain,
+									this.advised.methodInvokerCache);
+				}
 										
 				// Proceed to the joinpoint through the interceptor chain
 				retVal = invocation.proceed();
@@ -168,9 +181,9 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler {
 				AopContext.setCurrentProxy(oldProxy);
 			}
 			
-			//if (invocation != null) {
-			//	advised.getMethodInvocationFactory().release(invocation);
-			//}
+			if (invocationFactory != null && invocation != null) {
+				invocationFactory.release(invocation);
+			}
 		}
 	}
 
@@ -224,4 +237,49 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler {
 		return AopProxyUtils.equalsInProxy(this.advised, aopr2.advised);
 	}
 
+
+	/**
+	 * Implementation of AOP Alliance MethodInvocation used by this AOP proxy
+	 */
+	private static class MethodInvocationImpl extends ReflectiveMethodInvocation {
+
+		private final MethodInvokerCache invokerCache;
+
+		public MethodInvocationImpl(Object proxy, Object target, Method m, Object[] arguments, Class targetClass,
+				List interceptorsAndDynamicMethodMatchers, MethodInvokerCache invokerCache) {
+			super(proxy, target, m, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+			this.invokerCache = invokerCache;
+		}
+
+		/**
+		 * Uses a generated invoker rather than reflection where possible.
+		 * @see org.springframework.aop.framework.ReflectiveMethodInvocation#invokeJoinpoint()
+		 */
+		protected Object invokeJoinpoint() throws Throwable {
+			return AopProxyUtils.invokeJoinpoint(this.invokerCache, target, method, arguments);
+		}
+	}
+
+
+	/**
+	 * Like MethodInvocationImpl, for use with a chain of static interceptors
+	 */
+	private static class StaticChainMethodInvocationImpl extends StaticChainMethodInvocation {
+
+		private final MethodInvokerCache invokerCache;
+
+		public StaticChainMethodInvocationImpl(Object proxy, Object target, Method m, Object[] arguments, Class targetClass,
+				InterceptorChain chain, MethodInvokerCache invokerCache) {
+			super(proxy, target, m, arguments, targetClass, chain);
+			this.invokerCache = invokerCache;
+		}
+
+		/**
+		 * @see org.springframework.aop.framework.ReflectiveMethodInvocation#invokeJoinpoint()
+		 */
+		protected Object invokeJoinpoint() throws Throwable {
+			return AopProxyUtils.invokeJoinpoint(this.invokerCache, target, method, arguments);
+		}
+	}
+
 }
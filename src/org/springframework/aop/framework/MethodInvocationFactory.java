@@ -28,10 +28,20 @@ import org.aopalliance.intercept.MethodInvocation;
  */
 public interface MethodInvocationFactory {
 	
+	/**
+	 * Return a MethodInvocation for the given call, ready to proceed.
+	 * @param interceptorsAndDynamicInterceptionAdvice chain as returned
+	 * by the AdvisorChainFactory
+	 * @param advised configuration of the proxy the call was made through
+	 */
 	MethodInvocation getMethodInvocation(Object proxy, Method method,
 								Class targetClass, Object target, Object[] args, 
 								List interceptorsAndDynamicInterceptionAdvice, AdvisedSupport advised);
 	
+	/**
+	 * Release the given MethodInvocation, obtained from this factory,
+	 * once the call has completed. Invoked on the calling thread.
+	 */
 	void release(MethodInvocation mi);
 	
 
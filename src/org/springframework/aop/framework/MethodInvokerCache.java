@@ -0,0 +1,276 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.cglib.reflect.FastClass;
+import net.sf.cglib.reflect.FastMethod;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.JdkVersion;
+
+/**
+ * Cache of per-Method invokers that avoid java.lang.reflect.Method.invoke.
+ *
+ * <p>If CGLIB is available, invokers are CGLIB FastMethods, which call the
+ * method through generated bytecode indexed by method. One FastClass is
+ * generated per declaring class, on first invocation of one of its methods.
+ * Falls back to plain reflection for non-public methods or classes, if CGLIB
+ * is not present, or if class generation fails, for example because of
+ * security restrictions.
+ *
+ * <p>Invokers are held by this cache instance only, so should be owned by
+ * an object with the same lifecycle as the invoked classes, such as a proxy
+ * configuration or a remote exporter. Lookups don't acquire a lock on
+ * Java 1.5 or later.
+ *
+ * <p>Thrown exceptions have the same semantics as with Method.invoke:
+ * invocations with a target or arguments that generated code cannot pass
+ * on as is, such as null for a primitive parameter or an argument that
+ * needs a widening conversion, are left to Method.invoke, which either
+ * converts them or throws an IllegalArgumentException.
+ *
+ * @author agent
+ * @version $Id$
+ * @see AdvisedSupport
+ * @see org.springframework.remoting.rmi.RmiServiceExporter
+ */
+public class MethodInvokerCache {
+
+	private static final Log logger = LogFactory.getLog(MethodInvokerCache.class);
+
+	/** Marker for methods that must be invoked using reflection */
+	private static final Object USE_REFLECTION = new Object();
+
+	private static boolean cglibAvailable;
+
+	static {
+		try {
+			Class.forName("net.sf.cglib.reflect.FastClass", true, MethodInvokerCache.class.getClassLoader());
+			cglibAvailable = true;
+		}
+		catch (Throwable ex) {
+			logger.info("CGLIB not available: methods will be invoked using reflection");
+			cglibAvailable = false;
+		}
+	}
+
+
+	private final Object writeLock = new Object();
+
+	/** Immutable snapshot: Method to FastInvoker or USE_REFLECTION */
+	private volatile Map invokers = Collections.EMPTY_MAP;
+
+	/** Declaring Class to CGLIB FastClass or USE_REFLECTION, guarded by writeLock */
+	private final Map fastClasses = new HashMap();
+
+
+	/**
+	 * Invoke the given method on the given target.
+	 * @param method method to invoke
+	 * @param target object to invoke the method on
+	 * @param args arguments to the method
+	 * @return the return value of the method, with primitives wrapped
+	 * @throws IllegalAccessException if the method isn't accessible
+	 * @throws IllegalArgumentException if the target or arguments are invalid
+	 * @throws InvocationTargetException if the method itself threw an exception
+	 * @see java.lang.reflect.Method#invoke
+	 */
+	public Object invoke(Method method, Object target, Object[] args)
+			throws IllegalAccessException, InvocationTargetException {
+		Object invoker = getInvokers().get(method);
+		if (invoker == null) {
+			invoker = addInvoker(method);
+		}
+		// Check the target and arguments here: generated code would throw an
+		// InvocationTargetException, where reflection would throw an IllegalArgumentException
+		if (invoker == USE_REFLECTION || !method.getDeclaringClass().isInstance(target) ||
+				!((FastInvoker) invoker).argumentsMatch(args)) {
+			return method.invoke(target, args);
+		}
+		return FastMethodInvoker.invoke(((FastInvoker) invoker).fastMethod, target, args);
+	}
+
+	/**
+	 * Return whether the given method is invoked without reflection.
+	 * Mainly for testing purposes.
+	 */
+	public boolean isGenerated(Method method) {
+		Object invoker = getInvokers().get(method);
+		if (invoker == null) {
+			invoker = addInvoker(method);
+		}
+		return (invoker != USE_REFLECTION);
+	}
+
+	/**
+	 * Return the current invokers. Read under the write lock on pre-1.5 JVMs,
+	 * where the volatile field doesn't publish the map's contents safely.
+	 * @see org.springframework.core.JdkVersion#isJava15MemoryModel
+	 */
+	private Map getInvokers() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.invokers;
+		}
+		synchronized (this.writeLock) {
+			return this.invokers;
+		}
+	}
+
+	private Object addInvoker(Method method) {
+		synchronized (this.writeLock) {
+			Object invoker = this.invokers.get(method);
+			if (invoker == null) {
+				invoker = createInvoker(method);
+				Map newInvokers = new HashMap(this.invokers);
+				newInvokers.put(method, invoker);
+				this.invokers = newInvokers;
+			}
+			return invoker;
+		}
+	}
+
+	/**
+	 * Create an invoker for the given method. Called with the write lock held.
+	 */
+	private Object createInvoker(Method method) {
+		Class declaringClass = method.getDeclaringClass();
+		if (!cglibAvailable || !Modifier.isPublic(method.getModifiers()) ||
+				!Modifier.isPublic(declaringClass.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+			return USE_REFLECTION;
+		}
+		Object fastClass = this.fastClasses.get(declaringClass);
+		if (fastClass == null) {
+			try {
+				fastClass = FastMethodInvoker.createFastClass(declaringClass);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Generated FastClass for [" + declaringClass.getName() + "]");
+				}
+			}
+			catch (Throwable ex) {
+				logger.info("Couldn't generate FastClass for [" + declaringClass.getName() +
+						"]: using reflection to invoke its methods", ex);
+				fastClass = USE_REFLECTION;
+			}
+			this.fastClasses.put(declaringClass, fastClass);
+		}
+		if (fastClass == USE_REFLECTION) {
+			return USE_REFLECTION;
+		}
+		return new FastInvoker(FastMethodInvoker.getFastMethod(fastClass, method), method.getParameterTypes());
+	}
+
+
+	/**
+	 * Generated invoker for a method, with the parameter types
+	 * that arguments must match to be passed on to it.
+	 */
+	private static class FastInvoker {
+
+		private final Object fastMethod;
+
+		/** Parameter types, with wrapper types for primitives */
+		private final Class[] argumentTypes;
+
+		private final boolean[] primitive;
+
+		private FastInvoker(Object fastMethod, Class[] parameterTypes) {
+			this.fastMethod = fastMethod;
+			this.argumentTypes = new Class[parameterTypes.length];
+			this.primitive = new boolean[parameterTypes.length];
+			for (int i = 0; i < parameterTypes.length; i++) {
+				this.primitive[i] = parameterTypes[i].isPrimitive();
+				this.argumentTypes[i] = (this.primitive[i] ? getWrapperType(parameterTypes[i]) : parameterTypes[i]);
+			}
+		}
+
+		/**
+		 * Return whether the given arguments can be passed to generated code
+		 * without conversion: right number, no null for primitive parameters,
+		 * and each argument an instance of its (wrapper) parameter type.
+		 */
+		private boolean argumentsMatch(Object[] args) {
+			int argCount = (args != null ? args.length : 0);
+			if (argCount != this.argumentTypes.length) {
+				return false;
+			}
+			for (int i = 0; i < argCount; i++) {
+				Object arg = args[i];
+				if (arg == null ? this.primitive[i] : !this.argumentTypes[i].isInstance(arg)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static Class getWrapperType(Class primitiveType) {
+			if (primitiveType == boolean.class) {
+				return Boolean.class;
+			}
+			else if (primitiveType == byte.class) {
+				return Byte.class;
+			}
+			else if (primitiveType == char.class) {
+				return Character.class;
+			}
+			else if (primitiveType == short.class) {
+				return Short.class;
+			}
+			else if (primitiveType == int.class) {
+				return Integer.class;
+			}
+			else if (primitiveType == long.class) {
+				return Long.class;
+			}
+			else if (primitiveType == float.class) {
+				return Float.class;
+			}
+			else {
+				return Double.class;
+			}
+		}
+	}
+
+
+	/**
+	 * Inner class to just introduce a CGLIB dependency
+	 * when actually generating invokers.
+	 */
+	private static class FastMethodInvoker {
+
+		private static Object createFastClass(Class clazz) {
+			return FastClass.create(clazz);
+		}
+
+		private static Object getFastMethod(Object fastClass, Method method) {
+			return ((FastClass) fastClass).getMethod(method);
+		}
+
+		private static Object invoke(Object fastMethod, Object target, Object[] args) throws InvocationTargetException {
+			return ((FastMethod) fastMethod).invoke(target, args);
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+/**
+ * Tag interface for MethodInterceptors that don't keep a reference to
+ * the MethodInvocation after their invoke method returns, and don't
+ * hand it to other code that might do so, for example by exposing it
+ * in a ThreadLocal or passing it to another thread.
+ *
+ * <p>MethodInvocationFactory implementations that recycle invocations
+ * may only recycle invocations whose chain consists of such interceptors.
+ * Subclasses of a tagged interceptor must honour this contract too.
+ *
+ * @author agent
+ * @version $Id$
+ * @see ThreadLocalMethodInvocationFactory
+ * @see InterceptorChain#isInvocationRecyclable
+ */
+public interface NonRetainingInterceptor {
+
+}
@@ -46,6 +46,12 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
 	 **/
 	protected List interceptorsAndDynamicMethodMatchers;
 	
+	/**
+	 * The same chain as array, to avoid List access on every proceed() call.
+	 * Shared with the InterceptorChain if one was passed in: must not be modified.
+	 */
+	private Object[] interceptorChain;
+	
 	/**
 	 * Index from 0 of the current interceptor we're invoking.
 	 * -1 until we invoke: then the current interceptor
@@ -60,18 +66,59 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
 	 * @param interceptorsAndDynamicMethodMatchers interceptors that should be applied,
 	 * along with any InterceptorAndDynamicMethodMatchers that need evaluation at runtime.
 	 * MethodMatchers included in this struct must already have been found to have matched as far
-	 * as was possibly statically. Passing an array might be about 10% faster, but would complicate
-	 * the code. And it would work only for static pointcuts.
+	 * as was possibly statically. If this is an InterceptorChain, as returned by
+	 * AdvisorChainFactoryUtils, its array is used directly; other lists are copied.
 	 */
 	public ReflectiveMethodInvocation(Object proxy, Object target, 
 					Method m, Object[] arguments,
 					Class targetClass, List interceptorsAndDynamicMethodMatchers) {
+		populate(proxy, target, m, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+	}
+	
+	/**
+	 * Constructor for subclasses that reuse method invocations.
+	 * The invocation must be populated before use.
+	 * @see #populate
+	 */
+	protected ReflectiveMethodInvocation() {
+	}
+	
+	/**
+	 * Initialize this invocation with the given arguments, as with the constructor,
+	 * resetting the interceptor index. For subclasses that reuse method invocations.
+	 * @see #clear
+	 */
+	protected void populate(Object proxy, Object target, 
+					Method m, Object[] arguments,
+					Class targetClass, List interceptorsAndDynamicMethodMatchers) {
 		this.proxy = proxy;
 		this.target = target;
 		this.targetClass = targetClass;
 		this.method = m;
 		this.arguments = arguments;
 		this.interceptorsAndDynamicMethodMatchers = interceptorsAndDynamicMethodMatchers;
+		if (interceptorsAndDynamicMethodMatchers instanceof InterceptorChain) {
+			this.interceptorChain = ((InterceptorChain) interceptorsAndDynamicMethodMatchers).getInterceptorsAndDynamicMethodMatchers();
+		}
+		else {
+			this.interceptorChain = interceptorsAndDynamicMethodMatchers.toArray();
+		}
+		this.currentInterceptorIndex = -1;
+	}
+	
+	/**
+	 * Release all references held by this invocation, so that it doesn't
+	 * keep the target or arguments reachable while waiting to be reused.
+	 * @see #populate
+	 */
+	protected void clear() {
+		this.proxy = null;
+		this.target = null;
+		this.targetClass = null;
+		this.method = null;
+		this.arguments = null;
+		this.interceptorsAndDynamicMethodMatchers = null;
+		this.interceptorChain = null;
 	}
 	
 	
@@ -110,11 +157,11 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
 	 */
 	public Object proceed() throws Throwable {
 		//	We start with an index of -1 and increment early
-		if (this.currentInterceptorIndex == this.interceptorsAndDynamicMethodMatchers.size() - 1) {
+		if (this.currentInterceptorIndex == this.interceptorChain.length - 1) {
 			return invokeJoinpoint();
 		}
 
-		Object interceptorOrInterceptionAdvice = this.interceptorsAndDynamicMethodMatchers.get(++this.currentInterceptorIndex);
+		Object interceptorOrInterceptionAdvice = this.interceptorChain[++this.currentInterceptorIndex];
 		if (interceptorOrInterceptionAdvice instanceof InterceptorAndDynamicMethodMatcher) {
 			// Evaluate dynamic method matcher here: static part will already have
 			// been evaluated and found to match
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Simple MethodInvocationFactory implementation that 
+ * constructs a new ReflectiveMethodInvocation on every call.
+ * @author agent
+ * @version $Id$
+ */
+public class SimpleMethodInvocationFactory implements MethodInvocationFactory {
+
+	public MethodInvocation getMethodInvocation(Object proxy, Method method, Class targetClass, Object target, Object[] args,
+			List interceptorsAndDynamicInterceptionAdvice, AdvisedSupport advised) {
+		return new ReflectiveMethodInvocation(proxy, target, method, args, targetClass,
+				interceptorsAndDynamicInterceptionAdvice);
+	}
+	
+	public void release(MethodInvocation invocation) {
+		// Not necessary to implement for this implementation
+	}
+
+}
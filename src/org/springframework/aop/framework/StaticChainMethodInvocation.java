@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+/**
+ * ReflectiveMethodInvocation for chains that contain only static
+ * interceptors. As all pointcuts have already been evaluated, proceed()
+ * simply invokes the next interceptor in the array, without checking
+ * for dynamic method matchers.
+ * @author agent
+ * @version $Id$
+ * @see InterceptorChain#isStatic
+ */
+public class StaticChainMethodInvocation extends ReflectiveMethodInvocation {
+
+	private final MethodInterceptor[] interceptors;
+
+	/**
+	 * Index of the next interceptor to invoke.
+	 */
+	private int nextInterceptorIndex;
+
+	/**
+	 * Construct a new MethodInvocation with given arguments.
+	 * @param chain static chain of interceptors that should be applied
+	 * @throws IllegalArgumentException if the chain isn't static
+	 */
+	public StaticChainMethodInvocation(Object proxy, Object target,
+					Method m, Object[] arguments,
+					Class targetClass, InterceptorChain chain) {
+		super(proxy, target, m, arguments, targetClass, chain);
+		if (!chain.isStatic()) {
+			throw new IllegalArgumentException("Interceptor chain contains dynamic method matchers");
+		}
+		this.interceptors = chain.getStaticInterceptors();
+	}
+
+	/**
+	 * @see org.aopalliance.intercept.Invocation#proceed
+	 */
+	public Object proceed() throws Throwable {
+		if (this.nextInterceptorIndex == this.interceptors.length) {
+			return invokeJoinpoint();
+		}
+		return this.interceptors[this.nextInterceptorIndex++].invoke(this);
+	}
+
+}
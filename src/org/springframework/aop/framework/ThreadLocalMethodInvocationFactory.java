@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * MethodInvocationFactory that recycles method invocations, keeping
+ * a list of free invocations per thread. Once warmed up, a proxied call
+ * doesn't allocate a MethodInvocation.
+ *
+ * <p>Reentrant calls on the same thread, for example an advised method
+ * calling another advised method through the proxy, use a different
+ * invocation while the outer one is still in use, so each thread holds
+ * as many invocations as its deepest nesting.
+ *
+ * <p>Only invocations whose chain consists of NonRetainingInterceptors
+ * are recycled. Any other interceptor might still refer to an invocation
+ * after the call has completed, for example to proceed with it later, so
+ * an untagged interceptor in the chain disables recycling. Custom
+ * AdvisorChainFactories returning plain Lists rather than InterceptorChains
+ * also disable recycling.
+ *
+ * <p>Must not be shared between proxy configurations.
+ *
+ * @author agent
+ * @version $Id$
+ * @see AdvisedSupport#setMethodInvocationFactory
+ * @see NonRetainingInterceptor
+ */
+public class ThreadLocalMethodInvocationFactory implements MethodInvocationFactory {
+
+	/** Holds an InvocationHolder for each thread */
+	private final ThreadLocal holders = new ThreadLocal();
+
+	private int invocationsCreated;
+
+
+	public MethodInvocation getMethodInvocation(Object proxy, Method method, Class targetClass, Object target, Object[] args,
+			List interceptorsAndDynamicInterceptionAdvice, AdvisedSupport advised) {
+		RecyclableMethodInvocation invocation = null;
+		if (interceptorsAndDynamicInterceptionAdvice instanceof InterceptorChain &&
+				((InterceptorChain) interceptorsAndDynamicInterceptionAdvice).isInvocationRecyclable()) {
+			InvocationHolder holder = (InvocationHolder) this.holders.get();
+			if (holder == null) {
+				holder = new InvocationHolder();
+				this.holders.set(holder);
+			}
+			invocation = holder.freeInvocation;
+			if (invocation != null) {
+				holder.freeInvocation = invocation.nextFree;
+				invocation.nextFree = null;
+			}
+			else {
+				invocation = new RecyclableMethodInvocation(holder);
+				invocationCreated();
+			}
+		}
+		else {
+			// Not recyclable
+			invocation = new RecyclableMethodInvocation(null);
+			invocationCreated();
+		}
+		invocation.populate(proxy, target, method, args, targetClass, interceptorsAndDynamicInterceptionAdvice,
+				advised.methodInvokerCache);
+		return invocation;
+	}
+
+	public void release(MethodInvocation invocation) {
+		RecyclableMethodInvocation mi = (RecyclableMethodInvocation) invocation;
+		if (mi.holder != null) {
+			mi.clear();
+			mi.nextFree = mi.holder.freeInvocation;
+			mi.holder.freeInvocation = mi;
+		}
+	}
+
+	private synchronized void invocationCreated() {
+		this.invocationsCreated++;
+	}
+
+	/**
+	 * Return the number of MethodInvocation objects this factory has created,
+	 * as opposed to recycled.
+	 */
+	public synchronized int getInvocationsCreated() {
+		return this.invocationsCreated;
+	}
+
+
+	/**
+	 * Per-thread holder for the list of free invocations.
+	 */
+	private static class InvocationHolder {
+
+		/** Head of the free list, or null if all invocations are in use */
+		private RecyclableMethodInvocation freeInvocation;
+	}
+
+
+	/**
+	 * ReflectiveMethodInvocation that can be populated repeatedly,
+	 * invoking the target through the proxy's MethodInvokerCache.
+	 */
+	private static class RecyclableMethodInvocation extends ReflectiveMethodInvocation {
+
+		/** Holder to return this invocation to, or null if it mustn't be recycled */
+		private final InvocationHolder holder;
+
+		private MethodInvokerCache invokerCache;
+
+		/** Next invocation in the holder's free list */
+		private RecyclableMethodInvocation nextFree;
+
+		public RecyclableMethodInvocation(InvocationHolder holder) {
+			this.holder = holder;
+		}
+
+		public void populate(Object proxy, Object target, Method m, Object[] arguments, Class targetClass,
+				List interceptorsAndDynamicMethodMatchers, MethodInvokerCache invokerCache) {
+			populate(proxy, target, m, arguments, targetClass, interceptorsAndDynamicMethodMatchers);
+			this.invokerCache = invokerCache;
+		}
+
+		protected void clear() {
+			super.clear();
+			this.invokerCache = null;
+		}
+
+		/**
+		 * @see org.springframework.aop.framework.ReflectiveMethodInvocation#invokeJoinpoint()
+		 */
+		protected Object invokeJoinpoint() throws Throwable {
+			return AopProxyUtils.invokeJoinpoint(this.invokerCache, target, method, arguments);
+		}
+	}
+
+}
@@ -19,6 +19,7 @@ package org.springframework.aop.framework.adapter;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.aop.framework.NonRetainingInterceptor;
 
 
 /**
@@ -30,7 +31,7 @@ import org.springframework.aop.AfterReturningAdvice;
  * @author Rod Johnson
  * @version $Id$
  */
-final class AfterReturningAdviceInterceptor implements MethodInterceptor {
+final class AfterReturningAdviceInterceptor implements MethodInterceptor, NonRetainingInterceptor {
 	
 	private AfterReturningAdvice advice;
 	
@@ -19,6 +19,7 @@ package org.springframework.aop.framework.adapter;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.aop.MethodBeforeAdvice;
+import org.springframework.aop.framework.NonRetainingInterceptor;
 
 
 /**
@@ -30,7 +31,7 @@ import org.springframework.aop.MethodBeforeAdvice;
  * @author Rod Johnson
  * @version $Id$
  */
-final class MethodBeforeAdviceInterceptor implements MethodInterceptor {
+final class MethodBeforeAdviceInterceptor implements MethodInterceptor, NonRetainingInterceptor {
 	
 	private MethodBeforeAdvice advice;
 	
@@ -26,6 +26,7 @@ import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.aop.framework.AopConfigException;
+import org.springframework.aop.framework.NonRetainingInterceptor;
 
 /**
  * Interceptor to wrap an after throwing advice.
@@ -37,7 +38,7 @@ import org.springframework.aop.framework.AopConfigException;
  * @author Rod Johnson
  * @version $Id$
  */
-final class ThrowsAdviceInterceptor implements MethodInterceptor {
+final class ThrowsAdviceInterceptor implements MethodInterceptor, NonRetainingInterceptor {
 	
 	private static final String AFTER_THROWING = "afterThrowing";
 	
@@ -20,6 +20,7 @@ import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.aop.framework.NonRetainingInterceptor;
 import org.springframework.util.ClassLoaderUtils;
 
 /**
@@ -28,7 +29,7 @@ import org.springframework.util.ClassLoaderUtils;
  * @author Rod Johnson
  * @author Dmitriy Kopylenko
  */
-public class ClassLoaderAnalyzerInterceptor implements MethodInterceptor {
+public class ClassLoaderAnalyzerInterceptor implements MethodInterceptor, NonRetainingInterceptor {
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
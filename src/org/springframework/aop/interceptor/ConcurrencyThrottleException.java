@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import org.springframework.core.NestedRuntimeException;
+
+/**
+ * Exception thrown by ConcurrencyThrottleInterceptor if an invocation
+ * is rejected because the concurrency limit has been reached, either
+ * immediately or after the configured block timeout, or because the
+ * thread was interrupted while waiting.
+ *
+ * @author agent
+ * @see ConcurrencyThrottleInterceptor#setBlockTimeout
+ */
+public class ConcurrencyThrottleException extends NestedRuntimeException {
+
+	private static final long serialVersionUID = 6032981149591606394L;
+
+	public ConcurrencyThrottleException(String msg) {
+		super(msg);
+	}
+
+	public ConcurrencyThrottleException(String msg, Throwable ex) {
+		super(msg, ex);
+	}
+
+}
@@ -1,25 +1,28 @@
 /*
  * Copyright 2002-2004 the original author or authors.
- * 
+ *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
- * 
+ *
  *      http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  * See the License for the specific language governing permissions and
  * limitations under the License.
- */ 
+ */
 
 package org.springframework.aop.interceptor;
 
+import java.util.LinkedList;
+
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.aop.framework.NonRetainingInterceptor;
 
 /**
  * Interceptor that throttles concurrent access, blocking invocations
@@ -30,54 +33,272 @@ import org.apache.commons.logging.LogFactory;
  * throttle concurrency for a specific service rather than restricting
  * the entire thread pool (e.g. the web container's thread pool).
  *
+ * <p>Works like a counting semaphore: each invocation takes a permit
+ * and returns it when the method completes. Taking and returning a
+ * permit each hold a private lock only briefly, and waiting threads are
+ * only notified if there are any. If no permit is available, the
+ * invocation can either block until one becomes available (the default),
+ * fail immediately, or block for a limited time, according to the
+ * "blockTimeout" property. Rejected invocations throw a
+ * ConcurrencyThrottleException.
+ *
+ * <p>By default, blocked invocations are not guaranteed to proceed in
+ * arrival order. Set "fair" to true to have them proceed first-in
+ * first-out, at the expense of waking up all waiting threads when a
+ * permit is returned.
+ *
+ * <p>Exposes the current and peak concurrency, the number of waiting
+ * invocations and the number of rejected invocations, for monitoring.
+ *
  * @author Juergen Hoeller
  * @since 11.02.2004
+ * @see ConcurrencyThrottleException
  */
-public class ConcurrencyThrottleInterceptor implements MethodInterceptor {
+public class ConcurrencyThrottleInterceptor implements MethodInterceptor, NonRetainingInterceptor {
+
+	/**
+	 * Block timeout value indicating that invocations should block
+	 * until a permit becomes available.
+	 */
+	public static final long BLOCK_INDEFINITELY = -1;
+
+	/**
+	 * Block timeout value indicating that invocations should fail
+	 * immediately if the concurrency limit has been reached.
+	 */
+	public static final long FAIL_FAST = 0;
+
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
+	/** Guards all of the following state */
+	private final Object monitor = new Object();
+
 	private int concurrencyLimit = 1;
 
+	private long blockTimeout = BLOCK_INDEFINITELY;
+
+	private boolean fair = false;
+
 	private int concurrencyCount = 0;
 
+	private int peakConcurrency = 0;
+
+	private int waitingCount = 0;
+
+	private long rejectedCount = 0;
+
+	/** Waiting threads in arrival order, if fair */
+	private final LinkedList waitQueue = new LinkedList();
+
+
 	/**
 	 * Set the maximum number of parallel invocations that this interceptor
 	 * allows. Default is 1 (having the same effect as a synchronized block).
 	 */
 	public void setConcurrencyLimit(int concurrencyLimit) {
-		this.concurrencyLimit = concurrencyLimit;
+		synchronized (this.monitor) {
+			this.concurrencyLimit = concurrencyLimit;
+			// Waiters may be able to proceed with the new limit
+			this.monitor.notifyAll();
+		}
+	}
+
+	/**
+	 * Return the maximum number of parallel invocations.
+	 */
+	public int getConcurrencyLimit() {
+		synchronized (this.monitor) {
+			return this.concurrencyLimit;
+		}
+	}
+
+	/**
+	 * Set how long an invocation may wait for a permit, in milliseconds,
+	 * before being rejected with a ConcurrencyThrottleException.
+	 * <p>Default is BLOCK_INDEFINITELY. Use FAIL_FAST to reject invocations
+	 * immediately when the concurrency limit has been reached.
+	 * @see #BLOCK_INDEFINITELY
+	 * @see #FAIL_FAST
+	 */
+	public void setBlockTimeout(long blockTimeout) {
+		if (blockTimeout < BLOCK_INDEFINITELY) {
+			throw new IllegalArgumentException("blockTimeout must be BLOCK_INDEFINITELY, FAIL_FAST or positive");
+		}
+		synchronized (this.monitor) {
+			this.blockTimeout = blockTimeout;
+		}
+	}
+
+	/**
+	 * Set whether blocked invocations should proceed in arrival order.
+	 * Default is false, which is faster under heavy contention, but allows
+	 * a newly arriving invocation to take a permit before waiting ones.
+	 */
+	public void setFair(boolean fair) {
+		synchronized (this.monitor) {
+			this.fair = fair;
+			this.monitor.notifyAll();
+		}
 	}
 
+	/**
+	 * Return the number of invocations currently in progress.
+	 */
+	public int getConcurrencyCount() {
+		synchronized (this.monitor) {
+			return this.concurrencyCount;
+		}
+	}
+
+	/**
+	 * Return the highest number of invocations that have been in
+	 * progress at the same time.
+	 */
+	public int getPeakConcurrency() {
+		synchronized (this.monitor) {
+			return this.peakConcurrency;
+		}
+	}
+
+	/**
+	 * Return the number of invocations currently waiting for a permit.
+	 */
+	public int getWaitingCount() {
+		synchronized (this.monitor) {
+			return this.waitingCount;
+		}
+	}
+
+	/**
+	 * Return the number of invocations that have been rejected,
+	 * because of timeout or interruption.
+	 */
+	public long getRejectedCount() {
+		synchronized (this.monitor) {
+			return this.rejectedCount;
+		}
+	}
+
+
 	public Object invoke(MethodInvocation methodInvocation) throws Throwable {
 		boolean debug = logger.isDebugEnabled();
-		synchronized (this) {
-			while (this.concurrencyCount >= this.concurrencyLimit) {
-				if (debug) {
-					logger.debug("Concurrency count " + this.concurrencyCount +
-											 " has reached limit " + this.concurrencyLimit + " - blocking");
-				}
-				try {
-					wait();
-				}
-				catch (InterruptedException ex) {
-				}
+		beforeAccess(debug);
+		try {
+			return methodInvocation.proceed();
+		}
+		finally {
+			afterAccess(debug);
+		}
+	}
+
+	/**
+	 * Take a permit, waiting if necessary according to the block timeout.
+	 * @throws ConcurrencyThrottleException if no permit could be obtained
+	 */
+	private void beforeAccess(boolean debug) throws ConcurrencyThrottleException {
+		synchronized (this.monitor) {
+			if (this.concurrencyCount < this.concurrencyLimit && (!this.fair || this.waitQueue.isEmpty())) {
+				enter(debug);
+				return;
 			}
-			if (debug) {
-				logger.debug("Entering method at concurrency count " + this.concurrencyCount);
+			if (this.blockTimeout == FAIL_FAST) {
+				this.rejectedCount++;
+				throw new ConcurrencyThrottleException("Concurrency limit of " + this.concurrencyLimit + " reached");
 			}
-			this.concurrencyCount++;
+			awaitPermit(debug);
 		}
+	}
+
+	/**
+	 * Wait for a permit. Called with the monitor held.
+	 */
+	private void awaitPermit(boolean debug) throws ConcurrencyThrottleException {
+		if (debug) {
+			logger.debug("Concurrency count " + this.concurrencyCount +
+									 " has reached limit " + this.concurrencyLimit + " - blocking");
+		}
+		long deadline = (this.blockTimeout > 0 ? System.currentTimeMillis() + this.blockTimeout : 0);
+		Thread waiter = Thread.currentThread();
+		boolean fairWaiter = this.fair;
+		if (fairWaiter) {
+			this.waitQueue.add(waiter);
+		}
+		this.waitingCount++;
+		boolean acquired = false;
 		try {
-			return methodInvocation.proceed();
+			while (this.concurrencyCount >= this.concurrencyLimit ||
+					(fairWaiter && this.waitQueue.getFirst() != waiter)) {
+				if (deadline != 0) {
+					long remaining = deadline - System.currentTimeMillis();
+					if (remaining <= 0) {
+						this.rejectedCount++;
+						throw new ConcurrencyThrottleException("Concurrency limit of " + this.concurrencyLimit +
+								" still reached after waiting " + this.blockTimeout + " ms");
+					}
+					this.monitor.wait(remaining);
+				}
+				else {
+					this.monitor.wait();
+				}
+			}
+			enter(debug);
+			acquired = true;
+		}
+		catch (InterruptedException ex) {
+			// Preserve interrupt status for the caller
+			Thread.currentThread().interrupt();
+			this.rejectedCount++;
+			throw new ConcurrencyThrottleException("Interrupted while waiting for concurrency permit", ex);
 		}
 		finally {
-			synchronized (this) {
-				this.concurrencyCount--;
-				if (debug) {
-					logger.debug("Returning from method at concurrency count " + this.concurrencyCount);
+			this.waitingCount--;
+			if (fairWaiter) {
+				this.waitQueue.remove(waiter);
+			}
+			// Pass on a wakeup we may have consumed without taking the permit,
+			// or let the next waiter in line check whether it may proceed
+			if (this.waitingCount > 0 && this.concurrencyCount < this.concurrencyLimit) {
+				if (fairWaiter) {
+					this.monitor.notifyAll();
+				}
+				else if (!acquired) {
+					this.monitor.notify();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Take a permit. Called with the monitor held.
+	 */
+	private void enter(boolean debug) {
+		this.concurrencyCount++;
+		if (this.concurrencyCount > this.peakConcurrency) {
+			this.peakConcurrency = this.concurrencyCount;
+		}
+		if (debug) {
+			logger.debug("Entering method at concurrency count " + (this.concurrencyCount - 1));
+		}
+	}
+
+	/**
+	 * Return a permit, waking up a waiting invocation if there is one.
+	 */
+	private void afterAccess(boolean debug) {
+		synchronized (this.monitor) {
+			this.concurrencyCount--;
+			if (debug) {
+				logger.debug("Returning from method at concurrency count " + this.concurrencyCount);
+			}
+			if (this.waitingCount > 0) {
+				if (!this.waitQueue.isEmpty()) {
+					// Only the head of the queue may proceed: let it find out
+					this.monitor.notifyAll();
+				}
+				else {
+					this.monitor.notify();
 				}
-				notify();
 			}
 		}
 	}
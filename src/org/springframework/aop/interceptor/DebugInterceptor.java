@@ -19,13 +19,15 @@ package org.springframework.aop.interceptor;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
+import org.springframework.aop.framework.NonRetainingInterceptor;
+
 /**
  * AOP Alliance MethodInterceptor that can be introduced in a chain to display
  * verbose information about intercepted invocations to the console.
  * @author Rod Johnson
  * @version $Id$
  */
-public class DebugInterceptor implements MethodInterceptor {
+public class DebugInterceptor implements MethodInterceptor, NonRetainingInterceptor {
 	
 	private int count;
 
@@ -20,24 +20,61 @@ import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.aop.framework.NonRetainingInterceptor;
 import org.springframework.util.StopWatch;
 
 /**
- * Trivial performance monitor interceptor.
+ * Performance monitor interceptor.
  * This interceptor has no effect on the intercepted method call.
  *
- * <p>Presently logs information using Commons Logging, at "info" level.
- * Could make this much more sophisticated, storing information etc.
+ * <p>By default, logs the time taken by each invocation using Commons Logging,
+ * at "info" level. This is handy during development, but too costly to leave
+ * on in production.
+ *
+ * <p>If a PerformanceMonitorRegistry is set, aggregates timings per method
+ * in the registry instead, without logging or allocating objects per call.
+ * The registry can then be queried for snapshots of invocation counts and
+ * latency percentiles, or log periodic summaries. Note that timings are
+ * measured with System.currentTimeMillis, so have millisecond resolution.
  *
  * @author Rod Johnson
  * @author Dmitriy Kopylenko
  * @version $Id$
+ * @see PerformanceMonitorRegistry
  */
-public class PerformanceMonitorInterceptor implements MethodInterceptor {
+public class PerformanceMonitorInterceptor implements MethodInterceptor, NonRetainingInterceptor {
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
+	private PerformanceMonitorRegistry registry;
+
+	/**
+	 * Set the registry to aggregate timings in. Default is none,
+	 * logging the timing of each invocation.
+	 */
+	public void setRegistry(PerformanceMonitorRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Return the registry that timings are aggregated in, if any.
+	 */
+	public PerformanceMonitorRegistry getRegistry() {
+		return registry;
+	}
+
 	public Object invoke(MethodInvocation invocation) throws Throwable {
+		if (this.registry != null) {
+			PerformanceStatistics statistics = this.registry.getStatistics(invocation.getMethod());
+			long startTime = System.currentTimeMillis();
+			try {
+				return invocation.proceed();
+			}
+			finally {
+				statistics.record(System.currentTimeMillis() - startTime);
+			}
+		}
+
 		String name = invocation.getMethod().getDeclaringClass().getName() + "." + invocation.getMethod().getName();
 		logger.debug("Begin performance monitoring of method '" + name + "'");
 
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.JdkVersion;
+
+/**
+ * Registry of per-method PerformanceStatistics, populated by one or more
+ * PerformanceMonitorInterceptors in aggregating mode. Typically defined
+ * as a bean and shared by all interceptors, so that it can be queried for
+ * snapshots, e.g. by a monitoring page or a JMX adapter.
+ *
+ * <p>Looking up the statistics for a known method doesn't acquire a lock
+ * on Java 1.5 or later.
+ *
+ * <p>Summary logging can be scheduled by calling logSummary periodically,
+ * for example through MethodInvokingTimerTaskFactoryBean:
+ *
+ * <pre>
+ * &lt;bean id="performanceSummaryTask" class="org.springframework.scheduling.timer.MethodInvokingTimerTaskFactoryBean"&gt;
+ *   &lt;property name="targetObject"&gt;&lt;ref local="performanceMonitorRegistry"/&gt;&lt;/property&gt;
+ *   &lt;property name="targetMethod"&gt;&lt;value&gt;logSummary&lt;/value&gt;&lt;/property&gt;
+ * &lt;/bean&gt;</pre>
+ *
+ * @author agent
+ * @version $Id$
+ * @see PerformanceMonitorInterceptor#setRegistry
+ * @see org.springframework.scheduling.timer.MethodInvokingTimerTaskFactoryBean
+ */
+public class PerformanceMonitorRegistry {
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private int stripes = 4;
+
+	private final Object writeLock = new Object();
+
+	/** Immutable snapshot: Method to PerformanceStatistics */
+	private volatile Map statisticsByMethod = Collections.EMPTY_MAP;
+
+
+	/**
+	 * Set the number of independently locked cells that each method's
+	 * statistics use. Default is 4; higher values reduce contention on
+	 * multi-processor machines at the cost of memory.
+	 * Affects statistics created afterwards only.
+	 */
+	public void setStripes(int stripes) {
+		this.stripes = stripes;
+	}
+
+	/**
+	 * Return the statistics for the given method, creating them if necessary.
+	 * @param method the monitored method
+	 * @return the statistics (never null)
+	 */
+	public PerformanceStatistics getStatistics(Method method) {
+		PerformanceStatistics statistics = (PerformanceStatistics) getStatisticsByMethod().get(method);
+		if (statistics == null) {
+			synchronized (this.writeLock) {
+				statistics = (PerformanceStatistics) this.statisticsByMethod.get(method);
+				if (statistics == null) {
+					statistics = new PerformanceStatistics(getStatisticsName(method), this.stripes);
+					Map newStatistics = new HashMap(this.statisticsByMethod);
+					newStatistics.put(method, statistics);
+					this.statisticsByMethod = newStatistics;
+				}
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Return the current snapshot of all statistics. Read under the write lock
+	 * on pre-1.5 JVMs, which don't publish it safely through the volatile field.
+	 * @see org.springframework.core.JdkVersion#isJava15MemoryModel
+	 */
+	private Map getStatisticsByMethod() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.statisticsByMethod;
+		}
+		synchronized (this.writeLock) {
+			return this.statisticsByMethod;
+		}
+	}
+
+	/**
+	 * Return the name for the statistics of the given method: the qualified
+	 * method name followed by the parameter types, for example
+	 * "com.mycompany.Service.find(java.lang.String, int[])", so that
+	 * overloaded methods can be told apart.
+	 */
+	protected String getStatisticsName(Method method) {
+		StringBuffer sb = new StringBuffer(method.getDeclaringClass().getName());
+		sb.append('.').append(method.getName()).append('(');
+		Class[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			Class type = parameterTypes[i];
+			int dimensions = 0;
+			while (type.isArray()) {
+				type = type.getComponentType();
+				dimensions++;
+			}
+			sb.append(type.getName());
+			for (int j = 0; j < dimensions; j++) {
+				sb.append("[]");
+			}
+		}
+		return sb.append(')').toString();
+	}
+
+	/**
+	 * Return a snapshot of the statistics for the given method.
+	 * @return the snapshot, or null if the method hasn't been monitored
+	 */
+	public PerformanceSnapshot getSnapshot(Method method) {
+		PerformanceStatistics statistics = (PerformanceStatistics) getStatisticsByMethod().get(method);
+		return (statistics != null ? statistics.getSnapshot() : null);
+	}
+
+	/**
+	 * Return snapshots of the statistics for all monitored methods,
+	 * sorted by name.
+	 * @return List of PerformanceSnapshot objects
+	 */
+	public List getSnapshots() {
+		Map statistics = getStatisticsByMethod();
+		List snapshots = new ArrayList(statistics.size());
+		for (Iterator it = statistics.values().iterator(); it.hasNext();) {
+			snapshots.add(((PerformanceStatistics) it.next()).getSnapshot());
+		}
+		Collections.sort(snapshots, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				return ((PerformanceSnapshot) o1).getName().compareTo(((PerformanceSnapshot) o2).getName());
+			}
+		});
+		return snapshots;
+	}
+
+	/**
+	 * Discard the data recorded for all methods.
+	 */
+	public void reset() {
+		for (Iterator it = getStatisticsByMethod().values().iterator(); it.hasNext();) {
+			((PerformanceStatistics) it.next()).reset();
+		}
+	}
+
+	/**
+	 * Log a summary of all monitored methods that have been invoked,
+	 * at "info" level.
+	 */
+	public void logSummary() {
+		if (logger.isInfoEnabled()) {
+			List snapshots = getSnapshots();
+			for (Iterator it = snapshots.iterator(); it.hasNext();) {
+				PerformanceSnapshot snapshot = (PerformanceSnapshot) it.next();
+				if (snapshot.getCount() > 0) {
+					logger.info(snapshot);
+				}
+			}
+		}
+	}
+
+}
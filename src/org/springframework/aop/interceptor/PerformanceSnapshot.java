@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import java.io.Serializable;
+
+/**
+ * Immutable view of the latency statistics of one monitored method
+ * at a point in time. All times are in milliseconds.
+ *
+ * <p>Percentiles are upper bounds, accurate to the histogram resolution
+ * of PerformanceStatistics.
+ *
+ * @author agent
+ * @version $Id$
+ * @see PerformanceStatistics#getSnapshot
+ */
+public class PerformanceSnapshot implements Serializable {
+
+	private static final long serialVersionUID = -4895310781217030710L;
+
+	private final String name;
+
+	private final long count;
+
+	private final long totalTime;
+
+	private final long maxTime;
+
+	private final long percentile50;
+
+	private final long percentile95;
+
+	private final long percentile99;
+
+	public PerformanceSnapshot(String name, long count, long totalTime, long maxTime,
+														 long percentile50, long percentile95, long percentile99) {
+		this.name = name;
+		this.count = count;
+		this.totalTime = totalTime;
+		this.maxTime = maxTime;
+		this.percentile50 = percentile50;
+		this.percentile95 = percentile95;
+		this.percentile99 = percentile99;
+	}
+
+	/**
+	 * Return the name of the monitored method.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Return the number of recorded invocations.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	public long getTotalTime() {
+		return totalTime;
+	}
+
+	/**
+	 * Return the mean time per invocation, or 0 if there were none.
+	 */
+	public double getMeanTime() {
+		return (this.count > 0 ? (double) this.totalTime / this.count : 0);
+	}
+
+	public long getMaxTime() {
+		return maxTime;
+	}
+
+	/**
+	 * Return the median time.
+	 */
+	public long getPercentile50() {
+		return percentile50;
+	}
+
+	public long getPercentile95() {
+		return percentile95;
+	}
+
+	public long getPercentile99() {
+		return percentile99;
+	}
+
+	public String toString() {
+		return this.name + ": count=" + this.count + ", mean=" + (Math.round(getMeanTime() * 100) / 100.0) +
+				"ms, p50=" + this.percentile50 + "ms, p95=" + this.percentile95 + "ms, p99=" + this.percentile99 +
+				"ms, max=" + this.maxTime + "ms";
+	}
+
+}
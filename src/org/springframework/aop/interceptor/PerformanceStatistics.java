@@ -0,0 +1,229 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+/**
+ * Aggregated latency statistics for one monitored method: invocation count,
+ * total and maximum time, and a histogram of latencies with fixed buckets.
+ *
+ * <p>Latencies are recorded in milliseconds. Buckets are exact up to 16 ms,
+ * then each power-of-two range is split into 8 buckets, so percentiles are
+ * accurate to within 12.5 percent over the whole range of values.
+ *
+ * <p>Recording doesn't allocate any objects. To reduce contention, data is
+ * striped over a number of independently locked cells, chosen by thread
+ * identity; snapshots merge all cells.
+ *
+ * @author agent
+ * @version $Id$
+ * @see PerformanceMonitorRegistry
+ * @see PerformanceSnapshot
+ */
+public class PerformanceStatistics {
+
+	/** Values below this are counted exactly */
+	private static final int LINEAR_BUCKETS = 16;
+
+	/** log2 of LINEAR_BUCKETS */
+	private static final int LINEAR_BITS = 4;
+
+	/** Buckets per power of two above the linear range */
+	private static final int SUB_BUCKETS = 8;
+
+	/** log2 of SUB_BUCKETS */
+	private static final int SUB_BUCKET_BITS = 3;
+
+	/** Highest power of two covered: larger values go into the last bucket */
+	private static final int MAX_EXPONENT = 31;
+
+	static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_EXPONENT - LINEAR_BITS + 1) * SUB_BUCKETS;
+
+	private static final int DEFAULT_STRIPES = 4;
+
+
+	private final String name;
+
+	private final Cell[] cells;
+
+	private final int stripeMask;
+
+
+	/**
+	 * Create new statistics with the default number of stripes.
+	 * @param name name of the monitored method
+	 */
+	public PerformanceStatistics(String name) {
+		this(name, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Create new statistics.
+	 * @param name name of the monitored method
+	 * @param stripes number of independently locked cells. Will be
+	 * rounded up to a power of two.
+	 */
+	public PerformanceStatistics(String name, int stripes) {
+		this.name = name;
+		int size = 1;
+		while (size < stripes) {
+			size <<= 1;
+		}
+		this.cells = new Cell[size];
+		for (int i = 0; i < size; i++) {
+			this.cells[i] = new Cell();
+		}
+		this.stripeMask = size - 1;
+	}
+
+	/**
+	 * Return the name of the monitored method.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Record one invocation.
+	 * @param millis time taken by the invocation, in milliseconds
+	 */
+	public void record(long millis) {
+		if (millis < 0) {
+			// The system clock was set back
+			millis = 0;
+		}
+		int hash = System.identityHashCode(Thread.currentThread());
+		Cell cell = this.cells[(hash ^ (hash >>> 16)) & this.stripeMask];
+		int bucket = bucketFor(millis);
+		synchronized (cell) {
+			cell.count++;
+			cell.total += millis;
+			if (millis > cell.max) {
+				cell.max = millis;
+			}
+			cell.buckets[bucket]++;
+		}
+	}
+
+	/**
+	 * Return a consistent snapshot of each cell, merged.
+	 */
+	public PerformanceSnapshot getSnapshot() {
+		long count = 0;
+		long total = 0;
+		long max = 0;
+		long[] buckets = new long[BUCKET_COUNT];
+		for (int i = 0; i < this.cells.length; i++) {
+			Cell cell = this.cells[i];
+			synchronized (cell) {
+				count += cell.count;
+				total += cell.total;
+				if (cell.max > max) {
+					max = cell.max;
+				}
+				for (int j = 0; j < BUCKET_COUNT; j++) {
+					buckets[j] += cell.buckets[j];
+				}
+			}
+		}
+		return new PerformanceSnapshot(this.name, count, total, max,
+				percentile(buckets, count, max, 0.50), percentile(buckets, count, max, 0.95),
+				percentile(buckets, count, max, 0.99));
+	}
+
+	/**
+	 * Discard all recorded data.
+	 */
+	public void reset() {
+		for (int i = 0; i < this.cells.length; i++) {
+			Cell cell = this.cells[i];
+			synchronized (cell) {
+				cell.count = 0;
+				cell.total = 0;
+				cell.max = 0;
+				for (int j = 0; j < BUCKET_COUNT; j++) {
+					cell.buckets[j] = 0;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Return the index of the bucket counting the given value.
+	 */
+	static int bucketFor(long value) {
+		if (value < LINEAR_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63;
+		while ((value & (1L << exponent)) == 0) {
+			exponent--;
+		}
+		if (exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR_BUCKETS + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Return the highest value counted by the given bucket.
+	 */
+	static long highestValueIn(int bucket) {
+		if (bucket < LINEAR_BUCKETS) {
+			return bucket;
+		}
+		int exponent = LINEAR_BITS + (bucket - LINEAR_BUCKETS) / SUB_BUCKETS;
+		int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		return (SUB_BUCKETS + subBucket) * width + width - 1;
+	}
+
+	/**
+	 * Return an upper bound for the given percentile, no higher than the maximum.
+	 */
+	private static long percentile(long[] buckets, long count, long max, double fraction) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(count * fraction);
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return Math.min(highestValueIn(i), max);
+			}
+		}
+		return max;
+	}
+
+
+	/**
+	 * Mutable counters for one stripe, guarded by the cell's own monitor.
+	 */
+	private static class Cell {
+
+		private long count;
+
+		private long total;
+
+		private long max;
+
+		private final long[] buckets = new long[BUCKET_COUNT];
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sets one writable property of a bean class, resolved once.
+ *
+ * <p>Unlike BeanWrapperImpl, doesn't convert values or evaluate property
+ * paths: values must already have the property type. Intended for
+ * framework code that sets the same properties on many objects, like a
+ * row mapper. As with BeanWrapperImpl, setters are invoked through
+ * generated accessors once the class has been used often enough.
+ *
+ * @author agent
+ * @see CachedIntrospectionResults
+ * @see BeanWrapperImpl#setPropertyValue
+ */
+public final class BeanPropertySetter {
+
+	/**
+	 * Return setters for all writable properties of the given class.
+	 * @param beanClass the class to introspect
+	 * @return the setters, in no particular order
+	 * @throws BeansException if the class cannot be introspected
+	 */
+	public static BeanPropertySetter[] forClass(Class beanClass) throws BeansException {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(beanClass);
+		PropertyDescriptor[] pds = results.getPropertyDescriptors();
+		List setters = new ArrayList(pds.length);
+		for (int i = 0; i < pds.length; i++) {
+			if (pds[i].getWriteMethod() != null) {
+				setters.add(new BeanPropertySetter(results, pds[i]));
+			}
+		}
+		return (BeanPropertySetter[]) setters.toArray(new BeanPropertySetter[setters.size()]);
+	}
+
+
+	private final CachedIntrospectionResults introspectionResults;
+
+	private final PropertyDescriptor propertyDescriptor;
+
+	private BeanPropertySetter(CachedIntrospectionResults introspectionResults, PropertyDescriptor pd) {
+		this.introspectionResults = introspectionResults;
+		this.propertyDescriptor = pd;
+	}
+
+	/**
+	 * Return the name of the property.
+	 */
+	public String getPropertyName() {
+		return this.propertyDescriptor.getName();
+	}
+
+	/**
+	 * Return the type of the property, which may be primitive.
+	 */
+	public Class getPropertyType() {
+		return this.propertyDescriptor.getPropertyType();
+	}
+
+	/**
+	 * Set the property on the given target.
+	 * @param target the bean to set the property on, which must be
+	 * an instance of the introspected class
+	 * @param value the new value, which must be of the property type
+	 * (or its wrapper type, for a primitive property)
+	 * @throws TypeMismatchException if the value doesn't fit the property type
+	 * @throws MethodInvocationException if the setter threw an exception
+	 */
+	public void setValue(Object target, Object value) throws BeansException {
+		try {
+			this.introspectionResults.invokeWriteMethod(this.propertyDescriptor, target, value);
+		}
+		catch (InvocationTargetException ex) {
+			PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(target, getPropertyName(), null, value);
+			if (ex.getTargetException() instanceof ClassCastException) {
+				throw new TypeMismatchException(propertyChangeEvent, getPropertyType(), ex.getTargetException());
+			}
+			else {
+				throw new MethodInvocationException(ex.getTargetException(), propertyChangeEvent);
+			}
+		}
+		catch (IllegalAccessException ex) {
+			throw new FatalBeanException("Illegal attempt to set property '" + getPropertyName() + "'", ex);
+		}
+		catch (IllegalArgumentException ex) {
+			PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(target, getPropertyName(), null, value);
+			throw new TypeMismatchException(propertyChangeEvent, getPropertyType(), ex);
+		}
+	}
+
+	public String toString() {
+		return "BeanPropertySetter for property '" + getPropertyName() + "' of class [" +
+				this.introspectionResults.getBeanClass().getName() + "]";
+	}
+
+}
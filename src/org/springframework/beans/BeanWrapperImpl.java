@@ -59,6 +59,11 @@ import org.springframework.util.StringUtils;
  * custom editor before using a BeanWrapperImpl instance, or call the instance's
  * registerCustomEditor method to register an editor for the particular instance.
  *
+ * <p>Strings are converted to primitives and their wrapper types directly,
+ * with the same rules as the standard JavaBeans editors, unless a custom editor
+ * has been registered for the type with this instance. Default and standard
+ * editors for other types are created once per instance and reused.
+ *
  * <p>BeanWrapperImpl will convert List and array values to the corresponding
  * target arrays, if necessary. Custom property editors that deal with Lists or
  * arrays can be written against a comma delimited String as String arrays are
@@ -98,6 +103,39 @@ public class BeanWrapperImpl implements BeanWrapper {
 		defaultEditors.put(URL.class, URLEditor.class);
 	}
 
+	/**
+	 * Primitive and wrapper types converted from Strings without a PropertyEditor:
+	 * Class --> Integer conversion code
+	 */
+	private static final Map simpleConversionTypes = new HashMap();
+
+	private static final int BOOLEAN = 0;
+	private static final int BYTE = 1;
+	private static final int SHORT = 2;
+	private static final int INT = 3;
+	private static final int LONG = 4;
+	private static final int FLOAT = 5;
+	private static final int DOUBLE = 6;
+
+	static {
+		registerSimpleConversion(boolean.class, Boolean.class, BOOLEAN);
+		registerSimpleConversion(byte.class, Byte.class, BYTE);
+		registerSimpleConversion(short.class, Short.class, SHORT);
+		registerSimpleConversion(int.class, Integer.class, INT);
+		registerSimpleConversion(long.class, Long.class, LONG);
+		registerSimpleConversion(float.class, Float.class, FLOAT);
+		registerSimpleConversion(double.class, Double.class, DOUBLE);
+	}
+
+	private static void registerSimpleConversion(Class primitiveType, Class wrapperType, int code) {
+		Integer codeObject = new Integer(code);
+		simpleConversionTypes.put(primitiveType, codeObject);
+		simpleConversionTypes.put(wrapperType, codeObject);
+	}
+
+	/** Marks a type in editorsByType that no PropertyEditor has been found for */
+	private static final Object NO_EDITOR = new Object();
+
 
 	//---------------------------------------------------------------------
 	// Instance data
@@ -121,6 +159,13 @@ public class BeanWrapperImpl implements BeanWrapper {
 	 */
 	private CachedIntrospectionResults cachedIntrospectionResults;
 
+	/**
+	 * Default and JavaBeans PropertyEditors used by this instance: Class --> PropertyEditor,
+	 * or NO_EDITOR. Reused for every conversion to the same type, as BeanWrappers
+	 * are not shared between threads.
+	 */
+	private Map editorsByType;
+
 
 	//---------------------------------------------------------------------
 	// Constructors
@@ -186,6 +231,21 @@ public class BeanWrapperImpl implements BeanWrapper {
 		}
 	}
 
+	/**
+	 * Switch the target object of a cached nested BeanWrapper. In contrast to
+	 * setWrappedInstance, keeps the nested BeanWrappers of this one, with their
+	 * path-specific custom editors: they switch their own target objects
+	 * when they are accessed next.
+	 * @param object new target, not null
+	 * @see #getNestedBeanWrapper
+	 */
+	private void setNestedWrappedInstance(Object object) {
+		this.object = object;
+		if (!this.cachedIntrospectionResults.getBeanClass().equals(object.getClass())) {
+			this.cachedIntrospectionResults = CachedIntrospectionResults.forClass(object.getClass());
+		}
+	}
+
 	public Class getWrappedClass() {
 		return object.getClass();
 	}
@@ -204,7 +264,7 @@ public class BeanWrapperImpl implements BeanWrapper {
 			List bws = getBeanWrappersForPropertyPath(propertyPath);
 			for (Iterator it = bws.iterator(); it.hasNext();) {
 				BeanWrapperImpl bw = (BeanWrapperImpl) it.next();
-				bw.doRegisterCustomEditor(requiredType, getFinalPath(propertyPath), propertyEditor);
+				bw.doRegisterCustomEditor(requiredType, getPropertyPath(propertyPath).getFinalSegment(), propertyEditor);
 			}
 		}
 		else {
@@ -235,8 +295,9 @@ public class BeanWrapperImpl implements BeanWrapper {
 
 	public PropertyEditor findCustomEditor(Class requiredType, String propertyPath) {
 		if (propertyPath != null) {
-			BeanWrapperImpl bw = getBeanWrapperForPropertyPath(propertyPath);
-			return bw.doFindCustomEditor(requiredType, getFinalPath(propertyPath));
+			PropertyPath path = getPropertyPath(propertyPath);
+			BeanWrapperImpl bw = getBeanWrapperForPropertyPath(path);
+			return bw.doFindCustomEditor(requiredType, path.getFinalSegment());
 		}
 		else {
 			return doFindCustomEditor(requiredType, propertyPath);
@@ -282,46 +343,52 @@ public class BeanWrapperImpl implements BeanWrapper {
 
 
 	/**
-	 * Is the property nested? That is, does it contain the nested
-	 * property separator (usually ".").
-	 * @param path property path
-	 * @return boolean is the property nested
+	 * Return the parsed form of the given property path,
+	 * cached per class of the wrapped object.
+	 * @param propertyPath property path, which may be nested
 	 */
-	private boolean isNestedProperty(String path) {
-		return path.indexOf(NESTED_PROPERTY_SEPARATOR) != -1;
+	private PropertyPath getPropertyPath(String propertyPath) {
+		return this.cachedIntrospectionResults.getPropertyPath(propertyPath);
 	}
 
 	/**
-	 * Get the last component of the path. Also works if not nested.
-	 * @param nestedPath property path we know is nested
-	 * @return last component of the path (the property on the target bean)
+	 * Navigate to return a BeanWrapper for the bean that the final segment
+	 * of the given property path refers to.
+	 * @param path property path, which may be nested
+	 * @return a BeanWrapper for the target bean
 	 */
-	private String getFinalPath(String nestedPath) {
-		String finalPath = nestedPath.substring(nestedPath.lastIndexOf(NESTED_PROPERTY_SEPARATOR) + 1);
-		if (logger.isDebugEnabled() && !nestedPath.equals(finalPath)) {
-			logger.debug("Final path in nested property value '" + nestedPath + "' is '" + finalPath + "'");
+	private BeanWrapperImpl getBeanWrapperForPropertyPath(PropertyPath path) {
+		BeanWrapperImpl bw = this;
+		for (int i = 0; i < path.getSegmentCount() - 1; i++) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Navigating to nested property '" + path.getSegment(i) +
+										 "' of property path '" + path + "'");
+			}
+			bw = bw.getNestedBeanWrapper(path.getCanonicalName(i), path.getActualName(i), path.getKey(i));
 		}
-		return finalPath;
+		return bw;
 	}
 
 	/**
-	 * Recursively navigate to return a BeanWrapper for the nested property path.
-	 * @param propertyPath property property path, which may be nested
-	 * @return a BeanWrapper for the target bean
+	 * Navigate to return the bean that the final segment of the given
+	 * property path refers to, without creating nested BeanWrappers:
+	 * reading a property doesn't involve custom editors.
+	 * @param path property path, which may be nested
+	 * @return the target bean
+	 * @throws NullValueInNestedPathException if a bean on the way is null
 	 */
-	private BeanWrapperImpl getBeanWrapperForPropertyPath(String propertyPath) {
-		int pos = propertyPath.indexOf(NESTED_PROPERTY_SEPARATOR);
-		// Handle nested properties recursively
-		if (pos > -1) {
-			String nestedProperty = propertyPath.substring(0, pos);
-			String nestedPath = propertyPath.substring(pos + 1);
-			logger.debug("Navigating to nested property '" + nestedProperty + "' of property path '" + propertyPath + "'");
-			BeanWrapperImpl nestedBw = getNestedBeanWrapper(nestedProperty);
-			return nestedBw.getBeanWrapperForPropertyPath(nestedPath);
-		}
-		else {
-			return this;
+	private Object getTargetForPropertyPath(PropertyPath path) {
+		Object target = this.object;
+		CachedIntrospectionResults results = this.cachedIntrospectionResults;
+		for (int i = 0; i < path.getSegmentCount() - 1; i++) {
+			Object value = getPropertyValue(target, results, path.getCanonicalName(i), path.getActualName(i), path.getKey(i));
+			if (value == null) {
+				throw new NullValueInNestedPathException(target.getClass(), path.getCanonicalName(i));
+			}
+			target = value;
+			results = CachedIntrospectionResults.forClass(target.getClass());
 		}
+		return target;
 	}
 
 	/**
@@ -376,7 +443,8 @@ public class BeanWrapperImpl implements BeanWrapper {
 
 	private List getBeanWrappersForNestedProperty(String propertyPath, String nestedProperty, String nestedPath) {
 		logger.debug("Navigating to nested property '" + nestedProperty + "' of property path '" + propertyPath + "'");
-		BeanWrapperImpl nestedBw = getNestedBeanWrapper(nestedProperty);
+		PropertyPath path = getPropertyPath(nestedProperty);
+		BeanWrapperImpl nestedBw = getNestedBeanWrapper(path.getCanonicalName(0), path.getActualName(0), path.getKey(0));
 		return nestedBw.getBeanWrappersForPropertyPath(nestedPath);
 	}
 
@@ -385,17 +453,18 @@ public class BeanWrapperImpl implements BeanWrapper {
 	 * Create a new one if not found in the cache.
 	 * <p>Note: Caching nested BeanWrappers is necessary now,
 	 * to keep registered custom editors for nested properties.
-	 * @param nestedProperty property to create the BeanWrapper for
+	 * @param canonicalName name of the property, including the key if any
+	 * @param actualName name of the property, without key
+	 * @param key index or map key, or null
 	 * @return the BeanWrapper instance, either cached or newly created
 	 */
-	private BeanWrapperImpl getNestedBeanWrapper(String nestedProperty) {
+	private BeanWrapperImpl getNestedBeanWrapper(String canonicalName, String actualName, String key) {
 		if (this.nestedBeanWrappers == null) {
 			this.nestedBeanWrappers = new HashMap();
 		}
 		// get value of bean property
-		String[] tokens = getPropertyNameTokens(nestedProperty);
-		Object propertyValue = getPropertyValue(tokens[0], tokens[1], tokens[2]);
-		String canonicalName = tokens[0];
+		Object propertyValue = getPropertyValue(this.object, this.cachedIntrospectionResults,
+																						canonicalName, actualName, key);
 		if (propertyValue == null) {
 			throw new NullValueInNestedPathException(getWrappedClass(), canonicalName);
 		}
@@ -408,10 +477,10 @@ public class BeanWrapperImpl implements BeanWrapper {
 			// inherit all type-specific PropertyEditors
 			if (this.customEditors != null) {
 				for (Iterator it = this.customEditors.keySet().iterator(); it.hasNext();) {
-					Object key = it.next();
-					if (key instanceof Class) {
-						Class requiredType = (Class) key;
-						PropertyEditor propertyEditor = (PropertyEditor) this.customEditors.get(key);
+					Object editorKey = it.next();
+					if (editorKey instanceof Class) {
+						Class requiredType = (Class) editorKey;
+						PropertyEditor propertyEditor = (PropertyEditor) this.customEditors.get(editorKey);
 						nestedBw.registerCustomEditor(requiredType, null, propertyEditor);
 					}
 				}
@@ -420,52 +489,47 @@ public class BeanWrapperImpl implements BeanWrapper {
 		}
 		else {
 			logger.debug("Using cached nested BeanWrapper for property '" + canonicalName + "'");
-		}
-		return nestedBw;
-	}
-
-	private String[] getPropertyNameTokens(String propertyName) {
-		String actualName = propertyName;
-		String key = null;
-		int keyStart = propertyName.indexOf('[');
-		if (keyStart != -1 && propertyName.endsWith("]")) {
-			actualName = propertyName.substring(0, keyStart);
-			key = propertyName.substring(keyStart + 1, propertyName.length() - 1);
-			if (key.startsWith("'") && key.endsWith("'")) {
-				key = key.substring(1, key.length() - 1);
+			if (nestedBw.getWrappedInstance() != propertyValue) {
+				// the property has been set to a different object since
+				nestedBw.setNestedWrappedInstance(propertyValue);
 			}
-			else if (key.startsWith("\"") && key.endsWith("\"")) {
-				key = key.substring(1, key.length() - 1);
-			}
-		}
-		String canonicalName = actualName;
-		if (key != null) {
-			canonicalName += "[" + key + "]";
 		}
-		return new String[] {canonicalName, actualName, key};
+		return nestedBw;
 	}
 
-
 	public Object getPropertyValue(String propertyName) throws BeansException {
-		if (isNestedProperty(propertyName)) {
-			BeanWrapper nestedBw = getBeanWrapperForPropertyPath(propertyName);
-			return nestedBw.getPropertyValue(getFinalPath(propertyName));
+		PropertyPath path = getPropertyPath(propertyName);
+		if (path.isNested()) {
+			Object target = getTargetForPropertyPath(path);
+			int last = path.getSegmentCount() - 1;
+			return getPropertyValue(target, CachedIntrospectionResults.forClass(target.getClass()),
+															path.getCanonicalName(last), path.getActualName(last), path.getKey(last));
 		}
-		String[] tokens = getPropertyNameTokens(propertyName);
-		return getPropertyValue(tokens[0], tokens[1], tokens[2]);
+		return getPropertyValue(this.object, this.cachedIntrospectionResults,
+														path.getCanonicalName(0), path.getActualName(0), path.getKey(0));
 	}
 
-	private Object getPropertyValue(String propertyName, String actualName, String key) {
-		PropertyDescriptor pd = getPropertyDescriptor(actualName);
+	/**
+	 * Read the given property of the given bean.
+	 * @param target the bean to read the property of
+	 * @param results the introspection results for the class of the bean
+	 * @param propertyName name of the property, including the key if any
+	 * @param actualName name of the property, without key
+	 * @param key index or map key, or null
+	 * @return the property value, or the element for the key
+	 */
+	private static Object getPropertyValue(Object target, CachedIntrospectionResults results,
+																				 String propertyName, String actualName, String key) {
+		PropertyDescriptor pd = results.getPropertyDescriptor(actualName);
 		Method readMethod = pd.getReadMethod();
 		if (readMethod == null) {
 			throw new FatalBeanException("Cannot get property '" + actualName + "': not readable", null);
 		}
 		if (logger.isDebugEnabled())
 			logger.debug("About to invoke read method [" + readMethod +
-			             "] on object of class [" + this.object.getClass().getName() + "]");
+			             "] on object of class [" + target.getClass().getName() + "]");
 		try {
-			Object value = readMethod.invoke(this.object, null);
+			Object value = results.invokeReadMethod(pd, target);
 			if (key != null) {
 				if (value == null) {
 					throw new FatalBeanException("Cannot access indexed value in property referenced in indexed property path '" +
@@ -521,10 +585,12 @@ public class BeanWrapperImpl implements BeanWrapper {
 	}
 
 	public void setPropertyValue(String propertyName, Object value) throws BeansException {
-		if (isNestedProperty(propertyName)) {
+		PropertyPath path = getPropertyPath(propertyName);
+		if (path.isNested()) {
 			try {
-				BeanWrapper nestedBw = getBeanWrapperForPropertyPath(propertyName);
-				nestedBw.setPropertyValue(new PropertyValue(getFinalPath(propertyName), value));
+				BeanWrapperImpl nestedBw = getBeanWrapperForPropertyPath(path);
+				int last = path.getSegmentCount() - 1;
+				nestedBw.setPropertyValue(path.getCanonicalName(last), path.getActualName(last), path.getKey(last), value);
 				return;
 			}
 			catch (NullValueInNestedPathException ex) {
@@ -536,14 +602,13 @@ public class BeanWrapperImpl implements BeanWrapper {
 				throw new NotWritablePropertyException(propertyName, getWrappedClass(), ex);
 			}
 		}
-		String[] tokens = getPropertyNameTokens(propertyName);
-		setPropertyValue(tokens[0], tokens[1], tokens[2], value);
+		setPropertyValue(path.getCanonicalName(0), path.getActualName(0), path.getKey(0), value);
 	}
 
 	private void setPropertyValue(String propertyName, String actualName, String key, Object value)
 			throws BeansException {
 		if (key != null) {
-			Object propValue = getPropertyValue(actualName);
+			Object propValue = getPropertyValue(this.object, this.cachedIntrospectionResults, actualName, actualName, null);
 			if (propValue == null) {
 				throw new FatalBeanException("Cannot access indexed value in property referenced in indexed property path '" +
 																		 propertyName + "': returned null");
@@ -602,7 +667,7 @@ public class BeanWrapperImpl implements BeanWrapper {
 					logger.debug("About to invoke write method [" + writeMethod +
 											 "] on object of class [" + object.getClass().getName() + "]");
 				}
-				writeMethod.invoke(this.object, new Object[] { newValue });
+				this.cachedIntrospectionResults.invokeWriteMethod(pd, this.object, newValue);
 				if (logger.isDebugEnabled()) {
 					String msg = "Invoked write method [" + writeMethod + "] with value ";
 					// only cause toString invocation of new value in case of simple property
@@ -767,12 +832,18 @@ public class BeanWrapperImpl implements BeanWrapper {
 
 				if (newValue instanceof String) {
 					if (pe == null) {
-						// no custom editor -> check BeanWrapper's default editors
-						pe = findDefaultEditor(requiredType);
-						if (pe == null) {
-							// no BeanWrapper default editor -> check standard JavaBean editors
-							pe = PropertyEditorManager.findEditor(requiredType);
+						Integer conversionCode = (Integer) simpleConversionTypes.get(requiredType);
+						if (conversionCode != null) {
+							// primitive or wrapper -> no need for a PropertyEditor
+							try {
+								return convertSimpleValue(conversionCode.intValue(), (String) newValue);
+							}
+							catch (IllegalArgumentException ex) {
+								throw new TypeMismatchException(createPropertyChangeEvent(propertyDescriptor, oldValue, newValue),
+																								requiredType, ex);
+							}
 						}
+						pe = findEditorForType(requiredType);
 					}
 					if (pe != null) {
 						// use PropertyEditor's setAsText in case of a String value
@@ -823,6 +894,65 @@ public class BeanWrapperImpl implements BeanWrapper {
 		return newValue;
 	}
 
+	/**
+	 * Convert the given String to a primitive or wrapper value, the way the
+	 * standard JavaBeans editors for these types would: decoding integral
+	 * values (allowing for hexadecimal and octal notation), and only accepting
+	 * "true" and "false", ignoring case, for booleans.
+	 * @param conversionCode code of the target type, as in simpleConversionTypes
+	 * @param text the String value
+	 * @return the converted value, as wrapper object
+	 * @throws IllegalArgumentException if the String cannot be converted
+	 * (NumberFormatException for numbers)
+	 */
+	private static Object convertSimpleValue(int conversionCode, String text) throws IllegalArgumentException {
+		switch (conversionCode) {
+			case BOOLEAN:
+				if ("true".equalsIgnoreCase(text)) {
+					return Boolean.TRUE;
+				}
+				if ("false".equalsIgnoreCase(text)) {
+					return Boolean.FALSE;
+				}
+				throw new IllegalArgumentException("Invalid boolean value [" + text + "]");
+			case BYTE:
+				return Byte.decode(text);
+			case SHORT:
+				return Short.decode(text);
+			case INT:
+				return Integer.decode(text);
+			case LONG:
+				return Long.decode(text);
+			case FLOAT:
+				return Float.valueOf(text);
+			default:
+				return Double.valueOf(text);
+		}
+	}
+
+	/**
+	 * Find a PropertyEditor for converting Strings to the given type:
+	 * one of BeanWrapper's default editors, else a standard JavaBeans editor.
+	 * The editor is created on first use and reused by this instance afterwards.
+	 * @param type the target type
+	 * @return the editor, or null if none found
+	 */
+	private PropertyEditor findEditorForType(Class type) {
+		if (this.editorsByType == null) {
+			this.editorsByType = new HashMap();
+		}
+		Object editor = this.editorsByType.get(type);
+		if (editor == null) {
+			editor = findDefaultEditor(type);
+			if (editor == null) {
+				// no BeanWrapper default editor -> check standard JavaBean editors
+				editor = PropertyEditorManager.findEditor(type);
+			}
+			this.editorsByType.put(type, (editor != null ? editor : NO_EDITOR));
+		}
+		return (editor != NO_EDITOR ? (PropertyEditor) editor : null);
+	}
+
 	private PropertyEditor findDefaultEditor(Class type) {
 		Class editorClass = (Class) defaultEditors.get(type);
 		if (editorClass != null) {
@@ -842,9 +972,10 @@ public class BeanWrapperImpl implements BeanWrapper {
 		if (propertyName == null) {
 			throw new FatalBeanException("Can't find property descriptor for null property");
 		}
-		if (isNestedProperty(propertyName)) {
-			BeanWrapper nestedBw = getBeanWrapperForPropertyPath(propertyName);
-			return nestedBw.getPropertyDescriptor(getFinalPath(propertyName));
+		PropertyPath path = getPropertyPath(propertyName);
+		if (path.isNested()) {
+			Object target = getTargetForPropertyPath(path);
+			return CachedIntrospectionResults.forClass(target.getClass()).getPropertyDescriptor(path.getFinalSegment());
 		}
 		return this.cachedIntrospectionResults.getPropertyDescriptor(propertyName);
 	}
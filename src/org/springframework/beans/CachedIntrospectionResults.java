@@ -20,54 +20,302 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.core.JdkVersion;
+
 /**
  * Class to cache PropertyDescriptor information for a Java class.
- * Package-visible; not for use by application code.
+ * Internal class; application code should only ever call acceptClassLoader
+ * and clearClassLoader, typically through Spring's ContextLoader.
  *
  * <p>Necessary as Introspector.getBeanInfo() in JDK 1.3 will return a new
  * deep copy of the BeanInfo every time we ask for it. We take the opportunity
  * to hash property descriptors by method name for fast lookup.
  *
+ * <p>Once the properties of a class have been read or written a number of
+ * times, getters and setters are invoked through generated accessors if
+ * CGLIB is available, avoiding the cost of reflection on hot paths such as
+ * data binding and prototype creation. Rarely used classes keep using
+ * reflection, to avoid the cost of class generation. Set the system property
+ * "org.springframework.beans.generateAccessors" to "false" to always use
+ * reflection.
+ *
  * <p>Information is cached statically, so we don't need to create new
  * objects of this class for every JavaBean we manipulate. Thus this class
  * implements the factory design pattern, using a private constructor
- * and a public static forClass() method to obtain instances.
+ * and a static forClass() method to obtain instances.
+ *
+ * <p>Looking up the results for a class that has been introspected doesn't
+ * acquire a lock on Java 1.5 or later, and each class is introspected only
+ * once, even if several threads ask for it at the same time. Results are only
+ * held strongly for classes that are loaded by the class loader of this class
+ * or one of its parents, or by an accepted class loader. Results for other
+ * classes, for example those of a web application with Spring in a shared
+ * class loader, are held softly: they survive garbage collections as long as
+ * memory permits, but don't prevent the class loader from being garbage
+ * collected once the application has been undeployed and memory runs low.
  *
  * @author Rod Johnson
  * @since 05 May 2001
 *  @version $Id$
  */
-final class CachedIntrospectionResults {
+public final class CachedIntrospectionResults {
 
 	private static final Log logger = LogFactory.getLog(CachedIntrospectionResults.class);
 
-	/** Map keyed by class containing CachedIntrospectionResults */
-	private static HashMap classCache = new HashMap();
+	/** Number of property accesses per class after which accessors are generated */
+	private static final int ACCESSOR_GENERATION_THRESHOLD = 100;
+
+	/** Maximum number of parsed property paths to cache per class */
+	private static final int MAX_CACHED_PROPERTY_PATHS = 256;
+
+	/**
+	 * System property that turns off accessor generation if set to "false",
+	 * for example to compare performance with plain reflection.
+	 */
+	private static final String GENERATE_ACCESSORS_PROPERTY = "org.springframework.beans.generateAccessors";
+
+	private static final boolean accessorGenerationAvailable;
+
+	static {
+		boolean enabled = true;
+		try {
+			enabled = !"false".equalsIgnoreCase(System.getProperty(GENERATE_ACCESSORS_PROPERTY));
+		}
+		catch (SecurityException ex) {
+			// not allowed to read system properties: use the default
+		}
+		accessorGenerationAvailable = enabled && FastPropertyAccessors.isAvailable();
+	}
+
+	/**
+	 * Results for classes that may be cached strongly: Class --> CachedIntrospectionResults.
+	 * Immutable, replaced on write with cacheLock held.
+	 */
+	private static volatile Map strongClassCache = Collections.EMPTY_MAP;
+
+	/**
+	 * Results for other classes: WeakClassKey --> SoftReference to CachedIntrospectionResults.
+	 * Immutable, replaced on write with cacheLock held.
+	 */
+	private static volatile Map softClassCache = Collections.EMPTY_MAP;
+
+	/** Class loaders whose classes may be cached strongly, as keys of a WeakHashMap */
+	private static final Map acceptedClassLoaders = new WeakHashMap();
+
+	/** Classes currently being introspected */
+	private static final Set classesInIntrospection = new HashSet();
+
+	/** Guards all caches except for reads of the strong and soft class caches */
+	private static final Object cacheLock = new Object();
+
+
+	/**
+	 * Accept the given class loader as cache-safe, i.e. cache introspection
+	 * results for its classes strongly, even if this class was loaded by
+	 * a different class loader. Must be followed by clearClassLoader once
+	 * the class loader is no longer used.
+	 * @param classLoader the class loader to accept, or null to do nothing
+	 * @see #clearClassLoader
+	 */
+	public static void acceptClassLoader(ClassLoader classLoader) {
+		if (classLoader != null) {
+			synchronized (cacheLock) {
+				acceptedClassLoaders.put(classLoader, Boolean.TRUE);
+			}
+		}
+	}
+
+	/**
+	 * Discard the introspection results for classes loaded by the given
+	 * class loader or its children, and stop accepting it as cache-safe.
+	 * Also flushes the JavaBeans Introspector cache, which may hold on
+	 * to the same classes.
+	 * @param classLoader the class loader to clear, or null to do nothing
+	 * @see #acceptClassLoader
+	 * @see java.beans.Introspector#flushCaches
+	 */
+	public static void clearClassLoader(ClassLoader classLoader) {
+		if (classLoader == null) {
+			return;
+		}
+		synchronized (cacheLock) {
+			Map newStrongClassCache = new HashMap(strongClassCache);
+			for (Iterator it = newStrongClassCache.keySet().iterator(); it.hasNext();) {
+				if (isLoadedBy((Class) it.next(), classLoader)) {
+					it.remove();
+				}
+			}
+			strongClassCache = newStrongClassCache;
+			Map newSoftClassCache = new HashMap(softClassCache);
+			for (Iterator it = newSoftClassCache.keySet().iterator(); it.hasNext();) {
+				Class clazz = (Class) ((Reference) it.next()).get();
+				if (clazz == null || isLoadedBy(clazz, classLoader)) {
+					it.remove();
+				}
+			}
+			softClassCache = newSoftClassCache;
+			for (Iterator it = acceptedClassLoaders.keySet().iterator(); it.hasNext();) {
+				if (isChildOf((ClassLoader) it.next(), classLoader)) {
+					it.remove();
+				}
+			}
+		}
+		Introspector.flushCaches();
+	}
 
 	/**
-	 * We might use this from the EJB tier, so we don't want to use synchronization.
-	 * Object references are atomic, so we can live with doing the occasional
-	 * unnecessary lookup at startup only.
+	 * Return the introspection results for the given class,
+	 * introspecting it if necessary.
 	 */
 	protected static CachedIntrospectionResults forClass(Class clazz) throws BeansException {
-		Object results = classCache.get(clazz);
-		if (results == null) {
+		CachedIntrospectionResults results = getCachedResults(clazz);
+		if (results != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Using cached introspection results for class " + clazz.getName());
+			}
+			return results;
+		}
+		boolean interrupted = false;
+		synchronized (cacheLock) {
+			try {
+				while (true) {
+					results = getCachedResults(clazz);
+					if (results != null) {
+						return results;
+					}
+					if (classesInIntrospection.add(clazz)) {
+						break;
+					}
+					// another thread is introspecting this class: wait for it
+					try {
+						cacheLock.wait();
+					}
+					catch (InterruptedException ex) {
+						interrupted = true;
+					}
+				}
+			}
+			finally {
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		try {
 			// can throw BeansException
 			results = new CachedIntrospectionResults(clazz);
-			classCache.put(clazz, results);
+			return results;
 		}
-		else {
-			if (logger.isDebugEnabled()) {
-				logger.debug("Using cached introspection results for class " + clazz.getName());
+		finally {
+			synchronized (cacheLock) {
+				classesInIntrospection.remove(clazz);
+				if (results != null) {
+					if (isCacheSafe(clazz)) {
+						Map newStrongClassCache = new HashMap(strongClassCache);
+						newStrongClassCache.put(clazz, results);
+						strongClassCache = newStrongClassCache;
+					}
+					else {
+						// copy only entries whose class and results are still alive
+						Map newSoftClassCache = new HashMap();
+						for (Iterator it = softClassCache.entrySet().iterator(); it.hasNext();) {
+							Map.Entry entry = (Map.Entry) it.next();
+							if (((Reference) entry.getKey()).get() != null && ((Reference) entry.getValue()).get() != null) {
+								newSoftClassCache.put(entry.getKey(), entry.getValue());
+							}
+						}
+						newSoftClassCache.put(new WeakClassKey(clazz), new SoftReference(results));
+						softClassCache = newSoftClassCache;
+						// the Introspector may hold on to the class as well
+						Introspector.flushFromCaches(clazz);
+					}
+				}
+				cacheLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Return the cached results for the given class, if any.
+	 * Reads the class caches under the cache lock on pre-1.5 JVMs, where
+	 * the volatile fields don't publish the maps' contents safely.
+	 * @see org.springframework.core.JdkVersion#isJava15MemoryModel
+	 */
+	private static CachedIntrospectionResults getCachedResults(Class clazz) {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return getCachedResults(clazz, strongClassCache, softClassCache);
+		}
+		synchronized (cacheLock) {
+			return getCachedResults(clazz, strongClassCache, softClassCache);
+		}
+	}
+
+	private static CachedIntrospectionResults getCachedResults(Class clazz, Map strongCache, Map softCache) {
+		CachedIntrospectionResults results = (CachedIntrospectionResults) strongCache.get(clazz);
+		if (results == null && !softCache.isEmpty()) {
+			Reference ref = (Reference) softCache.get(new WeakClassKey(clazz));
+			if (ref != null) {
+				results = (CachedIntrospectionResults) ref.get();
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Return whether results for the given class can be cached strongly without
+	 * keeping its class loader alive: that is the case if the class is loaded
+	 * by the class loader of this class or one of its parents, or by an
+	 * accepted class loader or one of its children.
+	 * Called with the cache lock held.
+	 */
+	private static boolean isCacheSafe(Class clazz) {
+		ClassLoader classLoader = clazz.getClassLoader();
+		if (classLoader == null || isChildOf(CachedIntrospectionResults.class.getClassLoader(), classLoader)) {
+			return true;
+		}
+		for (ClassLoader cl = classLoader; cl != null; cl = cl.getParent()) {
+			if (acceptedClassLoaders.containsKey(cl)) {
+				return true;
 			}
 		}
-		return (CachedIntrospectionResults) results;
+		return false;
+	}
+
+	/**
+	 * Return whether the given class was loaded by the given class loader
+	 * or one of its children.
+	 */
+	private static boolean isLoadedBy(Class clazz, ClassLoader classLoader) {
+		return isChildOf(clazz.getClassLoader(), classLoader);
+	}
+
+	/**
+	 * Return whether the given class loader is the given parent class loader
+	 * or one of its children.
+	 */
+	private static boolean isChildOf(ClassLoader classLoader, ClassLoader parent) {
+		for (ClassLoader cl = classLoader; cl != null; cl = cl.getParent()) {
+			if (cl == parent) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 
@@ -76,6 +324,23 @@ final class CachedIntrospectionResults {
 	/** Property descriptors keyed by property name */
 	private Map propertyDescriptorMap;
 
+	/**
+	 * Number of property accesses so far. Not synchronized: an approximate
+	 * count is good enough to decide when to generate accessors.
+	 */
+	private int accessCount;
+
+	/** Generated accessors, or null if not generated (yet) */
+	private volatile FastPropertyAccessors accessors;
+
+	private volatile boolean accessorGenerationFailed;
+
+	/**
+	 * Parsed property paths starting at this class: String --> PropertyPath.
+	 * Immutable, replaced on write with this instance's lock held.
+	 */
+	private volatile Map propertyPaths = Collections.EMPTY_MAP;
+
 	/**
 	 * Create new CachedIntrospectionResults instance fot the given class.
 	 */
@@ -107,6 +372,129 @@ final class CachedIntrospectionResults {
 		return beanInfo.getBeanDescriptor().getBeanClass();
 	}
 
+	/**
+	 * Invoke the read method of the given property of this class.
+	 * @see java.lang.reflect.Method#invoke
+	 */
+	protected Object invokeReadMethod(PropertyDescriptor pd, Object target)
+			throws IllegalAccessException, InvocationTargetException {
+		FastPropertyAccessors accessors = getAccessors();
+		if (accessors != null) {
+			return accessors.read(pd, target);
+		}
+		return pd.getReadMethod().invoke(target, null);
+	}
+
+	/**
+	 * Invoke the write method of the given property of this class.
+	 * @see java.lang.reflect.Method#invoke
+	 */
+	protected void invokeWriteMethod(PropertyDescriptor pd, Object target, Object value)
+			throws IllegalAccessException, InvocationTargetException {
+		FastPropertyAccessors accessors = getAccessors();
+		if (accessors != null) {
+			accessors.write(pd, target, value);
+		}
+		else {
+			pd.getWriteMethod().invoke(target, new Object[] {value});
+		}
+	}
+
+	/**
+	 * Return the generated accessors for this class, generating them
+	 * once the access threshold has been reached.
+	 * @return the accessors, or null if reflection should be used
+	 */
+	private FastPropertyAccessors getAccessors() {
+		FastPropertyAccessors accessors = getGeneratedAccessors();
+		if (accessors == null && accessorGenerationAvailable && !this.accessorGenerationFailed &&
+				++this.accessCount >= ACCESSOR_GENERATION_THRESHOLD) {
+			accessors = generateAccessors();
+		}
+		return accessors;
+	}
+
+	/**
+	 * Return the generated accessors, if any. Read with this instance's lock
+	 * held on pre-1.5 JVMs, which may otherwise see them partially built.
+	 */
+	private FastPropertyAccessors getGeneratedAccessors() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.accessors;
+		}
+		synchronized (this) {
+			return this.accessors;
+		}
+	}
+
+	/**
+	 * Return whether properties of this class are accessed through
+	 * generated accessors. Mainly for testing purposes.
+	 */
+	protected boolean hasGeneratedAccessors() {
+		return (this.accessors != null);
+	}
+
+	private synchronized FastPropertyAccessors generateAccessors() {
+		if (this.accessors == null && !this.accessorGenerationFailed) {
+			Class beanClass = getBeanClass();
+			if (Modifier.isPublic(beanClass.getModifiers())) {
+				try {
+					this.accessors = new FastPropertyAccessors(beanClass, getPropertyDescriptors());
+					if (logger.isDebugEnabled()) {
+						logger.debug("Generated property accessors for class [" + beanClass.getName() + "]");
+					}
+				}
+				catch (Throwable ex) {
+					logger.info("Couldn't generate property accessors for class [" + beanClass.getName() +
+							"]: using reflection to access its properties", ex);
+				}
+			}
+			this.accessorGenerationFailed = (this.accessors == null);
+		}
+		return this.accessors;
+	}
+
+	/**
+	 * Return the parsed form of the given property path, which starts at
+	 * a bean of this class. Paths are cached, up to a limit per class, so
+	 * that paths with varying indexes or keys don't fill up the cache.
+	 * @param path the property path, which may be nested
+	 * @return the parsed path
+	 */
+	protected PropertyPath getPropertyPath(String path) {
+		PropertyPath propertyPath = (PropertyPath) getPropertyPaths().get(path);
+		if (propertyPath == null) {
+			propertyPath = new PropertyPath(path);
+			synchronized (this) {
+				if (this.propertyPaths.size() < MAX_CACHED_PROPERTY_PATHS) {
+					Map newPropertyPaths = new HashMap(this.propertyPaths);
+					newPropertyPaths.put(path, propertyPath);
+					this.propertyPaths = newPropertyPaths;
+				}
+			}
+		}
+		return propertyPath;
+	}
+
+	private Map getPropertyPaths() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.propertyPaths;
+		}
+		synchronized (this) {
+			return this.propertyPaths;
+		}
+	}
+
+	/**
+	 * Return the property descriptors of this class, without copying
+	 * them as BeanInfo.getPropertyDescriptors() may do.
+	 */
+	protected PropertyDescriptor[] getPropertyDescriptors() {
+		return (PropertyDescriptor[])
+				this.propertyDescriptorMap.values().toArray(new PropertyDescriptor[this.propertyDescriptorMap.size()]);
+	}
+
 	protected PropertyDescriptor getPropertyDescriptor(String propertyName) throws BeansException {
 		PropertyDescriptor pd = (PropertyDescriptor) this.propertyDescriptorMap.get(propertyName);
 		if (pd == null) {
@@ -115,4 +503,34 @@ final class CachedIntrospectionResults {
 		return pd;
 	}
 
+
+	/**
+	 * Key of the soft class cache that refers to its class weakly,
+	 * comparing classes by identity.
+	 */
+	private static final class WeakClassKey extends WeakReference {
+
+		private final int hashCode;
+
+		public WeakClassKey(Class clazz) {
+			super(clazz);
+			this.hashCode = System.identityHashCode(clazz);
+		}
+
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof WeakClassKey)) {
+				return false;
+			}
+			Object clazz = get();
+			return (clazz != null && clazz == ((WeakClassKey) other).get());
+		}
+
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
 }
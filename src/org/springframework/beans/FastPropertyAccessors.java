@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.cglib.reflect.FastClass;
+
+/**
+ * Generated getter and setter dispatchers for the properties of one bean class.
+ * Package-visible; not for use by application code.
+ *
+ * <p>Uses a CGLIB FastClass, which invokes methods through generated bytecode
+ * that switches on a method index, instead of java.lang.reflect.Method.invoke.
+ * The indexes of each property's read and write method are resolved once,
+ * on creation, and looked up by property name.
+ *
+ * <p>Properties whose accessors aren't public, and setter arguments that
+ * don't match the property type, are handled via reflection, so that
+ * exceptions are the same as with Method.invoke.
+ *
+ * @author agent
+ * @version $Id$
+ * @see CachedIntrospectionResults
+ */
+final class FastPropertyAccessors {
+
+	/** Primitive type --> wrapper type */
+	private static final Map primitiveWrapperTypes = new HashMap();
+
+	static {
+		primitiveWrapperTypes.put(boolean.class, Boolean.class);
+		primitiveWrapperTypes.put(byte.class, Byte.class);
+		primitiveWrapperTypes.put(char.class, Character.class);
+		primitiveWrapperTypes.put(double.class, Double.class);
+		primitiveWrapperTypes.put(float.class, Float.class);
+		primitiveWrapperTypes.put(int.class, Integer.class);
+		primitiveWrapperTypes.put(long.class, Long.class);
+		primitiveWrapperTypes.put(short.class, Short.class);
+	}
+
+	/**
+	 * Return whether accessors can be generated, i.e. whether CGLIB is present.
+	 */
+	public static boolean isAvailable() {
+		try {
+			Class.forName("net.sf.cglib.reflect.FastClass", true, FastPropertyAccessors.class.getClassLoader());
+			return true;
+		}
+		catch (Throwable ex) {
+			return false;
+		}
+	}
+
+
+	/** CGLIB FastClass, referenced as Object to just introduce a CGLIB dependency on creation */
+	private final Object fastClass;
+
+	/** Property name --> Accessor */
+	private final Map accessors = new HashMap();
+
+	/**
+	 * Generate accessors for the given properties of the given bean class.
+	 * @param beanClass the bean class, which must be public
+	 * @param pds the property descriptors of the bean class
+	 * @throws RuntimeException or Error if class generation failed
+	 */
+	public FastPropertyAccessors(Class beanClass, PropertyDescriptor[] pds) {
+		this.fastClass = FastClassHelper.createFastClass(beanClass);
+		for (int i = 0; i < pds.length; i++) {
+			PropertyDescriptor pd = pds[i];
+			int readIndex = getIndex(pd.getReadMethod());
+			int writeIndex = getIndex(pd.getWriteMethod());
+			if (readIndex != -1 || writeIndex != -1) {
+				this.accessors.put(pd.getName(), new Accessor(readIndex, writeIndex, pd.getPropertyType()));
+			}
+		}
+	}
+
+	private int getIndex(Method method) {
+		if (method == null || !Modifier.isPublic(method.getModifiers()) ||
+				!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+			return -1;
+		}
+		return FastClassHelper.getIndex(this.fastClass, method);
+	}
+
+	/**
+	 * Invoke the read method of the given property on the given target.
+	 * @see java.lang.reflect.Method#invoke
+	 */
+	public Object read(PropertyDescriptor pd, Object target)
+			throws IllegalAccessException, InvocationTargetException {
+		Accessor accessor = (Accessor) this.accessors.get(pd.getName());
+		if (accessor == null || accessor.readIndex == -1) {
+			return pd.getReadMethod().invoke(target, null);
+		}
+		return FastClassHelper.invoke(this.fastClass, accessor.readIndex, target, null);
+	}
+
+	/**
+	 * Invoke the write method of the given property on the given target.
+	 * @see java.lang.reflect.Method#invoke
+	 */
+	public void write(PropertyDescriptor pd, Object target, Object value)
+			throws IllegalAccessException, InvocationTargetException {
+		Accessor accessor = (Accessor) this.accessors.get(pd.getName());
+		if (accessor == null || accessor.writeIndex == -1 || !accessor.accepts(value)) {
+			pd.getWriteMethod().invoke(target, new Object[] {value});
+			return;
+		}
+		FastClassHelper.invoke(this.fastClass, accessor.writeIndex, target, new Object[] {value});
+	}
+
+
+	/**
+	 * FastClass method indexes for one property.
+	 */
+	private static class Accessor {
+
+		private final int readIndex;
+
+		private final int writeIndex;
+
+		/** Type that setter arguments must have, with primitives wrapped */
+		private final Class argumentType;
+
+		private final boolean primitive;
+
+		private Accessor(int readIndex, int writeIndex, Class propertyType) {
+			this.readIndex = readIndex;
+			this.writeIndex = writeIndex;
+			this.primitive = (propertyType != null && propertyType.isPrimitive());
+			this.argumentType = (this.primitive ? (Class) primitiveWrapperTypes.get(propertyType) : propertyType);
+		}
+
+		private boolean accepts(Object value) {
+			if (value == null) {
+				return !this.primitive;
+			}
+			return (this.argumentType != null && this.argumentType.isInstance(value));
+		}
+	}
+
+
+	/**
+	 * Inner class to just introduce a CGLIB dependency
+	 * when actually generating accessors.
+	 */
+	private static class FastClassHelper {
+
+		private static Object createFastClass(Class clazz) {
+			return FastClass.create(clazz);
+		}
+
+		private static int getIndex(Object fastClass, Method method) {
+			return ((FastClass) fastClass).getIndex(method.getName(), method.getParameterTypes());
+		}
+
+		private static Object invoke(Object fastClass, int index, Object target, Object[] args)
+				throws InvocationTargetException {
+			return ((FastClass) fastClass).invoke(index, target, args);
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsed form of a property path like "order.lineItems[3].item.price":
+ * the segments separated by BeanWrapper.NESTED_PROPERTY_SEPARATOR, each
+ * split into the property name and the optional index or key. Immutable.
+ * Package-visible; not for use by application code.
+ *
+ * <p>Instances are cached by CachedIntrospectionResults, per class of
+ * the bean that the path starts at, so that a path is parsed only once.
+ *
+ * @author agent
+ * @version $Id$
+ * @see BeanWrapperImpl
+ * @see CachedIntrospectionResults#getPropertyPath
+ */
+final class PropertyPath {
+
+	private final String path;
+
+	/** Segments as written, e.g. "lineItems[3]" */
+	private final String[] segments;
+
+	/** Property name with normalized key, e.g. "map[key]" for "map['key']" */
+	private final String[] canonicalNames;
+
+	/** Property name without key, e.g. "lineItems" */
+	private final String[] actualNames;
+
+	/** Index or map key, without quotes, or null */
+	private final String[] keys;
+
+
+	/**
+	 * Parse the given property path.
+	 * @param path the property path, which may be nested
+	 */
+	public PropertyPath(String path) {
+		this.path = path;
+		List segmentList = new ArrayList();
+		int start = 0;
+		int pos = path.indexOf(BeanWrapper.NESTED_PROPERTY_SEPARATOR);
+		while (pos != -1) {
+			segmentList.add(path.substring(start, pos));
+			start = pos + BeanWrapper.NESTED_PROPERTY_SEPARATOR.length();
+			pos = path.indexOf(BeanWrapper.NESTED_PROPERTY_SEPARATOR, start);
+		}
+		segmentList.add(path.substring(start));
+
+		int count = segmentList.size();
+		this.segments = (String[]) segmentList.toArray(new String[count]);
+		this.canonicalNames = new String[count];
+		this.actualNames = new String[count];
+		this.keys = new String[count];
+		for (int i = 0; i < count; i++) {
+			parseSegment(i);
+		}
+	}
+
+	private void parseSegment(int i) {
+		String segment = this.segments[i];
+		String actualName = segment;
+		String key = null;
+		int keyStart = segment.indexOf('[');
+		if (keyStart != -1 && segment.endsWith("]")) {
+			actualName = segment.substring(0, keyStart);
+			key = segment.substring(keyStart + 1, segment.length() - 1);
+			if (key.startsWith("'") && key.endsWith("'")) {
+				key = key.substring(1, key.length() - 1);
+			}
+			else if (key.startsWith("\"") && key.endsWith("\"")) {
+				key = key.substring(1, key.length() - 1);
+			}
+		}
+		this.actualNames[i] = actualName;
+		this.keys[i] = key;
+		this.canonicalNames[i] = (key != null ? actualName + "[" + key + "]" : actualName);
+	}
+
+	/**
+	 * Return the property path as passed to the constructor.
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Return whether the path consists of more than one segment.
+	 */
+	public boolean isNested() {
+		return (this.segments.length > 1);
+	}
+
+	/**
+	 * Return the number of segments, at least 1.
+	 */
+	public int getSegmentCount() {
+		return this.segments.length;
+	}
+
+	/**
+	 * Return the given segment as written in the path.
+	 */
+	public String getSegment(int i) {
+		return this.segments[i];
+	}
+
+	/**
+	 * Return the last segment as written in the path,
+	 * i.e. the property on the target bean.
+	 */
+	public String getFinalSegment() {
+		return this.segments[this.segments.length - 1];
+	}
+
+	/**
+	 * Return the property name and key of the given segment,
+	 * with quotes removed from the key.
+	 */
+	public String getCanonicalName(int i) {
+		return this.canonicalNames[i];
+	}
+
+	/**
+	 * Return the property name of the given segment.
+	 */
+	public String getActualName(int i) {
+		return this.actualNames[i];
+	}
+
+	/**
+	 * Return the index or map key of the given segment.
+	 * @return the key, or null if the segment doesn't have one
+	 */
+	public String getKey(int i) {
+		return this.keys[i];
+	}
+
+	public String toString() {
+		return this.path;
+	}
+
+}
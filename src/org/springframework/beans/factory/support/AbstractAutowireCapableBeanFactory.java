@@ -21,9 +21,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -256,14 +254,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			}
 		}
 
-		Constructor[] constructors = mergedBeanDefinition.getBeanClass().getConstructors();
-		Arrays.sort(constructors, new Comparator() {
-			public int compare(Object o1, Object o2) {
-				int c1pl = ((Constructor) o1).getParameterTypes().length;
-				int c2pl = ((Constructor) o2).getParameterTypes().length;
-				return (new Integer(c1pl)).compareTo(new Integer(c2pl)) * -1;
-			}
-		});
+		Constructor[] constructors = mergedBeanDefinition.getSortedConstructors();
 
 		BeanWrapperImpl bw = new BeanWrapperImpl();
 		initBeanWrapper(bw);
@@ -18,6 +18,7 @@ package org.springframework.beans.factory.support;
 
 import java.beans.PropertyEditor;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -43,6 +44,7 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.core.JdkVersion;
 
 /**
  * Abstract superclass for BeanFactory implementations.
@@ -53,6 +55,13 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
  * definitions. It also allows for management of a bean factory hierarchy,
  * implementing the HierarchicalBeanFactory interface.
  *
+ * <p>Singletons are created under a per-bean creation marker rather than a
+ * factory-wide lock, so a slow singleton only blocks threads requesting
+ * that same singleton. Lookups of singletons that have already been created
+ * don't acquire a lock. A singleton is only visible to other threads once
+ * it is fully initialized; before that, early references to it are only
+ * used for resolving circular references.
+ *
  * <p>The main template methods to be implemented by subclasses are
  * getBeanDefinition and createBean, retrieving a bean definition for
  * a given bean name respectively creating a bean instance for a given
@@ -95,8 +104,40 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	/** Map from alias to canonical bean name */
 	private final Map aliasMap = Collections.synchronizedMap(new HashMap());
 
-	/** Cache of singletons: bean name --> bean instance */
-	private final Map singletonCache = Collections.synchronizedMap(new HashMap());
+	/** Merged definitions of beans that have been created: bean name --> RootBeanDefinition */
+	private final BatchPublishingMap mergedBeanDefinitions = new BatchPublishingMap(new Object());
+
+	/** Generation of the parent's merged bean definitions that the cached ones are based on */
+	private volatile int parentMergedBeanDefinitionGeneration;
+
+	/** Guards singleton cache writes and the following maps */
+	private final Object singletonLock = new Object();
+
+	/**
+	 * Cache of fully initialized singletons: bean name --> bean instance.
+	 * New singletons are published in batches, with singletonLock held.
+	 */
+	private final BatchPublishingMap singletonCache = new BatchPublishingMap(this.singletonLock) {
+		protected void entriesPublished(Map entries) {
+			addSingletonNamesByType(entries);
+		}
+	};
+
+	/**
+	 * Names of cached singletons by type: Class --> String[], for the class of
+	 * each singleton, all of its superclasses and all implemented interfaces.
+	 * Immutable, replaced once per batch of singletons published to the cache.
+	 */
+	private volatile Map singletonNamesByType = Collections.EMPTY_MAP;
+
+	/** Names of singletons currently in creation --> creating Thread */
+	private final Map singletonsInCreation = new HashMap();
+
+	/** Singletons in creation, cached early to resolve circular references: bean name --> bean instance */
+	private final Map earlySingletons = new HashMap();
+
+	/** Threads waiting for another thread to create a singleton --> name of the singleton */
+	private final Map waitingThreads = new HashMap();
 
 
 	/**
@@ -138,28 +179,29 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 		}
 		else {
 			// check if bean definition exists
-			RootBeanDefinition mergedBeanDefinition = null;
-			try {
-				mergedBeanDefinition = getMergedBeanDefinition(beanName, false);
-			}
-			catch (NoSuchBeanDefinitionException ex) {
-				// not found -> check parent
-				if (this.parentBeanFactory != null) {
-					return this.parentBeanFactory.getBean(name);
+			checkParentMergedBeanDefinitions();
+			int generation = this.mergedBeanDefinitions.getGeneration();
+			RootBeanDefinition mergedBeanDefinition =
+					(RootBeanDefinition) this.mergedBeanDefinitions.get(beanName);
+			if (mergedBeanDefinition == null) {
+				try {
+					mergedBeanDefinition = getMergedBeanDefinition(beanName, false);
 				}
-				throw ex;
+				catch (NoSuchBeanDefinitionException ex) {
+					// not found -> check parent
+					if (this.parentBeanFactory != null) {
+						return this.parentBeanFactory.getBean(name);
+					}
+					throw ex;
+				}
+				// keep the merged definition for subsequent instances of this bean,
+				// unless definitions have been registered in the meantime
+				this.mergedBeanDefinitions.put(beanName, mergedBeanDefinition, generation);
 			}
+
 			// create bean instance
 			if (mergedBeanDefinition.isSingleton()) {
-				synchronized (this.singletonCache) {
-					// re-check singleton cache within synchronized block
-					sharedInstance = this.singletonCache.get(beanName);
-					if (sharedInstance == null) {
-						logger.info("Creating shared instance of singleton bean '" + beanName + "'");
-						sharedInstance = createBean(beanName, mergedBeanDefinition);
-						addSingleton(beanName, sharedInstance);
-					}
-				}
+				sharedInstance = getOrCreateSingleton(beanName, mergedBeanDefinition);
 				return getObjectForSharedInstance(name, sharedInstance);
 			}
 			else {
@@ -267,6 +309,8 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 
 	public void setParentBeanFactory(BeanFactory parentBeanFactory) {
 		this.parentBeanFactory = parentBeanFactory;
+		// parent definitions may have changed
+		clearMergedBeanDefinitions();
 	}
 
 	public void registerCustomEditor(Class requiredType, PropertyEditor propertyEditor) {
@@ -317,7 +361,7 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	}
 
 	public void registerSingleton(String beanName, Object singletonObject) throws BeanDefinitionStoreException {
-		synchronized (this.singletonCache) {
+		synchronized (this.singletonLock) {
 			Object oldObject = this.singletonCache.get(beanName);
 			if (oldObject != null) {
 				throw new BeanDefinitionStoreException("Could not register object [" + singletonObject +
@@ -331,23 +375,50 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	/**
 	 * Add the given singleton object to the singleton cache of this factory.
 	 * <p>To be called for eager registration of singletons, e.g. to be able to
-	 * resolve circular references.
+	 * resolve circular references. If the current thread is creating the given
+	 * singleton, the object will only be used to resolve circular references
+	 * until creation has finished.
 	 * @param beanName the name of the bean
 	 * @param singletonObject the singleton object
 	 */
 	protected void addSingleton(String beanName, Object singletonObject) {
-		this.singletonCache.put(beanName, singletonObject);
+		synchronized (this.singletonLock) {
+			if (this.singletonsInCreation.get(beanName) == Thread.currentThread()) {
+				this.earlySingletons.put(beanName, singletonObject);
+			}
+			else {
+				Object oldObject = this.singletonCache.get(beanName);
+				if (oldObject != null) {
+					// replace a published singleton right away, along with its types
+					this.singletonCache.publish();
+					this.singletonCache.put(beanName, singletonObject);
+					updateSingletonNamesByType(beanName, oldObject, singletonObject);
+				}
+				else {
+					// new singletons get indexed by type when published
+					this.singletonCache.put(beanName, singletonObject);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Make all cached singletons visible to lock-free lookups.
+	 * <p>Newly created singletons are published to the singleton cache in
+	 * batches, to avoid copying the entire cache for every singleton. To be
+	 * called by subclasses after creating a number of singletons, for example
+	 * at the end of pre-instantiation.
+	 */
+	protected void publishSingletons() {
+		this.singletonCache.publish();
 	}
 
 	public void destroySingletons() {
 		if (logger.isInfoEnabled()) {
 			logger.info("Destroying singletons in factory {" + this + "}");
 		}
-		synchronized (this.singletonCache) {
-			Set singletonCacheKeys = new HashSet(this.singletonCache.keySet());
-			for (Iterator it = singletonCacheKeys.iterator(); it.hasNext();) {
-				destroySingleton((String) it.next());
-			}
+		for (Iterator it = this.singletonCache.getSnapshot().keySet().iterator(); it.hasNext();) {
+			destroySingleton((String) it.next());
 		}
 	}
 
@@ -358,7 +429,15 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	 * @see #destroyBean
 	 */
 	protected void destroySingleton(String beanName) {
-		Object singletonInstance = this.singletonCache.remove(beanName);
+		Object singletonInstance = null;
+		synchronized (this.singletonLock) {
+			// make sure that the singleton is indexed before removing it
+			this.singletonCache.publish();
+			singletonInstance = this.singletonCache.remove(beanName);
+			if (singletonInstance != null) {
+				updateSingletonNamesByType(beanName, singletonInstance, null);
+			}
+		}
 		if (singletonInstance != null) {
 			destroyBean(beanName, singletonInstance);
 		}
@@ -410,22 +489,239 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	 * object type (including subclasses). Will <i>not</i> consider FactoryBeans
 	 * as the type of their created objects is not known before instantiation.
 	 * <p>Does not consider any hierarchy this factory may participate in.
+	 * <p>Uses an index by type that is maintained along with the singleton
+	 * cache, so doesn't need to check every cached singleton.
 	 * @param type class or interface to match, or null for all bean names
 	 * @return the names of beans in the singleton cache that match the given
 	 * object type (including subclasses), or an empty array if none
 	 */
 	public String[] getSingletonNames(Class type) {
-		Set keys = this.singletonCache.keySet();
-		Set matches = new HashSet();
-		Iterator itr = keys.iterator();
-		while (itr.hasNext()) {
-			String name = (String) itr.next();
-			Object singletonObject = this.singletonCache.get(name);
-			if (type == null || type.isAssignableFrom(singletonObject.getClass())) {
-				matches.add(name);
+		if (type == null) {
+			Set names = this.singletonCache.getSnapshot().keySet();
+			return (String[]) names.toArray(new String[names.size()]);
+		}
+		this.singletonCache.publish();
+		String[] names = (String[]) getSingletonNamesByType().get(type);
+		return (names != null ? (String[]) names.clone() : new String[0]);
+	}
+
+	/**
+	 * Return the current index of singleton names by type. Read under the
+	 * singleton lock on pre-1.5 JVMs, as the volatile field only publishes
+	 * the index safely on later JVMs.
+	 * @see org.springframework.core.JdkVersion#isJava15MemoryModel
+	 */
+	private Map getSingletonNamesByType() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.singletonNamesByType;
+		}
+		synchronized (this.singletonLock) {
+			return this.singletonNamesByType;
+		}
+	}
+
+	/**
+	 * Replace the index of singleton names by type, adding the names of the
+	 * given singletons to their types. Copies the index and the name array
+	 * of each affected type only once for the whole batch.
+	 * Called with the singleton lock held.
+	 * @param singletons Map with bean name Strings as keys and singleton
+	 * objects as values
+	 */
+	private void addSingletonNamesByType(Map singletons) {
+		// collect the new names per type first
+		Map addedNamesByType = new HashMap();
+		for (Iterator it = singletons.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			for (Iterator typeIt = getAllTypes(entry.getValue().getClass()).iterator(); typeIt.hasNext();) {
+				Class type = (Class) typeIt.next();
+				List addedNames = (List) addedNamesByType.get(type);
+				if (addedNames == null) {
+					addedNames = new ArrayList();
+					addedNamesByType.put(type, addedNames);
+				}
+				addedNames.add(entry.getKey());
 			}
 		}
-		return (String[]) matches.toArray(new String[matches.size()]);
+		Map newNamesByType = new HashMap(this.singletonNamesByType);
+		for (Iterator it = addedNamesByType.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			List addedNames = (List) entry.getValue();
+			String[] names = (String[]) newNamesByType.get(entry.getKey());
+			int oldLength = (names != null ? names.length : 0);
+			String[] newNames = new String[oldLength + addedNames.size()];
+			if (names != null) {
+				System.arraycopy(names, 0, newNames, 0, oldLength);
+			}
+			for (int i = 0; i < addedNames.size(); i++) {
+				newNames[oldLength + i] = (String) addedNames.get(i);
+			}
+			newNamesByType.put(entry.getKey(), newNames);
+		}
+		this.singletonNamesByType = newNamesByType;
+	}
+
+	/**
+	 * Replace the index of singleton names by type, moving the given bean name
+	 * from the types of the old object to the types of the new object.
+	 * Called with the singleton lock held.
+	 * @param beanName the name of the bean
+	 * @param oldObject the previously cached singleton, or null if none
+	 * @param newObject the newly cached singleton, or null if removed
+	 */
+	private void updateSingletonNamesByType(String beanName, Object oldObject, Object newObject) {
+		Map newNamesByType = new HashMap(this.singletonNamesByType);
+		if (oldObject != null) {
+			for (Iterator it = getAllTypes(oldObject.getClass()).iterator(); it.hasNext();) {
+				Class type = (Class) it.next();
+				List names = new ArrayList(Arrays.asList((String[]) newNamesByType.get(type)));
+				names.remove(beanName);
+				if (names.isEmpty()) {
+					newNamesByType.remove(type);
+				}
+				else {
+					newNamesByType.put(type, names.toArray(new String[names.size()]));
+				}
+			}
+		}
+		if (newObject != null) {
+			for (Iterator it = getAllTypes(newObject.getClass()).iterator(); it.hasNext();) {
+				Class type = (Class) it.next();
+				String[] names = (String[]) newNamesByType.get(type);
+				if (names == null) {
+					newNamesByType.put(type, new String[] {beanName});
+				}
+				else {
+					String[] newNames = new String[names.length + 1];
+					System.arraycopy(names, 0, newNames, 0, names.length);
+					newNames[names.length] = beanName;
+					newNamesByType.put(type, newNames);
+				}
+			}
+		}
+		this.singletonNamesByType = newNamesByType;
+	}
+
+	/**
+	 * Return the given class, all of its superclasses and all interfaces
+	 * that they implement, including superinterfaces.
+	 */
+	private static Set getAllTypes(Class clazz) {
+		Set types = new HashSet();
+		List toVisit = new ArrayList();
+		toVisit.add(clazz);
+		while (!toVisit.isEmpty()) {
+			Class type = (Class) toVisit.remove(toVisit.size() - 1);
+			if (types.add(type)) {
+				if (type.getSuperclass() != null) {
+					toVisit.add(type.getSuperclass());
+				}
+				toVisit.addAll(Arrays.asList(type.getInterfaces()));
+			}
+		}
+		return types;
+	}
+
+	/**
+	 * Return the shared instance of the given singleton, creating it if necessary.
+	 * <p>Only one thread creates a given singleton; other threads requesting it
+	 * wait until it has been fully initialized. Requests by the creating thread
+	 * itself, i.e. circular references, receive the early reference registered
+	 * via addSingleton. So do requests from threads that the creating thread is
+	 * itself waiting for, which would otherwise deadlock. If there is no early
+	 * reference yet, such requests create a nested instance.
+	 * @param beanName the canonical name of the bean
+	 * @param mergedBeanDefinition the merged singleton bean definition
+	 * @return the singleton instance, or an early reference to it
+	 * @see #addSingleton
+	 */
+	private Object getOrCreateSingleton(String beanName, RootBeanDefinition mergedBeanDefinition)
+			throws BeansException {
+		Thread currentThread = Thread.currentThread();
+		boolean nestedCreation = false;
+		synchronized (this.singletonLock) {
+			while (true) {
+				Object sharedInstance = this.singletonCache.get(beanName);
+				if (sharedInstance != null) {
+					return sharedInstance;
+				}
+				Thread creatingThread = (Thread) this.singletonsInCreation.get(beanName);
+				if (creatingThread == null) {
+					this.singletonsInCreation.put(beanName, currentThread);
+					break;
+				}
+				if (creatingThread == currentThread || isWaitingFor(creatingThread, currentThread)) {
+					Object earlySingleton = this.earlySingletons.get(beanName);
+					if (earlySingleton != null) {
+						if (logger.isDebugEnabled()) {
+							logger.debug("Returning early reference to singleton bean '" + beanName +
+									"' to resolve circular reference");
+						}
+						return earlySingleton;
+					}
+					// Not instantiated yet, e.g. when autowiring its constructor:
+					// create a nested instance, as a single-threaded factory would.
+					nestedCreation = true;
+					break;
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Waiting for singleton bean '" + beanName + "' to be created by another thread");
+				}
+				this.waitingThreads.put(currentThread, beanName);
+				try {
+					this.singletonLock.wait();
+				}
+				catch (InterruptedException ex) {
+					currentThread.interrupt();
+					throw new BeanCreationException(mergedBeanDefinition.getResourceDescription(), beanName,
+							"Interrupted while waiting for singleton to be created by another thread", ex);
+				}
+				finally {
+					this.waitingThreads.remove(currentThread);
+				}
+			}
+		}
+
+		if (nestedCreation) {
+			logger.info("Creating nested instance of singleton bean '" + beanName + "' that is currently in creation");
+			return createBean(beanName, mergedBeanDefinition);
+		}
+
+		Object sharedInstance = null;
+		try {
+			logger.info("Creating shared instance of singleton bean '" + beanName + "'");
+			sharedInstance = createBean(beanName, mergedBeanDefinition);
+		}
+		finally {
+			synchronized (this.singletonLock) {
+				this.singletonsInCreation.remove(beanName);
+				this.earlySingletons.remove(beanName);
+				if (sharedInstance != null) {
+					addSingleton(beanName, sharedInstance);
+				}
+				this.singletonLock.notifyAll();
+			}
+		}
+		return sharedInstance;
+	}
+
+	/**
+	 * Return whether the given thread is waiting, directly or through other
+	 * waiting threads, for a singleton that the other given thread is creating.
+	 * Called with the singleton lock held.
+	 */
+	private boolean isWaitingFor(Thread thread, Thread creatingThread) {
+		for (int i = 0; i <= this.waitingThreads.size(); i++) {
+			String awaitedBeanName = (String) this.waitingThreads.get(thread);
+			if (awaitedBeanName == null) {
+				return false;
+			}
+			thread = (Thread) this.singletonsInCreation.get(awaitedBeanName);
+			if (thread == creatingThread) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -480,10 +776,20 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 	/**
 	 * Return a RootBeanDefinition, even by traversing parent if the parameter is a child definition.
 	 * Will ask the parent bean factory if not found in this instance.
+	 * <p>Once a bean has been created, its merged definition is cached, so subsequent
+	 * instances of prototypes don't need to merge child definitions again. Like singleton
+	 * instances, cached definitions don't reflect changes made to the original bean
+	 * definitions afterwards; register a new bean definition to change a bean.
 	 * @return a merged RootBeanDefinition with overridden properties
+	 * @see #clearMergedBeanDefinitions
 	 */
 	public RootBeanDefinition getMergedBeanDefinition(String beanName, boolean includingAncestors)
 	    throws BeansException {
+		checkParentMergedBeanDefinitions();
+		RootBeanDefinition mergedBeanDefinition = (RootBeanDefinition) this.mergedBeanDefinitions.get(beanName);
+		if (mergedBeanDefinition != null) {
+			return mergedBeanDefinition;
+		}
 		try {
 			return getMergedBeanDefinition(beanName, getBeanDefinition(beanName));
 		}
@@ -525,6 +831,42 @@ public abstract class AbstractBeanFactory implements ConfigurableBeanFactory, Hi
 		}
 	}
 
+	/**
+	 * Discard all cached merged bean definitions.
+	 * <p>To be called by subclasses when registering bean definitions,
+	 * as a new definition may also affect child definitions.
+	 */
+	protected void clearMergedBeanDefinitions() {
+		this.mergedBeanDefinitions.clear();
+	}
+
+	/**
+	 * Return a number that changes whenever the cached merged bean definitions
+	 * of this factory or of one of its ancestors are discarded.
+	 * @see #clearMergedBeanDefinitions
+	 */
+	protected int getMergedBeanDefinitionGeneration() {
+		int parentGeneration = checkParentMergedBeanDefinitions();
+		return this.mergedBeanDefinitions.getGeneration() + parentGeneration;
+	}
+
+	/**
+	 * Discard the cached merged bean definitions if those of the parent factory
+	 * have been discarded, as they may be based on parent definitions.
+	 * @return the current generation of the parent's merged bean definitions
+	 */
+	private int checkParentMergedBeanDefinitions() {
+		if (!(this.parentBeanFactory instanceof AbstractBeanFactory)) {
+			return 0;
+		}
+		int parentGeneration = ((AbstractBeanFactory) this.parentBeanFactory).getMergedBeanDefinitionGeneration();
+		if (parentGeneration != this.parentMergedBeanDefinitionGeneration) {
+			this.parentMergedBeanDefinitionGeneration = parentGeneration;
+			clearMergedBeanDefinitions();
+		}
+		return parentGeneration;
+	}
+
 	//---------------------------------------------------------------------
 	// Abstract methods to be implemented by concrete subclasses
 	//---------------------------------------------------------------------
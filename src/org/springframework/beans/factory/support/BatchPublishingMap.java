@@ -0,0 +1,216 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.core.JdkVersion;
+
+/**
+ * Read-mostly map for the caches of AbstractBeanFactory. Reads of published
+ * entries don't acquire a lock, as published entries are held in an immutable
+ * map that is replaced on write.
+ *
+ * <p>In contrast to a plain copy-on-write map, new entries are first added to
+ * a pending map guarded by the lock, and published in batches: once there are
+ * as many pending entries as published ones, or once as many reads had to
+ * look at the pending entries. Each copy is thus paid for by as many writes
+ * or locked reads as it copies entries, keeping the cost of filling the map
+ * linear rather than quadratic in its size.
+ *
+ * <p>Reads always acquire the lock on pre-1.5 JVMs, where the volatile
+ * fields don't publish the snapshot safely.
+ *
+ * <p>Null values are not supported.
+ *
+ * @author agent
+ * @see AbstractBeanFactory
+ */
+class BatchPublishingMap {
+
+	/** Number of pending entries or locked reads that always justifies a copy */
+	private static final int MIN_BATCH_SIZE = 16;
+
+	private final Object lock;
+
+	/** Immutable snapshot of the published entries */
+	private volatile Map published = Collections.EMPTY_MAP;
+
+	/** Whether there are pending entries, written with the lock held */
+	private volatile boolean hasPending;
+
+	/** Entries not published yet, guarded by the lock */
+	private final Map pending = new HashMap();
+
+	/** Number of reads that had to acquire the lock since the last publication */
+	private int lockedReads;
+
+	/** Number of times the map has been cleared, written with the lock held */
+	private volatile int generation;
+
+
+	/**
+	 * Create a new BatchPublishingMap that synchronizes writes on the given lock.
+	 * @param lock the lock object, which may be shared with other state
+	 */
+	public BatchPublishingMap(Object lock) {
+		this.lock = lock;
+	}
+
+	public Object get(Object key) {
+		if (!JdkVersion.isJava15MemoryModel()) {
+			synchronized (this.lock) {
+				Object value = this.published.get(key);
+				return (value != null ? value : this.pending.get(key));
+			}
+		}
+		// check the flag first: if it's false, all entries have been published
+		boolean checkPending = this.hasPending;
+		Object value = this.published.get(key);
+		if (value != null || !checkPending) {
+			return value;
+		}
+		synchronized (this.lock) {
+			value = this.pending.get(key);
+			if (++this.lockedReads >= getBatchSize()) {
+				publish();
+			}
+			return value;
+		}
+	}
+
+	public boolean containsKey(Object key) {
+		return (get(key) != null);
+	}
+
+	/**
+	 * Add the given entry, replacing an existing entry for the same key.
+	 * New keys are added to the pending entries, possibly causing publication.
+	 */
+	public void put(Object key, Object value) {
+		synchronized (this.lock) {
+			if (this.published.containsKey(key)) {
+				Map newPublished = new HashMap(this.published);
+				newPublished.put(key, value);
+				this.published = Collections.unmodifiableMap(newPublished);
+			}
+			else {
+				this.pending.put(key, value);
+				this.hasPending = true;
+				if (this.pending.size() >= getBatchSize()) {
+					publish();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add the given entry unless the map has been cleared since the given
+	 * generation was obtained, for example while computing the value.
+	 * @param generation the generation that the value was computed in
+	 * @see #getGeneration
+	 */
+	public void put(Object key, Object value, int generation) {
+		synchronized (this.lock) {
+			if (generation == this.generation) {
+				put(key, value);
+			}
+		}
+	}
+
+	/**
+	 * Remove the entry for the given key.
+	 * @return the removed value, or null if none
+	 */
+	public Object remove(Object key) {
+		synchronized (this.lock) {
+			Object value = this.pending.remove(key);
+			if (value == null && this.published.containsKey(key)) {
+				Map newPublished = new HashMap(this.published);
+				value = newPublished.remove(key);
+				this.published = Collections.unmodifiableMap(newPublished);
+			}
+			return value;
+		}
+	}
+
+	public void clear() {
+		synchronized (this.lock) {
+			this.pending.clear();
+			this.hasPending = false;
+			this.lockedReads = 0;
+			this.published = Collections.EMPTY_MAP;
+			this.generation++;
+		}
+	}
+
+	/**
+	 * Return the current generation of this map, incremented by each clear.
+	 */
+	public int getGeneration() {
+		return this.generation;
+	}
+
+	/**
+	 * Publish all pending entries and return an immutable snapshot of all entries.
+	 */
+	public Map getSnapshot() {
+		publish();
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.published;
+		}
+		synchronized (this.lock) {
+			return this.published;
+		}
+	}
+
+	/**
+	 * Publish all pending entries, so that reads don't need to acquire the lock.
+	 */
+	public void publish() {
+		if (!this.hasPending) {
+			return;
+		}
+		synchronized (this.lock) {
+			if (!this.pending.isEmpty()) {
+				Map newPublished = new HashMap(this.published);
+				newPublished.putAll(this.pending);
+				entriesPublished(this.pending);
+				this.pending.clear();
+				this.published = Collections.unmodifiableMap(newPublished);
+			}
+			this.hasPending = false;
+			this.lockedReads = 0;
+		}
+	}
+
+	private int getBatchSize() {
+		return Math.max(this.published.size(), MIN_BATCH_SIZE);
+	}
+
+	/**
+	 * Template method called with the lock held before the given
+	 * entries are published, for example to update derived state.
+	 * Default implementation is empty.
+	 * @param entries the entries about to be published, not to be modified
+	 */
+	protected void entriesPublished(Map entries) {
+	}
+
+}
@@ -0,0 +1,597 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.io.Resource;
+
+/**
+ * Binary snapshot of the bean definitions and aliases registered with a
+ * BeanDefinitionRegistry, stored in a file. Allows for restoring the bean
+ * definitions without parsing their source documents again, as long as the
+ * checksum of the sources matches the one that the snapshot was written with.
+ *
+ * <p>Bean definitions are stored as registered, i.e. child bean definitions
+ * aren't merged with their parents, which may live in a parent factory.
+ * Only RootBeanDefinitions and ChildBeanDefinitions with the kinds of values
+ * that XML bean definitions contain are supported: Strings, bean references,
+ * inner bean definitions, managed lists, sets and maps, and Properties.
+ * Writing a snapshot of other bean definitions fails without touching the file.
+ *
+ * <p>Besides the checksum, a snapshot can store the locations of resources that
+ * the source documents include, for example via XML entities. These can only
+ * be determined while parsing, so they need to be read from the snapshot to
+ * compute the checksum of the current sources before reading it.
+ *
+ * <p>Bean classes are resolved when reading a snapshot. A snapshot that refers
+ * to bean classes that can't be found anymore is treated as out of date.
+ *
+ * @author agent
+ * @version $Id$
+ * @see #computeChecksum
+ * @see org.springframework.context.support.AbstractXmlApplicationContext#setBeanDefinitionSnapshotFile
+ */
+public class BeanDefinitionSnapshot {
+
+	private static final int MAGIC = 0x53424453;
+
+	private static final int VERSION = 2;
+
+	private static final byte ROOT_BEAN_DEFINITION = 1;
+	private static final byte CHILD_BEAN_DEFINITION = 2;
+
+	private static final byte NULL_VALUE = 0;
+	private static final byte STRING_VALUE = 1;
+	private static final byte REFERENCE_VALUE = 2;
+	private static final byte BEAN_DEFINITION_VALUE = 3;
+	private static final byte LIST_VALUE = 4;
+	private static final byte SET_VALUE = 5;
+	private static final byte MAP_VALUE = 6;
+	private static final byte PROPERTIES_VALUE = 7;
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final File file;
+
+	private ClassLoader beanClassLoader = Thread.currentThread().getContextClassLoader();
+
+
+	/**
+	 * Create a new snapshot stored in the given file.
+	 * @param file the snapshot file, which doesn't need to exist yet
+	 */
+	public BeanDefinitionSnapshot(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Return the snapshot file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Set the class loader to resolve bean classes with when reading.
+	 * Default is the thread context class loader.
+	 * <p>Setting this to null keeps bean class names unresolved,
+	 * like a bean definition reader without class loader.
+	 * @see AbstractBeanDefinitionReader#setBeanClassLoader
+	 */
+	public void setBeanClassLoader(ClassLoader beanClassLoader) {
+		this.beanClassLoader = beanClassLoader;
+	}
+
+
+	/**
+	 * Compute a checksum of the contents of the given resources,
+	 * to identify the sources of a snapshot.
+	 * @param resources the resources that the bean definitions are read from
+	 * @return the checksum as hex String
+	 * @throws IOException if a resource couldn't be read
+	 */
+	public static String computeChecksum(Resource[] resources) throws IOException {
+		MessageDigest digest = null;
+		try {
+			digest = MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("MD5 not supported by this JVM: " + ex.getMessage());
+		}
+		byte[] buffer = new byte[4096];
+		for (int i = 0; i < resources.length; i++) {
+			digest.update(resources[i].getDescription().getBytes("UTF-8"));
+			InputStream is = resources[i].getInputStream();
+			try {
+				int count = 0;
+				while ((count = is.read(buffer)) != -1) {
+					digest.update(buffer, 0, count);
+				}
+			}
+			finally {
+				is.close();
+			}
+		}
+		byte[] hash = digest.digest();
+		StringBuffer sb = new StringBuffer(hash.length * 2);
+		for (int i = 0; i < hash.length; i++) {
+			sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(hash[i] & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Return the locations of the included resources that the snapshot has
+	 * been written with, to compute the checksum of the current sources.
+	 * @return the locations, or null if there is no snapshot that can be used
+	 * @see #write(BeanDefinitionRegistry, String, String[])
+	 */
+	public String[] readIncludedLocations() {
+		if (!this.file.exists()) {
+			logger.info("No bean definition snapshot found at [" + this.file + "]");
+			return null;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+					logger.info("Bean definition snapshot at [" + this.file + "] is out of date");
+					return null;
+				}
+				return readIncludedLocations(in);
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException ex) {
+			logger.warn("Could not read bean definition snapshot at [" + this.file + "]", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Register the bean definitions and aliases stored in the snapshot file
+	 * with the given registry, if the snapshot was written with the given checksum.
+	 * Nothing gets registered if the snapshot can't be used.
+	 * @param registry the registry to register the bean definitions with
+	 * @param checksum the checksum of the current sources
+	 * @return whether the snapshot has been used
+	 */
+	public boolean read(BeanDefinitionRegistry registry, String checksum) {
+		if (!this.file.exists()) {
+			logger.info("No bean definition snapshot found at [" + this.file + "]");
+			return false;
+		}
+		List beanDefinitions = new ArrayList();
+		List aliases = new ArrayList();
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+					logger.info("Bean definition snapshot at [" + this.file + "] is out of date");
+					return false;
+				}
+				readIncludedLocations(in);
+				if (!checksum.equals(readString(in))) {
+					logger.info("Bean definition snapshot at [" + this.file + "] is out of date");
+					return false;
+				}
+				int beanDefinitionCount = in.readInt();
+				for (int i = 0; i < beanDefinitionCount; i++) {
+					beanDefinitions.add(readString(in));
+					beanDefinitions.add(readBeanDefinition(in));
+				}
+				int aliasCount = in.readInt();
+				for (int i = 0; i < aliasCount; i++) {
+					aliases.add(readString(in));
+					aliases.add(readString(in));
+				}
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (ClassNotFoundException ex) {
+			logger.info("Bean definition snapshot at [" + this.file + "] is out of date: " +
+									"bean class [" + ex.getMessage() + "] not found");
+			return false;
+		}
+		catch (NoClassDefFoundError err) {
+			logger.info("Bean definition snapshot at [" + this.file + "] is out of date: " +
+									"class that a bean class depends on not found", err);
+			return false;
+		}
+		catch (IOException ex) {
+			logger.warn("Could not read bean definition snapshot at [" + this.file + "]", ex);
+			return false;
+		}
+
+		for (Iterator it = beanDefinitions.iterator(); it.hasNext();) {
+			registry.registerBeanDefinition((String) it.next(), (BeanDefinition) it.next());
+		}
+		for (Iterator it = aliases.iterator(); it.hasNext();) {
+			registry.registerAlias((String) it.next(), (String) it.next());
+		}
+		logger.info("Restored " + (beanDefinitions.size() / 2) + " bean definitions from snapshot at [" +
+								this.file + "]");
+		return true;
+	}
+
+	/**
+	 * Write the bean definitions and aliases registered with the given registry
+	 * to the snapshot file, replacing a previous snapshot.
+	 * @param registry the registry that holds the bean definitions
+	 * @param checksum the checksum of the sources of the bean definitions
+	 * @return whether the snapshot has been written; false if the bean
+	 * definitions aren't supported or the file couldn't be written
+	 */
+	public boolean write(BeanDefinitionRegistry registry, String checksum) {
+		return write(registry, checksum, new String[0]);
+	}
+
+	/**
+	 * Write the bean definitions and aliases registered with the given registry
+	 * to the snapshot file, replacing a previous snapshot.
+	 * @param registry the registry that holds the bean definitions
+	 * @param checksum the checksum of the sources of the bean definitions,
+	 * including the included resources
+	 * @param includedLocations the locations of resources included by the
+	 * source documents, to be returned by readIncludedLocations
+	 * @return whether the snapshot has been written; false if the bean
+	 * definitions aren't supported or the file couldn't be written
+	 * @see #readIncludedLocations()
+	 */
+	public boolean write(BeanDefinitionRegistry registry, String checksum, String[] includedLocations) {
+		File tempFile = new File(this.file.getPath() + ".tmp");
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(includedLocations.length);
+				for (int i = 0; i < includedLocations.length; i++) {
+					writeString(out, includedLocations[i]);
+				}
+				writeString(out, checksum);
+				String[] beanNames = registry.getBeanDefinitionNames();
+				out.writeInt(beanNames.length);
+				List aliases = new ArrayList();
+				for (int i = 0; i < beanNames.length; i++) {
+					writeString(out, beanNames[i]);
+					writeBeanDefinition(out, registry.getBeanDefinition(beanNames[i]));
+					String[] beanAliases = registry.getAliases(beanNames[i]);
+					for (int j = 0; j < beanAliases.length; j++) {
+						aliases.add(beanNames[i]);
+						aliases.add(beanAliases[j]);
+					}
+				}
+				out.writeInt(aliases.size() / 2);
+				for (Iterator it = aliases.iterator(); it.hasNext();) {
+					writeString(out, (String) it.next());
+				}
+			}
+			finally {
+				out.close();
+			}
+			// replace the previous snapshot only with a complete one
+			if (this.file.exists() && !this.file.delete()) {
+				throw new IOException("Could not delete previous snapshot");
+			}
+			if (!tempFile.renameTo(this.file)) {
+				throw new IOException("Could not rename [" + tempFile + "]");
+			}
+			logger.info("Wrote " + registry.getBeanDefinitionCount() + " bean definitions to snapshot at [" +
+									this.file + "]");
+			return true;
+		}
+		catch (IllegalArgumentException ex) {
+			logger.info("Could not write bean definition snapshot: " + ex.getMessage());
+		}
+		catch (IOException ex) {
+			logger.warn("Could not write bean definition snapshot to [" + this.file + "]", ex);
+		}
+		tempFile.delete();
+		return false;
+	}
+
+
+	private void writeBeanDefinition(DataOutputStream out, BeanDefinition beanDefinition) throws IOException {
+		if (beanDefinition.getClass() == RootBeanDefinition.class) {
+			RootBeanDefinition rbd = (RootBeanDefinition) beanDefinition;
+			out.writeByte(ROOT_BEAN_DEFINITION);
+			writeString(out, rbd.getBeanClassName());
+			writeCommonProperties(out, rbd);
+			ConstructorArgumentValues cargs = rbd.getConstructorArgumentValues();
+			if (cargs == null) {
+				// restored as empty argument values, which is equivalent
+				cargs = new ConstructorArgumentValues();
+			}
+			Map indexedArgumentValues = cargs.getIndexedArgumentValues();
+			out.writeInt(indexedArgumentValues.size());
+			for (Iterator it = indexedArgumentValues.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				ConstructorArgumentValues.ValueHolder valueHolder = (ConstructorArgumentValues.ValueHolder) entry.getValue();
+				out.writeInt(((Integer) entry.getKey()).intValue());
+				writeString(out, valueHolder.getType());
+				writeValue(out, valueHolder.getValue());
+			}
+			Set genericArgumentValues = cargs.getGenericArgumentValues();
+			out.writeInt(genericArgumentValues.size());
+			for (Iterator it = genericArgumentValues.iterator(); it.hasNext();) {
+				ConstructorArgumentValues.ValueHolder valueHolder = (ConstructorArgumentValues.ValueHolder) it.next();
+				writeString(out, valueHolder.getType());
+				writeValue(out, valueHolder.getValue());
+			}
+			out.writeInt(rbd.getAutowireMode());
+			out.writeInt(rbd.getDependencyCheck());
+			String[] dependsOn = rbd.getDependsOn();
+			out.writeInt(dependsOn != null ? dependsOn.length : -1);
+			for (int i = 0; dependsOn != null && i < dependsOn.length; i++) {
+				writeString(out, dependsOn[i]);
+			}
+			writeString(out, rbd.getInitMethodName());
+			writeString(out, rbd.getDestroyMethodName());
+		}
+		else if (beanDefinition.getClass() == ChildBeanDefinition.class) {
+			ChildBeanDefinition cbd = (ChildBeanDefinition) beanDefinition;
+			out.writeByte(CHILD_BEAN_DEFINITION);
+			writeString(out, cbd.getParentName());
+			writeCommonProperties(out, cbd);
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported bean definition class [" +
+																				 beanDefinition.getClass().getName() + "]");
+		}
+	}
+
+	private void writeCommonProperties(DataOutputStream out, AbstractBeanDefinition bd) throws IOException {
+		out.writeBoolean(bd.isSingleton());
+		out.writeBoolean(bd.isLazyInit());
+		writeString(out, bd.getResourceDescription());
+		PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+		out.writeInt(pvs.length);
+		for (int i = 0; i < pvs.length; i++) {
+			writeString(out, pvs[i].getName());
+			writeValue(out, pvs[i].getValue());
+		}
+	}
+
+	private void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL_VALUE);
+		}
+		else if (value instanceof String) {
+			out.writeByte(STRING_VALUE);
+			writeString(out, (String) value);
+		}
+		else if (value.getClass() == RuntimeBeanReference.class) {
+			out.writeByte(REFERENCE_VALUE);
+			writeString(out, ((RuntimeBeanReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinition) {
+			out.writeByte(BEAN_DEFINITION_VALUE);
+			writeBeanDefinition(out, (BeanDefinition) value);
+		}
+		else if (value.getClass() == ManagedList.class || value.getClass() == ManagedSet.class) {
+			out.writeByte(value instanceof ManagedList ? LIST_VALUE : SET_VALUE);
+			Collection collection = (Collection) value;
+			out.writeInt(collection.size());
+			for (Iterator it = collection.iterator(); it.hasNext();) {
+				writeValue(out, it.next());
+			}
+		}
+		else if (value.getClass() == ManagedMap.class) {
+			out.writeByte(MAP_VALUE);
+			Map map = (Map) value;
+			out.writeInt(map.size());
+			for (Iterator it = map.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				writeValue(out, entry.getKey());
+				writeValue(out, entry.getValue());
+			}
+		}
+		else if (value.getClass() == Properties.class) {
+			out.writeByte(PROPERTIES_VALUE);
+			Properties props = (Properties) value;
+			out.writeInt(props.size());
+			for (Iterator it = props.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				writeString(out, (String) entry.getKey());
+				writeString(out, (String) entry.getValue());
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported value of type [" + value.getClass().getName() + "]");
+		}
+	}
+
+	private void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		}
+		else {
+			byte[] bytes = value.getBytes("UTF-8");
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+
+	private AbstractBeanDefinition readBeanDefinition(DataInputStream in) throws IOException, ClassNotFoundException {
+		byte kind = in.readByte();
+		if (kind == ROOT_BEAN_DEFINITION) {
+			String className = readString(in);
+			boolean singleton = in.readBoolean();
+			boolean lazyInit = in.readBoolean();
+			String resourceDescription = readString(in);
+			MutablePropertyValues pvs = readPropertyValues(in);
+			ConstructorArgumentValues cargs = new ConstructorArgumentValues();
+			int indexedCount = in.readInt();
+			for (int i = 0; i < indexedCount; i++) {
+				int index = in.readInt();
+				String type = readString(in);
+				cargs.addIndexedArgumentValue(index, readValue(in), type);
+			}
+			int genericCount = in.readInt();
+			for (int i = 0; i < genericCount; i++) {
+				String type = readString(in);
+				cargs.addGenericArgumentValue(readValue(in), type);
+			}
+			RootBeanDefinition rbd = null;
+			if (this.beanClassLoader != null) {
+				Class clazz = Class.forName(className, true, this.beanClassLoader);
+				rbd = new RootBeanDefinition(clazz, cargs, pvs);
+			}
+			else {
+				rbd = new RootBeanDefinition(className, cargs, pvs);
+			}
+			rbd.setAutowireMode(in.readInt());
+			rbd.setDependencyCheck(in.readInt());
+			int dependsOnCount = in.readInt();
+			if (dependsOnCount != -1) {
+				String[] dependsOn = new String[dependsOnCount];
+				for (int i = 0; i < dependsOnCount; i++) {
+					dependsOn[i] = readString(in);
+				}
+				rbd.setDependsOn(dependsOn);
+			}
+			rbd.setInitMethodName(readString(in));
+			rbd.setDestroyMethodName(readString(in));
+			rbd.setSingleton(singleton);
+			rbd.setLazyInit(lazyInit);
+			rbd.setResourceDescription(resourceDescription);
+			return rbd;
+		}
+		else if (kind == CHILD_BEAN_DEFINITION) {
+			String parentName = readString(in);
+			boolean singleton = in.readBoolean();
+			boolean lazyInit = in.readBoolean();
+			String resourceDescription = readString(in);
+			ChildBeanDefinition cbd = new ChildBeanDefinition(parentName, readPropertyValues(in));
+			cbd.setSingleton(singleton);
+			cbd.setLazyInit(lazyInit);
+			cbd.setResourceDescription(resourceDescription);
+			return cbd;
+		}
+		throw new IOException("Corrupt snapshot: unknown bean definition kind " + kind);
+	}
+
+	private MutablePropertyValues readPropertyValues(DataInputStream in) throws IOException, ClassNotFoundException {
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			String name = readString(in);
+			pvs.addPropertyValue(new PropertyValue(name, readValue(in)));
+		}
+		return pvs;
+	}
+
+	private Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+		byte kind = in.readByte();
+		switch (kind) {
+			case NULL_VALUE:
+				return null;
+			case STRING_VALUE:
+				return readString(in);
+			case REFERENCE_VALUE:
+				return new RuntimeBeanReference(readString(in));
+			case BEAN_DEFINITION_VALUE:
+				return readBeanDefinition(in);
+			case LIST_VALUE:
+			case SET_VALUE:
+				Collection collection = (kind == LIST_VALUE ? (Collection) new ManagedList() : new ManagedSet());
+				int size = in.readInt();
+				for (int i = 0; i < size; i++) {
+					collection.add(readValue(in));
+				}
+				return collection;
+			case MAP_VALUE:
+				ManagedMap map = new ManagedMap();
+				int mapSize = in.readInt();
+				for (int i = 0; i < mapSize; i++) {
+					Object key = readValue(in);
+					map.put(key, readValue(in));
+				}
+				return map;
+			case PROPERTIES_VALUE:
+				Properties props = new Properties();
+				int propsSize = in.readInt();
+				for (int i = 0; i < propsSize; i++) {
+					String key = readString(in);
+					props.setProperty(key, readString(in));
+				}
+				return props;
+			default:
+				throw new IOException("Corrupt snapshot: unknown value kind " + kind);
+		}
+	}
+
+	private String[] readIncludedLocations(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		if (count < 0) {
+			throw new IOException("Corrupt snapshot: negative location count " + count);
+		}
+		String[] locations = new String[count];
+		for (int i = 0; i < count; i++) {
+			locations[i] = readString(in);
+		}
+		return locations;
+	}
+
+	private String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length == -1) {
+			return null;
+		}
+		if (length < 0) {
+			throw new IOException("Corrupt snapshot: negative String length " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+}
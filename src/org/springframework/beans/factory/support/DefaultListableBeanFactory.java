@@ -18,12 +18,19 @@ package org.springframework.beans.factory.support;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryUtils;
@@ -32,12 +39,22 @@ import org.springframework.beans.factory.FactoryBeanCircularReferenceException;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.JdkVersion;
 import org.springframework.util.StringUtils;
 
 /**
  * Concrete implementation of ListableBeanFactory.
  * Can be used as a standalone bean factory,
  * or as a superclass for custom bean factories.
+ *
+ * <p>Lookups by type use an index from each bean class and all of its
+ * superclasses and interfaces to the names of the matching beans. The index
+ * is built on the first lookup and discarded whenever a bean definition is
+ * registered or the parent bean factory changes, so autowiring by type doesn't scan all bean definitions for
+ * every dependency.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @since 16 April 2001
@@ -49,12 +66,24 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/* Whether to allow re-registration of a different definition with the same name */
 	private boolean allowBeanDefinitionOverriding = true;
 
+	/** Number of threads to pre-instantiate singletons with */
+	private int preInstantiationThreads = 1;
+
 	/** Map of bean definition objects, keyed by bean name */
 	private Map beanDefinitionMap = new HashMap();
 
 	/** List of bean definition names, in registration order */
 	private List beanDefinitionNames = new ArrayList();
 
+	/**
+	 * Index of bean definition names by type: Class --> List of bean names,
+	 * in registration order. Null if it needs to be rebuilt.
+	 */
+	private volatile Map beanDefinitionNamesByType;
+
+	/** Guards writes of the type index, and reads on pre-1.5 JVMs */
+	private final Object typeIndexLock = new Object();
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -79,6 +108,26 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		this.allowBeanDefinitionOverriding = allowBeanDefinitionOverriding;
 	}
 
+	/**
+	 * Set the number of threads that preInstantiateSingletons uses.
+	 * Default is 1, instantiating singletons one after the other
+	 * in registration order.
+	 * <p>With more threads, singletons are instantiated in the order of the
+	 * dependencies declared in their bean definitions: bean references in
+	 * property values and constructor arguments, and "depends-on". Singletons
+	 * that don't depend on each other are instantiated concurrently, by the
+	 * calling thread and additional worker threads. Singletons with circular
+	 * references, singletons that depend on them, and autowired singletons,
+	 * whose dependencies aren't known in advance, are instantiated afterwards
+	 * by the calling thread, in registration order.
+	 * <p>As singletons are initialized on worker threads, this mode isn't
+	 * suitable for beans that need thread-bound state during initialization.
+	 * @see #preInstantiateSingletons
+	 */
+	public void setPreInstantiationThreads(int preInstantiationThreads) {
+		this.preInstantiationThreads = preInstantiationThreads;
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of ListableBeanFactory
@@ -93,21 +142,81 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 	/**
-	 * Note that this method is slow. Don't invoke it too often:
-	 * it's best used only in application initialization.
+	 * The first invocation after registering bean definitions, here or in
+	 * the parent factory, builds the type index, which requires merging
+	 * all bean definitions.
 	 */
 	public String[] getBeanDefinitionNames(Class type) {
-		List matches = new ArrayList();
-		Iterator it = this.beanDefinitionNames.iterator();
-		while (it.hasNext()) {
-			String name = (String) it.next();
-			if (type == null || type.isAssignableFrom(getMergedBeanDefinition(name, false).getBeanClass())) {
-				matches.add(name);
+		if (type == null) {
+			return (String[]) this.beanDefinitionNames.toArray(new String[this.beanDefinitionNames.size()]);
+		}
+		// discards the type index if the parent's definitions have changed
+		int generation = getMergedBeanDefinitionGeneration();
+		Map namesByType = getTypeIndex();
+		if (namesByType == null) {
+			namesByType = buildTypeIndex();
+			if (getMergedBeanDefinitionGeneration() == generation) {
+				// not discarded while building it
+				synchronized (this.typeIndexLock) {
+					this.beanDefinitionNamesByType = namesByType;
+				}
 			}
 		}
+		List matches = (List) namesByType.get(type);
+		if (matches == null) {
+			return new String[0];
+		}
 		return (String[]) matches.toArray(new String[matches.size()]);
 	}
 
+	/**
+	 * Return the type index, or null if it needs to be built. Read under the
+	 * lock on pre-1.5 JVMs, where the volatile field isn't safe publication.
+	 * @see org.springframework.core.JdkVersion#isJava15MemoryModel
+	 */
+	private Map getTypeIndex() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.beanDefinitionNamesByType;
+		}
+		synchronized (this.typeIndexLock) {
+			return this.beanDefinitionNamesByType;
+		}
+	}
+
+	/**
+	 * Map the class of each bean definition, all of its superclasses and all
+	 * interfaces they implement to the bean name.
+	 * @return Map from Class to List of bean names, in registration order
+	 */
+	private Map buildTypeIndex() {
+		Map namesByType = new HashMap();
+		for (Iterator it = this.beanDefinitionNames.iterator(); it.hasNext();) {
+			String name = (String) it.next();
+			Class beanClass = getMergedBeanDefinition(name, false).getBeanClass();
+			for (Class clazz = beanClass; clazz != null; clazz = clazz.getSuperclass()) {
+				addToTypeIndex(namesByType, clazz, name);
+			}
+		}
+		return Collections.unmodifiableMap(namesByType);
+	}
+
+	private void addToTypeIndex(Map namesByType, Class type, String name) {
+		List names = (List) namesByType.get(type);
+		if (names == null) {
+			names = new ArrayList();
+			namesByType.put(type, names);
+		}
+		else if (names.get(names.size() - 1) == name) {
+			// already reached through another superclass or interface
+			return;
+		}
+		names.add(name);
+		Class[] interfaces = type.getInterfaces();
+		for (int i = 0; i < interfaces.length; i++) {
+			addToTypeIndex(namesByType, interfaces[i], name);
+		}
+	}
+
 	public boolean containsBeanDefinition(String name) {
 		return this.beanDefinitionMap.containsKey(name);
 	}
@@ -163,23 +272,86 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		if (logger.isInfoEnabled()) {
 			logger.info("Pre-instantiating singletons in factory [" + this + "]");
 		}
+		List beanNames = new ArrayList();
 		for (Iterator it = this.beanDefinitionNames.iterator(); it.hasNext();) {
 			String beanName = (String) it.next();
 			if (containsBeanDefinition(beanName)) {
 				RootBeanDefinition bd = getMergedBeanDefinition(beanName, false);
 				if (bd.isSingleton() && !bd.isLazyInit()) {
-					if (FactoryBean.class.isAssignableFrom(bd.getBeanClass())) {
-						FactoryBean factory = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + beanName);
-						if (factory.isSingleton()) {
-							getBean(beanName);
-						}
-					}
-					else {
-						getBean(beanName);
-					}
+					beanNames.add(beanName);
 				}
 			}
 		}
+		if (this.preInstantiationThreads > 1 && beanNames.size() > 1) {
+			beanNames = new ParallelPreInstantiation(beanNames).instantiate();
+		}
+		for (Iterator it = beanNames.iterator(); it.hasNext();) {
+			preInstantiateSingleton((String) it.next());
+		}
+		publishSingletons();
+	}
+
+	/**
+	 * Instantiate the given singleton, and the object created by it
+	 * if it is a FactoryBean for singleton objects.
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		RootBeanDefinition bd = getMergedBeanDefinition(beanName, false);
+		if (FactoryBean.class.isAssignableFrom(bd.getBeanClass())) {
+			FactoryBean factory = (FactoryBean) getBean(FACTORY_BEAN_PREFIX + beanName);
+			if (factory.isSingleton()) {
+				getBean(beanName);
+			}
+		}
+		else {
+			getBean(beanName);
+		}
+	}
+
+	/**
+	 * Add the names of all beans that the given value refers to, looking into
+	 * bean definitions (including inner beans) and collections.
+	 * @param value a bean definition, or a property or constructor argument value
+	 * @param beanNames the Set to add the canonical bean names to
+	 */
+	private void addReferencedBeanNames(Object value, Set beanNames) {
+		if (value instanceof RuntimeBeanReference) {
+			beanNames.add(transformedBeanName(((RuntimeBeanReference) value).getBeanName()));
+		}
+		else if (value instanceof BeanDefinition) {
+			BeanDefinition bd = (BeanDefinition) value;
+			PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+			for (int i = 0; i < pvs.length; i++) {
+				addReferencedBeanNames(pvs[i].getValue(), beanNames);
+			}
+			ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+			if (cargs != null) {
+				for (Iterator it = cargs.getIndexedArgumentValues().values().iterator(); it.hasNext();) {
+					addReferencedBeanNames(((ConstructorArgumentValues.ValueHolder) it.next()).getValue(), beanNames);
+				}
+				for (Iterator it = cargs.getGenericArgumentValues().iterator(); it.hasNext();) {
+					addReferencedBeanNames(((ConstructorArgumentValues.ValueHolder) it.next()).getValue(), beanNames);
+				}
+			}
+			if (bd instanceof RootBeanDefinition && ((RootBeanDefinition) bd).getDependsOn() != null) {
+				String[] dependsOn = ((RootBeanDefinition) bd).getDependsOn();
+				for (int i = 0; i < dependsOn.length; i++) {
+					beanNames.add(transformedBeanName(dependsOn[i]));
+				}
+			}
+		}
+		else if (value instanceof Collection) {
+			for (Iterator it = ((Collection) value).iterator(); it.hasNext();) {
+				addReferencedBeanNames(it.next(), beanNames);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Iterator it = ((Map) value).entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				addReferencedBeanNames(entry.getKey(), beanNames);
+				addReferencedBeanNames(entry.getValue(), beanNames);
+			}
+		}
 	}
 
 
@@ -213,6 +385,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionNames.add(name);
 		}
 		this.beanDefinitionMap.put(name, beanDefinition);
+		clearMergedBeanDefinitions();
 	}
 
 
@@ -228,6 +401,15 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return bd;
 	}
 
+	/**
+	 * Also discards the type index, as bean classes are determined
+	 * by merged bean definitions.
+	 */
+	protected void clearMergedBeanDefinitions() {
+		super.clearMergedBeanDefinitions();
+		this.beanDefinitionNamesByType = null;
+	}
+
 	protected String[] getDependingBeanNames(String beanName) throws BeansException {
 		List dependingBeanNames = new ArrayList();
 		String[] beanDefinitionNames = getBeanDefinitionNames();
@@ -263,4 +445,208 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return sb.toString();
 	}
 
+
+	/**
+	 * Instantiates singletons in dependency order on multiple threads.
+	 * Each singleton becomes ready for instantiation once all singletons
+	 * it depends on have been instantiated, directly or through other beans
+	 * like prototypes. Instantiation of a singleton may still wait for another
+	 * thread if it has dependencies that aren't declared, as the singleton
+	 * cache coordinates concurrent creation of the same singleton.
+	 */
+	private class ParallelPreInstantiation implements Runnable {
+
+		/** Singletons to instantiate, in registration order */
+		private final List beanNames;
+
+		/** Bean name --> List of names of singletons that depend on it */
+		private final Map dependentBeanNames = new HashMap();
+
+		/** Bean name --> number of singletons it depends on that haven't been instantiated yet */
+		private final Map pendingDependencyCounts = new HashMap();
+
+		/** Names of singletons ready for instantiation */
+		private final LinkedList readyBeanNames = new LinkedList();
+
+		private final Set instantiatedBeanNames = new HashSet();
+
+		private int runningCount = 0;
+
+		private Throwable failure;
+
+		public ParallelPreInstantiation(List beanNames) {
+			this.beanNames = beanNames;
+			Set scheduledBeanNames = new HashSet();
+			for (Iterator it = beanNames.iterator(); it.hasNext();) {
+				String beanName = (String) it.next();
+				if (getMergedBeanDefinition(beanName, false).getResolvedAutowireMode() == RootBeanDefinition.AUTOWIRE_NO) {
+					scheduledBeanNames.add(beanName);
+				}
+			}
+			for (Iterator it = beanNames.iterator(); it.hasNext();) {
+				String beanName = (String) it.next();
+				if (scheduledBeanNames.contains(beanName)) {
+					Set dependencies = getSingletonDependencies(beanName, scheduledBeanNames);
+					for (Iterator depIt = dependencies.iterator(); depIt.hasNext();) {
+						String dependency = (String) depIt.next();
+						List dependents = (List) this.dependentBeanNames.get(dependency);
+						if (dependents == null) {
+							dependents = new LinkedList();
+							this.dependentBeanNames.put(dependency, dependents);
+						}
+						dependents.add(beanName);
+					}
+					if (dependencies.isEmpty()) {
+						this.readyBeanNames.add(beanName);
+					}
+					else {
+						this.pendingDependencyCounts.put(beanName, new int[] {dependencies.size()});
+					}
+				}
+			}
+		}
+
+		/**
+		 * Determine the scheduled singletons that the given singleton depends on,
+		 * looking through references to beans that aren't scheduled.
+		 */
+		private Set getSingletonDependencies(String beanName, Set scheduledBeanNames) {
+			Set dependencies = new HashSet();
+			Set visited = new HashSet();
+			LinkedList toVisit = new LinkedList();
+			toVisit.add(beanName);
+			while (!toVisit.isEmpty()) {
+				String name = (String) toVisit.removeFirst();
+				Set referencedBeanNames = new HashSet();
+				addReferencedBeanNames(getMergedBeanDefinition(name, false), referencedBeanNames);
+				for (Iterator it = referencedBeanNames.iterator(); it.hasNext();) {
+					String referencedBeanName = (String) it.next();
+					if (scheduledBeanNames.contains(referencedBeanName)) {
+						dependencies.add(referencedBeanName);
+					}
+					else if (containsBeanDefinition(referencedBeanName) && visited.add(referencedBeanName)) {
+						toVisit.add(referencedBeanName);
+					}
+				}
+			}
+			return dependencies;
+		}
+
+		/**
+		 * Instantiate all singletons that can be scheduled, using the calling
+		 * thread and additional worker threads.
+		 * @return the names of the singletons that haven't been instantiated,
+		 * in registration order
+		 */
+		public List instantiate() {
+			Thread[] workers = new Thread[preInstantiationThreads - 1];
+			for (int i = 0; i < workers.length; i++) {
+				workers[i] = new Thread(this, "preInstantiateSingletons-" + (i + 1));
+				workers[i].start();
+			}
+			work();
+			boolean interrupted = false;
+			for (int i = 0; i < workers.length; i++) {
+				while (workers[i].isAlive()) {
+					try {
+						workers[i].join();
+					}
+					catch (InterruptedException ex) {
+						// stop the workers, but wait for the singletons that they are creating
+						interrupted = true;
+						synchronized (this) {
+							if (this.failure == null) {
+								this.failure = ex;
+							}
+							notifyAll();
+						}
+					}
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (this.failure instanceof RuntimeException) {
+				throw (RuntimeException) this.failure;
+			}
+			if (this.failure instanceof Error) {
+				throw (Error) this.failure;
+			}
+			if (this.failure != null) {
+				throw new BeanCreationException("Pre-instantiation of singletons failed", this.failure);
+			}
+			List remainingBeanNames = new ArrayList();
+			for (Iterator it = this.beanNames.iterator(); it.hasNext();) {
+				String beanName = (String) it.next();
+				if (!this.instantiatedBeanNames.contains(beanName)) {
+					remainingBeanNames.add(beanName);
+				}
+			}
+			if (!remainingBeanNames.isEmpty() && logger.isInfoEnabled()) {
+				logger.info("Pre-instantiating singletons " + remainingBeanNames + " sequentially");
+			}
+			return remainingBeanNames;
+		}
+
+		public void run() {
+			work();
+		}
+
+		/**
+		 * Instantiate ready singletons until there are none left
+		 * and no other thread can make further singletons ready.
+		 */
+		private void work() {
+			while (true) {
+				String beanName = null;
+				synchronized (this) {
+					while (this.readyBeanNames.isEmpty() && this.runningCount > 0 && this.failure == null) {
+						try {
+							wait();
+						}
+						catch (InterruptedException ex) {
+							Thread.currentThread().interrupt();
+							this.failure = ex;
+						}
+					}
+					if (this.readyBeanNames.isEmpty() || this.failure != null) {
+						notifyAll();
+						return;
+					}
+					beanName = (String) this.readyBeanNames.removeFirst();
+					this.runningCount++;
+				}
+				Throwable beanFailure = null;
+				try {
+					preInstantiateSingleton(beanName);
+				}
+				catch (Throwable ex) {
+					beanFailure = ex;
+				}
+				synchronized (this) {
+					this.runningCount--;
+					if (beanFailure != null) {
+						if (this.failure == null) {
+							this.failure = beanFailure;
+						}
+					}
+					else {
+						this.instantiatedBeanNames.add(beanName);
+						List dependents = (List) this.dependentBeanNames.get(beanName);
+						if (dependents != null) {
+							for (Iterator it = dependents.iterator(); it.hasNext();) {
+								String dependent = (String) it.next();
+								int[] pendingCount = (int[]) this.pendingDependencyCounts.get(dependent);
+								if (--pendingCount[0] == 0) {
+									this.readyBeanNames.add(dependent);
+								}
+							}
+						}
+					}
+					notifyAll();
+				}
+			}
+		}
+	}
+
 }
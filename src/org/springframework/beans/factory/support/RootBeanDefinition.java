@@ -17,11 +17,14 @@
 package org.springframework.beans.factory.support;
 
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Comparator;
 
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.core.JdkVersion;
 
 /** 
  * Root bean definitions have a class plus optionally constructor argument
@@ -71,6 +74,12 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 
 	private String destroyMethodName;
 
+	/** Autowire mode that AUTOWIRE_AUTODETECT resolved to, or AUTOWIRE_NO if not resolved yet */
+	private volatile int autodetectedAutowireMode = AUTOWIRE_NO;
+
+	/** Public constructors of the bean class, with the most arguments first */
+	private volatile Constructor[] sortedConstructors;
+
 
 	/**
 	 * Create a new RootBeanDefinition for a singleton,
@@ -218,6 +227,7 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 	 */
 	public void setAutowireMode(int autowireMode) {
 		this.autowireMode = autowireMode;
+		this.autodetectedAutowireMode = AUTOWIRE_NO;
 	}
 
 	/**
@@ -236,22 +246,56 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 	 */
 	public int getResolvedAutowireMode() {
 		if (this.autowireMode == AUTOWIRE_AUTODETECT) {
-			// Work out whether to apply setter autowiring or constructor autowiring.
-			// If it has a no-arg constructor it's deemed to be setter autowiring,
-			// otherwise we'll try constructor autowiring.
-			Constructor[] constructors = getBeanClass().getConstructors();
-			for (int i = 0; i < constructors.length; i++) {
-				if (constructors[i].getParameterTypes().length == 0) {
-					return AUTOWIRE_BY_TYPE;
+			int resolvedAutowireMode = this.autodetectedAutowireMode;
+			if (resolvedAutowireMode == AUTOWIRE_NO) {
+				// Work out whether to apply setter autowiring or constructor autowiring.
+				// If it has a no-arg constructor it's deemed to be setter autowiring,
+				// otherwise we'll try constructor autowiring.
+				Constructor[] constructors = getSortedConstructors();
+				resolvedAutowireMode = AUTOWIRE_CONSTRUCTOR;
+				if (constructors.length > 0 && constructors[constructors.length - 1].getParameterTypes().length == 0) {
+					resolvedAutowireMode = AUTOWIRE_BY_TYPE;
 				}
+				this.autodetectedAutowireMode = resolvedAutowireMode;
 			}
-			return AUTOWIRE_CONSTRUCTOR;
+			return resolvedAutowireMode;
 		}
 		else {
 			return this.autowireMode;
 		}
 	}
 
+	/**
+	 * Return the public constructors of the bean class, sorted by
+	 * descending number of arguments. Determined once per definition.
+	 * <p>The returned array must not be modified.
+	 */
+	Constructor[] getSortedConstructors() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return doGetSortedConstructors();
+		}
+		// the volatile field doesn't publish the sorted array safely before 1.5
+		synchronized (this) {
+			return doGetSortedConstructors();
+		}
+	}
+
+	private Constructor[] doGetSortedConstructors() {
+		Constructor[] constructors = this.sortedConstructors;
+		if (constructors == null) {
+			constructors = getBeanClass().getConstructors();
+			Arrays.sort(constructors, new Comparator() {
+				public int compare(Object o1, Object o2) {
+					int c1pl = ((Constructor) o1).getParameterTypes().length;
+					int c2pl = ((Constructor) o2).getParameterTypes().length;
+					return (new Integer(c1pl)).compareTo(new Integer(c2pl)) * -1;
+				}
+			});
+			this.sortedConstructors = constructors;
+		}
+		return constructors;
+	}
+
 	/**
 	 * Set the dependency check code.
 	 * @param dependencyCheck the code to set.
@@ -0,0 +1,644 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.ChildBeanDefinition;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
+
+/**
+ * SAX ContentHandler that parses bean definitions according to the
+ * "spring-beans" DTD while the document is being read, without building
+ * a DOM. Used by XmlBeanDefinitionReader in streaming mode.
+ *
+ * <p>Produces the same bean definitions as DefaultXmlBeanDefinitionParser.
+ * Only the elements on the current path are held in memory, and each
+ * top-level bean definition is registered as soon as its element has been
+ * closed. Consequently, definitions that precede an error in the document
+ * will already have been registered when the exception is thrown.
+ *
+ * <p>Documents that violate the DTD, which can only be read with validation
+ * turned off, are handled slightly differently: all value subelements of a
+ * property are evaluated rather than just the last one, and comments within
+ * value elements are ignored rather than rejected.
+ *
+ * @author agent
+ * @version $Id$
+ * @see XmlBeanDefinitionReader#setStreaming
+ * @see DefaultXmlBeanDefinitionParser
+ */
+class StreamingBeanDefinitionHandler extends DefaultHandler {
+
+	private static final String INNER_BEAN_NAME = "(inner bean definition)";
+
+	private static final int ROOT = 0;
+	private static final int BEAN = 1;
+	private static final int PROPERTY = 2;
+	private static final int CONSTRUCTOR_ARG = 3;
+	private static final int LIST = 4;
+	private static final int SET = 5;
+	private static final int MAP = 6;
+	private static final int ENTRY = 7;
+	private static final int PROPS = 8;
+	private static final int PROPS_CONTENT = 9;
+	private static final int PROP = 10;
+	private static final int VALUE = 11;
+	private static final int SIMPLE_VALUE = 12;
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final BeanDefinitionRegistry beanFactory;
+
+	private final ClassLoader beanClassLoader;
+
+	private final Resource resource;
+
+	private String defaultLazyInit;
+
+	private String defaultDependencyCheck;
+
+	private String defaultAutowire;
+
+	/** Frames for the currently open elements, innermost last */
+	private final LinkedList frames = new LinkedList();
+
+	/** Number of open elements within an ignored subtree */
+	private int skipDepth;
+
+	private int beanDefinitionCounter;
+
+
+	/**
+	 * Create a new handler that registers bean definitions with the given registry.
+	 * @param beanFactory the registry to register bean definitions with
+	 * @param beanClassLoader the class loader to resolve bean classes with,
+	 * or null to keep bean classes as names
+	 * @param resource the resource that the document was read from
+	 */
+	public StreamingBeanDefinitionHandler(BeanDefinitionRegistry beanFactory, ClassLoader beanClassLoader,
+																				Resource resource) {
+		this.beanFactory = beanFactory;
+		this.beanClassLoader = beanClassLoader;
+		this.resource = resource;
+	}
+
+	/**
+	 * Return the number of top-level bean definitions registered so far.
+	 */
+	public int getBeanDefinitionCount() {
+		return beanDefinitionCounter;
+	}
+
+
+	public void startElement(String uri, String localName, String qName, Attributes attributes) {
+		if (this.skipDepth > 0) {
+			this.skipDepth++;
+			return;
+		}
+		if (this.frames.isEmpty()) {
+			startRoot(attributes);
+			return;
+		}
+		Frame parent = (Frame) this.frames.getLast();
+		switch (parent.kind) {
+			case ROOT:
+				if (DefaultXmlBeanDefinitionParser.BEAN_ELEMENT.equals(qName)) {
+					startTopLevelBean(attributes);
+				}
+				else {
+					this.skipDepth = 1;
+				}
+				break;
+			case BEAN:
+				if (DefaultXmlBeanDefinitionParser.PROPERTY_ELEMENT.equals(qName)) {
+					startProperty(parent, attributes);
+				}
+				else if (DefaultXmlBeanDefinitionParser.CONSTRUCTOR_ARG_ELEMENT.equals(qName) && parent.cargs != null) {
+					// constructor arguments of child bean definitions are ignored
+					push(new Frame(CONSTRUCTOR_ARG, parent.beanName, new AttributesImpl(attributes)));
+				}
+				else {
+					this.skipDepth = 1;
+				}
+				break;
+			case PROPERTY:
+			case CONSTRUCTOR_ARG:
+				if (DefaultXmlBeanDefinitionParser.DESCRIPTION_ELEMENT.equals(qName)) {
+					this.skipDepth = 1;
+				}
+				else {
+					startValueElement(parent, qName, attributes);
+				}
+				break;
+			case LIST:
+			case SET:
+				startValueElement(parent, qName, attributes);
+				break;
+			case ENTRY:
+				// only the first subelement of an entry specifies its value
+				if (parent.hasValue) {
+					this.skipDepth = 1;
+				}
+				else {
+					startValueElement(parent, qName, attributes);
+				}
+				break;
+			case MAP:
+				if (DefaultXmlBeanDefinitionParser.ENTRY_ELEMENT.equals(qName)) {
+					Frame frame = new Frame(ENTRY, parent.beanName, null);
+					frame.key = getAttribute(attributes, DefaultXmlBeanDefinitionParser.KEY_ATTRIBUTE);
+					push(frame);
+				}
+				else {
+					this.skipDepth = 1;
+				}
+				break;
+			case PROPS:
+			case PROPS_CONTENT:
+				// prop elements are found at any depth below props
+				Frame frame = null;
+				if (DefaultXmlBeanDefinitionParser.PROP_ELEMENT.equals(qName)) {
+					frame = new Frame(PROP, parent.beanName, null);
+					frame.key = getAttribute(attributes, DefaultXmlBeanDefinitionParser.KEY_ATTRIBUTE);
+					frame.text = new StringBuffer();
+				}
+				else {
+					frame = new Frame(PROPS_CONTENT, parent.beanName, null);
+				}
+				frame.target = parent.target;
+				push(frame);
+				break;
+			case PROP:
+			case VALUE:
+				throw new BeanDefinitionStoreException(this.resource, parent.beanName,
+																							 "Unexpected element <" + qName + "> in text value: " +
+																							 "expected single node of type Text");
+			default:
+				this.skipDepth = 1;
+		}
+	}
+
+	public void characters(char[] ch, int start, int length) {
+		if (this.skipDepth == 0 && !this.frames.isEmpty()) {
+			Frame frame = (Frame) this.frames.getLast();
+			if (frame.text != null) {
+				frame.text.append(ch, start, length);
+			}
+		}
+	}
+
+	public void endElement(String uri, String localName, String qName) {
+		if (this.skipDepth > 0) {
+			this.skipDepth--;
+			return;
+		}
+		Frame frame = (Frame) this.frames.removeLast();
+		switch (frame.kind) {
+			case ROOT:
+				logger.debug("Found " + this.beanDefinitionCounter + " <" + DefaultXmlBeanDefinitionParser.BEAN_ELEMENT +
+										 "> elements defining beans");
+				break;
+			case BEAN:
+				AbstractBeanDefinition bd = createBeanDefinition(frame);
+				if (frame.aliases != null) {
+					registerBeanDefinition(frame, bd);
+				}
+				else {
+					setValue(bd);
+				}
+				break;
+			case PROPERTY:
+				((MutablePropertyValues) getParent().target).addPropertyValue(
+						new PropertyValue(frame.key, getRequiredValue(frame)));
+				break;
+			case CONSTRUCTOR_ARG:
+				addConstructorArgument(getParent().cargs, frame);
+				break;
+			case LIST:
+			case SET:
+			case MAP:
+			case PROPS:
+				setValue(frame.target);
+				break;
+			case ENTRY:
+				((Map) getParent().target).put(frame.key, getRequiredValue(frame));
+				break;
+			case PROP:
+				// trim the text value to avoid unwanted whitespace
+				// caused by typical XML formatting
+				((Properties) frame.target).setProperty(frame.key, frame.text.toString().trim());
+				break;
+			case VALUE:
+				setValue(frame.text.toString());
+				break;
+			case SIMPLE_VALUE:
+				setValue(frame.value);
+				break;
+		}
+	}
+
+
+	private void startRoot(Attributes attributes) {
+		logger.debug("Loading bean definitions");
+		this.defaultLazyInit = getAttribute(attributes, DefaultXmlBeanDefinitionParser.DEFAULT_LAZY_INIT_ATTRIBUTE);
+		logger.debug("Default lazy init '" + this.defaultLazyInit + "'");
+		this.defaultDependencyCheck =
+				getAttribute(attributes, DefaultXmlBeanDefinitionParser.DEFAULT_DEPENDENCY_CHECK_ATTRIBUTE);
+		logger.debug("Default dependency check '" + this.defaultDependencyCheck + "'");
+		this.defaultAutowire = getAttribute(attributes, DefaultXmlBeanDefinitionParser.DEFAULT_AUTOWIRE_ATTRIBUTE);
+		logger.debug("Default autowire '" + this.defaultAutowire + "'");
+		push(new Frame(ROOT, null, null));
+	}
+
+	/**
+	 * Determine the id and aliases of a top-level bean the same way
+	 * as DefaultXmlBeanDefinitionParser's loadBeanDefinition.
+	 */
+	private void startTopLevelBean(Attributes attributes) {
+		this.beanDefinitionCounter++;
+		String id = getAttribute(attributes, DefaultXmlBeanDefinitionParser.ID_ATTRIBUTE);
+		String nameAttr = getAttribute(attributes, DefaultXmlBeanDefinitionParser.NAME_ATTRIBUTE);
+		List aliases = new ArrayList();
+		if (!"".equals(nameAttr)) {
+			String[] nameArr = StringUtils.tokenizeToStringArray(
+					nameAttr, DefaultXmlBeanDefinitionParser.BEAN_NAME_DELIMITERS, true, true);
+			aliases.addAll(Arrays.asList(nameArr));
+		}
+		if ("".equals(id) && !aliases.isEmpty()) {
+			id = (String) aliases.remove(0);
+			logger.debug("No XML 'id' specified - using '" + id + "' as ID and " + aliases + " as aliases");
+		}
+		startBean(attributes, id).aliases = aliases;
+	}
+
+	private Frame startBean(Attributes attributes, String beanName) {
+		if (attributes.getValue(DefaultXmlBeanDefinitionParser.CLASS_ATTRIBUTE) == null &&
+				attributes.getValue(DefaultXmlBeanDefinitionParser.PARENT_ATTRIBUTE) == null) {
+			throw new BeanDefinitionStoreException(this.resource, beanName, "Either 'class' or 'parent' is required");
+		}
+		Frame frame = new Frame(BEAN, beanName, new AttributesImpl(attributes));
+		frame.target = new MutablePropertyValues();
+		if (attributes.getValue(DefaultXmlBeanDefinitionParser.CLASS_ATTRIBUTE) != null) {
+			frame.cargs = new ConstructorArgumentValues();
+		}
+		push(frame);
+		return frame;
+	}
+
+	private void startProperty(Frame parent, Attributes attributes) {
+		String propertyName = getAttribute(attributes, DefaultXmlBeanDefinitionParser.NAME_ATTRIBUTE);
+		if ("".equals(propertyName)) {
+			throw new BeanDefinitionStoreException(this.resource, parent.beanName,
+																						 "Tag 'property' must have a 'name' attribute");
+		}
+		Frame frame = new Frame(PROPERTY, parent.beanName, null);
+		frame.key = propertyName;
+		push(frame);
+	}
+
+	/**
+	 * Start a value, ref or collection subelement of a property element.
+	 */
+	private void startValueElement(Frame parent, String qName, Attributes attributes) {
+		String beanName = parent.beanName;
+		Frame frame = null;
+		if (DefaultXmlBeanDefinitionParser.BEAN_ELEMENT.equals(qName)) {
+			startBean(attributes, INNER_BEAN_NAME);
+			return;
+		}
+		else if (DefaultXmlBeanDefinitionParser.REF_ELEMENT.equals(qName)) {
+			frame = new Frame(SIMPLE_VALUE, beanName, null);
+			frame.value = new RuntimeBeanReference(getBeanRef(attributes, beanName, "a reference"));
+		}
+		else if (DefaultXmlBeanDefinitionParser.IDREF_ELEMENT.equals(qName)) {
+			frame = new Frame(SIMPLE_VALUE, beanName, null);
+			frame.value = getBeanRef(attributes, beanName, "an idref");
+		}
+		else if (DefaultXmlBeanDefinitionParser.LIST_ELEMENT.equals(qName)) {
+			frame = new Frame(LIST, beanName, null);
+			frame.target = new ManagedList();
+		}
+		else if (DefaultXmlBeanDefinitionParser.SET_ELEMENT.equals(qName)) {
+			frame = new Frame(SET, beanName, null);
+			frame.target = new ManagedSet();
+		}
+		else if (DefaultXmlBeanDefinitionParser.MAP_ELEMENT.equals(qName)) {
+			frame = new Frame(MAP, beanName, null);
+			frame.target = new ManagedMap();
+		}
+		else if (DefaultXmlBeanDefinitionParser.PROPS_ELEMENT.equals(qName)) {
+			frame = new Frame(PROPS, beanName, null);
+			frame.target = new Properties();
+		}
+		else if (DefaultXmlBeanDefinitionParser.VALUE_ELEMENT.equals(qName)) {
+			// it's a literal value
+			frame = new Frame(VALUE, beanName, null);
+			frame.text = new StringBuffer();
+		}
+		else if (DefaultXmlBeanDefinitionParser.NULL_ELEMENT.equals(qName)) {
+			// it's a distinguished null value
+			frame = new Frame(SIMPLE_VALUE, beanName, null);
+		}
+		else {
+			throw new BeanDefinitionStoreException(this.resource, beanName,
+																						 "Unknown subelement of <property>: <" + qName + ">");
+		}
+		push(frame);
+	}
+
+	private String getBeanRef(Attributes attributes, String beanName, String description) {
+		// a generic reference to any name of any bean
+		String beanRef = getAttribute(attributes, DefaultXmlBeanDefinitionParser.BEAN_REF_ATTRIBUTE);
+		if ("".equals(beanRef)) {
+			// a reference to the id of another bean in the same XML file
+			beanRef = getAttribute(attributes, DefaultXmlBeanDefinitionParser.LOCAL_REF_ATTRIBUTE);
+			if ("".equals(beanRef)) {
+				throw new BeanDefinitionStoreException(this.resource, beanName,
+																							 "Either 'bean' or 'local' is required for " + description);
+			}
+		}
+		return beanRef;
+	}
+
+	private Object getRequiredValue(Frame frame) {
+		if (!frame.hasValue) {
+			throw new BeanDefinitionStoreException(this.resource, frame.beanName,
+																						 "<property> element must have a subelement like 'value' or 'ref'");
+		}
+		return frame.value;
+	}
+
+	private void addConstructorArgument(ConstructorArgumentValues cargs, Frame frame) {
+		Object val = getRequiredValue(frame);
+		String indexAttr = getAttribute(frame.attributes, DefaultXmlBeanDefinitionParser.INDEX_ATTRIBUTE);
+		String typeAttr = getAttribute(frame.attributes, DefaultXmlBeanDefinitionParser.TYPE_ATTRIBUTE);
+		if (!"".equals(indexAttr)) {
+			try {
+				int index = Integer.parseInt(indexAttr);
+				if (index < 0) {
+					throw new BeanDefinitionStoreException(this.resource, frame.beanName, "'index' cannot be lower than 0");
+				}
+				if (!"".equals(typeAttr)) {
+					cargs.addIndexedArgumentValue(index, val, typeAttr);
+				}
+				else {
+					cargs.addIndexedArgumentValue(index, val);
+				}
+			}
+			catch (NumberFormatException ex) {
+				throw new BeanDefinitionStoreException(this.resource, frame.beanName,
+																							 "Attribute 'index' of tag 'constructor-arg' must be an integer");
+			}
+		}
+		else {
+			if (!"".equals(typeAttr)) {
+				cargs.addGenericArgumentValue(val, typeAttr);
+			}
+			else {
+				cargs.addGenericArgumentValue(val);
+			}
+		}
+	}
+
+	/**
+	 * Create the bean definition for a closed bean element, applying
+	 * the same attribute handling as DefaultXmlBeanDefinitionParser.
+	 */
+	private AbstractBeanDefinition createBeanDefinition(Frame frame) {
+		Attributes attributes = frame.attributes;
+		String className = attributes.getValue(DefaultXmlBeanDefinitionParser.CLASS_ATTRIBUTE);
+		MutablePropertyValues pvs = (MutablePropertyValues) frame.target;
+		try {
+			AbstractBeanDefinition bd = null;
+			if (className != null) {
+				RootBeanDefinition rbd = null;
+				if (this.beanClassLoader != null) {
+					Class clazz = Class.forName(className, true, this.beanClassLoader);
+					rbd = new RootBeanDefinition(clazz, frame.cargs, pvs);
+				}
+				else {
+					rbd = new RootBeanDefinition(className, frame.cargs, pvs);
+				}
+
+				String dependsOn = attributes.getValue(DefaultXmlBeanDefinitionParser.DEPENDS_ON_ATTRIBUTE);
+				if (dependsOn != null) {
+					rbd.setDependsOn(StringUtils.tokenizeToStringArray(
+							dependsOn, DefaultXmlBeanDefinitionParser.BEAN_NAME_DELIMITERS, true, true));
+				}
+
+				String dependencyCheck = getAttribute(attributes, DefaultXmlBeanDefinitionParser.DEPENDENCY_CHECK_ATTRIBUTE);
+				if (DefaultXmlBeanDefinitionParser.DEFAULT_VALUE.equals(dependencyCheck)) {
+					dependencyCheck = this.defaultDependencyCheck;
+				}
+				rbd.setDependencyCheck(getDependencyCheck(dependencyCheck));
+
+				String autowire = getAttribute(attributes, DefaultXmlBeanDefinitionParser.AUTOWIRE_ATTRIBUTE);
+				if (DefaultXmlBeanDefinitionParser.DEFAULT_VALUE.equals(autowire)) {
+					autowire = this.defaultAutowire;
+				}
+				rbd.setAutowireMode(getAutowireMode(autowire));
+
+				String initMethodName = getAttribute(attributes, DefaultXmlBeanDefinitionParser.INIT_METHOD_ATTRIBUTE);
+				if (!initMethodName.equals("")) {
+					rbd.setInitMethodName(initMethodName);
+				}
+				String destroyMethodName = getAttribute(attributes, DefaultXmlBeanDefinitionParser.DESTROY_METHOD_ATTRIBUTE);
+				if (!destroyMethodName.equals("")) {
+					rbd.setDestroyMethodName(destroyMethodName);
+				}
+
+				bd = rbd;
+			}
+			else {
+				bd = new ChildBeanDefinition(attributes.getValue(DefaultXmlBeanDefinitionParser.PARENT_ATTRIBUTE), pvs);
+			}
+
+			String singleton = attributes.getValue(DefaultXmlBeanDefinitionParser.SINGLETON_ATTRIBUTE);
+			if (singleton != null) {
+				bd.setSingleton(DefaultXmlBeanDefinitionParser.TRUE_VALUE.equals(singleton));
+			}
+
+			String lazyInit = getAttribute(attributes, DefaultXmlBeanDefinitionParser.LAZY_INIT_ATTRIBUTE);
+			if (DefaultXmlBeanDefinitionParser.DEFAULT_VALUE.equals(lazyInit) && bd.isSingleton()) {
+				// just apply default to singletons, as lazy-init has no meaning for prototypes
+				lazyInit = this.defaultLazyInit;
+			}
+			bd.setLazyInit(DefaultXmlBeanDefinitionParser.TRUE_VALUE.equals(lazyInit));
+
+			bd.setResourceDescription(this.resource.getDescription());
+
+			return bd;
+		}
+		catch (ClassNotFoundException ex) {
+			throw new BeanDefinitionStoreException(this.resource, frame.beanName,
+																						 "Bean class [" + className + "] not found", ex);
+		}
+		catch (NoClassDefFoundError err) {
+			throw new BeanDefinitionStoreException(this.resource, frame.beanName,
+																						 "Class that bean class [" + className + "] depends on not found", err);
+		}
+	}
+
+	private void registerBeanDefinition(Frame frame, AbstractBeanDefinition beanDefinition) {
+		String id = frame.beanName;
+		if ("".equals(id)) {
+			if (beanDefinition instanceof RootBeanDefinition) {
+				id = ((RootBeanDefinition) beanDefinition).getBeanClassName();
+				logger.debug("Neither XML 'id' nor 'name' specified - using bean class name [" + id + "] as ID");
+			}
+			else {
+				throw new BeanDefinitionStoreException(this.resource, "",
+																							 "Child bean definition has neither 'id' nor 'name'");
+			}
+		}
+
+		logger.debug("Registering bean definition with id '" + id + "'");
+		this.beanFactory.registerBeanDefinition(id, beanDefinition);
+		for (Iterator it = frame.aliases.iterator(); it.hasNext();) {
+			this.beanFactory.registerAlias(id, (String) it.next());
+		}
+	}
+
+	private int getDependencyCheck(String att) {
+		if (DefaultXmlBeanDefinitionParser.DEPENDENCY_CHECK_ALL_ATTRIBUTE_VALUE.equals(att)) {
+			return RootBeanDefinition.DEPENDENCY_CHECK_ALL;
+		}
+		else if (DefaultXmlBeanDefinitionParser.DEPENDENCY_CHECK_SIMPLE_ATTRIBUTE_VALUE.equals(att)) {
+			return RootBeanDefinition.DEPENDENCY_CHECK_SIMPLE;
+		}
+		else if (DefaultXmlBeanDefinitionParser.DEPENDENCY_CHECK_OBJECTS_ATTRIBUTE_VALUE.equals(att)) {
+			return RootBeanDefinition.DEPENDENCY_CHECK_OBJECTS;
+		}
+		return RootBeanDefinition.DEPENDENCY_CHECK_NONE;
+	}
+
+	private int getAutowireMode(String att) {
+		if (DefaultXmlBeanDefinitionParser.AUTOWIRE_BY_NAME_VALUE.equals(att)) {
+			return RootBeanDefinition.AUTOWIRE_BY_NAME;
+		}
+		else if (DefaultXmlBeanDefinitionParser.AUTOWIRE_BY_TYPE_VALUE.equals(att)) {
+			return RootBeanDefinition.AUTOWIRE_BY_TYPE;
+		}
+		else if (DefaultXmlBeanDefinitionParser.AUTOWIRE_CONSTRUCTOR_VALUE.equals(att)) {
+			return RootBeanDefinition.AUTOWIRE_CONSTRUCTOR;
+		}
+		else if (DefaultXmlBeanDefinitionParser.AUTOWIRE_AUTODETECT_VALUE.equals(att)) {
+			return RootBeanDefinition.AUTOWIRE_AUTODETECT;
+		}
+		return RootBeanDefinition.AUTOWIRE_NO;
+	}
+
+	/**
+	 * Return the given attribute value, or the empty String if not specified,
+	 * like DOM's Element.getAttribute.
+	 */
+	private static String getAttribute(Attributes attributes, String name) {
+		String value = attributes.getValue(name);
+		return (value != null ? value : "");
+	}
+
+	private void push(Frame frame) {
+		this.frames.addLast(frame);
+	}
+
+	private Frame getParent() {
+		return (Frame) this.frames.getLast();
+	}
+
+	/**
+	 * Hand the value of a closed element to the enclosing element.
+	 */
+	private void setValue(Object value) {
+		Frame parent = getParent();
+		if (parent.kind == LIST || parent.kind == SET) {
+			((Collection) parent.target).add(value);
+		}
+		else {
+			// the last value subelement of a property wins
+			parent.value = value;
+			parent.hasValue = true;
+		}
+	}
+
+
+	/**
+	 * State of an open element.
+	 */
+	private static class Frame {
+
+		private final int kind;
+
+		/** Name of the enclosing bean, for error messages */
+		private final String beanName;
+
+		/** Attributes of bean and constructor-arg elements */
+		private final Attributes attributes;
+
+		/** Property name or map or props key */
+		private String key;
+
+		/** Property values of a bean, or the collection being built */
+		private Object target;
+
+		/** Constructor arguments of a bean with a class */
+		private ConstructorArgumentValues cargs;
+
+		/** Aliases of a top-level bean; null for inner beans */
+		private List aliases;
+
+		private Object value;
+
+		private boolean hasValue;
+
+		/** Text content of value and prop elements */
+		private StringBuffer text;
+
+		private Frame(int kind, String beanName, Attributes attributes) {
+			this.kind = kind;
+			this.beanName = beanName;
+			this.attributes = attributes;
+		}
+	}
+
+}
@@ -22,14 +22,17 @@ import java.io.InputStream;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.w3c.dom.Document;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
@@ -50,7 +53,12 @@ import org.springframework.core.io.Resource;
  * <p>This class registers each bean definition with the given bean factory superclass,
  * and relies on the latter's implementation of the BeanDefinitionRegistry interface.
  * It supports singletons, prototypes, and references to either of these kinds of bean.
-
+ *
+ * <p>By default, the document is parsed into a DOM that is then handed to the
+ * XmlBeanDefinitionParser. In streaming mode, bean definitions are registered
+ * directly from SAX events instead, which is faster and doesn't keep the whole
+ * document in memory, but doesn't allow for a custom parser class.
+ *
  * @author Juergen Hoeller
  * @since 26.11.2003
  * @see #setParserClass
@@ -66,6 +74,8 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 
 	private Class parserClass = DefaultXmlBeanDefinitionParser.class;
 
+	private boolean streaming = false;
+
 
 	/**
 	 * Create new XmlBeanDefinitionReader for the given bean factory.
@@ -104,6 +114,19 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		this.parserClass = parserClass;
 	}
 
+	/**
+	 * Set whether to register bean definitions directly from SAX events,
+	 * without building a DOM. Default is false.
+	 * <p>Streaming mode yields the same bean definitions as the default
+	 * parser but ignores the parser class, as it doesn't work on a DOM.
+	 * If the document turns out to be invalid, the bean definitions that
+	 * precede the error will already have been registered.
+	 * @see #setParserClass
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
 	/**
 	 * Load bean definitions from the specified XML file.
 	 * @param resource the resource descriptor for the XML file
@@ -116,15 +139,29 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		InputStream is = null;
 		try {
 			logger.info("Loading XML bean definitions from " + resource + "");
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			logger.debug("Using JAXP implementation [" + factory + "]");
-			factory.setValidating(this.validating);
-			DocumentBuilder docBuilder = factory.newDocumentBuilder();
-			docBuilder.setErrorHandler(new BeansErrorHandler());
-			docBuilder.setEntityResolver(this.entityResolver != null ? this.entityResolver : new BeansDtdResolver());
-			is = resource.getInputStream();
-			Document doc = docBuilder.parse(is);
-			registerBeanDefinitions(doc, resource);
+			EntityResolver entityResolver = (this.entityResolver != null ? this.entityResolver : new BeansDtdResolver());
+			if (this.streaming) {
+				SAXParserFactory factory = SAXParserFactory.newInstance();
+				logger.debug("Using JAXP implementation [" + factory + "]");
+				factory.setValidating(this.validating);
+				XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+				xmlReader.setErrorHandler(new BeansErrorHandler());
+				xmlReader.setEntityResolver(entityResolver);
+				xmlReader.setContentHandler(new StreamingBeanDefinitionHandler(getBeanFactory(), getBeanClassLoader(), resource));
+				is = resource.getInputStream();
+				xmlReader.parse(new InputSource(is));
+			}
+			else {
+				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+				logger.debug("Using JAXP implementation [" + factory + "]");
+				factory.setValidating(this.validating);
+				DocumentBuilder docBuilder = factory.newDocumentBuilder();
+				docBuilder.setErrorHandler(new BeansErrorHandler());
+				docBuilder.setEntityResolver(entityResolver);
+				is = resource.getInputStream();
+				Document doc = docBuilder.parse(is);
+				registerBeanDefinitions(doc, resource);
+			}
 		}
 		catch (ParserConfigurationException ex) {
 			throw new BeanDefinitionStoreException("Parser configuration exception parsing XML from " + resource, ex);
@@ -1,68 +1,464 @@
 /*
  * Copyright 2002-2004 the original author or authors.
- * 
+ *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
- * 
+ *
  *      http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  * See the License for the specific language governing permissions and
  * limitations under the License.
- */ 
+ */
 
 package org.springframework.context.event;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
+import org.springframework.core.JdkVersion;
 
 /**
  * Concrete implementation of ApplicationEventMulticaster
  * Doesn't permit multiple instances of the same listener.
  *
- * <p>Note that this class doesn't try to do anything clever to ensure thread
- * safety if listeners are added or removed at runtime. A technique such as
- * Copy-on-Write (Lea:137) could be used to ensure this, but the assumption in
- * this version of this framework is that listeners will be added at application
- * configuration time and not added or removed as the application runs.
+ * <p>Listeners may be added or removed at runtime: the registry is copied
+ * on write, so notifying listeners never acquires a lock once the listeners
+ * for a given event class have been determined, on Java 1.5 or later.
+ * Listeners that implement SmartApplicationListener are only notified of the
+ * event types they support; the listeners for each event class are computed
+ * once and cached.
+ *
+ * <p>By default, all listeners are invoked in the calling thread. This allows
+ * the danger of a rogue listener blocking the entire application, but adds
+ * minimal overhead, and exceptions thrown by listeners propagate to the caller.
  *
- * <p>All listeners are invoked in the calling thread. This allows the danger of
- * a rogue listener blocking the entire application, but adds minimal overhead.
+ * <p>Alternatively, events can be delivered asynchronously by a number of
+ * dispatcher threads owned by this multicaster, see "asyncThreads". Each
+ * listener is served by one dispatcher, so it receives events in the order
+ * in which they were published, one at a time. Each dispatcher has a queue
+ * of bounded size: if it is full, the publishing thread either waits for
+ * space (the default) or the event is discarded for that dispatcher's
+ * listeners, according to "blockWhenFull". Listeners that publish events
+ * themselves never wait for space: as they run in a dispatcher thread, that
+ * could wait forever, so their events are queued beyond the capacity.
+ * Exceptions thrown by listeners are logged. On destruction, pending events
+ * are delivered before the dispatcher threads terminate; events published
+ * afterwards are delivered synchronously.
  *
- * <p>An alternative implementation could be more sophisticated in both these respects.
+ * <p>To use asynchronous delivery in an application context, define this
+ * class as bean with the name "applicationEventMulticaster".
  *
  * @author Rod Johnson
+ * @author Juergen Hoeller
+ * @see SmartApplicationListener
+ * @see org.springframework.context.support.AbstractApplicationContext#APPLICATION_EVENT_MULTICASTER_BEAN_NAME
  */
-public class ApplicationEventMulticasterImpl implements ApplicationEventMulticaster {
+public class ApplicationEventMulticasterImpl implements ApplicationEventMulticaster, DisposableBean {
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	/** Guards all writes to the registry and the dispatchers */
+	private final Object registryLock = new Object();
+
+	/** Listeners in registration order: immutable, replaced on write */
+	private volatile ApplicationListener[] listeners = new ApplicationListener[0];
+
+	/**
+	 * Event class --> ApplicationListener[][] with the listeners for each
+	 * dispatcher. Immutable, replaced on write, and reset whenever the
+	 * listeners change.
+	 */
+	private volatile Map listenersByEventType = Collections.EMPTY_MAP;
+
+	private int asyncThreads = 0;
+
+	private int queueCapacity = 1000;
 
-	/** Set of listeners */
-	private Set eventListeners = new HashSet();
+	private boolean blockWhenFull = true;
 
-	public void addApplicationListener(ApplicationListener l) {
-		eventListeners.add(l);
+	/** Dispatchers, or null if not started yet */
+	private volatile Dispatcher[] dispatchers;
+
+	private volatile boolean destroyed;
+
+
+	/**
+	 * Set the number of threads that deliver events asynchronously.
+	 * Default is 0, which means that events are delivered in the calling thread.
+	 * Must be set before the first event is published.
+	 */
+	public void setAsyncThreads(int asyncThreads) {
+		this.asyncThreads = asyncThreads;
 	}
 
-	public void removeApplicationListener(ApplicationListener l) {
-		eventListeners.remove(l);
+	/**
+	 * Set the maximum number of events waiting for delivery per dispatcher
+	 * thread, in asynchronous mode. Default is 1000.
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("queueCapacity must be positive");
+		}
+		this.queueCapacity = queueCapacity;
 	}
 
-	public void onApplicationEvent(ApplicationEvent e) {
-		Iterator i = eventListeners.iterator();
-		while (i.hasNext()) {
-			ApplicationListener l = (ApplicationListener) i.next();
-			l.onApplicationEvent(e);
+	/**
+	 * Set whether publishing an event should wait for a full queue to accept it,
+	 * in asynchronous mode. Default is true; set this to false to discard events
+	 * instead, so that publishers are never slowed down by listeners.
+	 * <p>Events published by listeners, in a dispatcher thread, are queued
+	 * beyond the capacity rather than waiting for space.
+	 * @see #getDiscardedEventCount
+	 */
+	public void setBlockWhenFull(boolean blockWhenFull) {
+		this.blockWhenFull = blockWhenFull;
+	}
+
+	/**
+	 * Return the number of events waiting for asynchronous delivery.
+	 * Events that wait for several dispatchers are counted for each.
+	 */
+	public int getPendingEventCount() {
+		Dispatcher[] dispatchers = getDispatchers();
+		int count = 0;
+		if (dispatchers != null) {
+			for (int i = 0; i < dispatchers.length; i++) {
+				count += dispatchers[i].getPendingCount();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of events that have been discarded because of a full
+	 * queue. Events discarded for several dispatchers are counted for each.
+	 */
+	public long getDiscardedEventCount() {
+		Dispatcher[] dispatchers = getDispatchers();
+		long count = 0;
+		if (dispatchers != null) {
+			for (int i = 0; i < dispatchers.length; i++) {
+				count += dispatchers[i].getDiscardedCount();
+			}
+		}
+		return count;
+	}
+
+
+	public void addApplicationListener(ApplicationListener listener) {
+		synchronized (this.registryLock) {
+			List newListeners = new ArrayList(Arrays.asList(this.listeners));
+			if (!newListeners.contains(listener)) {
+				newListeners.add(listener);
+				setListeners(newListeners);
+			}
+		}
+	}
+
+	public void removeApplicationListener(ApplicationListener listener) {
+		synchronized (this.registryLock) {
+			List newListeners = new ArrayList(Arrays.asList(this.listeners));
+			if (newListeners.remove(listener)) {
+				setListeners(newListeners);
+			}
 		}
 	}
 
 	public void removeAllListeners() {
-		eventListeners.clear();
+		synchronized (this.registryLock) {
+			setListeners(Collections.EMPTY_LIST);
+		}
+	}
+
+	/**
+	 * Replace the registered listeners. Called with the registry lock held.
+	 */
+	private void setListeners(List newListeners) {
+		this.listeners = (ApplicationListener[]) newListeners.toArray(new ApplicationListener[newListeners.size()]);
+		this.listenersByEventType = Collections.EMPTY_MAP;
+	}
+
+
+	public void onApplicationEvent(ApplicationEvent e) {
+		Dispatcher[] dispatchers = getDispatchers();
+		if (dispatchers == null && this.asyncThreads > 0 && !this.destroyed) {
+			dispatchers = startDispatchers();
+		}
+		ApplicationListener[][] listenersByDispatcher = getListeners(e.getClass());
+		if (dispatchers == null || this.destroyed) {
+			for (int i = 0; i < listenersByDispatcher.length; i++) {
+				ApplicationListener[] listeners = listenersByDispatcher[i];
+				for (int j = 0; j < listeners.length; j++) {
+					listeners[j].onApplicationEvent(e);
+				}
+			}
+		}
+		else {
+			for (int i = 0; i < dispatchers.length; i++) {
+				if (listenersByDispatcher[i].length > 0) {
+					dispatchers[i].dispatch(e, listenersByDispatcher[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the listeners for the given event class, determining them
+	 * if not cached yet.
+	 * @param eventType the class of the event
+	 * @return the listeners per dispatcher, or a single array if no
+	 * dispatchers have been started
+	 */
+	private ApplicationListener[][] getListeners(Class eventType) {
+		ApplicationListener[][] result = (ApplicationListener[][]) getListenersByEventType().get(eventType);
+		if (result == null) {
+			synchronized (this.registryLock) {
+				result = (ApplicationListener[][]) this.listenersByEventType.get(eventType);
+				if (result == null) {
+					int dispatcherCount = (this.dispatchers != null ? this.dispatchers.length : 1);
+					List[] lists = new List[dispatcherCount];
+					for (int i = 0; i < dispatcherCount; i++) {
+						lists[i] = new ArrayList();
+					}
+					for (int i = 0; i < this.listeners.length; i++) {
+						ApplicationListener listener = this.listeners[i];
+						if (!(listener instanceof SmartApplicationListener) ||
+								((SmartApplicationListener) listener).supportsEventType(eventType)) {
+							// a listener is always served by the same dispatcher, to preserve ordering
+							lists[(System.identityHashCode(listener) & Integer.MAX_VALUE) % dispatcherCount].add(listener);
+						}
+					}
+					result = new ApplicationListener[dispatcherCount][];
+					for (int i = 0; i < dispatcherCount; i++) {
+						result[i] = (ApplicationListener[]) lists[i].toArray(new ApplicationListener[lists[i].size()]);
+					}
+					Map newListenersByEventType = new HashMap(this.listenersByEventType);
+					newListenersByEventType.put(eventType, result);
+					this.listenersByEventType = newListenersByEventType;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return whether the current thread is one of the dispatcher threads.
+	 */
+	private boolean isDispatcherThread() {
+		Dispatcher[] dispatchers = getDispatchers();
+		if (dispatchers != null) {
+			for (int i = 0; i < dispatchers.length; i++) {
+				if (dispatchers[i].thread == Thread.currentThread()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return the cached listeners by event type. Pre-1.5 JVMs read them
+	 * under the registry lock, to see the arrays fully built.
+	 * @see org.springframework.core.JdkVersion#isJava15MemoryModel
+	 */
+	private Map getListenersByEventType() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.listenersByEventType;
+		}
+		synchronized (this.registryLock) {
+			return this.listenersByEventType;
+		}
+	}
+
+	/**
+	 * Return the dispatchers, or null if not started yet. Read under
+	 * the registry lock on pre-1.5 JVMs, like the listeners.
+	 */
+	private Dispatcher[] getDispatchers() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.dispatchers;
+		}
+		synchronized (this.registryLock) {
+			return this.dispatchers;
+		}
+	}
+
+	private Dispatcher[] startDispatchers() {
+		synchronized (this.registryLock) {
+			if (this.dispatchers == null) {
+				Dispatcher[] dispatchers = new Dispatcher[this.asyncThreads];
+				for (int i = 0; i < dispatchers.length; i++) {
+					dispatchers[i] = new Dispatcher(this.queueCapacity, this.blockWhenFull);
+					Thread thread = new Thread(dispatchers[i], "ApplicationEventMulticaster-" + (i + 1));
+					thread.setDaemon(true);
+					dispatchers[i].thread = thread;
+					thread.start();
+				}
+				// listeners have been cached for synchronous delivery so far
+				this.listenersByEventType = Collections.EMPTY_MAP;
+				this.dispatchers = dispatchers;
+				logger.info("Started " + dispatchers.length + " threads for asynchronous event delivery");
+			}
+			return this.dispatchers;
+		}
+	}
+
+	/**
+	 * Deliver pending events and stop the dispatcher threads, if any.
+	 * Subsequent events will be delivered synchronously.
+	 */
+	public void destroy() throws InterruptedException {
+		Dispatcher[] dispatchers = null;
+		synchronized (this.registryLock) {
+			this.destroyed = true;
+			dispatchers = this.dispatchers;
+		}
+		if (dispatchers != null) {
+			for (int i = 0; i < dispatchers.length; i++) {
+				dispatchers[i].shutdown();
+			}
+			for (int i = 0; i < dispatchers.length; i++) {
+				dispatchers[i].thread.join();
+			}
+		}
+	}
+
+
+	/**
+	 * Delivers events to a fixed set of listeners in its own thread,
+	 * in the order in which they have been queued.
+	 */
+	private class Dispatcher implements Runnable {
+
+		private final int capacity;
+
+		private final boolean blockWhenFull;
+
+		/** Pending Delivery objects, guarded by this dispatcher's monitor */
+		private final LinkedList queue = new LinkedList();
+
+		private long discardedCount;
+
+		private boolean shutdown;
+
+		private Thread thread;
+
+		private Dispatcher(int capacity, boolean blockWhenFull) {
+			this.capacity = capacity;
+			this.blockWhenFull = blockWhenFull;
+		}
+
+		public void dispatch(ApplicationEvent event, ApplicationListener[] listeners) {
+			synchronized (this) {
+				while (this.queue.size() >= this.capacity && !this.shutdown) {
+					if (!this.blockWhenFull) {
+						this.discardedCount++;
+						return;
+					}
+					if (isDispatcherThread()) {
+						// waiting might deadlock: the space would have to be made by
+						// this thread, or by a dispatcher waiting for this thread
+						break;
+					}
+					try {
+						wait();
+					}
+					catch (InterruptedException ex) {
+						// Preserve interrupt status for the caller
+						Thread.currentThread().interrupt();
+						this.discardedCount++;
+						logger.warn("Interrupted while waiting to queue event [" + event + "]: discarded");
+						return;
+					}
+				}
+				if (!this.shutdown) {
+					this.queue.add(new Delivery(event, listeners));
+					notifyAll();
+					return;
+				}
+			}
+			// shut down in the meantime
+			new Delivery(event, listeners).run();
+		}
+
+		public void run() {
+			while (true) {
+				Delivery delivery = null;
+				synchronized (this) {
+					while (this.queue.isEmpty() && !this.shutdown) {
+						try {
+							wait();
+						}
+						catch (InterruptedException ex) {
+							// keep delivering until shut down
+						}
+					}
+					if (this.queue.isEmpty()) {
+						return;
+					}
+					delivery = (Delivery) this.queue.removeFirst();
+					// wake up publishers waiting for space
+					notifyAll();
+				}
+				delivery.run();
+			}
+		}
+
+		public synchronized void shutdown() {
+			this.shutdown = true;
+			notifyAll();
+		}
+
+		public synchronized int getPendingCount() {
+			return this.queue.size();
+		}
+
+		public synchronized long getDiscardedCount() {
+			return this.discardedCount;
+		}
+	}
+
+
+	/**
+	 * An event to be delivered to the listeners of one dispatcher.
+	 */
+	private class Delivery {
+
+		private final ApplicationEvent event;
+
+		private final ApplicationListener[] listeners;
+
+		private Delivery(ApplicationEvent event, ApplicationListener[] listeners) {
+			this.event = event;
+			this.listeners = listeners;
+		}
+
+		public void run() {
+			for (int i = 0; i < this.listeners.length; i++) {
+				try {
+					this.listeners[i].onApplicationEvent(this.event);
+				}
+				catch (Throwable ex) {
+					logger.error("Application listener [" + this.listeners[i] + "] failed to handle event [" +
+											 this.event + "]", ex);
+				}
+			}
+		}
 	}
 
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Extension of the ApplicationListener interface, exposing the types
+ * of events that the listener is interested in. Such listeners will
+ * only be notified of events of those types.
+ *
+ * <p>ApplicationEventMulticasterImpl asks each listener once per event
+ * class, so the answer must not change over time.
+ *
+ * @author agent
+ * @see ApplicationEventMulticasterImpl
+ */
+public interface SmartApplicationListener extends ApplicationListener {
+
+	/**
+	 * Determine whether this listener supports events of the given type.
+	 * @param eventType the class of the event
+	 * @return whether the listener wants to be notified of such events
+	 */
+	boolean supportsEventType(Class eventType);
+
+}
@@ -65,7 +65,9 @@ import org.springframework.core.io.ResourceLoader;
  *
  * <p>A MessageSource may be also supplied as a bean in the context, with
  * the name "messageSource". Else, message resolution is delegated to the
- * parent context.
+ * parent context. Likewise, an ApplicationEventMulticaster may be supplied
+ * as a bean with the name "applicationEventMulticaster", for example to
+ * deliver events asynchronously; else, events are delivered synchronously.
  *
  * <p>Implements resource loading through extending DefaultResourceLoader.
  * Therefore, treats resource paths as class path resources. Only supports
@@ -79,6 +81,7 @@ import org.springframework.core.io.ResourceLoader;
  * @see #refreshBeanFactory
  * @see #getBeanFactory
  * @see #MESSAGE_SOURCE_BEAN_NAME
+ * @see #APPLICATION_EVENT_MULTICASTER_BEAN_NAME
  */
 public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		implements ConfigurableApplicationContext {
@@ -90,6 +93,13 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	 */
 	public static final String MESSAGE_SOURCE_BEAN_NAME = "messageSource";
 
+	/**
+	 * Name of the ApplicationEventMulticaster bean in the factory.
+	 * If none is supplied, a default ApplicationEventMulticasterImpl is used.
+	 * @see org.springframework.context.event.ApplicationEventMulticasterImpl
+	 */
+	public static final String APPLICATION_EVENT_MULTICASTER_BEAN_NAME = "applicationEventMulticaster";
+
 
 	//---------------------------------------------------------------------
 	// Instance data
@@ -114,7 +124,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	private MessageSource messageSource;
 
 	/** Helper class used in event publishing */
-	private final ApplicationEventMulticaster eventMulticaster = new ApplicationEventMulticasterImpl();
+	private ApplicationEventMulticaster eventMulticaster = new ApplicationEventMulticasterImpl();
 
 
 	//---------------------------------------------------------------------
@@ -255,6 +265,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		// initialize message source for this context
 		initMessageSource();
 
+		// initialize event multicaster for this context
+		initApplicationEventMulticaster();
+
 		// initialize other special beans in specific context subclasses
 		onRefresh();
 
@@ -337,6 +350,18 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		}
 	}
 
+	/**
+	 * Initialize the ApplicationEventMulticaster.
+	 * Keep the default one if none defined in this context.
+	 */
+	private void initApplicationEventMulticaster() throws BeansException {
+		if (containsBeanDefinition(APPLICATION_EVENT_MULTICASTER_BEAN_NAME)) {
+			this.eventMulticaster = (ApplicationEventMulticaster)
+					getBean(APPLICATION_EVENT_MULTICASTER_BEAN_NAME, ApplicationEventMulticaster.class);
+			logger.info("Using ApplicationEventMulticaster [" + this.eventMulticaster + "]");
+		}
+	}
+
 	/**
 	 * Template method which can be overridden to add context-specific refresh work.
 	 * Called on initialization of special beans, before instantiation of singletons.
@@ -357,8 +382,10 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		logger.debug("Found " + listeners.size() + " listeners in bean factory");
 		for (Iterator it = listeners.iterator(); it.hasNext();) {
 			ApplicationListener listener = (ApplicationListener) it.next();
-			addListener(listener);
-			logger.info("Application listener [" + listener + "] added");
+			if (listener != this.eventMulticaster) {
+				addListener(listener);
+				logger.info("Application listener [" + listener + "] added");
+			}
 		}
 	}
 
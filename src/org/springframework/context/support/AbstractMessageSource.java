@@ -17,8 +17,6 @@
 package org.springframework.context.support;
 
 import java.text.MessageFormat;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 
 import org.apache.commons.logging.Log;
@@ -41,13 +39,22 @@ import org.springframework.context.NoSuchMessageException;
  * <p>This class does not implement caching, thus subclasses can
  * dynamically change messages over time.
  *
+ * <p>Subclasses can return precompiled MessageTemplates from resolveTemplate,
+ * which format most messages without a MessageFormat. As resolveTemplate is
+ * consulted first, such subclasses should return null from it when one of
+ * their own subclasses customizes resolveCode; see isOverridden.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @author Seth Ladd
  * @see #resolveCode
+ * @see #resolveTemplate
+ * @see #isOverridden
  */
 public abstract class AbstractMessageSource implements HierarchicalMessageSource {
 
+	private static final Object[] EMPTY_ARGUMENTS = new Object[0];
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private MessageSource parentMessageSource;
@@ -130,9 +137,16 @@ public abstract class AbstractMessageSource implements HierarchicalMessageSource
 		if (locale == null) {
 			locale = Locale.getDefault();
 		}
+		MessageTemplate template = resolveTemplate(code, locale);
+		if (template != null) {
+			return template.format(template.isLiteral() ? null : resolveArguments(args, locale));
+		}
 		MessageFormat messageFormat = resolveCode(code, locale);
 		if (messageFormat != null) {
-			return messageFormat.format(resolveArguments(args, locale));
+			Object[] resolvedArgs = resolveArguments(args, locale);
+			// MessageFormat isn't thread-safe, and subclasses typically cache it:
+			// format with a copy rather than making concurrent callers wait
+			return ((MessageFormat) messageFormat.clone()).format(resolvedArgs);
 		}
 		else {
 			if (this.parentMessageSource != null) {
@@ -157,21 +171,66 @@ public abstract class AbstractMessageSource implements HierarchicalMessageSource
 	 */
 	private Object[] resolveArguments(Object[] args, Locale locale) {
 		if (args == null) {
-			return new Object[0];
+			return EMPTY_ARGUMENTS;
 		}
-		List resolvedArgs = new ArrayList();
+		Object[] resolvedArgs = args;
 		for (int i = 0; i < args.length; i++) {
 			if (args[i] instanceof MessageSourceResolvable) {
-				resolvedArgs.add(getMessage((MessageSourceResolvable) args[i],
-				                            locale));
+				if (resolvedArgs == args) {
+					// copy on first resolvable, leaving the caller's array untouched
+					resolvedArgs = new Object[args.length];
+					System.arraycopy(args, 0, resolvedArgs, 0, args.length);
+				}
+				resolvedArgs[i] = getMessage((MessageSourceResolvable) args[i], locale);
 			}
-			else {
-				resolvedArgs.add(args[i]);
+		}
+		return resolvedArgs;
+	}
+
+
+	/**
+	 * Subclasses can override this method to resolve a message to a
+	 * precompiled MessageTemplate, which is preferred over resolveCode.
+	 * <p>Returning a template allows messages without arguments or with
+	 * simple placeholders to be formatted without a MessageFormat.
+	 * Subclasses should cache the templates, like MessageFormats.
+	 * <p>The default implementation returns null, so that resolveCode
+	 * will be called. Implementations should return null as well if a
+	 * subclass overrides resolveCode or the methods it delegates to,
+	 * so that the customized lookup isn't bypassed.
+	 * @param code the code of the message to resolve
+	 * @param locale the Locale to resolve the code for
+	 * @return the MessageTemplate for the message, or null if not found
+	 * or not supported
+	 * @see #resolveCode
+	 */
+	protected MessageTemplate resolveTemplate(String code, Locale locale) {
+		return null;
+	}
+
+	/**
+	 * Determine whether the class of this MessageSource overrides the given
+	 * method. Allows to check once whether resolveTemplate can be used, or
+	 * would bypass a customized resolveCode.
+	 * @param declaringClass the class that declares the method
+	 * @param methodName the name of the method
+	 * @param parameterTypes the parameter types of the method
+	 * @return whether a subclass of the declaring class declares the method
+	 * @see #resolveTemplate
+	 */
+	protected final boolean isOverridden(Class declaringClass, String methodName, Class[] parameterTypes) {
+		for (Class clazz = getClass(); clazz != null && clazz != declaringClass; clazz = clazz.getSuperclass()) {
+			try {
+				clazz.getDeclaredMethod(methodName, parameterTypes);
+				return true;
+			}
+			catch (NoSuchMethodException ex) {
+				// check the superclass
 			}
 		}
-		return resolvedArgs.toArray(new Object[resolvedArgs.size()]);
+		return false;
 	}
-	
+
 
 	/**
 	 * Subclasses must implement this method to resolve a message.
@@ -16,19 +16,42 @@
 
 package org.springframework.context.support;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionSnapshot;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextException;
+import org.springframework.core.io.Resource;
  
 /**
  * Convenient abstract superclass for ApplicationContext implementations
  * drawing their configuration from XML documents containing bean definitions
  * understood by an XmlBeanDefinitionParser.
+ *
+ * <p>Multiple config locations can be parsed concurrently: see
+ * setConfigLoadingThreads. Either way, bean definitions are registered
+ * in the order of the config locations, so later files override
+ * definitions in earlier ones.
+ *
+ * <p>To skip parsing on restarts, the bean definitions can be written to
+ * a snapshot file: see setBeanDefinitionSnapshotFile.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @version $Revision$
@@ -39,6 +62,17 @@ public abstract class AbstractXmlApplicationContext extends AbstractApplicationC
 	/** Bean factory for this context */
 	private ConfigurableListableBeanFactory beanFactory;
 
+	private int configLoadingThreads = 1;
+
+	private File beanDefinitionSnapshotFile;
+
+	/**
+	 * Resource paths of the entities resolved while loading bean definitions
+	 * for a snapshot, with null for entities left to the XML parser.
+	 * Synchronized List, or null if not loading for a snapshot.
+	 */
+	private List resolvedEntityPaths;
+
 	/**
 	 * Create a new AbstractXmlApplicationContext with no parent.
 	 */
@@ -53,13 +87,75 @@ public abstract class AbstractXmlApplicationContext extends AbstractApplicationC
 		super(parent);
 	}
 
+	/**
+	 * Set the number of threads to parse the config locations with.
+	 * Default is 1, parsing them one after the other on the refreshing thread.
+	 * <p>With more threads, each config file is parsed into a buffer of its own,
+	 * and the buffered bean definitions and aliases are registered in the order
+	 * of the config locations once all files have been parsed. If a file fails to
+	 * parse, the same bean definitions will have been registered as when parsing
+	 * serially. Note that an XmlBeanDefinitionParser doesn't see the bean
+	 * definitions of other files then, and that initBeanDefinitionReader will be
+	 * called for the reader of each file.
+	 * <p>Needs to be set before the context is refreshed. A ClassPathXmlApplicationContext
+	 * can be created with the constructor that takes a refresh flag, to call this
+	 * before refreshing. In a web application, use the "contextConfigLoadingThreads"
+	 * context-param for the root context, or the "contextConfigLoadingThreads"
+	 * init-param of a FrameworkServlet.
+	 * @see #initBeanDefinitionReader
+	 * @see ClassPathXmlApplicationContext#ClassPathXmlApplicationContext(String[], boolean)
+	 * @see org.springframework.web.context.ContextLoader#CONFIG_LOADING_THREADS_PARAM
+	 * @see org.springframework.web.servlet.FrameworkServlet#setContextConfigLoadingThreads
+	 */
+	public void setConfigLoadingThreads(int configLoadingThreads) {
+		this.configLoadingThreads = configLoadingThreads;
+	}
+
+	/**
+	 * Return the number of threads to parse the config locations with.
+	 */
+	public int getConfigLoadingThreads() {
+		return configLoadingThreads;
+	}
+
+	/**
+	 * Set a file to keep a snapshot of the bean definitions in.
+	 * Default is none.
+	 * <p>If the snapshot has been written for config files with the same
+	 * content, the bean definitions will be restored from it instead of parsing
+	 * the config files. Else, the config files will be parsed, and the snapshot
+	 * rewritten with the resulting bean definitions, before any post-processing.
+	 * <p>Files that the config files include via XML entities are taken into
+	 * account as long as they are resolved as application context resources,
+	 * which is the case for relative paths. No snapshot will be written for
+	 * config files that include entities that are left to the XML parser,
+	 * for example via an absolute URL, as changes to them can't be detected.
+	 * <p>Note that loadBeanDefinitions won't be called when using the snapshot.
+	 * Bean definitions that it registers in addition to the ones in the config
+	 * files will be included in the snapshot but not taken into account when
+	 * checking whether the snapshot is up to date.
+	 * @see org.springframework.beans.factory.support.BeanDefinitionSnapshot
+	 * @see #loadBeanDefinitions
+	 */
+	public void setBeanDefinitionSnapshotFile(File beanDefinitionSnapshotFile) {
+		this.beanDefinitionSnapshotFile = beanDefinitionSnapshotFile;
+	}
+
 	protected void refreshBeanFactory() throws BeansException {
 		try {
 			DefaultListableBeanFactory beanFactory = createBeanFactory();
-			XmlBeanDefinitionReader beanDefinitionReader = new XmlBeanDefinitionReader(beanFactory);
-			beanDefinitionReader.setEntityResolver(new ResourceEntityResolver(this));
-			initBeanDefinitionReader(beanDefinitionReader);
-			loadBeanDefinitions(beanDefinitionReader);
+			if (this.beanDefinitionSnapshotFile != null) {
+				this.resolvedEntityPaths = Collections.synchronizedList(new ArrayList());
+				try {
+					loadBeanDefinitionsWithSnapshot(createBeanDefinitionReader(beanFactory));
+				}
+				finally {
+					this.resolvedEntityPaths = null;
+				}
+			}
+			else {
+				loadBeanDefinitions(createBeanDefinitionReader(beanFactory));
+			}
 			this.beanFactory = beanFactory;
 			if (logger.isInfoEnabled()) {
 				logger.info("Bean factory for application context '" + getDisplayName() + "': " + beanFactory);
@@ -86,6 +182,27 @@ public abstract class AbstractXmlApplicationContext extends AbstractApplicationC
 		return beanFactory;
 	}
 
+	/**
+	 * Create a bean definition reader for the given registry,
+	 * initialized via initBeanDefinitionReader.
+	 */
+	private XmlBeanDefinitionReader createBeanDefinitionReader(BeanDefinitionRegistry registry) {
+		XmlBeanDefinitionReader beanDefinitionReader = new XmlBeanDefinitionReader(registry);
+		final List resolvedEntityPaths = this.resolvedEntityPaths;
+		if (resolvedEntityPaths != null) {
+			beanDefinitionReader.setEntityResolver(new ResourceEntityResolver(this) {
+				protected void entityResolved(String systemId, String resourcePath) {
+					resolvedEntityPaths.add(resourcePath);
+				}
+			});
+		}
+		else {
+			beanDefinitionReader.setEntityResolver(new ResourceEntityResolver(this));
+		}
+		initBeanDefinitionReader(beanDefinitionReader);
+		return beanDefinitionReader;
+	}
+
 	/**
 	 * Initialize the bean definition reader used for loading the bean
 	 * definitions of this context. Default implementation is empty.
@@ -94,6 +211,7 @@ public abstract class AbstractXmlApplicationContext extends AbstractApplicationC
 	 * @param beanDefinitionReader the bean definition reader used by this context
 	 * @see org.springframework.beans.factory.xml.XmlBeanDefinitionReader#setValidating
 	 * @see org.springframework.beans.factory.xml.XmlBeanDefinitionReader#setParserClass
+	 * @see org.springframework.beans.factory.xml.XmlBeanDefinitionReader#setStreaming
 	 */
 	protected void initBeanDefinitionReader(XmlBeanDefinitionReader beanDefinitionReader) {
 	}
@@ -109,10 +227,79 @@ public abstract class AbstractXmlApplicationContext extends AbstractApplicationC
 	protected void loadBeanDefinitions(XmlBeanDefinitionReader reader) throws BeansException, IOException {
 		String[] configLocations = getConfigLocations();
 		if (configLocations != null) {
-			for (int i = 0; i < configLocations.length; i++) {
-				reader.loadBeanDefinitions(getResource(configLocations[i]));
+			if (this.configLoadingThreads > 1 && configLocations.length > 1) {
+				Resource[] resources = new Resource[configLocations.length];
+				for (int i = 0; i < configLocations.length; i++) {
+					resources[i] = getResource(configLocations[i]);
+				}
+				new ParallelConfigLoading(resources).load(reader.getBeanFactory());
+			}
+			else {
+				for (int i = 0; i < configLocations.length; i++) {
+					reader.loadBeanDefinitions(getResource(configLocations[i]));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Restore the bean definitions from the snapshot file if it is up to date,
+	 * else load them with the given reader and write a new snapshot.
+	 * The checksum covers the config files and the entities that they include.
+	 */
+	private void loadBeanDefinitionsWithSnapshot(XmlBeanDefinitionReader reader) throws BeansException, IOException {
+		String[] configLocations = getConfigLocations();
+		if (configLocations == null) {
+			configLocations = new String[0];
+		}
+		BeanDefinitionSnapshot snapshot = new BeanDefinitionSnapshot(this.beanDefinitionSnapshotFile);
+		snapshot.setBeanClassLoader(reader.getBeanClassLoader());
+		String[] entityPaths = snapshot.readIncludedLocations();
+		if (entityPaths != null) {
+			String checksum = null;
+			try {
+				checksum = computeSnapshotChecksum(configLocations, entityPaths);
+			}
+			catch (IOException ex) {
+				logger.info("Bean definition snapshot is out of date: could not read included file", ex);
 			}
+			if (checksum != null && snapshot.read(reader.getBeanFactory(), checksum)) {
+				return;
+			}
+		}
+
+		loadBeanDefinitions(reader);
+		Set entityPathSet = new HashSet();
+		List newEntityPaths = new ArrayList();
+		synchronized (this.resolvedEntityPaths) {
+			for (Iterator it = this.resolvedEntityPaths.iterator(); it.hasNext();) {
+				String entityPath = (String) it.next();
+				if (entityPath == null) {
+					logger.info("Not writing bean definition snapshot: config files include entities " +
+											"that have been resolved by the XML parser");
+					return;
+				}
+				if (entityPathSet.add(entityPath)) {
+					newEntityPaths.add(entityPath);
+				}
+			}
+		}
+		entityPaths = (String[]) newEntityPaths.toArray(new String[newEntityPaths.size()]);
+		snapshot.write(reader.getBeanFactory(), computeSnapshotChecksum(configLocations, entityPaths), entityPaths);
+	}
+
+	/**
+	 * Compute the checksum of the given config files and included entities.
+	 */
+	private String computeSnapshotChecksum(String[] configLocations, String[] entityPaths) throws IOException {
+		Resource[] resources = new Resource[configLocations.length + entityPaths.length];
+		for (int i = 0; i < configLocations.length; i++) {
+			resources[i] = getResource(configLocations[i]);
 		}
+		for (int i = 0; i < entityPaths.length; i++) {
+			resources[configLocations.length + i] = getResource(entityPaths[i]);
+		}
+		return BeanDefinitionSnapshot.computeChecksum(resources);
 	}
 
 	/**
@@ -122,4 +309,154 @@ public abstract class AbstractXmlApplicationContext extends AbstractApplicationC
 	 */
 	protected abstract String[] getConfigLocations();
 
+
+
+	/**
+	 * Parses config files on multiple threads, each into a BeanDefinitionBuffer.
+	 */
+	private class ParallelConfigLoading implements Runnable {
+
+		private final Resource[] resources;
+
+		private final BeanDefinitionBuffer[] buffers;
+
+		private final Throwable[] failures;
+
+		private int nextIndex = 0;
+
+		public ParallelConfigLoading(Resource[] resources) {
+			this.resources = resources;
+			this.buffers = new BeanDefinitionBuffer[resources.length];
+			this.failures = new Throwable[resources.length];
+			for (int i = 0; i < resources.length; i++) {
+				this.buffers[i] = new BeanDefinitionBuffer();
+			}
+		}
+
+		/**
+		 * Parse all config files, using the calling thread and additional
+		 * worker threads, and register the bean definitions in order.
+		 * @param registry the registry to register the bean definitions with
+		 */
+		public void load(BeanDefinitionRegistry registry) {
+			int threadCount = Math.min(configLoadingThreads, this.resources.length);
+			logger.info("Loading " + this.resources.length + " config files with " + threadCount + " threads");
+			Thread[] workers = new Thread[threadCount - 1];
+			for (int i = 0; i < workers.length; i++) {
+				workers[i] = new Thread(this, "loadBeanDefinitions-" + (i + 1));
+				workers[i].start();
+			}
+			run();
+			for (int i = 0; i < workers.length; i++) {
+				try {
+					workers[i].join();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new ApplicationContextException("Interrupted while loading bean definitions", ex);
+				}
+			}
+			for (int i = 0; i < this.resources.length; i++) {
+				this.buffers[i].registerWith(registry);
+				if (this.failures[i] instanceof RuntimeException) {
+					throw (RuntimeException) this.failures[i];
+				}
+				if (this.failures[i] instanceof Error) {
+					throw (Error) this.failures[i];
+				}
+			}
+		}
+
+		public void run() {
+			int index;
+			while ((index = nextIndex()) != -1) {
+				try {
+					createBeanDefinitionReader(this.buffers[index]).loadBeanDefinitions(this.resources[index]);
+				}
+				catch (Throwable ex) {
+					this.failures[index] = ex;
+				}
+			}
+		}
+
+		private synchronized int nextIndex() {
+			return (this.nextIndex < this.resources.length ? this.nextIndex++ : -1);
+		}
+	}
+
+
+	/**
+	 * BeanDefinitionRegistry that records bean definitions and aliases,
+	 * to register them with another registry later on.
+	 */
+	private static class BeanDefinitionBuffer implements BeanDefinitionRegistry {
+
+		/** Bean definitions and aliases in registration order: String[] for aliases */
+		private final List registrations = new ArrayList();
+
+		private final List beanDefinitionNames = new ArrayList();
+
+		private final Map beanDefinitionMap = new HashMap();
+
+		public synchronized int getBeanDefinitionCount() {
+			return this.beanDefinitionNames.size();
+		}
+
+		public synchronized String[] getBeanDefinitionNames() {
+			return (String[]) this.beanDefinitionNames.toArray(new String[this.beanDefinitionNames.size()]);
+		}
+
+		public synchronized boolean containsBeanDefinition(String name) {
+			return this.beanDefinitionMap.containsKey(name);
+		}
+
+		public synchronized BeanDefinition getBeanDefinition(String name) throws BeansException {
+			BeanDefinition bd = (BeanDefinition) this.beanDefinitionMap.get(name);
+			if (bd == null) {
+				throw new NoSuchBeanDefinitionException(name, "Not defined in this config file");
+			}
+			return bd;
+		}
+
+		public synchronized void registerBeanDefinition(String name, BeanDefinition beanDefinition) {
+			if (this.beanDefinitionMap.put(name, beanDefinition) == null) {
+				this.beanDefinitionNames.add(name);
+			}
+			this.registrations.add(new Object[] {name, beanDefinition});
+		}
+
+		public synchronized String[] getAliases(String name) throws NoSuchBeanDefinitionException {
+			List aliases = new ArrayList();
+			for (Iterator it = this.registrations.iterator(); it.hasNext();) {
+				Object registration = it.next();
+				if (registration instanceof String[] && name.equals(((String[]) registration)[0])) {
+					aliases.add(((String[]) registration)[1]);
+				}
+			}
+			return (String[]) aliases.toArray(new String[aliases.size()]);
+		}
+
+		public synchronized void registerAlias(String name, String alias) {
+			this.registrations.add(new String[] {name, alias});
+		}
+
+		/**
+		 * Register the recorded bean definitions and aliases with the given
+		 * registry, in the order they were recorded.
+		 */
+		public synchronized void registerWith(BeanDefinitionRegistry registry) {
+			for (Iterator it = this.registrations.iterator(); it.hasNext();) {
+				Object registration = it.next();
+				if (registration instanceof String[]) {
+					String[] alias = (String[]) registration;
+					registry.registerAlias(alias[0], alias[1]);
+				}
+				else {
+					Object[] beanDefinition = (Object[]) registration;
+					registry.registerBeanDefinition((String) beanDefinition[0], (BeanDefinition) beanDefinition[1]);
+				}
+			}
+		}
+	}
+
 }
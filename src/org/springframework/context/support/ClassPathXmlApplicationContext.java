@@ -62,6 +62,24 @@ public class ClassPathXmlApplicationContext extends AbstractXmlApplicationContex
 		refresh();
 	}
 
+	/**
+	 * Create a new ClassPathXmlApplicationContext, loading the definitions
+	 * from the given XML files, and refreshing it only if requested.
+	 * <p>Pass false to configure the context, for example with a bean
+	 * definition snapshot file, before calling refresh.
+	 * @param configLocations array of file paths
+	 * @param refresh whether to refresh the context immediately
+	 * @see #refresh
+	 * @see #setBeanDefinitionSnapshotFile
+	 * @see #setConfigLoadingThreads
+	 */
+	public ClassPathXmlApplicationContext(String[] configLocations, boolean refresh) throws BeansException {
+		this.configLocations = configLocations;
+		if (refresh) {
+			refresh();
+		}
+	}
+
 	/**
 	 * Create a new ClassPathXmlApplicationContext with the given parent,
 	 * loading the definitions from the given XML files.
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.support;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.core.JdkVersion;
+
+/**
+ * Precompiled message pattern, producing the same results as
+ * java.text.MessageFormat for the same pattern.
+ *
+ * <p>Most messages are plain text or contain only simple placeholders
+ * like "{0}". Such patterns are split into literal text and argument
+ * indexes once, when compiling the template:
+ * <ul>
+ * <li>A message without placeholders is unescaped when compiling,
+ * so formatting it returns the same String without any allocation.
+ * <li>Simple placeholders are substituted by appending the arguments
+ * to a buffer. Number and Date arguments need locale-specific
+ * formatting and are left to a MessageFormat.
+ * <li>Patterns with format types like "{0,number}" or "{0,choice,...}"
+ * are formatted by a MessageFormat.
+ * </ul>
+ *
+ * <p>Instances are thread-safe. MessageFormats are created lazily
+ * and never used directly: each call formats with a copy.
+ *
+ * @author agent
+ * @see java.text.MessageFormat
+ * @see AbstractMessageSource#resolveTemplate
+ */
+public final class MessageTemplate {
+
+	private final String pattern;
+
+	/**
+	 * Literal text before each placeholder, and after the last one,
+	 * or null if the pattern needs a MessageFormat
+	 */
+	private final String[] literals;
+
+	/** Argument index of each placeholder */
+	private final int[] argumentIndexes;
+
+	/** Length of all literals, used to size the buffer */
+	private final int literalLength;
+
+	private volatile MessageFormat messageFormat;
+
+
+	/**
+	 * Compile the given message pattern.
+	 * @param pattern the pattern, following java.text.MessageFormat syntax
+	 * @throws IllegalArgumentException if the pattern is invalid
+	 */
+	public MessageTemplate(String pattern) {
+		this.pattern = pattern;
+		List literals = new ArrayList(2);
+		List argumentIndexes = new ArrayList(1);
+		if (parse(pattern, literals, argumentIndexes)) {
+			this.literals = (String[]) literals.toArray(new String[literals.size()]);
+			this.argumentIndexes = new int[argumentIndexes.size()];
+			int literalLength = 0;
+			for (int i = 0; i < this.literals.length; i++) {
+				literalLength += this.literals[i].length();
+			}
+			for (int i = 0; i < this.argumentIndexes.length; i++) {
+				this.argumentIndexes[i] = ((Integer) argumentIndexes.get(i)).intValue();
+			}
+			this.literalLength = literalLength;
+		}
+		else {
+			this.literals = null;
+			this.argumentIndexes = null;
+			this.literalLength = 0;
+			// validate the pattern right away, as MessageFormat does
+			this.messageFormat = new MessageFormat(pattern);
+		}
+	}
+
+	/**
+	 * Split the pattern into literals and simple placeholders,
+	 * following the parsing rules of MessageFormat.
+	 * @return false if the pattern contains anything but simple placeholders,
+	 * or is invalid
+	 */
+	private static boolean parse(String pattern, List literals, List argumentIndexes) {
+		StringBuffer literal = new StringBuffer(pattern.length());
+		boolean inQuote = false;
+		for (int i = 0; i < pattern.length(); i++) {
+			char ch = pattern.charAt(i);
+			if (ch == '\'') {
+				if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+					literal.append('\'');
+					i++;
+				}
+				else {
+					inQuote = !inQuote;
+				}
+			}
+			else if (ch == '{' && !inQuote) {
+				int end = i + 1;
+				while (end < pattern.length() && Character.isDigit(pattern.charAt(end))) {
+					end++;
+				}
+				if (end == i + 1 || end - i > 10 || end == pattern.length() || pattern.charAt(end) != '}') {
+					return false;
+				}
+				literals.add(literal.toString());
+				literal.setLength(0);
+				argumentIndexes.add(new Integer(Integer.parseInt(pattern.substring(i + 1, end))));
+				i = end;
+			}
+			else {
+				literal.append(ch);
+			}
+		}
+		literals.add(literal.toString());
+		return true;
+	}
+
+
+	/**
+	 * Return the pattern that this template was compiled from.
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Return whether this template contains no placeholders,
+	 * so that its message doesn't depend on any arguments.
+	 */
+	public boolean isLiteral() {
+		return (this.argumentIndexes != null && this.argumentIndexes.length == 0);
+	}
+
+	/**
+	 * Format the message with the given arguments.
+	 * @param args the arguments, as for MessageFormat (may be null)
+	 * @return the formatted message
+	 * @see java.text.MessageFormat#format(Object)
+	 */
+	public String format(Object[] args) {
+		if (this.literals == null) {
+			return formatWithMessageFormat(args);
+		}
+		if (this.argumentIndexes.length == 0) {
+			return this.literals[0];
+		}
+		int argCount = (args != null ? args.length : 0);
+		for (int i = 0; i < this.argumentIndexes.length; i++) {
+			int index = this.argumentIndexes[i];
+			if (index < argCount && (args[index] instanceof Number || args[index] instanceof Date)) {
+				return formatWithMessageFormat(args);
+			}
+		}
+		StringBuffer sb = new StringBuffer(this.literalLength + 16 * this.argumentIndexes.length);
+		for (int i = 0; i < this.argumentIndexes.length; i++) {
+			sb.append(this.literals[i]);
+			int index = this.argumentIndexes[i];
+			if (index < argCount) {
+				sb.append(args[index]);
+			}
+			else {
+				// as MessageFormat does for missing arguments
+				sb.append('{').append(index).append('}');
+			}
+		}
+		sb.append(this.literals[this.argumentIndexes.length]);
+		return sb.toString();
+	}
+
+	private String formatWithMessageFormat(Object[] args) {
+		MessageFormat messageFormat = this.messageFormat;
+		if (messageFormat == null || !JdkVersion.isJava15MemoryModel()) {
+			messageFormat = initMessageFormat();
+		}
+		// MessageFormat isn't thread-safe: format with a copy
+		return ((MessageFormat) messageFormat.clone()).format(args != null ? args : new Object[0]);
+	}
+
+	/**
+	 * Return the MessageFormat, creating it if necessary. Always used on
+	 * pre-1.5 JVMs, which could see a MessageFormat read without the lock
+	 * partially initialized.
+	 * @see org.springframework.core.JdkVersion#isJava15MemoryModel
+	 */
+	private synchronized MessageFormat initMessageFormat() {
+		if (this.messageFormat == null) {
+			this.messageFormat = new MessageFormat(this.pattern);
+		}
+		return this.messageFormat;
+	}
+
+	public String toString() {
+		return this.pattern;
+	}
+
+}
@@ -21,13 +21,16 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 
 import org.springframework.context.ResourceLoaderAware;
+import org.springframework.core.JdkVersion;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
@@ -55,6 +58,14 @@ import org.springframework.util.StringUtils;
  * resources can still be loaded from the classpath, but "cacheSeconds" values
  * other than "-1" (caching forever) will not work in this case.
  *
+ * <p>Message lookups don't acquire any lock on Java 1.5 or later: the caches
+ * are copy-on-write maps that are read through volatile references. Older
+ * JVMs read those references under the cache locks, as their memory model
+ * doesn't publish the maps safely otherwise. When a cached file times out,
+ * it is refreshed in the background while the stale messages continue
+ * to be served; see "refreshInBackground". A single daemon thread, shared by
+ * all instances, works through the timed-out files one at a time.
+ *
  * <p>This MessageSource can easily be used outside an ApplicationContext: It uses
  * a DefaultResourceLoader as default, getting overridden with the ApplicationContext
  * if running in a context. It does not have any other specific dependencies.
@@ -62,6 +73,7 @@ import org.springframework.util.StringUtils;
  * @author Thomas Achleitner
  * @author Juergen Hoeller
  * @see #setCacheSeconds
+ * @see #setRefreshInBackground
  * @see #setBasenames
  * @see #setDefaultEncoding
  * @see #setFileEncodings
@@ -77,6 +89,18 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 
 	public static final String PROPERTIES_SUFFIX = ".properties";
 
+	/** Name of the thread that refreshes timed-out files in the background */
+	public static final String REFRESHER_THREAD_NAME = "MessageSourceRefresher";
+
+	/** Milliseconds that an idle refresher thread waits for more files */
+	private static final long REFRESHER_IDLE_MILLIS = 60000;
+
+	/** BackgroundRefreshes waiting for the refresher thread, used as its monitor */
+	private static final LinkedList refreshQueue = new LinkedList();
+
+	/** Whether the refresher thread is running, guarded by refreshQueue */
+	private static boolean refresherRunning;
+
 	private String[] basenames;
 
 	private String defaultEncoding;
@@ -87,16 +111,28 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 
 	private long cacheMillis = -1;
 
-	/** Cache to hold filename lists per Locale */
-	private final Map cachedFilenames = new HashMap();
+	private boolean refreshInBackground = true;
+
+	/** Guards writes to the caches */
+	private final Object cacheLock = new Object();
+
+	/**
+	 * Immutable snapshot: basename to immutable Map of Locale
+	 * to filename List
+	 */
+	private volatile Map cachedFilenames = Collections.EMPTY_MAP;
 
-	/** Cache to hold already loaded properties per filename */
-	private final Map cachedProperties = new HashMap();
+	/** Immutable snapshot: filename to PropertiesHolder */
+	private volatile Map cachedProperties = Collections.EMPTY_MAP;
 
 	private PropertiesPersister propertiesPersister = new DefaultPropertiesPersister();
 
 	private ResourceLoader resourceLoader = new DefaultResourceLoader();
 
+	/** Whether resolveTemplate can be used, i.e. resolveCode isn't customized */
+	private final boolean templatesSupported =
+			!isOverridden(ReloadableResourceBundleMessageSource.class, "resolveCode", new Class[] {String.class, Locale.class});
+
 
 	/**
 	 * Set a single basename, following the basic ResourceBundle convention of
@@ -183,6 +219,21 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 		this.cacheMillis = cacheSeconds * 1000;
 	}
 
+	/**
+	 * Set whether to refresh timed-out properties files on a background
+	 * thread. Default is true.
+	 * <p>While a file is being refreshed, its previously loaded messages
+	 * will still be returned, so no caller has to wait for the file to be
+	 * checked or reloaded. Turn this off to refresh on the thread that
+	 * accesses a timed-out file, returning the refreshed messages right away.
+	 * <p>Files that haven't been loaded yet are always loaded on the calling
+	 * thread, as are files when the "cacheSeconds" value is "0".
+	 * @see #setCacheSeconds
+	 */
+	public void setRefreshInBackground(boolean refreshInBackground) {
+		this.refreshInBackground = refreshInBackground;
+	}
+
 	/**
 	 * Set the PropertiesPersister to use for parsing properties files.
 	 * The default is DefaultPropertiesPersister.
@@ -203,6 +254,30 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 	}
 
 
+	/**
+	 * Resolves the message to a MessageTemplate cached per properties file,
+	 * unless a subclass overrides resolveCode.
+	 */
+	protected MessageTemplate resolveTemplate(String code, Locale locale) {
+		if (!this.templatesSupported) {
+			return null;
+		}
+		for (int i = 0; i < this.basenames.length; i++) {
+			List filenames = calculateAllFilenames(this.basenames[i], locale);
+			for (int j = 0; j < filenames.size(); j++) {
+				String filename = (String) filenames.get(j);
+				PropertiesHolder propHolder = getProperties(filename);
+				if (propHolder.getProperties() != null) {
+					MessageTemplate result = propHolder.getMessageTemplate(code);
+					if (result != null) {
+						return result;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
 	protected MessageFormat resolveCode(String code, Locale locale) {
 		for (int i = 0; i < this.basenames.length; i++) {
 			List filenames = calculateAllFilenames(this.basenames[i], locale);
@@ -231,29 +306,38 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 	 * @see #calculateFilenamesForLocale
 	 */
 	protected List calculateAllFilenames(String basename, Locale locale) {
-		synchronized (this.cachedFilenames) {
-			Map localeMap = (Map) this.cachedFilenames.get(basename);
-			if (localeMap != null) {
-				List filenames = (List) localeMap.get(locale);
-				if (filenames != null) {
-					return filenames;
-				}
-			}
-			List filenames = new ArrayList(7);
-			filenames.addAll(calculateFilenamesForLocale(basename, locale));
-			if (this.fallbackToSystemLocale && !locale.equals(Locale.getDefault())) {
-				filenames.addAll(calculateFilenamesForLocale(basename, Locale.getDefault()));
+		Map localeMap = (Map) getCachedFilenames().get(basename);
+		if (localeMap != null) {
+			List filenames = (List) localeMap.get(locale);
+			if (filenames != null) {
+				return filenames;
 			}
-			filenames.add(basename);
-			if (localeMap != null) {
-				localeMap.put(locale, filenames);
-			}
-			else {
-				localeMap = new HashMap();
-				localeMap.put(locale, filenames);
-				this.cachedFilenames.put(basename, localeMap);
-			}
-			return filenames;
+		}
+		List filenames = new ArrayList(7);
+		filenames.addAll(calculateFilenamesForLocale(basename, locale));
+		if (this.fallbackToSystemLocale && !locale.equals(Locale.getDefault())) {
+			filenames.addAll(calculateFilenamesForLocale(basename, Locale.getDefault()));
+		}
+		filenames.add(basename);
+		filenames = Collections.unmodifiableList(filenames);
+		synchronized (this.cacheLock) {
+			// another thread may have cached filenames for other Locales meanwhile
+			Map currentLocaleMap = (Map) this.cachedFilenames.get(basename);
+			Map newLocaleMap = (currentLocaleMap != null ? new HashMap(currentLocaleMap) : new HashMap());
+			newLocaleMap.put(locale, filenames);
+			Map newCachedFilenames = new HashMap(this.cachedFilenames);
+			newCachedFilenames.put(basename, newLocaleMap);
+			this.cachedFilenames = newCachedFilenames;
+		}
+		return filenames;
+	}
+
+	private Map getCachedFilenames() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.cachedFilenames;
+		}
+		synchronized (this.cacheLock) {
+			return this.cachedFilenames;
 		}
 	}
 
@@ -294,17 +378,59 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 	/**
 	 * Get PropertiesHolder for the given filename, either from the cache
 	 * or freshly loaded.
+	 * <p>A timed-out holder will be returned as-is if it is getting
+	 * refreshed in the background.
+	 * @see #setRefreshInBackground
 	 */
 	protected PropertiesHolder getProperties(String filename) {
-		synchronized (this.cachedProperties) {
-			PropertiesHolder propHolder = (PropertiesHolder) this.cachedProperties.get(filename);
-			if (propHolder != null &&
-					(propHolder.getRefreshTimestamp() < 0 ||
-					 propHolder.getRefreshTimestamp() > System.currentTimeMillis() - this.cacheMillis)) {
-				return propHolder;
+		PropertiesHolder propHolder = (PropertiesHolder) getCachedProperties().get(filename);
+		if (propHolder != null &&
+				(propHolder.getRefreshTimestamp() < 0 ||
+				 propHolder.getRefreshTimestamp() > System.currentTimeMillis() - this.cacheMillis)) {
+			return propHolder;
+		}
+		if (propHolder == null) {
+			synchronized (this.cacheLock) {
+				// another thread may have loaded the file while we were waiting
+				propHolder = (PropertiesHolder) this.cachedProperties.get(filename);
+				if (propHolder == null) {
+					return refreshProperties(filename, null);
+				}
+			}
+		}
+		if (this.refreshInBackground && this.cacheMillis > 0) {
+			if (propHolder.startRefresh()) {
+				scheduleRefresh(new BackgroundRefresh(filename, propHolder));
+			}
+			return propHolder;
+		}
+		return refreshProperties(filename, propHolder);
+	}
+
+	private Map getCachedProperties() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.cachedProperties;
+		}
+		synchronized (this.cacheLock) {
+			return this.cachedProperties;
+		}
+	}
+
+	/**
+	 * Queue the given refresh for the shared refresher thread,
+	 * starting the thread if it isn't running.
+	 */
+	private static void scheduleRefresh(BackgroundRefresh refresh) {
+		synchronized (refreshQueue) {
+			refreshQueue.add(refresh);
+			if (refresherRunning) {
+				refreshQueue.notify();
 			}
 			else {
-				return refreshProperties(filename, propHolder);
+				Thread refresher = new Thread(new Refresher(), REFRESHER_THREAD_NAME);
+				refresher.setDaemon(true);
+				refresher.start();
+				refresherRunning = true;
 			}
 		}
 	}
@@ -370,7 +496,11 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 			propHolder = new PropertiesHolder();
 		}
 		propHolder.setRefreshTimestamp(refreshTimestamp);
-		this.cachedProperties.put(filename, propHolder);
+		synchronized (this.cacheLock) {
+			Map newCachedProperties = new HashMap(this.cachedProperties);
+			newCachedProperties.put(filename, propHolder);
+			this.cachedProperties = newCachedProperties;
+		}
 		return propHolder;
 	}
 
@@ -378,8 +508,10 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 	 * Clear the resource bundle cache.
 	 * Following resolve calls will lead to reloading of the properties files.
 	 */
-	public synchronized void clearCache() {
-		this.cachedProperties.clear();
+	public void clearCache() {
+		synchronized (this.cacheLock) {
+			this.cachedProperties = Collections.EMPTY_MAP;
+		}
 	}
 
 	/**
@@ -398,25 +530,95 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 	}
 
 
+	/**
+	 * Runs the queued BackgroundRefreshes one after the other.
+	 * Terminates once no refresh has been queued for a while.
+	 */
+	private static class Refresher implements Runnable {
+
+		public void run() {
+			while (true) {
+				BackgroundRefresh refresh = null;
+				synchronized (refreshQueue) {
+					if (refreshQueue.isEmpty()) {
+						try {
+							refreshQueue.wait(REFRESHER_IDLE_MILLIS);
+						}
+						catch (InterruptedException ex) {
+							// terminate below if there's nothing to do
+						}
+					}
+					if (refreshQueue.isEmpty()) {
+						refresherRunning = false;
+						return;
+					}
+					refresh = (BackgroundRefresh) refreshQueue.removeFirst();
+				}
+				refresh.run();
+			}
+		}
+	}
+
+
+	/**
+	 * Refreshes a timed-out properties file on the refresher thread.
+	 */
+	private class BackgroundRefresh implements Runnable {
+
+		private final String filename;
+
+		private final PropertiesHolder propHolder;
+
+		private BackgroundRefresh(String filename, PropertiesHolder propHolder) {
+			this.filename = filename;
+			this.propHolder = propHolder;
+		}
+
+		public void run() {
+			try {
+				refreshProperties(this.filename, this.propHolder);
+			}
+			catch (Throwable ex) {
+				logger.warn("Could not refresh properties for filename [" + this.filename + "]", ex);
+			}
+			finally {
+				this.propHolder.endRefresh();
+			}
+		}
+	}
+
+
 	/**
 	 * PropertiesHolder for caching.
 	 * Stores the last-modified timestamp of the source file for efficient
 	 * change detection, and the timestamp of the last refresh attempt
 	 * (updated every time the cache entry gets re-validated).
+	 *
+	 * <p>Messages are looked up in an unsynchronized copy of the properties,
+	 * as java.util.Properties synchronizes every access.
 	 */
 	protected static class PropertiesHolder {
 
 		private Properties properties;
 
+		/** Unsynchronized copy of the properties, read-only */
+		private Map messages;
+
 		private long fileTimestamp = -1;
 
-		private long refreshTimestamp = -1;
+		private volatile long refreshTimestamp = -1;
+
+		private boolean refreshing;
 
-		/** Cache to hold already generated MessageFormats per message code */
-		private final Map cachedMessageFormats = new HashMap();
+		/** Immutable snapshot: message code to MessageFormat */
+		private volatile Map cachedMessageFormats = Collections.EMPTY_MAP;
+
+		/** Immutable snapshot: message code to MessageTemplate */
+		private volatile Map cachedMessageTemplates = Collections.EMPTY_MAP;
 
 		protected PropertiesHolder(Properties properties, long fileTimestamp) {
 			this.properties = properties;
+			this.messages = new HashMap(properties);
 			this.fileTimestamp = fileTimestamp;
 		}
 
@@ -439,20 +641,77 @@ public class ReloadableResourceBundleMessageSource extends AbstractMessageSource
 			return refreshTimestamp;
 		}
 
-		protected synchronized MessageFormat getMessageFormat(String code) {
-			synchronized (this.cachedMessageFormats) {
-				MessageFormat result = (MessageFormat) this.cachedMessageFormats.get(code);
-				if (result != null) {
-					return result;
+		/**
+		 * Mark this holder as getting refreshed.
+		 * @return false if it is already getting refreshed
+		 */
+		protected synchronized boolean startRefresh() {
+			if (this.refreshing) {
+				return false;
+			}
+			this.refreshing = true;
+			return true;
+		}
+
+		protected synchronized void endRefresh() {
+			this.refreshing = false;
+		}
+
+		protected MessageFormat getMessageFormat(String code) {
+			MessageFormat result = (MessageFormat) getCachedMessageFormats().get(code);
+			if (result == null) {
+				String msg = (String) this.messages.get(code);
+				if (msg != null) {
+					synchronized (this) {
+						// another thread may have created the MessageFormat while we were waiting
+						result = (MessageFormat) this.cachedMessageFormats.get(code);
+						if (result == null) {
+							result = new MessageFormat(msg);
+							Map newCachedMessageFormats = new HashMap(this.cachedMessageFormats);
+							newCachedMessageFormats.put(code, result);
+							this.cachedMessageFormats = newCachedMessageFormats;
+						}
+					}
 				}
-				else {
-					String msg = this.properties.getProperty(code);
-					if (msg != null) {
-						result = new MessageFormat(msg);
-						this.cachedMessageFormats.put(code, result);
+			}
+			return result;
+		}
+
+		protected MessageTemplate getMessageTemplate(String code) {
+			MessageTemplate result = (MessageTemplate) getCachedMessageTemplates().get(code);
+			if (result == null) {
+				String msg = (String) this.messages.get(code);
+				if (msg != null) {
+					synchronized (this) {
+						// another thread may have compiled the template while we were waiting
+						result = (MessageTemplate) this.cachedMessageTemplates.get(code);
+						if (result == null) {
+							result = new MessageTemplate(msg);
+							Map newCachedMessageTemplates = new HashMap(this.cachedMessageTemplates);
+							newCachedMessageTemplates.put(code, result);
+							this.cachedMessageTemplates = newCachedMessageTemplates;
+						}
 					}
 				}
-				return result;
+			}
+			return result;
+		}
+
+		private Map getCachedMessageFormats() {
+			if (JdkVersion.isJava15MemoryModel()) {
+				return this.cachedMessageFormats;
+			}
+			synchronized (this) {
+				return this.cachedMessageFormats;
+			}
+		}
+
+		private Map getCachedMessageTemplates() {
+			if (JdkVersion.isJava15MemoryModel()) {
+				return this.cachedMessageTemplates;
+			}
+			synchronized (this) {
+				return this.cachedMessageTemplates;
 			}
 		}
 	}
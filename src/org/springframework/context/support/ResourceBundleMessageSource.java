@@ -17,12 +17,14 @@
 package org.springframework.context.support;
 
 import java.text.MessageFormat;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
+import org.springframework.core.JdkVersion;
 import org.springframework.util.StringUtils;
 
 /**
@@ -42,6 +44,9 @@ import org.springframework.util.StringUtils;
  */
 public class ResourceBundleMessageSource extends AbstractMessageSource {
 
+	/** Marker for message codes that a bundle doesn't contain */
+	private static final Object NO_TEMPLATE = new Object();
+
 	private String[] basenames;
 
 	/**
@@ -51,6 +56,21 @@ public class ResourceBundleMessageSource extends AbstractMessageSource {
 	 */
 	private final Map cachedMessageFormats = new HashMap();
 
+	/**
+	 * Immutable snapshot: ResourceBundle to immutable Map of message code
+	 * to MessageTemplate, or to NO_TEMPLATE for codes not in the bundle.
+	 * @see #getMessageTemplate
+	 */
+	private volatile Map cachedMessageTemplates = Collections.EMPTY_MAP;
+
+	/** Guards writes to the MessageTemplate cache */
+	private final Object templateCacheLock = new Object();
+
+	/** Whether resolveTemplate can be used, i.e. the MessageFormat lookup isn't customized */
+	private final boolean templatesSupported =
+			!isOverridden(ResourceBundleMessageSource.class, "resolve", new Class[] {String.class, String.class, Locale.class}) &&
+			!isOverridden(ResourceBundleMessageSource.class, "getMessageFormat", new Class[] {ResourceBundle.class, String.class});
+
 	/**
 	 * Set a single basename, following ResourceBundle conventions:
 	 * It is a fully-qualified classname. If it doesn't contain a package qualifier
@@ -88,6 +108,45 @@ public class ResourceBundleMessageSource extends AbstractMessageSource {
 		return messageFormat;
 	}
 
+	/**
+	 * Resolves the message to a cached MessageTemplate, unless a subclass
+	 * overrides resolve or getMessageFormat.
+	 * @see #resolveTemplate(String, String, Locale)
+	 */
+	protected final MessageTemplate resolveTemplate(String code, Locale locale) {
+		if (!this.templatesSupported) {
+			return null;
+		}
+		MessageTemplate template = null;
+		for (int i = 0; template == null && i < this.basenames.length; i++) {
+			template = resolveTemplate(this.basenames[i], code, locale);
+		}
+		return template;
+	}
+
+	/**
+	 * Return a MessageTemplate for the given bundle basename, message code,
+	 * and Locale.
+	 * @param basename the basename of the bundle
+	 * @param code the message code to retrieve
+	 * @param locale the Locale to resolve for
+	 * @return the resulting MessageTemplate, or null if not found
+	 * @see #resolve
+	 */
+	protected MessageTemplate resolveTemplate(String basename, String code, Locale locale) {
+		try {
+			ResourceBundle bundle = ResourceBundle.getBundle(basename, locale,
+			                                                 Thread.currentThread().getContextClassLoader());
+			return getMessageTemplate(bundle, code);
+		}
+		catch (MissingResourceException ex) {
+			logger.warn("ResourceBundle [" + basename + "] not found for MessageSource: " + ex.getMessage());
+			// assume bundle not found
+			// -> do NOT throw the exception to allow for checking parent message source
+			return null;
+		}
+	}
+
 	/**
 	 * Return a MessageFormat for the given bundle basename, message code,
 	 * and Locale.
@@ -150,6 +209,52 @@ public class ResourceBundleMessageSource extends AbstractMessageSource {
 		}
 	}
 
+	/**
+	 * Return a MessageTemplate for the given bundle and code, fetching
+	 * already compiled MessageTemplates from the cache.
+	 * <p>As ResourceBundles can't be reloaded, codes that a bundle doesn't
+	 * contain are cached too, sparing the MissingResourceException.
+	 * @param bundle the ResourceBundle to work on
+	 * @param code the message code to retrieve
+	 * @return the resulting MessageTemplate, or null if not found
+	 */
+	protected MessageTemplate getMessageTemplate(ResourceBundle bundle, String code) {
+		Map codeMap = (Map) getCachedMessageTemplates().get(bundle);
+		Object result = (codeMap != null ? codeMap.get(code) : null);
+		if (result == null) {
+			try {
+				result = new MessageTemplate(bundle.getString(code));
+			}
+			catch (MissingResourceException ex) {
+				// assume key not found
+				result = NO_TEMPLATE;
+			}
+			synchronized (this.templateCacheLock) {
+				Map currentCodeMap = (Map) this.cachedMessageTemplates.get(bundle);
+				Map newCodeMap = (currentCodeMap != null ? new HashMap(currentCodeMap) : new HashMap());
+				newCodeMap.put(code, result);
+				Map newCachedMessageTemplates = new HashMap(this.cachedMessageTemplates);
+				newCachedMessageTemplates.put(bundle, newCodeMap);
+				this.cachedMessageTemplates = newCachedMessageTemplates;
+			}
+		}
+		return (result != NO_TEMPLATE ? (MessageTemplate) result : null);
+	}
+
+	/**
+	 * Return the current MessageTemplate cache, holding the cache lock
+	 * for the read on JVMs before 1.5.
+	 * @see org.springframework.core.JdkVersion#isJava15MemoryModel
+	 */
+	private Map getCachedMessageTemplates() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.cachedMessageTemplates;
+		}
+		synchronized (this.templateCacheLock) {
+			return this.cachedMessageTemplates;
+		}
+	}
+
 	/**
 	 * Show the configuration of this MessageSource.
 	 */
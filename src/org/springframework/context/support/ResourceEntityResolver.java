@@ -78,8 +78,20 @@ public class ResourceEntityResolver extends BeansDtdResolver {
 				source.setPublicId(publicId);
 				source.setSystemId(systemId);
 			}
+			entityResolved(systemId, resourcePath);
 		}
 		return source;
 	}
 
+	/**
+	 * Template method called for each entity that isn't a DTD found in the
+	 * classpath, for example to keep track of the files that an application
+	 * context definition includes. Default implementation is empty.
+	 * @param systemId the system identifier of the entity
+	 * @param resourcePath the application context resource path that the entity
+	 * has been resolved as, or null if left to the XML parser
+	 */
+	protected void entityResolved(String systemId, String resourcePath) {
+	}
+
 }
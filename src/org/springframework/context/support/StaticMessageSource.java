@@ -37,10 +37,26 @@ public class StaticMessageSource extends AbstractMessageSource {
 
 	private final Log logger = LogFactory.getLog(getClass());
 
-	private Map messages = new HashMap();
+	private Map templates = new HashMap();
 
+	/** Whether resolveTemplate can be used, i.e. resolveCode isn't customized */
+	private final boolean templatesSupported =
+			!isOverridden(StaticMessageSource.class, "resolveCode", new Class[] {String.class, Locale.class});
+
+	protected MessageTemplate resolveTemplate(String code, Locale locale) {
+		if (!this.templatesSupported) {
+			return null;
+		}
+		return (MessageTemplate) this.templates.get(code + "_" + locale.toString());
+	}
+
+	/**
+	 * Creates a MessageFormat from the template's pattern. Only called when
+	 * resolveTemplate is bypassed, so MessageFormats aren't kept around.
+	 */
 	protected MessageFormat resolveCode(String code, Locale locale) {
-		return (MessageFormat) this.messages.get(code + "_" + locale.toString());
+		MessageTemplate template = (MessageTemplate) this.templates.get(code + "_" + locale.toString());
+		return (template != null ? new MessageFormat(template.getPattern()) : null);
 	}
 
 	/**
@@ -50,12 +66,12 @@ public class StaticMessageSource extends AbstractMessageSource {
 	 * @param message message associated with this lookup code
 	 */
 	public void addMessage(String code, Locale locale, String message) {
-		this.messages.put(code + "_" + locale.toString(), new MessageFormat(message));
+		this.templates.put(code + "_" + locale.toString(), new MessageTemplate(message));
 		logger.info("Added message [" + message + "] for code [" + code + "] and Locale [" + locale + "]");
 	}
 
 	public String toString() {
-		return getClass().getName() + ": " + this.messages;
+		return getClass().getName() + ": " + this.templates;
 	}
 
 }
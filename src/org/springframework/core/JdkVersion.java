@@ -29,18 +29,27 @@ public class JdkVersion {
 	
 	public static final int JAVA_14 = 1;
 	
+	/** Java 1.5 or later */
 	public static final int JAVA_15 = 2;
 	
 	private static int majorJavaVersion = JAVA_13;
 	
 	static {
-		String javaVersion = System.getProperty("java.version");
-		// should look like "1.4.1_02"
-		if (javaVersion.indexOf("1.4") != -1) {
-			majorJavaVersion = JAVA_14;
+		String javaVersion = null;
+		try {
+			javaVersion = System.getProperty("java.version");
+		}
+		catch (SecurityException ex) {
+			// not allowed to read system properties: assume 1.3
 		}
-		else if (javaVersion.indexOf("1.5") != -1) {
-			majorJavaVersion = JAVA_15;
+		// should look like "1.4.1_02"
+		if (javaVersion != null) {
+			if (javaVersion.startsWith("1.4")) {
+				majorJavaVersion = JAVA_14;
+			}
+			else if (!javaVersion.startsWith("1.3") && !javaVersion.startsWith("1.2")) {
+				majorJavaVersion = JAVA_15;
+			}
 		}
 		// else leave as 1.3 default
 	}
@@ -55,4 +64,16 @@ public class JdkVersion {
 		return majorJavaVersion;
 	}
 
+	/**
+	 * Return whether this JVM implements the Java 1.5 memory model (JSR-133).
+	 * <p>Only then is an object that is fully built before it is assigned to a
+	 * volatile field safely published by that assignment. On older JVMs, a thread
+	 * that reads the field without holding the lock that the writer held may see
+	 * the object's state partially initialized. Copy-on-write caches check this
+	 * to decide whether they may serve reads without locking.
+	 */
+	public static boolean isJava15MemoryModel() {
+		return (majorJavaVersion >= JAVA_15);
+	}
+
 }
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.BeanPropertySetter;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.JdkVersion;
+import org.springframework.dao.TypeMismatchDataAccessException;
+
+/**
+ * RowMapper that creates an instance of the given class for each row and
+ * sets its properties from the columns of the same name.
+ *
+ * <p>Column labels are matched to properties case-insensitively, ignoring
+ * underscores: a column "FIRST_NAME" is mapped to a property "firstName".
+ * A column alias in the SQL can be used to map a column to a property
+ * of a different name.
+ * Columns without a matching property are ignored, as are properties
+ * without a matching column. A NULL value leaves a primitive property
+ * at its default value.
+ *
+ * <p>The columns are matched to properties once per distinct list of column
+ * labels, from the ResultSetMetaData of the first row of a query. Each column
+ * is then read with the ResultSet getter for its property type, for example
+ * getInt for an int or Integer property, and set through a BeanPropertySetter.
+ *
+ * <p>For example, for a query in MappingSqlQuery style:
+ *
+ * <pre>
+ * private final RowMapper ownerMapper = new BeanPropertyRowMapper(Owner.class);
+ *
+ * protected Object mapRow(ResultSet rs, int rownum) throws SQLException {
+ *   return this.ownerMapper.mapRow(rs, rownum);
+ * }</pre>
+ *
+ * Instances are thread-safe and can be shared between queries, including
+ * queries running concurrently: each thread keeps track of the ResultSet
+ * it is mapping, and the matched columns are shared by all threads.
+ *
+ * @author agent
+ * @see org.springframework.beans.BeanPropertySetter
+ * @see org.springframework.jdbc.object.BeanPropertySqlQuery
+ */
+public class BeanPropertyRowMapper implements RowMapper {
+
+	private static final int OBJECT = 0;
+	private static final int STRING = 1;
+	private static final int BOOLEAN = 2;
+	private static final int BYTE = 3;
+	private static final int SHORT = 4;
+	private static final int INT = 5;
+	private static final int LONG = 6;
+	private static final int FLOAT = 7;
+	private static final int DOUBLE = 8;
+	private static final int BIG_DECIMAL = 9;
+	private static final int DATE = 10;
+	private static final int TIME = 11;
+	private static final int TIMESTAMP = 12;
+	private static final int BYTES = 13;
+
+	/** Property type --> Integer value type */
+	private static final Map valueTypes = new HashMap();
+
+	static {
+		valueTypes.put(String.class, new Integer(STRING));
+		valueTypes.put(boolean.class, new Integer(BOOLEAN));
+		valueTypes.put(Boolean.class, new Integer(BOOLEAN));
+		valueTypes.put(byte.class, new Integer(BYTE));
+		valueTypes.put(Byte.class, new Integer(BYTE));
+		valueTypes.put(short.class, new Integer(SHORT));
+		valueTypes.put(Short.class, new Integer(SHORT));
+		valueTypes.put(int.class, new Integer(INT));
+		valueTypes.put(Integer.class, new Integer(INT));
+		valueTypes.put(long.class, new Integer(LONG));
+		valueTypes.put(Long.class, new Integer(LONG));
+		valueTypes.put(float.class, new Integer(FLOAT));
+		valueTypes.put(Float.class, new Integer(FLOAT));
+		valueTypes.put(double.class, new Integer(DOUBLE));
+		valueTypes.put(Double.class, new Integer(DOUBLE));
+		valueTypes.put(BigDecimal.class, new Integer(BIG_DECIMAL));
+		valueTypes.put(java.sql.Date.class, new Integer(DATE));
+		valueTypes.put(Time.class, new Integer(TIME));
+		valueTypes.put(Timestamp.class, new Integer(TIMESTAMP));
+		valueTypes.put(java.util.Date.class, new Integer(TIMESTAMP));
+		valueTypes.put(byte[].class, new Integer(BYTES));
+	}
+
+
+	private final Class mappedClass;
+
+	/** Lower-case property name --> BeanPropertySetter */
+	private final Map settersByName = new HashMap();
+
+	/** Lower-case property name without underscores --> BeanPropertySetter */
+	private final Map settersByNormalizedName = new HashMap();
+
+	/** Maximum number of distinct column lists to cache mappings for */
+	private static final int MAX_CACHED_MAPPINGS = 64;
+
+	/** Immutable snapshot: List of column labels --> ColumnMapping */
+	private volatile Map columnMappings = Collections.EMPTY_MAP;
+
+	/** Guards writes to the ColumnMapping cache */
+	private final Object columnMappingLock = new Object();
+
+	/** CurrentMapping of the ResultSet that the current thread is mapping */
+	private final ThreadLocal currentMapping = new ThreadLocal();
+
+
+	/**
+	 * Create a new BeanPropertyRowMapper for the given class.
+	 * @param mappedClass the class to create for each row, which must
+	 * have a public no-arg constructor
+	 * @throws BeansException if the class cannot be introspected
+	 */
+	public BeanPropertyRowMapper(Class mappedClass) throws BeansException {
+		this.mappedClass = mappedClass;
+		BeanPropertySetter[] setters = BeanPropertySetter.forClass(mappedClass);
+		for (int i = 0; i < setters.length; i++) {
+			String name = setters[i].getPropertyName().toLowerCase(Locale.ENGLISH);
+			this.settersByName.put(name, setters[i]);
+			this.settersByNormalizedName.put(normalize(name), setters[i]);
+		}
+	}
+
+	/**
+	 * Return the class that this mapper creates for each row.
+	 */
+	public Class getMappedClass() {
+		return mappedClass;
+	}
+
+	private static String normalize(String name) {
+		if (name.indexOf('_') == -1) {
+			return name;
+		}
+		StringBuffer sb = new StringBuffer(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char ch = name.charAt(i);
+			if (ch != '_') {
+				sb.append(ch);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Return the setter for the given column, or null if there is
+	 * no matching property.
+	 */
+	protected BeanPropertySetter getSetterForColumn(String columnName) {
+		if (columnName == null) {
+			return null;
+		}
+		String name = columnName.toLowerCase(Locale.ENGLISH);
+		BeanPropertySetter setter = (BeanPropertySetter) this.settersByName.get(name);
+		if (setter == null) {
+			setter = (BeanPropertySetter) this.settersByNormalizedName.get(normalize(name));
+		}
+		return setter;
+	}
+
+	public Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+		CurrentMapping current = (CurrentMapping) this.currentMapping.get();
+		if (current == null) {
+			current = new CurrentMapping();
+			this.currentMapping.set(current);
+		}
+		if (rowNum == 0 || current.resultSet == null || current.resultSet.get() != rs) {
+			current.mapping = getColumnMapping(rs.getMetaData());
+			current.resultSet = new WeakReference(rs);
+		}
+		ColumnMapping mapping = current.mapping;
+		Object bean = BeanUtils.instantiateClass(this.mappedClass);
+		for (int i = 0; i < mapping.columns.length; i++) {
+			int column = mapping.columns[i];
+			Object value = getColumnValue(rs, column, mapping.valueTypes[i]);
+			BeanPropertySetter setter = mapping.setters[i];
+			if (value != null || !setter.getPropertyType().isPrimitive()) {
+				try {
+					setter.setValue(bean, value);
+				}
+				catch (TypeMismatchException ex) {
+					throw new TypeMismatchDataAccessException("Cannot map column " + column + " of type [" +
+							(value != null ? value.getClass().getName() : null) + "] to property '" +
+							setter.getPropertyName() + "' of class [" + this.mappedClass.getName() + "]", ex);
+				}
+			}
+		}
+		return bean;
+	}
+
+	/**
+	 * Return the ColumnMapping for the columns of the given result set,
+	 * matching the columns to properties if the column labels are new.
+	 */
+	private ColumnMapping getColumnMapping(ResultSetMetaData rsmd) throws SQLException {
+		int columnCount = rsmd.getColumnCount();
+		List columnNames = new ArrayList(columnCount);
+		for (int i = 1; i <= columnCount; i++) {
+			// the label reflects column aliases, which the name may not
+			String columnName = rsmd.getColumnLabel(i);
+			if (columnName == null || columnName.length() == 0) {
+				columnName = rsmd.getColumnName(i);
+			}
+			columnNames.add(columnName);
+		}
+		ColumnMapping mapping = (ColumnMapping) getColumnMappings().get(columnNames);
+		if (mapping == null) {
+			mapping = new ColumnMapping(columnNames);
+			synchronized (this.columnMappingLock) {
+				if (this.columnMappings.size() < MAX_CACHED_MAPPINGS) {
+					Map newColumnMappings = new HashMap(this.columnMappings);
+					newColumnMappings.put(columnNames, mapping);
+					this.columnMappings = newColumnMappings;
+				}
+			}
+		}
+		return mapping;
+	}
+
+	/**
+	 * Return the cached column mappings, read under the lock unless
+	 * the JVM has the Java 1.5 memory model.
+	 * @see org.springframework.core.JdkVersion#isJava15MemoryModel
+	 */
+	private Map getColumnMappings() {
+		if (JdkVersion.isJava15MemoryModel()) {
+			return this.columnMappings;
+		}
+		synchronized (this.columnMappingLock) {
+			return this.columnMappings;
+		}
+	}
+
+	/**
+	 * Read the given column with the ResultSet getter for the given value type.
+	 * @return the value, or null for a NULL value
+	 */
+	private static Object getColumnValue(ResultSet rs, int column, int valueType) throws SQLException {
+		Object value;
+		switch (valueType) {
+			case STRING:
+				return rs.getString(column);
+			case BOOLEAN:
+				value = (rs.getBoolean(column) ? Boolean.TRUE : Boolean.FALSE);
+				break;
+			case BYTE:
+				value = new Byte(rs.getByte(column));
+				break;
+			case SHORT:
+				value = new Short(rs.getShort(column));
+				break;
+			case INT:
+				value = new Integer(rs.getInt(column));
+				break;
+			case LONG:
+				value = new Long(rs.getLong(column));
+				break;
+			case FLOAT:
+				value = new Float(rs.getFloat(column));
+				break;
+			case DOUBLE:
+				value = new Double(rs.getDouble(column));
+				break;
+			case BIG_DECIMAL:
+				return rs.getBigDecimal(column);
+			case DATE:
+				return rs.getDate(column);
+			case TIME:
+				return rs.getTime(column);
+			case TIMESTAMP:
+				return rs.getTimestamp(column);
+			case BYTES:
+				return rs.getBytes(column);
+			default:
+				return rs.getObject(column);
+		}
+		// primitive getters return 0 or false for NULL
+		return (rs.wasNull() ? null : value);
+	}
+
+
+	/**
+	 * The ResultSet that a thread is mapping, and its ColumnMapping.
+	 * The ResultSet is weakly referenced, as the thread may not map
+	 * another one for a long time.
+	 */
+	private static class CurrentMapping {
+
+		private WeakReference resultSet;
+
+		private ColumnMapping mapping;
+	}
+
+
+	/**
+	 * Columns of a list of column labels with their matching properties.
+	 */
+	private class ColumnMapping {
+
+		/** Numbers of the mapped columns, starting at 1 */
+		private final int[] columns;
+
+		private final int[] valueTypes;
+
+		private final BeanPropertySetter[] setters;
+
+		private ColumnMapping(List columnNames) {
+			List columns = new ArrayList(columnNames.size());
+			List setters = new ArrayList(columnNames.size());
+			for (int i = 0; i < columnNames.size(); i++) {
+				BeanPropertySetter setter = getSetterForColumn((String) columnNames.get(i));
+				if (setter != null) {
+					columns.add(new Integer(i + 1));
+					setters.add(setter);
+				}
+			}
+			this.columns = new int[columns.size()];
+			this.valueTypes = new int[columns.size()];
+			this.setters = (BeanPropertySetter[]) setters.toArray(new BeanPropertySetter[setters.size()]);
+			for (int i = 0; i < this.columns.length; i++) {
+				this.columns[i] = ((Integer) columns.get(i)).intValue();
+				Integer valueType = (Integer) BeanPropertyRowMapper.valueTypes.get(this.setters[i].getPropertyType());
+				this.valueTypes[i] = (valueType != null ? valueType.intValue() : OBJECT);
+			}
+		}
+	}
+
+}
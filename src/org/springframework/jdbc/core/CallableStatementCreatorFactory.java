@@ -20,6 +20,7 @@ import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -46,6 +47,15 @@ public class CallableStatementCreatorFactory {
 
 	private boolean updatableResults = false;
 
+	/** If non-zero, used as fetch size for the created statements */
+	private int fetchSize = 0;
+
+	/** If positive, used as maximum number of rows for the created statements */
+	private int maxRows = 0;
+
+	/** If positive, used as query timeout for the created statements */
+	private int queryTimeout = 0;
+
 	/**
 	 * Create a new factory. Will need to add parameters
 	 * via the addParameter() method or have no parameters.
@@ -92,6 +102,33 @@ public class CallableStatementCreatorFactory {
 		this.updatableResults = updatableResults;
 	}
 
+	/**
+	 * Set the fetch size for the callable statements. Default is 0,
+	 * leaving the fetch size up to the driver.
+	 * @see java.sql.Statement#setFetchSize
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Set the maximum number of rows for the callable statements.
+	 * Default is 0, meaning no limit.
+	 * @see java.sql.Statement#setMaxRows
+	 */
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows;
+	}
+
+	/**
+	 * Set the query timeout in seconds for the callable statements.
+	 * Default is 0, using the driver's default.
+	 * @see java.sql.Statement#setQueryTimeout
+	 */
+	public void setQueryTimeout(int queryTimeout) {
+		this.queryTimeout = queryTimeout;
+	}
+
 	/**
 	 * Return a new CallableStatementCreator instance given this parameters.
 	 * @param inParams List of parameters. May be null.
@@ -108,6 +145,21 @@ public class CallableStatementCreatorFactory {
 		return new CallableStatementCreatorImpl(inParamMapper);
 	}
 
+	/**
+	 * Apply fetch size, max rows and query timeout to the given statement.
+	 */
+	private void applyStatementSettings(Statement stmt) throws SQLException {
+		if (this.fetchSize != 0) {
+			stmt.setFetchSize(this.fetchSize);
+		}
+		if (this.maxRows > 0) {
+			stmt.setMaxRows(this.maxRows);
+		}
+		if (this.queryTimeout > 0) {
+			stmt.setQueryTimeout(this.queryTimeout);
+		}
+	}
+
 
 	/**
 	 * CallableStatementCreator implementation returned by this class.
@@ -153,6 +205,7 @@ public class CallableStatementCreatorFactory {
 				cs = con.prepareCall(callString, resultSetType,
 														 updatableResults ? ResultSet.CONCUR_UPDATABLE : ResultSet.CONCUR_READ_ONLY);
 			}
+			applyStatementSettings(cs);
 
 			int sqlColIndx = 1;
 			for (int i = 0; i < declaredParameters.size(); i++) {
@@ -0,0 +1,429 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.io.Serializable;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map for one row of a result set, keyed by column name.
+ *
+ * <p>All rows of a result set share one immutable ColumnIndex that maps
+ * column names to positions, so each row just holds its values in an
+ * array. This is considerably more compact than a HashMap per row.
+ *
+ * <p>Column names are looked up case-insensitively if there is no exact
+ * match, as databases differ in the case of the column names that they
+ * return: "age" will find a column "AGE", unless "age" has been put as a
+ * key of its own. Puts only replace the values of exact column names, so
+ * they never overwrite a column of a different case. If a result set
+ * contains the same column name twice, the value of the last such column
+ * is kept, as with a HashMap.
+ *
+ * <p>The map is modifiable. Keys that aren't columns are kept in an
+ * additional HashMap that is only created when needed.
+ *
+ * @author agent
+ * @see JdbcTemplate#queryForList(String)
+ */
+public class ColumnIndexedMap extends AbstractMap implements Serializable {
+
+	private static final long serialVersionUID = 6072625989798301638L;
+
+	private final ColumnIndex columnIndex;
+
+	private final Object[] values;
+
+	/** Columns that have been removed from this map, lazily created */
+	private boolean[] removed;
+
+	private int removedCount;
+
+	/** Entries with keys that aren't columns, lazily created */
+	private Map extraEntries;
+
+
+	/**
+	 * Create a new map with all column values null.
+	 * @param columnIndex the column index shared by all rows
+	 */
+	public ColumnIndexedMap(ColumnIndex columnIndex) {
+		this(columnIndex, new Object[columnIndex.size()]);
+	}
+
+	/**
+	 * Create a new map for the given column values.
+	 * @param columnIndex the column index shared by all rows
+	 * @param values the values, by position in the column index.
+	 * The array is used as-is, without copying.
+	 * @see ColumnIndex#getPosition
+	 */
+	public ColumnIndexedMap(ColumnIndex columnIndex, Object[] values) {
+		if (values.length != columnIndex.size()) {
+			throw new IllegalArgumentException("Expected " + columnIndex.size() + " values, not " + values.length);
+		}
+		this.columnIndex = columnIndex;
+		this.values = values;
+	}
+
+	/**
+	 * Return the column index that this map is based on.
+	 */
+	public ColumnIndex getColumnIndex() {
+		return columnIndex;
+	}
+
+	/**
+	 * Return the position of the given key in the column index,
+	 * or -1 if it isn't a column that is currently contained in this map.
+	 * A key that has been put as an entry of its own takes precedence
+	 * over a case-insensitive column match.
+	 */
+	private int positionOf(Object key) {
+		if (key == null || key instanceof String) {
+			int position = this.columnIndex.getExactPosition((String) key);
+			if (position == -1 && (this.extraEntries == null || !this.extraEntries.containsKey(key))) {
+				position = this.columnIndex.getPosition((String) key);
+			}
+			if (position != -1 && (this.removed == null || !this.removed[position])) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	public int size() {
+		return this.values.length - this.removedCount + (this.extraEntries != null ? this.extraEntries.size() : 0);
+	}
+
+	public boolean containsKey(Object key) {
+		return (positionOf(key) != -1 || (this.extraEntries != null && this.extraEntries.containsKey(key)));
+	}
+
+	public Object get(Object key) {
+		int position = positionOf(key);
+		if (position != -1) {
+			return this.values[position];
+		}
+		return (this.extraEntries != null ? this.extraEntries.get(key) : null);
+	}
+
+	public Object put(Object key, Object value) {
+		if (key == null || key instanceof String) {
+			int position = this.columnIndex.getExactPosition((String) key);
+			if (position != -1) {
+				Object oldValue = this.values[position];
+				this.values[position] = value;
+				if (this.removed != null && this.removed[position]) {
+					this.removed[position] = false;
+					this.removedCount--;
+					return null;
+				}
+				return oldValue;
+			}
+		}
+		if (this.extraEntries == null) {
+			this.extraEntries = new HashMap();
+		}
+		return this.extraEntries.put(key, value);
+	}
+
+	public Object remove(Object key) {
+		int position = positionOf(key);
+		if (position != -1) {
+			return removeColumn(position);
+		}
+		return (this.extraEntries != null ? this.extraEntries.remove(key) : null);
+	}
+
+	private Object removeColumn(int position) {
+		if (this.removed == null) {
+			this.removed = new boolean[this.values.length];
+		}
+		Object oldValue = this.values[position];
+		this.values[position] = null;
+		this.removed[position] = true;
+		this.removedCount++;
+		return oldValue;
+	}
+
+	public void clear() {
+		for (int i = 0; i < this.values.length; i++) {
+			if (this.removed == null || !this.removed[i]) {
+				removeColumn(i);
+			}
+		}
+		this.extraEntries = null;
+	}
+
+	public Set entrySet() {
+		return new AbstractSet() {
+			public int size() {
+				return ColumnIndexedMap.this.size();
+			}
+			public Iterator iterator() {
+				return new EntryIterator();
+			}
+		};
+	}
+
+
+	/**
+	 * Iterates over the columns in the order of the column index,
+	 * followed by the extra entries.
+	 */
+	private class EntryIterator implements Iterator {
+
+		/** Position of the next column to return */
+		private int nextPosition = -1;
+
+		/** Position of the column returned last, or -1 */
+		private int lastPosition = -1;
+
+		private Iterator extraIterator;
+
+		public EntryIterator() {
+			advance();
+		}
+
+		private void advance() {
+			this.nextPosition++;
+			while (this.nextPosition < values.length && removed != null && removed[this.nextPosition]) {
+				this.nextPosition++;
+			}
+		}
+
+		public boolean hasNext() {
+			if (this.nextPosition < values.length) {
+				return true;
+			}
+			if (this.extraIterator == null && extraEntries != null) {
+				this.extraIterator = extraEntries.entrySet().iterator();
+			}
+			return (this.extraIterator != null && this.extraIterator.hasNext());
+		}
+
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			if (this.nextPosition < values.length) {
+				this.lastPosition = this.nextPosition;
+				advance();
+				return new ColumnEntry(this.lastPosition);
+			}
+			this.lastPosition = -1;
+			return this.extraIterator.next();
+		}
+
+		public void remove() {
+			if (this.lastPosition != -1) {
+				if (removed != null && removed[this.lastPosition]) {
+					throw new IllegalStateException("Entry already removed");
+				}
+				removeColumn(this.lastPosition);
+			}
+			else if (this.extraIterator != null) {
+				this.extraIterator.remove();
+			}
+			else {
+				throw new IllegalStateException("No entry to remove");
+			}
+		}
+	}
+
+
+	/**
+	 * Entry for the column at a given position, writing through to the map.
+	 */
+	private class ColumnEntry implements Map.Entry {
+
+		private final int position;
+
+		public ColumnEntry(int position) {
+			this.position = position;
+		}
+
+		public Object getKey() {
+			return columnIndex.getKey(this.position);
+		}
+
+		public Object getValue() {
+			return values[this.position];
+		}
+
+		public Object setValue(Object value) {
+			Object oldValue = values[this.position];
+			values[this.position] = value;
+			return oldValue;
+		}
+
+		public boolean equals(Object other) {
+			if (!(other instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry otherEntry = (Map.Entry) other;
+			return (equals(getKey(), otherEntry.getKey()) && equals(getValue(), otherEntry.getValue()));
+		}
+
+		private boolean equals(Object obj1, Object obj2) {
+			return (obj1 == obj2 || (obj1 != null && obj1.equals(obj2)));
+		}
+
+		public int hashCode() {
+			Object key = getKey();
+			Object value = getValue();
+			return (key != null ? key.hashCode() : 0) ^ (value != null ? value.hashCode() : 0);
+		}
+
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+
+	/**
+	 * Immutable mapping from column names to value positions,
+	 * shared by all rows of a result set.
+	 */
+	public static final class ColumnIndex implements Serializable {
+
+		private static final long serialVersionUID = 6465805081537244427L;
+
+		/** Distinct column names, by position */
+		private final String[] keys;
+
+		/** Value position for each column of the result set */
+		private final int[] columnPositions;
+
+		/** Integer positions by column name */
+		private final Map positions;
+
+		/** Integer positions by upper-case column name */
+		private final Map upperCasePositions;
+
+		/**
+		 * Create a new column index for the columns of the given result set.
+		 * @param rsmd the metadata of the result set
+		 * @throws SQLException if thrown by JDBC methods
+		 */
+		public ColumnIndex(ResultSetMetaData rsmd) throws SQLException {
+			this(getColumnNames(rsmd));
+		}
+
+		private static String[] getColumnNames(ResultSetMetaData rsmd) throws SQLException {
+			String[] columnNames = new String[rsmd.getColumnCount()];
+			for (int i = 0; i < columnNames.length; i++) {
+				columnNames[i] = rsmd.getColumnName(i + 1);
+			}
+			return columnNames;
+		}
+
+		/**
+		 * Create a new column index for the given column names.
+		 * @param columnNames the column names, in the order of the
+		 * result set's columns. May contain duplicates.
+		 */
+		public ColumnIndex(String[] columnNames) {
+			this.columnPositions = new int[columnNames.length];
+			this.positions = new HashMap(columnNames.length * 2);
+			this.upperCasePositions = new HashMap(columnNames.length * 2);
+			String[] keys = new String[columnNames.length];
+			int size = 0;
+			for (int i = 0; i < columnNames.length; i++) {
+				Integer position = (Integer) this.positions.get(columnNames[i]);
+				if (position == null) {
+					position = new Integer(size);
+					keys[size++] = columnNames[i];
+					this.positions.put(columnNames[i], position);
+					if (columnNames[i] != null) {
+						String upperCaseName = columnNames[i].toUpperCase(Locale.ENGLISH);
+						if (!this.upperCasePositions.containsKey(upperCaseName)) {
+							this.upperCasePositions.put(upperCaseName, position);
+						}
+					}
+				}
+				this.columnPositions[i] = position.intValue();
+			}
+			this.keys = new String[size];
+			System.arraycopy(keys, 0, this.keys, 0, size);
+		}
+
+		/**
+		 * Return the number of distinct column names,
+		 * i.e. the number of values of each row.
+		 */
+		public int size() {
+			return this.keys.length;
+		}
+
+		/**
+		 * Return the column name at the given value position.
+		 */
+		public String getKey(int position) {
+			return this.keys[position];
+		}
+
+		/**
+		 * Return the value position for the given column name, looking for
+		 * an exact match first and then for a case-insensitive one.
+		 * @return the position, or -1 if there is no such column
+		 */
+		public int getPosition(String columnName) {
+			Integer position = (Integer) this.positions.get(columnName);
+			if (position == null && columnName != null) {
+				position = (Integer) this.upperCasePositions.get(columnName.toUpperCase(Locale.ENGLISH));
+			}
+			return (position != null ? position.intValue() : -1);
+		}
+
+		/**
+		 * Return the value position for the given column name,
+		 * considering exact matches only.
+		 * @return the position, or -1 if there is no such column
+		 */
+		public int getExactPosition(String columnName) {
+			Integer position = (Integer) this.positions.get(columnName);
+			return (position != null ? position.intValue() : -1);
+		}
+
+		/**
+		 * Return the number of columns of the result set, including duplicates.
+		 */
+		public int getColumnCount() {
+			return this.columnPositions.length;
+		}
+
+		/**
+		 * Return the value position for the given column of the result set.
+		 * @param column the column number, starting at 1 as in JDBC
+		 */
+		public int getColumnPosition(int column) {
+			return this.columnPositions[column - 1];
+		}
+	}
+
+}
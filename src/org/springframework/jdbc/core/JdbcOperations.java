@@ -93,11 +93,14 @@ public interface JdbcOperations {
 	 * method with null as argument array.
 	 * <p>This method is useful for running static SQL with a known outcome.
 	 * The results will be mapped to an ArrayList (one entry for each row) of
-	 * HashMaps (one entry for each column using the column name as the key).
+	 * Maps (one entry for each column using the column name as the key).
+	 * The Maps are ColumnIndexedMaps, which look up column names
+	 * case-insensitively if there is no exact match.
 	 * @param sql SQL query to execute
-	 * @return an ArrayList that contains a HashMap per row
+	 * @return an ArrayList that contains a Map per row
 	 * @throws DataAccessException if there is any problem executing the query
 	 * @see #queryForList(String, Object[])
+	 * @see ColumnIndexedMap
 	 */
 	List queryForList(String sql) throws DataAccessException;
 
@@ -271,13 +274,16 @@ public interface JdbcOperations {
 	 * list of arguments to bind to the query, expecting a result list.
 	 * <p>This method is useful for running static SQL with a known outcome.
 	 * The results will be mapped to an ArrayList (one entry for each row) of
-	 * HashMaps (one entry for each column using the column name as the key).
+	 * Maps (one entry for each column using the column name as the key).
+	 * The Maps are ColumnIndexedMaps, which look up column names
+	 * case-insensitively if there is no exact match.
 	 * @param sql SQL to execute
 	 * @param args arguments to bind to the query
 	 * (leaving it to the PreparedStatement to guess the respective SQL type)
-	 * @return an ArrayList that contains a HashMap per row
+	 * @return an ArrayList that contains a Map per row
 	 * @throws DataAccessException if the query fails
 	 * @see #queryForList(String)
+	 * @see ColumnIndexedMap
 	 */
 	List queryForList(String sql, final Object[] args) throws DataAccessException;
 
@@ -69,6 +69,11 @@ import org.springframework.jdbc.support.nativejdbc.NativeJdbcExtractor;
  * <a href="http://www.amazon.com/exec/obidos/tg/detail/-/0764543857/">Expert One-On-One J2EE Design and Development</a>
  * by Rod Johnson (Wrox, 2002).
  *
+ * <p>Fetch size, maximum number of rows and query timeout can be configured
+ * for all statements that a template executes. For example, exporting a large
+ * table through a RowCallbackHandler processes one row at a time; a fetch size
+ * lets the driver fetch rows in chunks rather than all at once or one by one.
+ *
  * <p>Because this class is parameterizable by the callback interfaces and
  * the SQLExceptionTranslator interface, it isn't necessary to subclass it.
  * All SQL issued by this class is logged.
@@ -94,6 +99,15 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 	/** If this variable is false, we will throw exceptions on SQL warnings */
 	private boolean ignoreWarnings = true;
 
+	/** If non-zero, used as fetch size for all statements */
+	private int fetchSize = 0;
+
+	/** If positive, used as maximum number of rows for all statements */
+	private int maxRows = 0;
+
+	/** If positive, used as query timeout for all statements */
+	private int queryTimeout = 0;
+
 
 	/**
 	 * Construct a new JdbcTemplate for bean usage.
@@ -148,6 +162,69 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 		return ignoreWarnings;
 	}
 
+	/**
+	 * Set the fetch size for statements executed by this template: the number
+	 * of rows that the driver fetches from the database at a time. Default is 0,
+	 * leaving the fetch size up to the driver.
+	 * <p>Setting this higher than the driver default speeds up processing
+	 * large results, at the cost of memory for the rows fetched at once.
+	 * Setting it lower can keep the driver from reading a large result into
+	 * memory all at once. Statements that this template creates itself return
+	 * forward-only, read-only ResultSets, which allow drivers to release
+	 * rows once they have been processed. Note that some drivers use
+	 * special values like Integer.MIN_VALUE to stream results: any
+	 * non-zero value will be passed to the driver.
+	 * @see java.sql.Statement#setFetchSize
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Return the fetch size for statements executed by this template.
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * Set the maximum number of rows for statements executed by this template.
+	 * Further rows will be silently dropped by the driver. Default is 0,
+	 * meaning no limit.
+	 * <p>Useful to protect against large results that aren't needed in full,
+	 * for example in a search that shows only the first matches.
+	 * @see java.sql.Statement#setMaxRows
+	 */
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows;
+	}
+
+	/**
+	 * Return the maximum number of rows for statements executed by this template.
+	 */
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * Set the query timeout in seconds for statements executed by this template.
+	 * Default is 0, using the driver's default.
+	 * <p>Within a transaction that has a timeout, the remaining time of the
+	 * transaction will be used instead.
+	 * @see java.sql.Statement#setQueryTimeout
+	 * @see org.springframework.jdbc.datasource.DataSourceUtils#applyTransactionTimeout
+	 */
+	public void setQueryTimeout(int queryTimeout) {
+		this.queryTimeout = queryTimeout;
+	}
+
+	/**
+	 * Return the query timeout for statements executed by this template.
+	 */
+	public int getQueryTimeout() {
+		return queryTimeout;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with static SQL (java.sql.Statement)
@@ -163,7 +240,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 				conToUse = this.nativeJdbcExtractor.getNativeConnection(con);
 			}
 			stmt = conToUse.createStatement();
-			DataSourceUtils.applyTransactionTimeout(stmt, getDataSource());
+			applyStatementSettings(stmt);
 			Statement stmtToUse = stmt;
 			if (this.nativeJdbcExtractor != null) {
 				stmtToUse = this.nativeJdbcExtractor.getNativeStatement(stmt);
@@ -276,7 +353,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 				conToUse = this.nativeJdbcExtractor.getNativeConnection(con);
 			}
 			ps = psc.createPreparedStatement(conToUse);
-			DataSourceUtils.applyTransactionTimeout(ps, getDataSource());
+			applyStatementSettings(ps);
 			PreparedStatement psToUse = ps;
 			if (this.nativeJdbcExtractor != null) {
 				psToUse = this.nativeJdbcExtractor.getNativePreparedStatement(ps);
@@ -518,7 +595,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 				conToUse = this.nativeJdbcExtractor.getNativeConnection(con);
 			}
 			cs = csc.createCallableStatement(conToUse);
-			DataSourceUtils.applyTransactionTimeout(cs, getDataSource());
+			applyStatementSettings(cs);
 			CallableStatement csToUse = cs;
 			if (nativeJdbcExtractor != null) {
 				csToUse = nativeJdbcExtractor.getNativeCallableStatement(cs);
@@ -671,6 +748,29 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 	}
 
 
+	/**
+	 * Prepare the given JDBC Statement (or PreparedStatement or CallableStatement),
+	 * applying statement settings such as fetch size, max rows, and query timeout,
+	 * and the timeout of the current transaction, if any.
+	 * @param stmt the JDBC Statement to prepare
+	 * @see #setFetchSize
+	 * @see #setMaxRows
+	 * @see #setQueryTimeout
+	 * @see org.springframework.jdbc.datasource.DataSourceUtils#applyTransactionTimeout
+	 */
+	protected void applyStatementSettings(Statement stmt) throws SQLException {
+		if (this.fetchSize != 0) {
+			stmt.setFetchSize(this.fetchSize);
+		}
+		if (this.maxRows > 0) {
+			stmt.setMaxRows(this.maxRows);
+		}
+		if (this.queryTimeout > 0) {
+			stmt.setQueryTimeout(this.queryTimeout);
+		}
+		DataSourceUtils.applyTransactionTimeout(stmt, getDataSource());
+	}
+
 	/**
 	 * Throw an SQLWarningException if we're not ignoring warnings.
 	 * @param warning warning from current statement. May be null,
@@ -776,23 +876,24 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations, Initia
 
 
 	/**
-	 * ResultSetExtractor implementation that returns an ArrayList of HashMaps.
+	 * ResultSetExtractor implementation that returns an ArrayList of
+	 * ColumnIndexedMaps, sharing one ColumnIndex for all rows.
 	 */
 	protected static final class ListResultSetExtractor implements ResultSetExtractor {
 
 		public Object extractData(ResultSet rs) throws SQLException {
-			ResultSetMetaData rsmd = rs.getMetaData();
-			int numberOfColumns = rsmd.getColumnCount();
+			ColumnIndexedMap.ColumnIndex columnIndex = new ColumnIndexedMap.ColumnIndex(rs.getMetaData());
+			int numberOfColumns = columnIndex.getColumnCount();
 			List listOfRows = new ArrayList();
 			while (rs.next()) {
-				Map mapOfColValues = new HashMap(numberOfColumns);
+				Object[] values = new Object[columnIndex.size()];
 				for (int i = 1; i <= numberOfColumns; i++) {
-					mapOfColValues.put(rsmd.getColumnName(i), rs.getObject(i));
+					values[columnIndex.getColumnPosition(i)] = rs.getObject(i);
 				}
-				listOfRows.add(mapOfColValues);
+				listOfRows.add(new ColumnIndexedMap(columnIndex, values));
 			}
 			if (listOfRows.size() == 1 && numberOfColumns == 1) {
-				return ((Map) listOfRows.get(0)).get(rsmd.getColumnName(1));
+				return ((Map) listOfRows.get(0)).get(columnIndex.getKey(0));
 			}
 			else {
 				return listOfRows;
@@ -20,6 +20,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.Arrays;
 import java.util.Collections;
@@ -46,7 +47,16 @@ public class PreparedStatementCreatorFactory {
 	private int resultSetType = ResultSet.TYPE_FORWARD_ONLY;
 
 	private boolean updatableResults = false;
-	
+
+	/** If non-zero, used as fetch size for the created statements */
+	private int fetchSize = 0;
+
+	/** If positive, used as maximum number of rows for the created statements */
+	private int maxRows = 0;
+
+	/** If positive, used as query timeout for the created statements */
+	private int queryTimeout = 0;
+
 	/**
 	 * Create a new factory. Will need to add parameters
 	 * via the addParameter() method or have no parameters.
@@ -104,6 +114,33 @@ public class PreparedStatementCreatorFactory {
 		this.updatableResults = updatableResults;
 	}
 
+	/**
+	 * Set the fetch size for the prepared statements. Default is 0,
+	 * leaving the fetch size up to the driver.
+	 * @see java.sql.Statement#setFetchSize
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Set the maximum number of rows for the prepared statements.
+	 * Default is 0, meaning no limit.
+	 * @see java.sql.Statement#setMaxRows
+	 */
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows;
+	}
+
+	/**
+	 * Set the query timeout in seconds for the prepared statements.
+	 * Default is 0, using the driver's default.
+	 * @see java.sql.Statement#setQueryTimeout
+	 */
+	public void setQueryTimeout(int queryTimeout) {
+		this.queryTimeout = queryTimeout;
+	}
+
 	/**
 	 * Return a new PreparedStatementCreator given these parameters.
 	 * @param params parameter array. May be null.
@@ -120,11 +157,36 @@ public class PreparedStatementCreatorFactory {
 		return new PreparedStatementCreatorImpl(params != null ? params : Collections.EMPTY_LIST);
 	}
 
+	/**
+	 * Return a new PreparedStatementSetter given these parameters,
+	 * for a PreparedStatement created elsewhere, e.g. for a batch update.
+	 * @param params parameter array. May be null.
+	 */
+	public PreparedStatementSetter newPreparedStatementSetter(Object[] params) {
+		return new PreparedStatementCreatorImpl((params != null) ? Arrays.asList(params) : Collections.EMPTY_LIST);
+	}
+
+	/**
+	 * Apply fetch size, max rows and query timeout to the given statement.
+	 */
+	private void applyStatementSettings(Statement stmt) throws SQLException {
+		if (this.fetchSize != 0) {
+			stmt.setFetchSize(this.fetchSize);
+		}
+		if (this.maxRows > 0) {
+			stmt.setMaxRows(this.maxRows);
+		}
+		if (this.queryTimeout > 0) {
+			stmt.setQueryTimeout(this.queryTimeout);
+		}
+	}
+
 
 	/**
 	 * PreparedStatementCreator implementation returned by this class.
 	 */
-	private class PreparedStatementCreatorImpl implements PreparedStatementCreator, SqlProvider {
+	private class PreparedStatementCreatorImpl
+			implements PreparedStatementCreator, PreparedStatementSetter, SqlProvider {
 
 		private List parameters;
 		
@@ -148,7 +210,12 @@ public class PreparedStatementCreatorFactory {
 				ps = con.prepareStatement(sql, resultSetType,
 																	updatableResults ? ResultSet.CONCUR_UPDATABLE : ResultSet.CONCUR_READ_ONLY);
 			}
+			applyStatementSettings(ps);
+			setValues(ps);
+			return ps;
+		}
 
+		public void setValues(PreparedStatement ps) throws SQLException {
 			// Set arguments: does nothing if there are no parameters
 			for (int i = 0; i < this.parameters.size(); i++) {
 				SqlParameter declaredParameter = (SqlParameter) declaredParameters.get(i);
@@ -169,7 +236,6 @@ public class PreparedStatementCreatorFactory {
 					}
 				}
 			}
-			return ps;
 		}
 
 		public String getSql() {
@@ -0,0 +1,498 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * DataSource that wraps a target DataSource and caches PreparedStatements
+ * per Connection. Repeated preparation of the same SQL on the same Connection
+ * handle returns the statement prepared before, instead of having the driver
+ * prepare it again.
+ *
+ * <p>Statements are cached by SQL, ResultSet type and ResultSet concurrency,
+ * as passed to <code>prepareStatement(sql)</code> or
+ * <code>prepareStatement(sql, resultSetType, resultSetConcurrency)</code>.
+ * Calling close on a cached statement returns it to the cache, with its
+ * parameters and batch cleared and any changed fetch size, max rows, query
+ * timeout, max field size and fetch direction restored. A statement that
+ * cannot be reset, because clearing it fails or because its escape processing
+ * or cursor name was changed, is closed instead of being returned to the cache.
+ * The least recently used statement is closed once the cache size
+ * has been reached. All cached statements are closed when the Connection
+ * handle gets closed, i.e. released to the target DataSource.
+ *
+ * <p>Statements are thus reused for as long as a Connection handle is held,
+ * in particular within a transaction: DataSourceTransactionManager binds a
+ * Connection from this DataSource to the thread, and JdbcTemplate as well as
+ * the RDBMS operation objects use it for all their statements. Without a
+ * transaction, each JdbcTemplate operation gets and releases its own handle,
+ * so nothing is reused. Use this DataSource for both the transaction manager
+ * and the data access objects.
+ *
+ * <p>A statement that is still open when the same SQL gets prepared again,
+ * for example by a nested query, is not shared: a new uncached statement is
+ * prepared instead. Statements prepared through other methods, including
+ * CallableStatements, are not cached either.
+ *
+ * <p>Hit and miss counts across all Connections are available through
+ * getHitCount and getMissCount.
+ *
+ * <p>Note that the returned Connections and statements are proxies, which
+ * cannot be cast to native Connection or statement classes. A NativeJdbcExtractor
+ * that requires the native Connection for native statements bypasses the cache.
+ *
+ * @author agent
+ * @see DataSourceTransactionManager
+ * @see org.springframework.jdbc.core.JdbcTemplate
+ * @see org.springframework.jdbc.core.PreparedStatementCreatorFactory
+ */
+public class StatementCachingDataSource extends AbstractDataSource implements InitializingBean {
+
+	/**
+	 * Default number of statements cached per Connection: 20.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 20;
+
+
+	private DataSource targetDataSource;
+
+	private int cacheSize = DEFAULT_CACHE_SIZE;
+
+	private final Object countMonitor = new Object();
+
+	private long hitCount;
+
+	private long missCount;
+
+
+	/**
+	 * Constructor for bean-style configuration.
+	 */
+	public StatementCachingDataSource() {
+	}
+
+	/**
+	 * Create a new StatementCachingDataSource for the given target.
+	 * @param targetDataSource the DataSource to obtain Connections from
+	 */
+	public StatementCachingDataSource(DataSource targetDataSource) {
+		setTargetDataSource(targetDataSource);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Set the DataSource to obtain Connections from.
+	 */
+	public void setTargetDataSource(DataSource targetDataSource) {
+		this.targetDataSource = targetDataSource;
+	}
+
+	/**
+	 * Return the DataSource to obtain Connections from.
+	 */
+	public DataSource getTargetDataSource() {
+		return targetDataSource;
+	}
+
+	/**
+	 * Set the maximum number of statements to cache per Connection.
+	 * Default is 20.
+	 * <p>Choose at least the number of distinct statements executed
+	 * within a typical transaction, and consider the limit of open
+	 * statements per Connection that some databases impose.
+	 */
+	public void setCacheSize(int cacheSize) {
+		if (cacheSize < 1) {
+			throw new IllegalArgumentException("cacheSize must be at least 1");
+		}
+		this.cacheSize = cacheSize;
+	}
+
+	/**
+	 * Return the maximum number of statements to cache per Connection.
+	 */
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	public void afterPropertiesSet() {
+		if (this.targetDataSource == null) {
+			throw new IllegalArgumentException("targetDataSource is required");
+		}
+	}
+
+
+	public Connection getConnection() throws SQLException {
+		return getStatementCachingConnectionProxy(this.targetDataSource.getConnection());
+	}
+
+	public Connection getConnection(String username, String password) throws SQLException {
+		return getStatementCachingConnectionProxy(this.targetDataSource.getConnection(username, password));
+	}
+
+	/**
+	 * Wrap the given Connection with a proxy that caches its PreparedStatements.
+	 * @param target the Connection obtained from the target DataSource
+	 * @return the wrapped Connection
+	 */
+	protected Connection getStatementCachingConnectionProxy(Connection target) {
+		return (Connection) Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(),
+		                                           new Class[] {Connection.class},
+		                                           new StatementCachingInvocationHandler(target));
+	}
+
+	/**
+	 * Return the number of statements that were served from a cache,
+	 * since this DataSource was created or its counts were last reset.
+	 */
+	public long getHitCount() {
+		synchronized (this.countMonitor) {
+			return hitCount;
+		}
+	}
+
+	/**
+	 * Return the number of statements that had to be prepared,
+	 * since this DataSource was created or its counts were last reset.
+	 */
+	public long getMissCount() {
+		synchronized (this.countMonitor) {
+			return missCount;
+		}
+	}
+
+	/**
+	 * Reset the hit and miss counts.
+	 */
+	public void resetCounts() {
+		synchronized (this.countMonitor) {
+			this.hitCount = 0;
+			this.missCount = 0;
+		}
+	}
+
+	private void countHit() {
+		synchronized (this.countMonitor) {
+			this.hitCount++;
+		}
+	}
+
+	private void countMiss() {
+		synchronized (this.countMonitor) {
+			this.missCount++;
+		}
+	}
+
+
+	/**
+	 * Cache key for a PreparedStatement.
+	 */
+	private static class StatementKey {
+
+		private final String sql;
+
+		private final int resultSetType;
+
+		private final int resultSetConcurrency;
+
+		private StatementKey(String sql, int resultSetType, int resultSetConcurrency) {
+			this.sql = sql;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+		}
+
+		public boolean equals(Object other) {
+			if (!(other instanceof StatementKey)) {
+				return false;
+			}
+			StatementKey otherKey = (StatementKey) other;
+			return (this.sql.equals(otherKey.sql) && this.resultSetType == otherKey.resultSetType &&
+					this.resultSetConcurrency == otherKey.resultSetConcurrency);
+		}
+
+		public int hashCode() {
+			return this.sql.hashCode() * 29 + this.resultSetType * 7 + this.resultSetConcurrency;
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a Connection, caching its PreparedStatements
+	 * and closing them when the Connection gets closed. Not thread-safe,
+	 * like the Connection itself.
+	 */
+	private class StatementCachingInvocationHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		/** StatementKey --> CachedStatement */
+		private final Map cachedStatements = new HashMap();
+
+		/** Incremented on each access, to determine the least recently used statement */
+		private long accessCount;
+
+		private StatementCachingInvocationHandler(Connection target) {
+			this.target = target;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String methodName = method.getName();
+			if (methodName.equals("prepareStatement")) {
+				if (args.length == 1) {
+					return getPreparedStatement(new StatementKey(
+							(String) args[0], ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
+				}
+				else if (args.length == 3 && method.getParameterTypes()[1] == int.class) {
+					return getPreparedStatement(new StatementKey(
+							(String) args[0], ((Integer) args[1]).intValue(), ((Integer) args[2]).intValue()));
+				}
+			}
+			else if (methodName.equals("close")) {
+				closeCachedStatements();
+			}
+			else if (methodName.equals("equals")) {
+				return (proxy == args[0] ? Boolean.TRUE : Boolean.FALSE);
+			}
+			else if (methodName.equals("hashCode")) {
+				return new Integer(System.identityHashCode(proxy));
+			}
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		private PreparedStatement getPreparedStatement(StatementKey key) throws SQLException {
+			CachedStatement cachedStatement = (CachedStatement) this.cachedStatements.get(key);
+			if (cachedStatement != null && !cachedStatement.inUse) {
+				countHit();
+				return cachedStatement.checkOut(++this.accessCount);
+			}
+			countMiss();
+			PreparedStatement ps = prepareStatement(key);
+			if (cachedStatement != null || !makeRoom()) {
+				// statement for this key in use, or all cached statements in use
+				return ps;
+			}
+			cachedStatement = new CachedStatement(this, key, ps);
+			this.cachedStatements.put(key, cachedStatement);
+			return cachedStatement.checkOut(++this.accessCount);
+		}
+
+		private PreparedStatement prepareStatement(StatementKey key) throws SQLException {
+			if (key.resultSetType == ResultSet.TYPE_FORWARD_ONLY &&
+					key.resultSetConcurrency == ResultSet.CONCUR_READ_ONLY) {
+				return this.target.prepareStatement(key.sql);
+			}
+			else {
+				return this.target.prepareStatement(key.sql, key.resultSetType, key.resultSetConcurrency);
+			}
+		}
+
+		/**
+		 * Close the least recently used statement that is not in use,
+		 * if the cache is full.
+		 * @return whether there is room for another statement
+		 */
+		private boolean makeRoom() {
+			if (this.cachedStatements.size() < cacheSize) {
+				return true;
+			}
+			Map.Entry eldest = null;
+			for (Iterator it = this.cachedStatements.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				CachedStatement cachedStatement = (CachedStatement) entry.getValue();
+				if (!cachedStatement.inUse &&
+						(eldest == null || cachedStatement.lastAccess < ((CachedStatement) eldest.getValue()).lastAccess)) {
+					eldest = entry;
+				}
+			}
+			if (eldest == null) {
+				return false;
+			}
+			this.cachedStatements.remove(eldest.getKey());
+			JdbcUtils.closeStatement(((CachedStatement) eldest.getValue()).target);
+			return true;
+		}
+
+		/**
+		 * Remove the given statement from the cache and close it.
+		 */
+		private void discard(CachedStatement cachedStatement) {
+			if (this.cachedStatements.get(cachedStatement.key) == cachedStatement) {
+				this.cachedStatements.remove(cachedStatement.key);
+			}
+			JdbcUtils.closeStatement(cachedStatement.target);
+		}
+
+		private void closeCachedStatements() {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Closing " + this.cachedStatements.size() + " cached statements of JDBC connection");
+			}
+			for (Iterator it = this.cachedStatements.values().iterator(); it.hasNext();) {
+				CachedStatement cachedStatement = (CachedStatement) it.next();
+				// a later close call on a statement still in use is ignored
+				cachedStatement.inUse = false;
+				JdbcUtils.closeStatement(cachedStatement.target);
+			}
+			this.cachedStatements.clear();
+		}
+	}
+
+
+	/**
+	 * Cached PreparedStatement, handed out as a proxy that returns
+	 * the statement to the cache on close.
+	 */
+	private class CachedStatement implements InvocationHandler {
+
+		private final StatementCachingInvocationHandler cache;
+
+		private final StatementKey key;
+
+		private final PreparedStatement target;
+
+		private final PreparedStatement proxy;
+
+		private final int fetchSize;
+
+		private final int maxRows;
+
+		private final int queryTimeout;
+
+		private final int maxFieldSize;
+
+		private final int fetchDirection;
+
+		private boolean settingsChanged;
+
+		/** Whether addBatch has been called since the statement was checked out */
+		private boolean batchAdded;
+
+		/** Whether a setting without a getter has been changed */
+		private boolean settingsLost;
+
+		private boolean inUse;
+
+		private long lastAccess;
+
+		private CachedStatement(StatementCachingInvocationHandler cache, StatementKey key, PreparedStatement target)
+				throws SQLException {
+			this.cache = cache;
+			this.key = key;
+			this.target = target;
+			this.proxy = (PreparedStatement) Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(),
+			                                                        new Class[] {PreparedStatement.class}, this);
+			this.fetchSize = target.getFetchSize();
+			this.maxRows = target.getMaxRows();
+			this.queryTimeout = target.getQueryTimeout();
+			this.maxFieldSize = target.getMaxFieldSize();
+			this.fetchDirection = target.getFetchDirection();
+		}
+
+		private PreparedStatement checkOut(long accessCount) {
+			this.inUse = true;
+			this.lastAccess = accessCount;
+			return this.proxy;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String methodName = method.getName();
+			if (methodName.equals("close")) {
+				if (this.inUse) {
+					checkIn();
+				}
+				return null;
+			}
+			else if (methodName.equals("setFetchSize") || methodName.equals("setMaxRows") ||
+					methodName.equals("setQueryTimeout") || methodName.equals("setMaxFieldSize") ||
+					methodName.equals("setFetchDirection")) {
+				this.settingsChanged = true;
+			}
+			else if (methodName.equals("addBatch")) {
+				this.batchAdded = true;
+			}
+			else if (methodName.equals("setEscapeProcessing") || methodName.equals("setCursorName")) {
+				// no getter to restore the previous value from
+				this.settingsLost = true;
+			}
+			else if (methodName.equals("equals")) {
+				return (proxy == args[0] ? Boolean.TRUE : Boolean.FALSE);
+			}
+			else if (methodName.equals("hashCode")) {
+				return new Integer(System.identityHashCode(proxy));
+			}
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		/**
+		 * Reset the statement for the next checkout, or close it
+		 * if it cannot be reset.
+		 */
+		private void checkIn() {
+			this.inUse = false;
+			if (this.settingsLost) {
+				this.cache.discard(this);
+				return;
+			}
+			try {
+				this.target.clearParameters();
+				if (this.batchAdded) {
+					this.target.clearBatch();
+					this.batchAdded = false;
+				}
+				this.target.clearWarnings();
+				if (this.settingsChanged) {
+					this.target.setFetchSize(this.fetchSize);
+					this.target.setMaxRows(this.maxRows);
+					this.target.setQueryTimeout(this.queryTimeout);
+					this.target.setMaxFieldSize(this.maxFieldSize);
+					this.target.setFetchDirection(this.fetchDirection);
+					this.settingsChanged = false;
+				}
+			}
+			catch (SQLException ex) {
+				logger.debug("Could not reset cached JDBC statement - closing it", ex);
+				this.cache.discard(this);
+			}
+		}
+	}
+
+}
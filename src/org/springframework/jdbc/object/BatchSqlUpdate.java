@@ -0,0 +1,258 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.object;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * SqlUpdate subclass that performs batch update operations. Encapsulates
+ * queuing up records to be updated, and adds them as a single batch once
+ * flush is called or the given batch size has been met.
+ *
+ * <p>The update methods queue their arguments instead of executing the
+ * update right away, and return -1. The update counts of all flushed
+ * updates are available through getRowsAffected.
+ *
+ * <p>Like SqlUpdate, uses the JdbcTemplate of this operation and thus takes
+ * part in the current transaction, e.g. of a DataSourceTransactionManager.
+ * If transaction synchronization is active, queued updates are flushed
+ * before the transaction commits, and discarded if it rolls back.
+ * Else, flush must be called after the last update.
+ *
+ * <p>Note that this class is a <b>non-thread-safe object</b>, in contrast
+ * to all other JDBC operations objects in this package. You need to create
+ * a new instance of it for each use, or call reset before reuse within
+ * the same thread.
+ *
+ * @author agent
+ * @see #flush
+ * @see #getRowsAffected
+ * @see org.springframework.jdbc.core.JdbcTemplate#batchUpdate
+ */
+public class BatchSqlUpdate extends SqlUpdate {
+
+	/**
+	 * Default number of updates to accumulate before
+	 * executing a batch: 5000.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 5000;
+
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/** Argument arrays of the queued updates */
+	private final List parameterQueue = new ArrayList();
+
+	/** Update counts of the flushed batches, as int arrays */
+	private final List rowsAffected = new ArrayList();
+
+	private int rowsAffectedCount;
+
+	/** Synchronization with the current transaction, if registered */
+	private FlushSynchronization synchronization;
+
+
+	/**
+	 * Constructor to allow use as a JavaBean. DataSource,
+	 * SQL and any parameter declarations must be supplied before
+	 * compilation and use.
+	 */
+	public BatchSqlUpdate() {
+	}
+
+	/**
+	 * Construct a batch update object with a given DataSource and SQL.
+	 * @param ds DataSource to use to obtain connections
+	 * @param sql SQL
+	 */
+	public BatchSqlUpdate(DataSource ds, String sql) {
+		super(ds, sql);
+	}
+
+	/**
+	 * Construct a batch update object with a given DataSource, SQL
+	 * and anonymous parameters.
+	 * @param ds DataSource to use to obtain connections
+	 * @param sql SQL
+	 * @param types anonymous parameter declarations
+	 */
+	public BatchSqlUpdate(DataSource ds, String sql, int[] types) {
+		super(ds, sql, types);
+	}
+
+	/**
+	 * Construct a batch update object with a given DataSource, SQL,
+	 * anonymous parameters and batch size.
+	 * @param ds DataSource to use to obtain connections
+	 * @param sql SQL
+	 * @param types anonymous parameter declarations
+	 * @param batchSize the number of statements that lead to an automatic flush
+	 */
+	public BatchSqlUpdate(DataSource ds, String sql, int[] types, int batchSize) {
+		super(ds, sql, types);
+		setBatchSize(batchSize);
+	}
+
+
+	/**
+	 * Set the number of statements that will trigger an automatic
+	 * intermediate flush. Default is 5000.
+	 * <p>The update methods will implicitly call flush once this number
+	 * of updates has been queued. The batch size should be chosen with
+	 * regard to the JDBC driver and database in use.
+	 * @param batchSize the number of statements per batch
+	 * @see #flush
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be at least 1");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Return the number of statements per batch.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+
+	/**
+	 * Overridden version of update that adds the given statement arguments
+	 * to the queue and executes the queued statements once the batch size
+	 * has been reached.
+	 * <p>The arguments are held until the batch is executed, so the
+	 * given array must not be modified afterwards.
+	 * @param args array of object arguments
+	 * @return -1, as the number of rows affected is not known yet
+	 * @see #flush
+	 * @see #getRowsAffected
+	 */
+	public int update(Object[] args) throws InvalidDataAccessApiUsageException {
+		validateParameters(args);
+		this.parameterQueue.add(args);
+		if (this.synchronization == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+			this.synchronization = new FlushSynchronization();
+			TransactionSynchronizationManager.registerSynchronization(this.synchronization);
+		}
+		if (this.parameterQueue.size() >= this.batchSize) {
+			flush();
+		}
+		return -1;
+	}
+
+	/**
+	 * Trigger any queued update operations to be added as a final batch.
+	 * @return an array of the number of rows affected by each statement
+	 * of this batch, or an empty array if there were no queued updates.
+	 * Drivers may return -2 (Statement.SUCCESS_NO_INFO) for statements
+	 * that succeeded without an update count.
+	 */
+	public int[] flush() {
+		if (this.parameterQueue.isEmpty()) {
+			return new int[0];
+		}
+		final Object[][] parameters =
+				(Object[][]) this.parameterQueue.toArray(new Object[this.parameterQueue.size()][]);
+		this.parameterQueue.clear();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing batch of " + parameters.length + " updates: " + getSql());
+		}
+		int[] rowsAffected = getJdbcTemplate().batchUpdate(getSql(), new BatchPreparedStatementSetter() {
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				newPreparedStatementSetter(parameters[i]).setValues(ps);
+			}
+			public int getBatchSize() {
+				return parameters.length;
+			}
+		});
+		this.rowsAffected.add(rowsAffected);
+		this.rowsAffectedCount += rowsAffected.length;
+		for (int i = 0; i < rowsAffected.length; i++) {
+			if (rowsAffected[i] >= 0) {
+				checkRowsAffected(rowsAffected[i]);
+			}
+		}
+		return rowsAffected;
+	}
+
+	/**
+	 * Return the current number of statements or statement parameters
+	 * in the queue.
+	 */
+	public int getQueueCount() {
+		return this.parameterQueue.size();
+	}
+
+	/**
+	 * Return the number of rows affected by each statement flushed
+	 * since this object was created or last reset, in the order in
+	 * which the updates were queued.
+	 */
+	public int[] getRowsAffected() {
+		int[] result = new int[this.rowsAffectedCount];
+		int pos = 0;
+		for (Iterator it = this.rowsAffected.iterator(); it.hasNext();) {
+			int[] batch = (int[]) it.next();
+			System.arraycopy(batch, 0, result, pos, batch.length);
+			pos += batch.length;
+		}
+		return result;
+	}
+
+	/**
+	 * Reset the statement parameter queue and the rows affected cache,
+	 * so that this object can be reused within the same thread.
+	 */
+	public void reset() {
+		this.parameterQueue.clear();
+		this.rowsAffected.clear();
+		this.rowsAffectedCount = 0;
+	}
+
+
+	/**
+	 * Flushes the queued updates before the transaction commits,
+	 * discarding them if it rolls back.
+	 */
+	private class FlushSynchronization extends TransactionSynchronizationAdapter {
+
+		public void beforeCommit(boolean readOnly) {
+			flush();
+		}
+
+		public void afterCompletion(int status) {
+			if (status != STATUS_COMMITTED) {
+				parameterQueue.clear();
+			}
+			synchronization = null;
+		}
+	}
+
+}
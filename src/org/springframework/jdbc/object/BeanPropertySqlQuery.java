@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.object;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+
+/**
+ * MappingSqlQuery that maps each row to a new instance of the mapped
+ * class, setting its properties from the columns of the same name.
+ * Saves writing a mapRow method that just copies columns to setters.
+ *
+ * <p>Column names are matched to properties case-insensitively, ignoring
+ * underscores. Use a column alias in the SQL for a column whose name
+ * differs from the property name. See BeanPropertyRowMapper for details.
+ *
+ * @author agent
+ * @see org.springframework.jdbc.core.BeanPropertyRowMapper
+ */
+public class BeanPropertySqlQuery extends MappingSqlQuery {
+
+	private BeanPropertyRowMapper rowMapper;
+
+	/**
+	 * Constructor to allow use as a JavaBean.
+	 * The mapped class must be set before compiling.
+	 * @see #setMappedClass
+	 */
+	public BeanPropertySqlQuery() {
+	}
+
+	/**
+	 * Convenient constructor with DataSource, SQL string and mapped class.
+	 * @param ds DataSource to use to obtain connections
+	 * @param sql SQL to run
+	 * @param mappedClass the class to create for each row
+	 */
+	public BeanPropertySqlQuery(DataSource ds, String sql, Class mappedClass) {
+		super(ds, sql);
+		setMappedClass(mappedClass);
+	}
+
+	/**
+	 * Set the class to create for each row. It must have
+	 * a public no-arg constructor.
+	 */
+	public void setMappedClass(Class mappedClass) {
+		this.rowMapper = new BeanPropertyRowMapper(mappedClass);
+	}
+
+	/**
+	 * Return the class to create for each row.
+	 */
+	public Class getMappedClass() {
+		return (this.rowMapper != null ? this.rowMapper.getMappedClass() : null);
+	}
+
+	protected void onCompileInternal() {
+		if (this.rowMapper == null) {
+			throw new InvalidDataAccessApiUsageException("mappedClass is required");
+		}
+	}
+
+	/**
+	 * Map the row through the BeanPropertyRowMapper for the mapped class.
+	 */
+	protected Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+		return this.rowMapper.mapRow(rs, rowNum);
+	}
+
+}
@@ -67,6 +67,12 @@ public abstract class RdbmsOperation implements InitializingBean {
 
 	/** SQL statement */
 	private String sql;
+
+	private int fetchSize = 0;
+
+	private int maxRows = 0;
+
+	private int queryTimeout = 0;
 	
 	/**
 	 * Has this operation been compiled? Compilation means at
@@ -83,6 +89,75 @@ public abstract class RdbmsOperation implements InitializingBean {
 		this.jdbcTemplate.setDataSource(dataSource);
 	}
 
+	/**
+	 * Set the fetch size for this operation's statements.
+	 * Default is 0, leaving the fetch size up to the driver.
+	 * <p>Applies to the statements that this operation creates, independent
+	 * of the JdbcTemplate, which may be shared. Needs to be set before compile.
+	 * Settings of the JdbcTemplate itself, if any, are applied on top.
+	 * @see org.springframework.jdbc.core.JdbcTemplate#setFetchSize
+	 * @throws InvalidDataAccessApiUsageException if the operation is already compiled
+	 */
+	public void setFetchSize(int fetchSize) throws InvalidDataAccessApiUsageException {
+		if (this.compiled) {
+			throw new InvalidDataAccessApiUsageException("Cannot change fetch size once operation is compiled");
+		}
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Return the fetch size for this operation's statements.
+	 */
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * Set the maximum number of rows for this operation's statements.
+	 * Default is 0, meaning no limit.
+	 * <p>Applies to the statements that this operation creates, independent
+	 * of the JdbcTemplate. Needs to be set before compile.
+	 * @see #setFetchSize
+	 * @see org.springframework.jdbc.core.JdbcTemplate#setMaxRows
+	 * @throws InvalidDataAccessApiUsageException if the operation is already compiled
+	 */
+	public void setMaxRows(int maxRows) throws InvalidDataAccessApiUsageException {
+		if (this.compiled) {
+			throw new InvalidDataAccessApiUsageException("Cannot change maximum number of rows once operation is compiled");
+		}
+		this.maxRows = maxRows;
+	}
+
+	/**
+	 * Return the maximum number of rows for this operation's statements.
+	 */
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * Set the query timeout in seconds for this operation's statements.
+	 * Default is 0, using the driver's default.
+	 * <p>Applies to the statements that this operation creates, independent
+	 * of the JdbcTemplate. Needs to be set before compile.
+	 * @see #setFetchSize
+	 * @see org.springframework.jdbc.core.JdbcTemplate#setQueryTimeout
+	 * @throws InvalidDataAccessApiUsageException if the operation is already compiled
+	 */
+	public void setQueryTimeout(int queryTimeout) throws InvalidDataAccessApiUsageException {
+		if (this.compiled) {
+			throw new InvalidDataAccessApiUsageException("Cannot change query timeout once operation is compiled");
+		}
+		this.queryTimeout = queryTimeout;
+	}
+
+	/**
+	 * Return the query timeout in seconds for this operation's statements.
+	 */
+	public int getQueryTimeout() {
+		return queryTimeout;
+	}
+
 	/**
 	 * An alternative to the more commonly used setDataSource() when you want to
 	 * use the same JdbcTemplate in multiple RdbmsOperations. This is appropriate if the
@@ -132,6 +132,9 @@ public abstract class SqlCall extends RdbmsOperation {
 		logger.info("Compiled stored procedure. Call string is [" + getCallString() + "]");
 
 		this.callableStatementFactory = new CallableStatementCreatorFactory(getCallString(), getDeclaredParameters());
+		this.callableStatementFactory.setFetchSize(getFetchSize());
+		this.callableStatementFactory.setMaxRows(getMaxRows());
+		this.callableStatementFactory.setQueryTimeout(getQueryTimeout());
 
 		onCompileInternal();
 	}
@@ -21,6 +21,7 @@ import java.sql.ResultSet;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.support.JdbcUtils;
 
 /**
@@ -106,6 +107,9 @@ public abstract class SqlOperation extends RdbmsOperation {
 		this.preparedStatementFactory = new PreparedStatementCreatorFactory(getSql(), getDeclaredParameters());
 		this.preparedStatementFactory.setResultSetType(this.resultSetType);
 		this.preparedStatementFactory.setUpdatableResults(this.updatableResults);
+		this.preparedStatementFactory.setFetchSize(getFetchSize());
+		this.preparedStatementFactory.setMaxRows(getMaxRows());
+		this.preparedStatementFactory.setQueryTimeout(getQueryTimeout());
 		onCompileInternal();
 	}
 
@@ -125,4 +129,13 @@ public abstract class SqlOperation extends RdbmsOperation {
 		return this.preparedStatementFactory.newPreparedStatementCreator(params);
 	}
 
+	/**
+	 * Return a PreparedStatementSetter to set the given parameters
+	 * on a PreparedStatement for this operation's SQL.
+	 * @param params parameters. May be null.
+	 */
+	protected PreparedStatementSetter newPreparedStatementSetter(Object[] params) {
+		return this.preparedStatementFactory.newPreparedStatementSetter(params);
+	}
+
 }
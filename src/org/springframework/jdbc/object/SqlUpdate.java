@@ -135,16 +135,25 @@ public class SqlUpdate extends SqlOperation {
 
 		int rowsAffected = getJdbcTemplate().update(newPreparedStatementCreator(args));
 		logger.debug("Executing update statement: " + getSql());
+		checkRowsAffected(rowsAffected);
+		logger.debug(rowsAffected + " rows affected by SQL update [" + getSql() + "]");
+		return rowsAffected;
+	}
 
+	/**
+	 * Check the given number of affected rows against the
+	 * maximum or required number of rows affected, if specified.
+	 * @param rowsAffected the number of rows affected by one update
+	 * @throws JdbcUpdateAffectedIncorrectNumberOfRowsException if the
+	 * number of rows is not acceptable
+	 */
+	protected void checkRowsAffected(int rowsAffected) throws JdbcUpdateAffectedIncorrectNumberOfRowsException {
 		if (this.maxRowsAffected != 0 && rowsAffected > this.maxRowsAffected) {
 			throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(getSql(), this.maxRowsAffected, rowsAffected);
 		}
 		if (this.requiredRowsAffected != 0 && rowsAffected != this.requiredRowsAffected) {
 			throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(getSql(), this.requiredRowsAffected, rowsAffected);
 		}
-
-		logger.debug(rowsAffected + " rows affected by SQL update [" + getSql() + "]");
-		return rowsAffected;
 	}
 
 	/**
@@ -30,6 +30,7 @@ import java.rmi.server.UnicastRemoteObject;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.aop.framework.MethodInvokerCache;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.remoting.support.RemoteExporter;
@@ -74,6 +75,9 @@ public class RmiServiceExporter extends RemoteExporter implements InitializingBe
 
 	private Remote exportedObject;
 
+	/** Invokers for service methods, avoiding reflection where possible */
+	private final MethodInvokerCache methodInvokerCache = new MethodInvokerCache();
+
 
 	/**
 	 * Set the name of the exported RMI service,
@@ -177,7 +181,8 @@ public class RmiServiceExporter extends RemoteExporter implements InitializingBe
 
 	/**
 	 * Apply the given remote invocation to the given target object.
-	 * The default implementation performs a plain method invocation.
+	 * The default implementation performs a plain method invocation,
+	 * through a generated invoker rather than reflection where possible.
 	 * <p>Can be overridden in subclasses for custom invocation behavior,
 	 * possibly for applying additional invocation parameters from a
 	 * custom RemoteInvocation subclass. Will typically match a corresponding
@@ -194,7 +199,7 @@ public class RmiServiceExporter extends RemoteExporter implements InitializingBe
 	    throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
 		Method method = targetObject.getClass().getMethod(invocation.getMethodName(),
 		                                                  invocation.getParameterTypes());
-		return method.invoke(targetObject, invocation.getArguments());
+		return this.methodInvokerCache.invoke(method, targetObject, invocation.getArguments());
 	}
 
 	public void destroy() throws RemoteException, NotBoundException {
@@ -22,6 +22,7 @@ import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.aop.framework.NonRetainingInterceptor;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -46,7 +47,7 @@ import org.springframework.transaction.TransactionStatus;
  * @see TransactionProxyFactoryBean
  * @see org.springframework.transaction.PlatformTransactionManager
  */
-public class TransactionInterceptor implements MethodInterceptor, InitializingBean {
+public class TransactionInterceptor implements MethodInterceptor, NonRetainingInterceptor, InitializingBean {
 	
 	/** Holder to support the currentTransactionStatus() method */
 	private static ThreadLocal currentTransactionStatus = new ThreadLocal();
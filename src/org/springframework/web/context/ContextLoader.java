@@ -23,9 +23,11 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.CachedIntrospectionResults;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextException;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.AbstractXmlApplicationContext;
 import org.springframework.util.StringUtils;
 import org.springframework.web.context.support.XmlWebApplicationContext;
 
@@ -44,11 +46,20 @@ import org.springframework.web.context.support.XmlWebApplicationContext;
  * If not explicitly specified, the context implementation is supposed to use a
  * default location (with XmlWebApplicationContext: "/WEB-INF/applicationContext.xml").
  *
+ * <p>Passes a "contextConfigLoadingThreads" context-param to the context instance,
+ * if it is an AbstractXmlApplicationContext, to parse multiple config locations
+ * concurrently.
+ *
  * <p>Note: In case of multiple config locations, later bean definitions will
  * override ones defined in earlier loaded files, at least when using one of
  * Spring's default ApplicationContext implementations. This can be leveraged
  * to deliberately override certain bean definitions via an extra XML file.
  *
+ * <p>Accepts the web application's class loader for caching of introspection
+ * results while the context is active, and discards them on close, so that
+ * Spring in a shared class loader doesn't prevent the web application's
+ * classes from being garbage collected after undeployment.
+ *
  * @author Juergen Hoeller
  * @author Colin Sampaleanu
  * @since 17.02.2003
@@ -77,6 +88,14 @@ public class ContextLoader {
 	 */
 	public static final String CONFIG_LOCATION_PARAM = "contextConfigLocation";
 
+	/**
+	 * Name of servlet context parameter that can specify the number of threads
+	 * to parse the config locations of the root context with, if the context
+	 * is an AbstractXmlApplicationContext.
+	 * @see org.springframework.context.support.AbstractXmlApplicationContext#setConfigLoadingThreads
+	 */
+	public static final String CONFIG_LOADING_THREADS_PARAM = "contextConfigLoadingThreads";
+
 	private final Log logger = LogFactory.getLog(ContextLoader.class);
 
 	/**
@@ -90,6 +109,7 @@ public class ContextLoader {
 	 */
 	public WebApplicationContext initWebApplicationContext(ServletContext servletContext) throws BeansException {
 		servletContext.log("Loading root WebApplicationContext");
+		CachedIntrospectionResults.acceptClassLoader(Thread.currentThread().getContextClassLoader());
 		try {
 			ApplicationContext parent = loadParentContext(servletContext);
 			WebApplicationContext wac = createWebApplicationContext(servletContext, parent);
@@ -122,6 +142,7 @@ public class ContextLoader {
 	 * @throws BeansException if the context couldn't be initialized
 	 * @see #CONTEXT_CLASS_PARAM
 	 * @see #DEFAULT_CONTEXT_CLASS
+	 * @see #CONFIG_LOADING_THREADS_PARAM
 	 * @see ConfigurableWebApplicationContext
 	 * @see org.springframework.web.context.support.XmlWebApplicationContext
 	 */
@@ -151,6 +172,16 @@ public class ContextLoader {
 				StringUtils.tokenizeToStringArray(
 					configLocation, ConfigurableWebApplicationContext.CONFIG_LOCATION_DELIMITERS, true, true));
 		}
+		String configLoadingThreads = servletContext.getInitParameter(CONFIG_LOADING_THREADS_PARAM);
+		if (configLoadingThreads != null && wac instanceof AbstractXmlApplicationContext) {
+			try {
+				((AbstractXmlApplicationContext) wac).setConfigLoadingThreads(Integer.parseInt(configLoadingThreads.trim()));
+			}
+			catch (NumberFormatException ex) {
+				throw new ApplicationContextException("Invalid value [" + configLoadingThreads + "] for context-param '" +
+						CONFIG_LOADING_THREADS_PARAM + "'", ex);
+			}
+		}
 		wac.refresh();
 		return wac;
 	}
@@ -168,14 +199,21 @@ public class ContextLoader {
 	}
 
 	/**
-	 * Close Spring's web application context for the given servlet context.
+	 * Close Spring's web application context for the given servlet context,
+	 * and discard cached introspection results for the web application's classes.
 	 * @param servletContext current servlet context
+	 * @see org.springframework.beans.CachedIntrospectionResults#clearClassLoader
 	 */
 	public void closeWebApplicationContext(ServletContext servletContext) throws ApplicationContextException {
 		servletContext.log("Closing root WebApplicationContext");
-		Object wac = servletContext.getAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE);
-		if (wac instanceof ConfigurableApplicationContext) {
-			((ConfigurableApplicationContext) wac).close();
+		try {
+			Object wac = servletContext.getAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE);
+			if (wac instanceof ConfigurableApplicationContext) {
+				((ConfigurableApplicationContext) wac).close();
+			}
+		}
+		finally {
+			CachedIntrospectionResults.clearClassLoader(Thread.currentThread().getContextClassLoader());
 		}
 	}
 
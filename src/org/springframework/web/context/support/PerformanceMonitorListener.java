@@ -20,17 +20,18 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.context.ApplicationEvent;
-import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.SmartApplicationListener;
 import org.springframework.util.ResponseTimeMonitorImpl;
 
 /**
  * Listener that logs the response times of web requests.
  * To be registered in a WebApplicationContext.
+ * Only notified of RequestHandledEvents.
  * @author Rod Johnson
  * @since January 21, 2001
  * @see RequestHandledEvent
  */
-public class PerformanceMonitorListener implements ApplicationListener {
+public class PerformanceMonitorListener implements SmartApplicationListener {
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -40,6 +41,10 @@ public class PerformanceMonitorListener implements ApplicationListener {
 		this.responseTimeMonitor = new ResponseTimeMonitorImpl();
 	}
 
+	public boolean supportsEventType(Class eventType) {
+		return RequestHandledEvent.class.isAssignableFrom(eventType);
+	}
+
 	public void onApplicationEvent(ApplicationEvent event) {
 		if (event instanceof RequestHandledEvent) {
 			RequestHandledEvent rhe = (RequestHandledEvent) event;
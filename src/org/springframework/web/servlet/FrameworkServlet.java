@@ -27,6 +27,7 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContextException;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.AbstractXmlApplicationContext;
 import org.springframework.util.StringUtils;
 import org.springframework.web.context.ConfigurableWebApplicationContext;
 import org.springframework.web.context.WebApplicationContext;
@@ -61,6 +62,10 @@ import org.springframework.web.context.support.XmlWebApplicationContext;
  * If not explicitly specified, the context implementation is supposed to build a
  * default location from the namespace of the servlet.
  *
+ * <p>Passes a "contextConfigLoadingThreads" servlet init-param to the context
+ * instance, if it is an AbstractXmlApplicationContext, to parse multiple config
+ * locations concurrently.
+ *
  * <p>Note: In case of multiple config locations, later bean definitions will
  * override ones defined in earlier loaded files, at least when using one of
  * Spring's default ApplicationContext implementations. This can be leveraged
@@ -77,6 +82,7 @@ import org.springframework.web.context.support.XmlWebApplicationContext;
  * @see #initFrameworkServlet
  * @see #setContextClass
  * @see #setContextConfigLocation
+ * @see #setContextConfigLoadingThreads
  * @see #setNamespace
  */
 public abstract class FrameworkServlet extends HttpServletBean {
@@ -110,6 +116,9 @@ public abstract class FrameworkServlet extends HttpServletBean {
 	/** Explicit context config location */
 	private String contextConfigLocation;
 
+	/** Number of threads to parse the context config locations with, or 0 for the default */
+	private int contextConfigLoadingThreads;
+
 	/** Should we publish the context as a ServletContext attribute? */
 	private boolean publishContext = true;
 
@@ -165,6 +174,23 @@ public abstract class FrameworkServlet extends HttpServletBean {
 		return contextConfigLocation;
 	}
 
+	/**
+	 * Set the number of threads to parse the context config locations with,
+	 * if the context class is an AbstractXmlApplicationContext. Default is 0,
+	 * leaving the context's default of parsing them serially.
+	 * @see org.springframework.context.support.AbstractXmlApplicationContext#setConfigLoadingThreads
+	 */
+	public void setContextConfigLoadingThreads(int contextConfigLoadingThreads) {
+		this.contextConfigLoadingThreads = contextConfigLoadingThreads;
+	}
+
+	/**
+	 * Return the number of threads to parse the context config locations with.
+	 */
+	public int getContextConfigLoadingThreads() {
+		return contextConfigLoadingThreads;
+	}
+
 	/**
 	 * Set whether to publish this servlet's context as a ServletContext attribute.
 	 * Default is true.
@@ -294,6 +320,9 @@ public abstract class FrameworkServlet extends HttpServletBean {
 			                                      ConfigurableWebApplicationContext.CONFIG_LOCATION_DELIMITERS,
 			                                      true, true));
 		}
+		if (this.contextConfigLoadingThreads > 0 && wac instanceof AbstractXmlApplicationContext) {
+			((AbstractXmlApplicationContext) wac).setConfigLoadingThreads(this.contextConfigLoadingThreads);
+		}
 		wac.refresh();
 		return wac;
 	}
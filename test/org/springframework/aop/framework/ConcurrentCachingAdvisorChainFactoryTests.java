@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.aop.interceptor.NopInterceptor;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+
+/**
+ * @author agent
+ * @version $Id$
+ */
+public class ConcurrentCachingAdvisorChainFactoryTests extends TestCase {
+
+	private static final int THREADS = 30;
+
+	private static final int PASSES = 2000;
+
+	private Throwable ex;
+
+	public void testIsDefault() {
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		assertTrue(pf.getAdvisorChainFactory() instanceof ConcurrentCachingAdvisorChainFactory);
+	}
+
+	public void testCachesByMethodAndTargetClass() throws Exception {
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addInterceptor(new NopInterceptor());
+		ConcurrentCachingAdvisorChainFactory acf = new ConcurrentCachingAdvisorChainFactory();
+		pf.setAdvisorChainFactory(acf);
+		Method getAge = ITestBean.class.getMethod("getAge", null);
+		List chain = acf.getInterceptorsAndDynamicInterceptionAdvice(pf, null, getAge, TestBean.class);
+		assertEquals(1, chain.size());
+		assertSame(chain, acf.getInterceptorsAndDynamicInterceptionAdvice(pf, null, getAge, TestBean.class));
+		assertNotSame(chain, acf.getInterceptorsAndDynamicInterceptionAdvice(pf, null, getAge, Object.class));
+		assertEquals(2, acf.getCacheSize());
+	}
+
+	public void testAdviceChangedInvalidates() throws Exception {
+		TestBean target = new TestBean();
+		ProxyFactory pf = new ProxyFactory(target);
+		ConcurrentCachingAdvisorChainFactory acf = (ConcurrentCachingAdvisorChainFactory) pf.getAdvisorChainFactory();
+		NopInterceptor nop = new NopInterceptor();
+		pf.addInterceptor(nop);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		proxy.getAge();
+		assertEquals(1, nop.getCount());
+		assertEquals(1, acf.getCacheSize());
+		int epoch = acf.getEpoch();
+
+		NopInterceptor nop2 = new NopInterceptor();
+		pf.addInterceptor(nop2);
+		assertEquals(epoch + 1, acf.getEpoch());
+		assertEquals(0, acf.getCacheSize());
+		proxy.getAge();
+		assertEquals(2, nop.getCount());
+		assertEquals(1, nop2.getCount());
+	}
+
+	public void testReplacedFactoryIsNoLongerListener() {
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		ConcurrentCachingAdvisorChainFactory original = (ConcurrentCachingAdvisorChainFactory) pf.getAdvisorChainFactory();
+		pf.setAdvisorChainFactory(new ConcurrentCachingAdvisorChainFactory());
+		pf.getProxy();
+		int epoch = original.getEpoch();
+		pf.addInterceptor(new NopInterceptor());
+		assertEquals(epoch, original.getEpoch());
+	}
+
+	/**
+	 * Many threads invoke a proxy while its advice is repeatedly changed.
+	 * Each invocation must see a consistent chain, and each chain must be
+	 * calculated only once per epoch.
+	 */
+	public void testConcurrentInvocationAndAdviceChanges() throws Throwable {
+		TestBean target = new TestBean();
+		target.setAge(21);
+		final ProxyFactory pf = new ProxyFactory(target);
+		CountingPointcutAdvisor advisor = new CountingPointcutAdvisor();
+		pf.addAdvisor(advisor);
+		final ConcurrentCachingAdvisorChainFactory acf = (ConcurrentCachingAdvisorChainFactory) pf.getAdvisorChainFactory();
+		final ITestBean proxy = (ITestBean) pf.getProxy();
+
+		Thread[] threads = new Thread[THREADS];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						for (int j = 0; j < PASSES && ex == null; j++) {
+							assertEquals(21, proxy.getAge());
+							proxy.getName();
+						}
+					}
+					catch (Throwable t) {
+						ex = t;
+					}
+				}
+			};
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].start();
+		}
+		for (int i = 0; i < 20; i++) {
+			NopInterceptor nop = new NopInterceptor();
+			pf.addInterceptor(nop);
+			Thread.yield();
+			pf.removeInterceptor(nop);
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		if (ex != null) {
+			throw ex;
+		}
+
+		// 2 methods per epoch at most: the initial one plus one per add/remove
+		assertTrue(advisor.matches <= 2 * (acf.getEpoch() + 1));
+		assertEquals(21, proxy.getAge());
+		proxy.getName();
+		assertEquals(2, acf.getCacheSize());
+	}
+
+	public void testChainCalculatedOnceUnderRace() throws Throwable {
+		final ProxyFactory pf = new ProxyFactory(new TestBean());
+		CountingPointcutAdvisor advisor = new CountingPointcutAdvisor();
+		pf.addAdvisor(advisor);
+		final ITestBean proxy = (ITestBean) pf.getProxy();
+		Thread[] threads = new Thread[THREADS];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						proxy.getAge();
+					}
+					catch (Throwable t) {
+						ex = t;
+					}
+				}
+			};
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		if (ex != null) {
+			throw ex;
+		}
+		assertEquals(1, advisor.matches);
+	}
+
+
+	private static class CountingPointcutAdvisor extends StaticMethodMatcherPointcutAdvisor {
+
+		public int matches;
+
+		public CountingPointcutAdvisor() {
+			super(new NopInterceptor());
+		}
+
+		public synchronized boolean matches(Method m, Class targetClass) {
+			this.matches++;
+			return true;
+		}
+	}
+
+}
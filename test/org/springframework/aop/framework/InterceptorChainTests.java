@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.interceptor.NopInterceptor;
+import org.springframework.aop.support.DynamicMethodMatcherPointcutAdvisor;
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+
+/**
+ * @author agent
+ * @version $Id$
+ */
+public class InterceptorChainTests extends TestCase {
+
+	public void testStaticChain() throws Exception {
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		NopInterceptor nop1 = new NopInterceptor();
+		NopInterceptor nop2 = new NopInterceptor();
+		pf.addInterceptor(nop1);
+		pf.addInterceptor(nop2);
+		Method getAge = ITestBean.class.getMethod("getAge", null);
+		List chain = AdvisorChainFactoryUtils.calculateInterceptorsAndDynamicInterceptionAdvice(pf, null, getAge, TestBean.class);
+		assertTrue(chain instanceof InterceptorChain);
+		InterceptorChain ic = (InterceptorChain) chain;
+		assertTrue(ic.isStatic());
+		assertEquals(2, ic.size());
+		assertSame(nop1, ic.get(0));
+		assertSame(nop2, ic.getStaticInterceptors()[1]);
+		try {
+			chain.add(new NopInterceptor());
+			fail("Chain should be immutable");
+		}
+		catch (UnsupportedOperationException ex) {
+			// expected
+		}
+	}
+
+	public void testDynamicChain() throws Exception {
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addInterceptor(new NopInterceptor());
+		pf.addAdvisor(new DynamicMethodMatcherPointcutAdvisor(new NopInterceptor()) {
+			public boolean matches(Method m, Class targetClass, Object[] args) {
+				return true;
+			}
+		});
+		Method getAge = ITestBean.class.getMethod("getAge", null);
+		InterceptorChain chain = (InterceptorChain)
+				AdvisorChainFactoryUtils.calculateInterceptorsAndDynamicInterceptionAdvice(pf, null, getAge, TestBean.class);
+		assertFalse(chain.isStatic());
+		assertNull(chain.getStaticInterceptors());
+		assertTrue(chain.get(1) instanceof InterceptorAndDynamicMethodMatcher);
+		try {
+			new StaticChainMethodInvocation(null, null, getAge, null, TestBean.class, chain);
+			fail("Should have rejected dynamic chain");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	public void testStaticChainMethodInvocationOrder() throws Throwable {
+		final List invoked = new LinkedList();
+		List interceptors = new LinkedList();
+		for (int i = 0; i < 3; i++) {
+			final Integer index = new Integer(i);
+			interceptors.add(new MethodInterceptor() {
+				public Object invoke(MethodInvocation invocation) throws Throwable {
+					invoked.add(index);
+					return invocation.proceed();
+				}
+			});
+		}
+		TestBean target = new TestBean();
+		target.setAge(27);
+		Method getAge = ITestBean.class.getMethod("getAge", null);
+		StaticChainMethodInvocation invocation = new StaticChainMethodInvocation(
+				null, target, getAge, null, TestBean.class, new InterceptorChain(interceptors));
+		assertEquals(new Integer(27), invocation.proceed());
+		assertEquals(3, invoked.size());
+		assertEquals(new Integer(0), invoked.get(0));
+		assertEquals(new Integer(2), invoked.get(2));
+	}
+
+	public void testProxyWithDynamicAndStaticAdvice() {
+		TestBean target = new TestBean();
+		target.setAge(21);
+		ProxyFactory pf = new ProxyFactory(target);
+		NopInterceptor nop = new NopInterceptor();
+		final NopInterceptor dynamicNop = new NopInterceptor();
+		pf.addInterceptor(nop);
+		pf.addAdvisor(new DynamicMethodMatcherPointcutAdvisor(dynamicNop) {
+			public boolean matches(Method m, Class targetClass, Object[] args) {
+				return (args != null && args.length == 1);
+			}
+		});
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		assertEquals(21, proxy.getAge());
+		assertEquals(1, nop.getCount());
+		assertEquals(0, dynamicNop.getCount());
+		proxy.setAge(22);
+		assertEquals(2, nop.getCount());
+		assertEquals(1, dynamicNop.getCount());
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import javax.servlet.ServletException;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+
+/**
+ * @author agent
+ * @version $Id$
+ */
+public class MethodInvokerCacheTests extends TestCase {
+
+	private MethodInvokerCache cache = new MethodInvokerCache();
+
+	public void testInvokeInterfaceMethod() throws Exception {
+		TestBean target = new TestBean();
+		Method setAge = ITestBean.class.getMethod("setAge", new Class[] {int.class});
+		Method getAge = ITestBean.class.getMethod("getAge", null);
+		assertTrue(this.cache.isGenerated(getAge));
+		assertNull(this.cache.invoke(setAge, target, new Object[] {new Integer(34)}));
+		assertEquals(34, target.getAge());
+		assertEquals(new Integer(34), this.cache.invoke(getAge, target, null));
+	}
+
+	public void testInvokeClassMethod() throws Exception {
+		TestBean target = new TestBean();
+		target.setName("rod");
+		Method getName = TestBean.class.getMethod("getName", null);
+		assertEquals("rod", this.cache.invoke(getName, target, new Object[0]));
+	}
+
+	public void testTargetExceptionIsWrapped() throws Exception {
+		TestBean target = new TestBean();
+		Method m = ITestBean.class.getMethod("exceptional", new Class[] {Throwable.class});
+		ServletException expected = new ServletException();
+		try {
+			this.cache.invoke(m, target, new Object[] {expected});
+			fail("Should have thrown InvocationTargetException");
+		}
+		catch (InvocationTargetException ex) {
+			assertSame(expected, ex.getTargetException());
+		}
+	}
+
+	public void testWrongTargetType() throws Exception {
+		Method getAge = ITestBean.class.getMethod("getAge", null);
+		try {
+			this.cache.invoke(getAge, new Object(), null);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	public void testInvalidArguments() throws Exception {
+		TestBean target = new TestBean();
+		Method setAge = ITestBean.class.getMethod("setAge", new Class[] {int.class});
+		assertTrue(this.cache.isGenerated(setAge));
+		Object[][] invalidArgs = new Object[][] {
+			new Object[] {null}, new Object[] {"34"}, new Object[0], null, new Object[] {new Integer(1), new Integer(2)}};
+		for (int i = 0; i < invalidArgs.length; i++) {
+			try {
+				this.cache.invoke(setAge, target, invalidArgs[i]);
+				fail("Should have thrown IllegalArgumentException");
+			}
+			catch (IllegalArgumentException ex) {
+				// expected, as with Method.invoke
+			}
+		}
+	}
+
+	public void testWideningConversion() throws Exception {
+		TestBean target = new TestBean();
+		Method setAge = ITestBean.class.getMethod("setAge", new Class[] {int.class});
+		this.cache.invoke(setAge, target, new Object[] {new Short((short) 34)});
+		assertEquals(34, target.getAge());
+	}
+
+	public void testNonPublicClassUsesReflection() throws Exception {
+		Method m = PackageVisibleBean.class.getMethod("getValue", null);
+		assertFalse(this.cache.isGenerated(m));
+		assertEquals("value", this.cache.invoke(m, new PackageVisibleBean(), null));
+	}
+
+	public void testJdkProxyUsesCache() throws Exception {
+		TestBean target = new TestBean();
+		target.setAge(21);
+		ProxyFactory pf = new ProxyFactory(target);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		assertEquals(21, proxy.getAge());
+		Method getAge = ITestBean.class.getMethod("getAge", null);
+		assertTrue(pf.methodInvokerCache.isGenerated(getAge));
+		try {
+			proxy.exceptional(new ServletException());
+			fail("Should have thrown ServletException");
+		}
+		catch (ServletException ex) {
+			// expected
+		}
+		catch (Throwable ex) {
+			fail("Should have thrown ServletException, not " + ex);
+		}
+	}
+
+
+	static class PackageVisibleBean {
+
+		public String getValue() {
+			return "value";
+		}
+	}
+
+}
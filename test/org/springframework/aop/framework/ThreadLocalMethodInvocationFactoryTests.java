@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.interceptor.NopInterceptor;
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+
+/**
+ * Runs all JDK dynamic proxy tests with recycled method invocations,
+ * plus tests specific to recycling.
+ * @author agent
+ * @version $Id$
+ */
+public class ThreadLocalMethodInvocationFactoryTests extends JdkDynamicProxyTests {
+
+	public ThreadLocalMethodInvocationFactoryTests(String arg0) {
+		super(arg0);
+	}
+
+	protected Object createProxy(AdvisedSupport as) {
+		as.setMethodInvocationFactory(new ThreadLocalMethodInvocationFactory());
+		return super.createProxy(as);
+	}
+
+	protected AopProxy createAopProxy(AdvisedSupport as) {
+		as.setMethodInvocationFactory(new ThreadLocalMethodInvocationFactory());
+		return super.createAopProxy(as);
+	}
+
+	public void testInvocationsAreRecycled() {
+		TestBean target = new TestBean();
+		target.setAge(21);
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.addInterceptor(new NonRetainingNopInterceptor());
+		ThreadLocalMethodInvocationFactory mif = new ThreadLocalMethodInvocationFactory();
+		pf.setMethodInvocationFactory(mif);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(21, proxy.getAge());
+			proxy.setName("name" + i);
+		}
+		assertEquals(1, mif.getInvocationsCreated());
+		assertEquals("name99", target.getName());
+	}
+
+	public void testReentrantCallGetsNewInvocation() {
+		TestBean target = new TestBean();
+		ProxyFactory pf = new ProxyFactory(target);
+		final MethodInvocation[] seen = new MethodInvocation[2];
+		pf.addInterceptor(new NonRetainingNopInterceptor() {
+			public Object invoke(MethodInvocation invocation) throws Throwable {
+				if (invocation.getMethod().getName().equals("getAge")) {
+					seen[0] = invocation;
+					ITestBean proxy = (ITestBean) ((ReflectiveMethodInvocation) invocation).getProxy();
+					proxy.getName();
+					// Outer invocation must be untouched by the nested call
+					assertEquals("getAge", invocation.getMethod().getName());
+				}
+				else {
+					seen[1] = invocation;
+				}
+				return invocation.proceed();
+			}
+		});
+		ThreadLocalMethodInvocationFactory mif = new ThreadLocalMethodInvocationFactory();
+		pf.setMethodInvocationFactory(mif);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		target.setAge(33);
+		assertEquals(33, proxy.getAge());
+		assertNotSame(seen[0], seen[1]);
+		assertEquals(2, mif.getInvocationsCreated());
+		proxy.getAge();
+		assertEquals(2, mif.getInvocationsCreated());
+	}
+
+	public void testRetainedInvocationsAreNotRecycled() {
+		TestBean target = new TestBean();
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.addInterceptor(ExposeInvocationInterceptor.INSTANCE);
+		ThreadLocalMethodInvocationFactory mif = new ThreadLocalMethodInvocationFactory();
+		pf.setMethodInvocationFactory(mif);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		proxy.getAge();
+		proxy.getAge();
+		proxy.getAge();
+		assertEquals(3, mif.getInvocationsCreated());
+	}
+
+	public void testUntaggedInterceptorDisablesRecycling() {
+		TestBean target = new TestBean();
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.addInterceptor(new NonRetainingNopInterceptor());
+		pf.addInterceptor(new NopInterceptor());
+		ThreadLocalMethodInvocationFactory mif = new ThreadLocalMethodInvocationFactory();
+		pf.setMethodInvocationFactory(mif);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		proxy.getAge();
+		proxy.getAge();
+		assertEquals(2, mif.getInvocationsCreated());
+	}
+
+
+	private static class NonRetainingNopInterceptor implements MethodInterceptor, NonRetainingInterceptor {
+
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			return invocation.proceed();
+		}
+	}
+
+}
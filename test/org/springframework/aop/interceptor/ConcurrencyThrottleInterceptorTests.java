@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+
+/**
+ * @author agent
+ */
+public class ConcurrencyThrottleInterceptorTests extends TestCase {
+
+	private ConcurrencyThrottleInterceptor throttle = new ConcurrencyThrottleInterceptor();
+
+	private BlockingTestBean target = new BlockingTestBean();
+
+	private ITestBean proxy;
+
+	protected void setUp() {
+		ProxyFactory pf = new ProxyFactory(this.target);
+		pf.addInterceptor(this.throttle);
+		this.proxy = (ITestBean) pf.getProxy();
+	}
+
+	public void testSequentialInvocations() {
+		this.target.release();
+		for (int i = 0; i < 10; i++) {
+			this.proxy.getAge();
+		}
+		assertEquals(0, this.throttle.getConcurrencyCount());
+		assertEquals(1, this.throttle.getPeakConcurrency());
+		assertEquals(0, this.throttle.getRejectedCount());
+	}
+
+	public void testBlocksAtLimit() throws Exception {
+		this.throttle.setConcurrencyLimit(2);
+		Thread[] threads = startCallers(4);
+		waitFor(2, 2);
+		assertEquals(2, this.throttle.getConcurrencyCount());
+		this.target.release();
+		joinAll(threads);
+		assertEquals(0, this.throttle.getConcurrencyCount());
+		assertEquals(0, this.throttle.getWaitingCount());
+		assertEquals(2, this.throttle.getPeakConcurrency());
+		assertEquals(4, this.target.getCalls());
+	}
+
+	public void testFailFast() throws Exception {
+		this.throttle.setBlockTimeout(ConcurrencyThrottleInterceptor.FAIL_FAST);
+		Thread[] threads = startCallers(1);
+		waitFor(1, 0);
+		try {
+			this.proxy.getAge();
+			fail("Should have thrown ConcurrencyThrottleException");
+		}
+		catch (ConcurrencyThrottleException ex) {
+			// expected
+		}
+		assertEquals(1, this.throttle.getRejectedCount());
+		this.target.release();
+		joinAll(threads);
+		this.proxy.getAge();
+		assertEquals(1, this.throttle.getRejectedCount());
+	}
+
+	public void testTimedWait() throws Exception {
+		this.throttle.setBlockTimeout(50);
+		Thread[] threads = startCallers(1);
+		waitFor(1, 0);
+		long start = System.currentTimeMillis();
+		try {
+			this.proxy.getAge();
+			fail("Should have thrown ConcurrencyThrottleException");
+		}
+		catch (ConcurrencyThrottleException ex) {
+			// expected
+		}
+		assertTrue(System.currentTimeMillis() - start >= 40);
+		assertEquals(0, this.throttle.getWaitingCount());
+		this.target.release();
+		joinAll(threads);
+		assertEquals(1, this.throttle.getRejectedCount());
+	}
+
+	public void testInterruptedWhileWaiting() throws Exception {
+		Thread[] threads = startCallers(1);
+		waitFor(1, 0);
+		final List errors = new LinkedList();
+		Thread waiter = new Thread() {
+			public void run() {
+				try {
+					proxy.getAge();
+				}
+				catch (ConcurrencyThrottleException ex) {
+					errors.add(ex);
+					if (!isInterrupted()) {
+						errors.add("Interrupt status should have been preserved");
+					}
+				}
+			}
+		};
+		waiter.start();
+		waitFor(1, 1);
+		waiter.interrupt();
+		waiter.join();
+		assertEquals(1, errors.size());
+		assertTrue(((ConcurrencyThrottleException) errors.get(0)).getCause() instanceof InterruptedException);
+		assertEquals(1, this.throttle.getRejectedCount());
+		this.target.release();
+		joinAll(threads);
+	}
+
+	public void testFairOrdering() throws Exception {
+		this.throttle.setFair(true);
+		Thread[] threads = startCallers(1);
+		waitFor(1, 0);
+		Thread[] waiters = new Thread[3];
+		for (int i = 0; i < waiters.length; i++) {
+			final String name = String.valueOf(i);
+			waiters[i] = new Thread() {
+				public void run() {
+					proxy.setName(name);
+				}
+			};
+			waiters[i].start();
+			waitFor(1, i + 1);
+		}
+		this.target.release();
+		joinAll(threads);
+		joinAll(waiters);
+		List names = this.target.getNames();
+		assertEquals(3, names.size());
+		for (int i = 0; i < waiters.length; i++) {
+			assertEquals(String.valueOf(i), names.get(i));
+		}
+	}
+
+	public void testRaisingLimitReleasesWaiters() throws Exception {
+		Thread[] threads = startCallers(3);
+		waitFor(1, 2);
+		this.throttle.setConcurrencyLimit(3);
+		waitFor(3, 0);
+		this.target.release();
+		joinAll(threads);
+		assertEquals(3, this.throttle.getPeakConcurrency());
+	}
+
+	private Thread[] startCallers(int count) {
+		Thread[] threads = new Thread[count];
+		for (int i = 0; i < count; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					proxy.getAge();
+				}
+			};
+			threads[i].start();
+		}
+		return threads;
+	}
+
+	private void joinAll(Thread[] threads) throws InterruptedException {
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join(5000);
+			assertFalse("Thread should have completed", threads[i].isAlive());
+		}
+	}
+
+	private void waitFor(int concurrencyCount, int waitingCount) throws InterruptedException {
+		for (int i = 0; i < 500; i++) {
+			if (this.throttle.getConcurrencyCount() == concurrencyCount &&
+					this.throttle.getWaitingCount() == waitingCount) {
+				return;
+			}
+			Thread.sleep(10);
+		}
+		fail("Expected concurrency count " + concurrencyCount + " and waiting count " + waitingCount +
+				", not " + this.throttle.getConcurrencyCount() + " and " + this.throttle.getWaitingCount());
+	}
+
+
+	/**
+	 * TestBean whose getAge method blocks until released.
+	 */
+	private static class BlockingTestBean extends TestBean {
+
+		private boolean released;
+
+		private int calls;
+
+		private final List names = new LinkedList();
+
+		public synchronized void release() {
+			this.released = true;
+			notifyAll();
+		}
+
+		public synchronized int getCalls() {
+			return this.calls;
+		}
+
+		public synchronized List getNames() {
+			return this.names;
+		}
+
+		public synchronized void setName(String name) {
+			this.names.add(name);
+		}
+
+		public synchronized int getAge() {
+			this.calls++;
+			while (!this.released) {
+				try {
+					wait();
+				}
+				catch (InterruptedException ex) {
+					return -1;
+				}
+			}
+			return super.getAge();
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import javax.servlet.ServletException;
+
+import junit.framework.TestCase;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.ITestBean;
+import org.springframework.beans.TestBean;
+
+/**
+ * @author agent
+ * @version $Id$
+ */
+public class PerformanceMonitorInterceptorTests extends TestCase {
+
+	public void testLoggingMode() {
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addInterceptor(new PerformanceMonitorInterceptor());
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		proxy.setAge(22);
+		assertEquals(22, proxy.getAge());
+	}
+
+	public void testAggregatingMode() throws Exception {
+		PerformanceMonitorRegistry registry = new PerformanceMonitorRegistry();
+		PerformanceMonitorInterceptor pmi = new PerformanceMonitorInterceptor();
+		pmi.setRegistry(registry);
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addInterceptor(pmi);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+
+		for (int i = 0; i < 5; i++) {
+			proxy.getAge();
+		}
+		proxy.setAge(3);
+		try {
+			proxy.exceptional(new ServletException());
+			fail("Should have thrown ServletException");
+		}
+		catch (ServletException ex) {
+			// expected
+		}
+		catch (Throwable ex) {
+			fail("Should have thrown ServletException, not " + ex);
+		}
+
+		Method getAge = ITestBean.class.getMethod("getAge", null);
+		PerformanceSnapshot snapshot = registry.getSnapshot(getAge);
+		assertEquals(ITestBean.class.getName() + ".getAge()", snapshot.getName());
+		assertEquals(5, snapshot.getCount());
+		assertNull(registry.getSnapshot(ITestBean.class.getMethod("getName", null)));
+
+		List snapshots = registry.getSnapshots();
+		assertEquals(3, snapshots.size());
+		assertEquals(ITestBean.class.getName() + ".exceptional(java.lang.Throwable)",
+				((PerformanceSnapshot) snapshots.get(0)).getName());
+		assertEquals(1, ((PerformanceSnapshot) snapshots.get(0)).getCount());
+		assertEquals(ITestBean.class.getName() + ".setAge(int)", ((PerformanceSnapshot) snapshots.get(2)).getName());
+		registry.logSummary();
+
+		registry.reset();
+		assertEquals(0, registry.getSnapshot(getAge).getCount());
+	}
+
+	public void testOverloadedMethodsHaveDistinctNames() throws Exception {
+		PerformanceMonitorRegistry registry = new PerformanceMonitorRegistry();
+		Method indexOfChar = String.class.getMethod("indexOf", new Class[] {int.class});
+		Method indexOfString = String.class.getMethod("indexOf", new Class[] {String.class});
+		Method valueOf = String.class.getMethod("valueOf", new Class[] {char[].class, int.class, int.class});
+		assertEquals("java.lang.String.indexOf(int)", registry.getStatistics(indexOfChar).getSnapshot().getName());
+		assertEquals("java.lang.String.indexOf(java.lang.String)",
+				registry.getStatistics(indexOfString).getSnapshot().getName());
+		assertEquals("java.lang.String.valueOf(char[], int, int)", registry.getStatistics(valueOf).getSnapshot().getName());
+	}
+
+}
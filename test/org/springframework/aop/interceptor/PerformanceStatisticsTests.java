@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ * @version $Id$
+ */
+public class PerformanceStatisticsTests extends TestCase {
+
+	public void testBucketBoundaries() {
+		for (long value = 0; value < 100000; value++) {
+			int bucket = PerformanceStatistics.bucketFor(value);
+			assertTrue(value <= PerformanceStatistics.highestValueIn(bucket));
+			if (bucket > 0) {
+				assertTrue(value > PerformanceStatistics.highestValueIn(bucket - 1));
+			}
+		}
+		assertEquals(PerformanceStatistics.BUCKET_COUNT - 1, PerformanceStatistics.bucketFor(Long.MAX_VALUE));
+	}
+
+	public void testBucketResolution() {
+		for (int bucket = 1; bucket < PerformanceStatistics.BUCKET_COUNT; bucket++) {
+			long low = PerformanceStatistics.highestValueIn(bucket - 1) + 1;
+			long high = PerformanceStatistics.highestValueIn(bucket);
+			assertTrue((high - low) <= low / 8);
+		}
+	}
+
+	public void testEmptySnapshot() {
+		PerformanceSnapshot snapshot = new PerformanceStatistics("empty").getSnapshot();
+		assertEquals("empty", snapshot.getName());
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getMaxTime());
+		assertEquals(0, snapshot.getPercentile99());
+		assertEquals(0.0, snapshot.getMeanTime(), 0.0);
+	}
+
+	public void testPercentiles() {
+		PerformanceStatistics statistics = new PerformanceStatistics("test", 1);
+		for (int i = 1; i <= 100; i++) {
+			statistics.record(i);
+		}
+		PerformanceSnapshot snapshot = statistics.getSnapshot();
+		assertEquals(100, snapshot.getCount());
+		assertEquals(5050, snapshot.getTotalTime());
+		assertEquals(50.5, snapshot.getMeanTime(), 0.0001);
+		assertEquals(100, snapshot.getMaxTime());
+		assertBetween(50, 50 * 9 / 8, snapshot.getPercentile50());
+		assertBetween(95, 100, snapshot.getPercentile95());
+		assertBetween(99, 100, snapshot.getPercentile99());
+	}
+
+	public void testMergesStripesAcrossThreads() throws Exception {
+		final PerformanceStatistics statistics = new PerformanceStatistics("test", 8);
+		Thread[] threads = new Thread[10];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						statistics.record(j % 10);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		PerformanceSnapshot snapshot = statistics.getSnapshot();
+		assertEquals(10000, snapshot.getCount());
+		assertEquals(45000, snapshot.getTotalTime());
+		assertEquals(9, snapshot.getMaxTime());
+		assertEquals(4, snapshot.getPercentile50());
+		statistics.reset();
+		assertEquals(0, statistics.getSnapshot().getCount());
+	}
+
+	private void assertBetween(long low, long high, long value) {
+		assertTrue("Expected value between " + low + " and " + high + ", not " + value,
+				value >= low && value <= high);
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class BeanPropertySetterTests extends TestCase {
+
+	private Map getSetters(Class beanClass) {
+		BeanPropertySetter[] setters = BeanPropertySetter.forClass(beanClass);
+		Map map = new HashMap();
+		for (int i = 0; i < setters.length; i++) {
+			map.put(setters[i].getPropertyName(), setters[i]);
+		}
+		return map;
+	}
+
+	public void testWritablePropertiesOnly() {
+		Map setters = getSetters(TestBean.class);
+		assertTrue(setters.containsKey("name"));
+		assertTrue(setters.containsKey("age"));
+		assertFalse("Read-only property", setters.containsKey("class"));
+		assertEquals(int.class, ((BeanPropertySetter) setters.get("age")).getPropertyType());
+	}
+
+	public void testSetValues() {
+		Map setters = getSetters(TestBean.class);
+		BeanPropertySetter nameSetter = (BeanPropertySetter) setters.get("name");
+		BeanPropertySetter ageSetter = (BeanPropertySetter) setters.get("age");
+		// enough calls to switch to generated accessors
+		for (int i = 0; i < 200; i++) {
+			TestBean tb = new TestBean();
+			nameSetter.setValue(tb, "tb" + i);
+			ageSetter.setValue(tb, new Integer(i));
+			assertEquals("tb" + i, tb.getName());
+			assertEquals(i, tb.getAge());
+		}
+	}
+
+	public void testTypeMismatch() {
+		BeanPropertySetter ageSetter = (BeanPropertySetter) getSetters(TestBean.class).get("age");
+		try {
+			ageSetter.setValue(new TestBean(), "notAnInt");
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			assertEquals("age", ex.getPropertyChangeEvent().getPropertyName());
+		}
+		try {
+			ageSetter.setValue(new TestBean(), null);
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			// expected
+		}
+	}
+
+	public void testSetterException() {
+		BeanPropertySetter touchySetter = (BeanPropertySetter) getSetters(TestBean.class).get("touchy");
+		try {
+			touchySetter.setValue(new TestBean(), "a.b");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertEquals("Can't contain a .", ex.getCause().getMessage());
+		}
+	}
+
+}
@@ -868,6 +868,135 @@ public class BeanWrapperTestSuite extends TestCase {
 		assertEquals(2, tb.getArray()[1]);
 	}
 
+	public void testPrimitiveAndWrapperConversion() {
+		NumberTestBean tb = new NumberTestBean();
+		BeanWrapper bw = new BeanWrapperImpl(tb);
+		bw.setPropertyValue("short1", "8");
+		bw.setPropertyValue("short2", "0x10");
+		bw.setPropertyValue("int1", "-5");
+		bw.setPropertyValue("int2", "010");
+		bw.setPropertyValue("long1", "#ff");
+		bw.setPropertyValue("long2", "5000000000");
+		bw.setPropertyValue("float1", "1.5");
+		bw.setPropertyValue("float2", "2.5");
+		bw.setPropertyValue("double1", "3.5");
+		bw.setPropertyValue("double2", new String[] {"4.5"});
+		assertEquals(8, tb.getShort1());
+		assertEquals(new Short((short) 16), tb.getShort2());
+		assertEquals(-5, tb.getInt1());
+		assertEquals(new Integer(8), tb.getInt2());
+		assertEquals(255, tb.getLong1());
+		assertEquals(new Long(5000000000L), tb.getLong2());
+		assertEquals(1.5f, tb.getFloat1(), 0f);
+		assertEquals(new Float(2.5f), tb.getFloat2());
+		assertEquals(3.5, tb.getDouble1(), 0.0);
+		assertEquals(new Double(4.5), tb.getDouble2());
+	}
+
+	public void testBooleanConversion() {
+		BooleanTestBean tb = new BooleanTestBean();
+		BeanWrapper bw = new BeanWrapperImpl(tb);
+		bw.setPropertyValue("bool1", "TRUE");
+		bw.setPropertyValue("bool2", "false");
+		assertTrue(tb.isBool1());
+		assertEquals(Boolean.FALSE, tb.getBool2());
+		try {
+			bw.setPropertyValue("bool1", "yes");
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			// expected
+			assertTrue(tb.isBool1());
+		}
+	}
+
+	public void testCustomEditorOverridesPrimitiveConversion() {
+		TestBean tb = new TestBean();
+		BeanWrapper bw = new BeanWrapperImpl(tb);
+		bw.setPropertyValue("age", "1");
+		bw.registerCustomEditor(int.class, new PropertyEditorSupport() {
+			public void setAsText(String text) {
+				setValue(new Integer(text.length()));
+			}
+		});
+		bw.setPropertyValue("age", "abc");
+		assertEquals(3, tb.getAge());
+	}
+
+	public void testNestedPropertyAfterNestedBeanReplaced() {
+		TestBean tb = new TestBean();
+		tb.setSpouse(new TestBean("spouse1", 1));
+		BeanWrapper bw = new BeanWrapperImpl(tb);
+		bw.setPropertyValue("spouse.age", "2");
+		assertEquals(2, tb.getSpouse().getAge());
+		tb.setSpouse(new TestBean("spouse2", 3));
+		assertEquals("spouse2", bw.getPropertyValue("spouse.name"));
+		bw.setPropertyValue("spouse.age", "4");
+		assertEquals(4, tb.getSpouse().getAge());
+		assertEquals(new Integer(4), bw.getPropertyValue("spouse.age"));
+	}
+
+	public void testNestedCustomEditorAfterNestedBeanReplaced() {
+		TestBean tb = new TestBean();
+		tb.setSpouse(new TestBean("spouse1", 1));
+		tb.getSpouse().setSpouse(new TestBean("spouse2", 2));
+		BeanWrapper bw = new BeanWrapperImpl(tb);
+		bw.registerCustomEditor(String.class, "spouse.spouse.name", new PropertyEditorSupport() {
+			public void setAsText(String text) throws IllegalArgumentException {
+				setValue("prefix" + text);
+			}
+		});
+		bw.setPropertyValue("spouse.spouse.name", "a");
+		assertEquals("prefixa", tb.getSpouse().getSpouse().getName());
+		TestBean spouse = new TestBean("spouse3", 3);
+		spouse.setSpouse(new TestBean("spouse4", 4));
+		tb.setSpouse(spouse);
+		bw.setPropertyValue("spouse.spouse.name", "b");
+		assertEquals("prefixb", spouse.getSpouse().getName());
+	}
+
+	public void testNestedIndexedPropertyPaths() {
+		TestBean tb = new TestBean();
+		tb.setNestedIndexedBean(new IndexedTestBean());
+		BeanWrapper bw = new BeanWrapperImpl(tb);
+		for (int i = 0; i < 2; i++) {
+			assertEquals("name0", bw.getPropertyValue("nestedIndexedBean.array[0].name"));
+			assertEquals("name3", bw.getPropertyValue("nestedIndexedBean.list[1].name"));
+			assertEquals("name4", bw.getPropertyValue("nestedIndexedBean.map['key1'].name"));
+			assertEquals("name5", bw.getPropertyValue("nestedIndexedBean.map[\"key2\"].name"));
+			assertEquals(int.class, bw.getPropertyDescriptor("nestedIndexedBean.map[key2].age").getPropertyType());
+		}
+		bw.setPropertyValue("nestedIndexedBean.map[key2].name", "name5x");
+		assertEquals("name5x", bw.getPropertyValue("nestedIndexedBean.map[key2].name"));
+	}
+
+	public void testNullValueInNestedPath() {
+		BeanWrapper bw = new BeanWrapperImpl(new TestBean());
+		try {
+			bw.getPropertyValue("spouse.name");
+			fail("Should have thrown NullValueInNestedPathException");
+		}
+		catch (NullValueInNestedPathException ex) {
+			// expected
+			assertEquals("spouse", ex.getPropertyName());
+			assertEquals(TestBean.class, ex.getBeanClass());
+		}
+	}
+
+	public void testDefaultEditorReusedForSameType() {
+		PropsTest pt = new PropsTest();
+		BeanWrapper bw = new BeanWrapperImpl(pt);
+		bw.setPropertyValue("stringArray", "a,b");
+		assertEquals(2, pt.stringArray.length);
+		bw.setPropertyValue("stringArray", "c,d,e");
+		assertEquals(3, pt.stringArray.length);
+		assertEquals("e", pt.stringArray[2]);
+		bw.setPropertyValue("properties", "x=1");
+		bw.setPropertyValue("properties", "y=2");
+		assertEquals("2", pt.props.getProperty("y"));
+		assertNull(pt.props.getProperty("x"));
+	}
+
 
 	private static class NoRead {
 
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class CachedIntrospectionResultsTests extends TestCase {
+
+	public void testCachedForClassesOfOwnClassLoader() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(PlainBean.class);
+		assertSame(results, CachedIntrospectionResults.forClass(PlainBean.class));
+		assertEquals("name", results.getPropertyDescriptor("name").getName());
+	}
+
+	public void testConcurrentFirstAccess() throws Exception {
+		for (int run = 0; run < 5; run++) {
+			final Class beanClass = new ThrowawayClassLoader().loadClass(PlainBean.class.getName());
+			final List results = Collections.synchronizedList(new ArrayList());
+			final Object startSignal = new Object();
+			final boolean[] started = new boolean[1];
+			Thread[] threads = new Thread[8];
+			for (int i = 0; i < threads.length; i++) {
+				threads[i] = new Thread() {
+					public void run() {
+						synchronized (startSignal) {
+							while (!started[0]) {
+								try {
+									startSignal.wait();
+								}
+								catch (InterruptedException ex) {
+									return;
+								}
+							}
+						}
+						results.add(CachedIntrospectionResults.forClass(beanClass));
+					}
+				};
+				threads[i].start();
+			}
+			synchronized (startSignal) {
+				started[0] = true;
+				startSignal.notifyAll();
+			}
+			for (int i = 0; i < threads.length; i++) {
+				threads[i].join(5000);
+			}
+			assertEquals(threads.length, results.size());
+			for (int i = 1; i < results.size(); i++) {
+				assertSame("All threads must receive the same introspection results", results.get(0), results.get(i));
+			}
+			// keep the class, and hence the weakly cached results, alive until here
+			assertSame(beanClass, ((CachedIntrospectionResults) results.get(0)).getBeanClass());
+		}
+	}
+
+	public void testResultsForOtherClassLoaderSurviveGarbageCollection() throws Exception {
+		Class beanClass = new ThrowawayClassLoader().loadClass(PlainBean.class.getName());
+		WeakReference resultsRef = new WeakReference(CachedIntrospectionResults.forClass(beanClass));
+		System.gc();
+		assertSame(resultsRef.get(), CachedIntrospectionResults.forClass(beanClass));
+	}
+
+	public void testClassLoaderReleasedAfterRedeploy() throws Exception {
+		WeakReference loaderRef = introspectInThrowawayClassLoader(false);
+		// the results are held softly: released once memory runs low
+		clearSoftReferences();
+		assertTrue("Class loader should have been garbage collected", isCollected(loaderRef));
+	}
+
+	public void testAcceptedClassLoaderReleasedAfterClear() throws Exception {
+		WeakReference loaderRef = introspectInThrowawayClassLoader(true);
+		assertFalse("Accepted class loader should have been kept", isCollected(loaderRef));
+		CachedIntrospectionResults.clearClassLoader((ClassLoader) loaderRef.get());
+		assertTrue("Class loader should have been garbage collected", isCollected(loaderRef));
+	}
+
+	private WeakReference introspectInThrowawayClassLoader(boolean accept) throws Exception {
+		ClassLoader loader = new ThrowawayClassLoader();
+		if (accept) {
+			CachedIntrospectionResults.acceptClassLoader(loader);
+		}
+		Class beanClass = loader.loadClass(PlainBean.class.getName());
+		assertNotSame(PlainBean.class, beanClass);
+		BeanWrapper bw = new BeanWrapperImpl(beanClass);
+		bw.setPropertyValue("name", "Rod");
+		assertEquals("Rod", bw.getPropertyValue("name"));
+		assertSame(CachedIntrospectionResults.forClass(beanClass), CachedIntrospectionResults.forClass(beanClass));
+		return new WeakReference(loader);
+	}
+
+	/**
+	 * Fill the heap until soft references are cleared, as the JVM
+	 * guarantees before throwing an OutOfMemoryError.
+	 */
+	private void clearSoftReferences() {
+		Object marker = new Object();
+		SoftReference markerRef = new SoftReference(marker);
+		marker = null;
+		List filler = new ArrayList();
+		try {
+			while (markerRef.get() != null) {
+				filler.add(new long[1024 * 1024]);
+			}
+		}
+		catch (OutOfMemoryError err) {
+			// soft references have been cleared
+		}
+		filler = null;
+	}
+
+	private boolean isCollected(WeakReference ref) throws InterruptedException {
+		for (int i = 0; i < 20 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return (ref.get() == null);
+	}
+
+
+	public static class PlainBean {
+
+		private String name;
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+
+	/**
+	 * Class loader that defines its own copy of PlainBean,
+	 * like the class loader of a web application.
+	 */
+	private static class ThrowawayClassLoader extends ClassLoader {
+
+		public ThrowawayClassLoader() {
+			super(CachedIntrospectionResultsTests.class.getClassLoader());
+		}
+
+		protected synchronized Class loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!name.equals(PlainBean.class.getName())) {
+				return super.loadClass(name, resolve);
+			}
+			Class clazz = findLoadedClass(name);
+			if (clazz == null) {
+				byte[] bytes = readClassFile(name);
+				clazz = defineClass(name, bytes, 0, bytes.length);
+			}
+			if (resolve) {
+				resolveClass(clazz);
+			}
+			return clazz;
+		}
+
+		private byte[] readClassFile(String name) throws ClassNotFoundException {
+			InputStream is = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+			if (is == null) {
+				throw new ClassNotFoundException(name);
+			}
+			try {
+				ByteArrayOutputStream os = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = is.read(buffer)) != -1) {
+					os.write(buffer, 0, read);
+				}
+				is.close();
+				return os.toByteArray();
+			}
+			catch (IOException ex) {
+				throw new ClassNotFoundException(name, ex);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class FastPropertyAccessorsTests extends TestCase {
+
+	private PropertyDescriptor[] pds;
+
+	private FastPropertyAccessors accessors;
+
+	protected void setUp() throws Exception {
+		BeanInfo beanInfo = Introspector.getBeanInfo(ThrowingSetterBean.class);
+		this.pds = beanInfo.getPropertyDescriptors();
+		this.accessors = new FastPropertyAccessors(ThrowingSetterBean.class, this.pds);
+	}
+
+	private PropertyDescriptor getPropertyDescriptor(String name) {
+		for (int i = 0; i < this.pds.length; i++) {
+			if (this.pds[i].getName().equals(name)) {
+				return this.pds[i];
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	public void testReadAndWrite() throws Exception {
+		ThrowingSetterBean bean = new ThrowingSetterBean();
+		TestBean spouse = new TestBean();
+		this.accessors.write(getPropertyDescriptor("name"), bean, "rod");
+		this.accessors.write(getPropertyDescriptor("age"), bean, new Integer(32));
+		this.accessors.write(getPropertyDescriptor("spouse"), bean, spouse);
+		assertEquals("rod", bean.getName());
+		assertEquals(32, bean.getAge());
+		assertSame(spouse, bean.getSpouse());
+		assertEquals("rod", this.accessors.read(getPropertyDescriptor("name"), bean));
+		assertEquals(new Integer(32), this.accessors.read(getPropertyDescriptor("age"), bean));
+		assertSame(spouse, this.accessors.read(getPropertyDescriptor("spouse"), bean));
+		this.accessors.write(getPropertyDescriptor("spouse"), bean, null);
+		assertNull(bean.getSpouse());
+	}
+
+	public void testWriteMismatchedValue() throws Exception {
+		try {
+			this.accessors.write(getPropertyDescriptor("age"), new ThrowingSetterBean(), "32");
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected, as with Method.invoke
+		}
+	}
+
+	public void testWriteNullToPrimitive() throws Exception {
+		try {
+			this.accessors.write(getPropertyDescriptor("age"), new ThrowingSetterBean(), null);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected, as with Method.invoke
+		}
+	}
+
+	public void testSetterThrowsException() throws Exception {
+		try {
+			this.accessors.write(getPropertyDescriptor("failing"), new ThrowingSetterBean(), "value");
+			fail("Should have thrown InvocationTargetException");
+		}
+		catch (InvocationTargetException ex) {
+			assertTrue(ex.getTargetException() instanceof UnsupportedOperationException);
+		}
+	}
+
+	public void testBeanWrapperWithGeneratedAccessors() {
+		for (int i = 0; i < 200; i++) {
+			BeanWrapper bw = new BeanWrapperImpl(new ThrowingSetterBean());
+			bw.setPropertyValue("age", String.valueOf(i));
+			assertEquals(new Integer(i), bw.getPropertyValue("age"));
+		}
+		assertTrue(CachedIntrospectionResults.forClass(ThrowingSetterBean.class).hasGeneratedAccessors());
+		BeanWrapper bw = new BeanWrapperImpl(new ThrowingSetterBean());
+		try {
+			bw.setPropertyValue("age", "foobar");
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			// expected
+		}
+		try {
+			bw.setPropertyValue("failing", "value");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertTrue(ex.getCause() instanceof UnsupportedOperationException);
+		}
+	}
+
+
+	public static class ThrowingSetterBean extends TestBean {
+
+		public void setFailing(String failing) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
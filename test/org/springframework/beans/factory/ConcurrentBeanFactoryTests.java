@@ -27,6 +27,10 @@ import junit.framework.TestCase;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.xml.XmlBeanFactory;
 import org.springframework.beans.propertyeditors.CustomDateEditor;
 
@@ -99,6 +103,135 @@ public class ConcurrentBeanFactoryTests extends TestCase {
 		}
 	}
 
+	public void testSlowSingletonDoesNotBlockUnrelatedSingletons() throws Exception {
+		final DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("slow", new RootBeanDefinition(SlowBean.class, null));
+		for (int i = 0; i < 20; i++) {
+			lbf.registerBeanDefinition("lazy" + i, new RootBeanDefinition(ConcurrentBean.class, null));
+		}
+		int created = SlowBean.getInstanceCount();
+		Thread slowThread = new Thread() {
+			public void run() {
+				lbf.getBean("slow");
+			}
+		};
+		slowThread.start();
+		SlowBean.awaitInstanceCount(created + 1);
+
+		long start = System.currentTimeMillis();
+		Runnable[] runs = new Runnable[20];
+		for (int i = 0; i < runs.length; i++) {
+			final String beanName = "lazy" + i;
+			runs[i] = new Runnable() {
+				public void run() {
+					assertSame(lbf.getBean(beanName), lbf.getBean(beanName));
+				}
+			};
+		}
+		runConcurrently(runs);
+		assertTrue("Unrelated singletons should not wait for slow singleton",
+				System.currentTimeMillis() - start < SlowBean.DELAY);
+		assertTrue(slowThread.isAlive());
+		slowThread.join();
+	}
+
+	public void testManyThreadsRequestLazySingleton() throws Exception {
+		final DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("slow", new RootBeanDefinition(SlowBean.class, null));
+		final Set instances = Collections.synchronizedSet(new HashSet());
+		Runnable[] runs = new Runnable[50];
+		for (int i = 0; i < runs.length; i++) {
+			runs[i] = new Runnable() {
+				public void run() {
+					SlowBean bean = (SlowBean) lbf.getBean("slow");
+					assertTrue("Must only see fully initialized singleton", bean.isInitialized());
+					instances.add(bean);
+				}
+			};
+		}
+		int created = SlowBean.getInstanceCount();
+		runConcurrently(runs);
+		assertEquals(1, instances.size());
+		assertEquals(created + 1, SlowBean.getInstanceCount());
+	}
+
+	public void testCircularReferenceAcrossThreads() throws Exception {
+		final DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		MutablePropertyValues pvs1 = new MutablePropertyValues();
+		pvs1.addPropertyValue("partner", new RuntimeBeanReference("slow2"));
+		lbf.registerBeanDefinition("slow1", new RootBeanDefinition(SlowBean.class, pvs1));
+		MutablePropertyValues pvs2 = new MutablePropertyValues();
+		pvs2.addPropertyValue("partner", new RuntimeBeanReference("slow1"));
+		lbf.registerBeanDefinition("slow2", new RootBeanDefinition(SlowBean.class, pvs2));
+		runConcurrently(new Runnable[] {
+			new Runnable() {
+				public void run() {
+					lbf.getBean("slow1");
+				}
+			},
+			new Runnable() {
+				public void run() {
+					lbf.getBean("slow2");
+				}
+			}
+		});
+		SlowBean slow1 = (SlowBean) lbf.getBean("slow1");
+		SlowBean slow2 = (SlowBean) lbf.getBean("slow2");
+		assertSame(slow2, slow1.getPartner());
+		assertSame(slow1, slow2.getPartner());
+	}
+
+	public void testCachedSingletonLookupThroughput() throws Exception {
+		final DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("singleton", new RootBeanDefinition(ConcurrentBean.class, null));
+		final Object singleton = lbf.getBean("singleton");
+		final int lookups = 20000;
+		Runnable[] runs = new Runnable[20];
+		for (int i = 0; i < runs.length; i++) {
+			runs[i] = new Runnable() {
+				public void run() {
+					for (int j = 0; j < lookups; j++) {
+						if (lbf.getBean("singleton") != singleton) {
+							throw new IllegalStateException("Singleton lookup returned different instance");
+						}
+					}
+				}
+			};
+		}
+		long start = System.currentTimeMillis();
+		runConcurrently(runs);
+		long time = Math.max(System.currentTimeMillis() - start, 1);
+		logger.info(runs.length + " threads performed " + (runs.length * lookups) + " singleton lookups in " +
+				time + " ms: " + (runs.length * lookups * 1000L / time) + " lookups/s");
+	}
+
+	private void runConcurrently(Runnable[] runs) throws Exception {
+		Thread[] threads = new Thread[runs.length];
+		for (int i = 0; i < runs.length; i++) {
+			final Runnable run = runs[i];
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						run.run();
+					}
+					catch (Throwable e) {
+						ex = e;
+					}
+				}
+			};
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join(10000);
+			assertFalse("Thread should have completed", threads[i].isAlive());
+		}
+		if (ex != null) {
+			fail(ex.toString());
+		}
+	}
+
+
 	private class TestRun implements Runnable {
 
 		public void run() {
@@ -130,6 +263,55 @@ public class ConcurrentBeanFactoryTests extends TestCase {
 	}
 
 
+	/**
+	 * Bean that takes a while to construct.
+	 */
+	public static class SlowBean implements InitializingBean {
+
+		public static final long DELAY = 500;
+
+		private static int instanceCount;
+
+		private SlowBean partner;
+
+		private boolean initialized;
+
+		public SlowBean() throws InterruptedException {
+			synchronized (SlowBean.class) {
+				instanceCount++;
+				SlowBean.class.notifyAll();
+			}
+			Thread.sleep(DELAY);
+		}
+
+		public static synchronized int getInstanceCount() {
+			return instanceCount;
+		}
+
+		public static synchronized void awaitInstanceCount(int count) throws InterruptedException {
+			while (instanceCount < count) {
+				SlowBean.class.wait();
+			}
+		}
+
+		public SlowBean getPartner() {
+			return partner;
+		}
+
+		public void setPartner(SlowBean partner) {
+			this.partner = partner;
+		}
+
+		public void afterPropertiesSet() {
+			this.initialized = true;
+		}
+
+		public boolean isInitialized() {
+			return initialized;
+		}
+	}
+
+
 	public static class ConcurrentBean {
 
 		private Date date;
@@ -16,6 +16,7 @@
 
 package org.springframework.beans.factory;
 
+import java.io.Serializable;
 import java.text.NumberFormat;
 import java.util.Locale;
 import java.util.Map;
@@ -25,13 +26,16 @@ import junit.framework.TestCase;
 
 import org.springframework.aop.interceptor.SideEffectBean;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.DerivedTestBean;
 import org.springframework.beans.ITestBean;
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.NestedTestBean;
 import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TestBean;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.ChildBeanDefinition;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.PropertiesBeanDefinitionReader;
 import org.springframework.beans.factory.support.RootBeanDefinition;
@@ -261,6 +265,107 @@ public class DefaultListableBeanFactoryTestSuite extends TestCase {
 		assertTrue("Specified singletons equal", kerry1 == kerry2);
 	}
 
+	public void testMergedDefinitionReflectsParentReRegistration() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		Properties p = new Properties();
+		p.setProperty("wife.class", "org.springframework.beans.TestBean");
+		p.setProperty("wife.name", "kerry");
+		p.setProperty("wife.(singleton)", "false");
+		p.setProperty("kerry.parent", "wife");
+		p.setProperty("kerry.(singleton)", "false");
+		p.setProperty("kerry.age", "35");
+		(new PropertiesBeanDefinitionReader(lbf)).registerBeanDefinitions(p);
+		TestBean kerry = (TestBean) lbf.getBean("kerry");
+		assertEquals("kerry", kerry.getName());
+		assertSame(lbf.getMergedBeanDefinition("kerry", false), lbf.getMergedBeanDefinition("kerry", false));
+
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("name", "rod");
+		lbf.registerBeanDefinition("wife", new RootBeanDefinition(TestBean.class, pvs, false));
+		kerry = (TestBean) lbf.getBean("kerry");
+		assertEquals("Merged definition must reflect new parent definition", "rod", kerry.getName());
+		assertEquals(35, kerry.getAge());
+	}
+
+	public void testMergedDefinitionReflectsReRegistrationDuringMerge() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory() {
+			private boolean reRegistered;
+			protected RootBeanDefinition getMergedBeanDefinition(String beanName, BeanDefinition bd) {
+				RootBeanDefinition mbd = super.getMergedBeanDefinition(beanName, bd);
+				if ("kerry".equals(beanName) && !this.reRegistered) {
+					// simulate another thread registering a definition in the meantime
+					this.reRegistered = true;
+					MutablePropertyValues pvs = new MutablePropertyValues();
+					pvs.addPropertyValue("name", "rod");
+					registerBeanDefinition("wife", new RootBeanDefinition(TestBean.class, pvs, false));
+				}
+				return mbd;
+			}
+		};
+		Properties p = new Properties();
+		p.setProperty("wife.class", "org.springframework.beans.TestBean");
+		p.setProperty("wife.name", "kerry");
+		p.setProperty("wife.(singleton)", "false");
+		p.setProperty("kerry.parent", "wife");
+		p.setProperty("kerry.(singleton)", "false");
+		(new PropertiesBeanDefinitionReader(lbf)).registerBeanDefinitions(p);
+		assertEquals("kerry", ((TestBean) lbf.getBean("kerry")).getName());
+		assertEquals("Stale merged definition must not have been cached",
+				"rod", ((TestBean) lbf.getBean("kerry")).getName());
+	}
+
+	public void testMergedDefinitionReflectsReRegistrationInParentFactory() throws Exception {
+		DefaultListableBeanFactory parent = new DefaultListableBeanFactory();
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("name", "kerry");
+		parent.registerBeanDefinition("wife", new RootBeanDefinition(TestBean.class, pvs, false));
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory(parent);
+		pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("age", "35");
+		ChildBeanDefinition kerryDefinition = new ChildBeanDefinition("wife", pvs);
+		kerryDefinition.setSingleton(false);
+		lbf.registerBeanDefinition("kerry", kerryDefinition);
+		TestBean kerry = (TestBean) lbf.getBean("kerry");
+		assertEquals("kerry", kerry.getName());
+
+		pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("name", "rod");
+		parent.registerBeanDefinition("wife", new RootBeanDefinition(TestBean.class, pvs, false));
+		kerry = (TestBean) lbf.getBean("kerry");
+		assertEquals("Merged definition must reflect new definition in parent factory", "rod", kerry.getName());
+		assertEquals(35, kerry.getAge());
+		assertEquals("rod", lbf.getMergedBeanDefinition("kerry", false).getPropertyValues().getPropertyValue("name").getValue());
+	}
+
+	public void testBeanDefinitionNamesByTypeReflectReRegistrationInParentFactory() {
+		DefaultListableBeanFactory parent = new DefaultListableBeanFactory();
+		parent.registerBeanDefinition("p", new RootBeanDefinition(TestBean.class, null));
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory(parent);
+		lbf.registerBeanDefinition("c", new ChildBeanDefinition("p", null));
+		assertEquals(1, lbf.getBeanDefinitionNames(TestBean.class).length);
+
+		parent.registerBeanDefinition("p", new RootBeanDefinition(NestedTestBean.class, null));
+		assertEquals(0, lbf.getBeanDefinitionNames(TestBean.class).length);
+		String[] names = lbf.getBeanDefinitionNames(NestedTestBean.class);
+		assertEquals(1, names.length);
+		assertEquals("c", names[0]);
+	}
+
+	public void testAutodetectAutowireModeResolvedOnce() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class, null));
+		RootBeanDefinition bd = new RootBeanDefinition(ConstructorDependency.class, RootBeanDefinition.AUTOWIRE_AUTODETECT);
+		bd.setSingleton(false);
+		lbf.registerBeanDefinition("dependent", bd);
+		assertEquals(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR, bd.getResolvedAutowireMode());
+		ConstructorDependency dependent1 = (ConstructorDependency) lbf.getBean("dependent");
+		ConstructorDependency dependent2 = (ConstructorDependency) lbf.getBean("dependent");
+		assertNotSame(dependent1, dependent2);
+		assertSame(lbf.getBean("spouse"), dependent2.spouse);
+		bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_NAME);
+		assertEquals(RootBeanDefinition.AUTOWIRE_BY_NAME, bd.getResolvedAutowireMode());
+	}
+
 	/*
 	public void testInvalidBeanDefinition() throws Exception {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
@@ -379,6 +484,66 @@ public class DefaultListableBeanFactoryTestSuite extends TestCase {
 		assertTrue(beansOfType.containsValue(singletonObject));
 	}
 
+	public void testBeanDefinitionNamesByType() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		Properties p = new Properties();
+		p.setProperty("tb.class", "org.springframework.beans.TestBean");
+		p.setProperty("derived.class", "org.springframework.beans.DerivedTestBean");
+		p.setProperty("child.parent", "derived");
+		p.setProperty("nested.class", "org.springframework.beans.NestedTestBean");
+		(new PropertiesBeanDefinitionReader(lbf)).registerBeanDefinitions(p);
+		assertEquals(3, lbf.getBeanDefinitionNames(TestBean.class).length);
+		assertEquals(3, lbf.getBeanDefinitionNames(ITestBean.class).length);
+		assertEquals(2, lbf.getBeanDefinitionNames(Serializable.class).length);
+		assertEquals(4, lbf.getBeanDefinitionNames(Object.class).length);
+		assertEquals(0, lbf.getBeanDefinitionNames(String.class).length);
+
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(TestBean.class, null));
+		String[] names = lbf.getBeanDefinitionNames(ITestBean.class);
+		assertEquals("Type index must include new bean definition", 4, names.length);
+		assertEquals("tb2", names[3]);
+		lbf.registerBeanDefinition("derived", new RootBeanDefinition(NestedTestBean.class, null));
+		assertEquals("Type index must reflect overridden parent definition",
+				2, lbf.getBeanDefinitionNames(ITestBean.class).length);
+	}
+
+	public void testSingletonNamesByType() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerSingleton("tb", new TestBean());
+		lbf.registerSingleton("derived", new DerivedTestBean());
+		lbf.registerSingleton("nested", new NestedTestBean());
+		assertEquals(2, lbf.getSingletonNames(ITestBean.class).length);
+		assertEquals(1, lbf.getSingletonNames(Serializable.class).length);
+		assertEquals(3, lbf.getSingletonNames(Object.class).length);
+		assertEquals(3, lbf.getSingletonNames(null).length);
+		assertEquals(0, lbf.getSingletonNames(String.class).length);
+		Map beansOfType = lbf.getBeansOfType(ITestBean.class, false, false);
+		assertEquals(2, beansOfType.size());
+		lbf.destroySingletons();
+		assertEquals(0, lbf.getSingletonNames(ITestBean.class).length);
+		assertEquals(0, lbf.getSingletonNames(Object.class).length);
+	}
+
+	public void testSingletonNamesByTypeWithManySingletons() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		for (int i = 0; i < 100; i++) {
+			lbf.registerBeanDefinition("bean" + i, new RootBeanDefinition(TestBean.class, null));
+		}
+		for (int i = 0; i < 100; i++) {
+			Object bean = lbf.getBean("bean" + i);
+			assertSame(bean, lbf.getBean("bean" + i));
+			assertEquals(i + 1, lbf.getSingletonNames(ITestBean.class).length);
+		}
+		lbf.registerSingleton("nested", new NestedTestBean());
+		assertEquals(101, lbf.getSingletonNames(null).length);
+		assertEquals(100, lbf.getSingletonNames(TestBean.class).length);
+		assertEquals(101, lbf.getSingletonNames(Object.class).length);
+		assertEquals(100, lbf.getBeansOfType(ITestBean.class, false, false).size());
+		lbf.destroySingletons();
+		assertEquals(0, lbf.getSingletonNames(null).length);
+		assertEquals(0, lbf.getSingletonNames(Object.class).length);
+	}
+
 	public void testRegisterExistingSingletonWithAutowire() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
 		MutablePropertyValues pvs = new MutablePropertyValues();
@@ -630,6 +795,193 @@ public class DefaultListableBeanFactoryTestSuite extends TestCase {
 		}
 	}
 
+	public void testParallelPreInstantiation() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationThreads(4);
+		for (int i = 0; i < 4; i++) {
+			MutablePropertyValues pvs = new MutablePropertyValues();
+			pvs.addPropertyValue("delay", "300");
+			lbf.registerBeanDefinition("slow" + i, new RootBeanDefinition(SlowInitTestBean.class, pvs));
+		}
+		long start = System.currentTimeMillis();
+		lbf.preInstantiateSingletons();
+		long time = System.currentTimeMillis() - start;
+		for (int i = 0; i < 4; i++) {
+			assertTrue(((SlowInitTestBean) lbf.getBean("slow" + i)).isInitialized());
+		}
+		assertTrue("Independent singletons should have been instantiated concurrently, took " + time + " ms",
+				time < 1000);
+	}
+
+	public void testParallelPreInstantiationInDependencyOrder() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationThreads(3);
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("spouse", new RuntimeBeanReference("prototype"));
+		lbf.registerBeanDefinition("dependent", new RootBeanDefinition(SlowInitTestBean.class, pvs));
+		pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("spouse", new RuntimeBeanReference("dependency"));
+		lbf.registerBeanDefinition("prototype", new RootBeanDefinition(SlowInitTestBean.class, pvs, false));
+		pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("delay", "100");
+		lbf.registerBeanDefinition("dependency", new RootBeanDefinition(SlowInitTestBean.class, pvs));
+		RootBeanDefinition bd = new RootBeanDefinition(SlowInitTestBean.class, null);
+		bd.setDependsOn(new String[] {"dependent"});
+		lbf.registerBeanDefinition("last", bd);
+		lbf.preInstantiateSingletons();
+
+		SlowInitTestBean dependency = (SlowInitTestBean) lbf.getBean("dependency");
+		SlowInitTestBean dependent = (SlowInitTestBean) lbf.getBean("dependent");
+		SlowInitTestBean last = (SlowInitTestBean) lbf.getBean("last");
+		assertSame(dependency, dependent.getSpouse().getSpouse());
+		assertTrue(dependency.getInitializedTime() <= dependent.getInitializedTime());
+		assertTrue(dependent.getInitializedTime() <= last.getInitializedTime());
+	}
+
+	public void testParallelPreInstantiationWithCircularReferences() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationThreads(4);
+		for (int i = 0; i < 100; i++) {
+			MutablePropertyValues pvs = new MutablePropertyValues();
+			pvs.addPropertyValue(new PropertyValue("spouse", new RuntimeBeanReference("bean" + (i < 9 ? i+1 : 0))));
+			lbf.registerBeanDefinition("bean" + i, new RootBeanDefinition(TestBean.class, pvs));
+		}
+		lbf.registerBeanDefinition("independent", new RootBeanDefinition(TestBean.class, null));
+		lbf.preInstantiateSingletons();
+		for (int i = 0; i < 100; i++) {
+			TestBean bean = (TestBean) lbf.getBean("bean" + i);
+			assertSame(lbf.getBean("bean" + (i < 9 ? i+1 : 0)), bean.getSpouse());
+		}
+		assertEquals(101, lbf.getSingletonNames(TestBean.class).length);
+	}
+
+	public void testParallelPreInstantiationWithAutowiring() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationThreads(2);
+		lbf.registerBeanDefinition("autowired",
+				new RootBeanDefinition(ConstructorDependency.class, RootBeanDefinition.AUTOWIRE_CONSTRUCTOR));
+		lbf.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class, null));
+		lbf.registerBeanDefinition("other", new RootBeanDefinition(NoDependencies.class, null));
+		lbf.preInstantiateSingletons();
+		assertEquals(3, lbf.getSingletonNames(null).length);
+		assertSame(lbf.getBean("spouse"), ((ConstructorDependency) lbf.getBean("autowired")).spouse);
+	}
+
+	public void testParallelPreInstantiationInterrupted() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationThreads(2);
+		lbf.registerBeanDefinition("interrupting1", new RootBeanDefinition(InterruptingTestBean.class, null));
+		lbf.registerBeanDefinition("interrupting2", new RootBeanDefinition(InterruptingTestBean.class, null));
+		InterruptingTestBean.reset();
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+		}
+		finally {
+			assertTrue("Interrupt flag must have been restored", Thread.interrupted());
+		}
+		Thread[] threads = new Thread[Thread.activeCount() + 10];
+		int count = Thread.enumerate(threads);
+		for (int i = 0; i < count; i++) {
+			assertTrue("Worker " + threads[i].getName() + " must have finished",
+					!threads[i].getName().startsWith("preInstantiateSingletons-"));
+		}
+	}
+
+	public void testParallelPreInstantiationFailure() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationThreads(2);
+		lbf.registerBeanDefinition("ok", new RootBeanDefinition(TestBean.class, null));
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("delay", "-1");
+		lbf.registerBeanDefinition("failing", new RootBeanDefinition(SlowInitTestBean.class, pvs));
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+			assertTrue(ex.getMessage().indexOf("'failing'") != -1);
+		}
+	}
+
+
+	/**
+	 * Interrupts the calling thread while it is waiting for a worker thread
+	 * that is still creating an instance of this class.
+	 */
+	public static class InterruptingTestBean implements InitializingBean {
+
+		private static final Object monitor = new Object();
+
+		private static Thread callingThread;
+
+		private static boolean workerStarted;
+
+		public static void reset() {
+			callingThread = Thread.currentThread();
+			workerStarted = false;
+		}
+
+		public void afterPropertiesSet() throws InterruptedException {
+			if (Thread.currentThread() == callingThread) {
+				// return to the factory once a worker is busy with the other instance
+				synchronized (monitor) {
+					while (!workerStarted) {
+						monitor.wait();
+					}
+				}
+			}
+			else {
+				synchronized (monitor) {
+					workerStarted = true;
+					monitor.notifyAll();
+				}
+				busyWait(100);
+				callingThread.interrupt();
+				busyWait(200);
+			}
+		}
+
+		private void busyWait(long millis) {
+			long end = System.currentTimeMillis() + millis;
+			while (System.currentTimeMillis() < end) {
+				Thread.yield();
+			}
+		}
+	}
+
+
+	public static class SlowInitTestBean extends TestBean implements InitializingBean {
+
+		private long delay;
+
+		private long initializedTime;
+
+		public void setDelay(long delay) {
+			this.delay = delay;
+		}
+
+		public void afterPropertiesSet() throws InterruptedException {
+			if (this.delay < 0) {
+				throw new IllegalStateException("Negative delay");
+			}
+			Thread.sleep(this.delay);
+			this.initializedTime = System.currentTimeMillis();
+		}
+
+		public boolean isInitialized() {
+			return (this.initializedTime != 0);
+		}
+
+		public long getInitializedTime() {
+			return initializedTime;
+		}
+	}
+
 
 	public static class NoDependencies {
 	}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.TestBean;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * @author agent
+ */
+public class BeanDefinitionSnapshotTests extends TestCase {
+
+	private File file;
+
+	protected void setUp() throws IOException {
+		this.file = File.createTempFile("beanDefinitions", ".snapshot");
+		this.file.delete();
+	}
+
+	protected void tearDown() {
+		this.file.delete();
+	}
+
+	public void testRoundTrip() throws IOException {
+		String[] documents = new String[] {"test.xml", "collections.xml", "constructor-arg.xml", "child.xml"};
+		for (int i = 0; i < documents.length; i++) {
+			Resource resource = new ClassPathResource("/org/springframework/beans/factory/xml/" + documents[i]);
+			DefaultListableBeanFactory original = new DefaultListableBeanFactory();
+			new XmlBeanDefinitionReader(original).loadBeanDefinitions(resource);
+			String checksum = BeanDefinitionSnapshot.computeChecksum(new Resource[] {resource});
+			assertTrue(new BeanDefinitionSnapshot(this.file).write(original, checksum));
+
+			DefaultListableBeanFactory restored = new DefaultListableBeanFactory();
+			assertTrue(new BeanDefinitionSnapshot(this.file).read(restored, checksum));
+			assertEquals(documents[i], describeFactory(original), describeFactory(restored));
+		}
+	}
+
+	public void testRestoredBeanDefinitionsAreUsable() throws IOException {
+		Resource resource = new ClassPathResource("/org/springframework/beans/factory/xml/collections.xml");
+		DefaultListableBeanFactory original = new DefaultListableBeanFactory();
+		new XmlBeanDefinitionReader(original).loadBeanDefinitions(resource);
+		new BeanDefinitionSnapshot(this.file).write(original, "1");
+
+		DefaultListableBeanFactory restored = new DefaultListableBeanFactory();
+		assertTrue(new BeanDefinitionSnapshot(this.file).read(restored, "1"));
+		TestBean jenny = (TestBean) restored.getBean("jenny");
+		assertSame(restored.getBean("david"), jenny.getSpouse());
+	}
+
+	public void testChecksumMismatch() throws IOException {
+		DefaultListableBeanFactory original = new DefaultListableBeanFactory();
+		original.registerBeanDefinition("rod", new RootBeanDefinition(TestBean.class, null));
+		assertTrue(new BeanDefinitionSnapshot(this.file).write(original, "1"));
+
+		DefaultListableBeanFactory restored = new DefaultListableBeanFactory();
+		assertFalse(new BeanDefinitionSnapshot(this.file).read(restored, "2"));
+		assertEquals(0, restored.getBeanDefinitionCount());
+	}
+
+	public void testIncludedLocations() throws IOException {
+		DefaultListableBeanFactory original = new DefaultListableBeanFactory();
+		original.registerBeanDefinition("rod", new RootBeanDefinition(TestBean.class, null));
+		assertNull(new BeanDefinitionSnapshot(this.file).readIncludedLocations());
+		assertTrue(new BeanDefinitionSnapshot(this.file).write(original, "1", new String[] {"a.xml", "b.xml"}));
+
+		String[] includedLocations = new BeanDefinitionSnapshot(this.file).readIncludedLocations();
+		assertEquals(Arrays.asList(new String[] {"a.xml", "b.xml"}), Arrays.asList(includedLocations));
+		DefaultListableBeanFactory restored = new DefaultListableBeanFactory();
+		assertTrue(new BeanDefinitionSnapshot(this.file).read(restored, "1"));
+		assertEquals(1, restored.getBeanDefinitionCount());
+
+		assertTrue(new BeanDefinitionSnapshot(this.file).write(original, "1"));
+		assertEquals(0, new BeanDefinitionSnapshot(this.file).readIncludedLocations().length);
+	}
+
+	public void testMissingSnapshot() {
+		DefaultListableBeanFactory restored = new DefaultListableBeanFactory();
+		assertFalse(new BeanDefinitionSnapshot(this.file).read(restored, "1"));
+	}
+
+	public void testUnsupportedValue() {
+		DefaultListableBeanFactory original = new DefaultListableBeanFactory();
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("age", new Integer(5));
+		original.registerBeanDefinition("rod", new RootBeanDefinition(TestBean.class, pvs));
+		assertFalse(new BeanDefinitionSnapshot(this.file).write(original, "1"));
+		assertFalse(this.file.exists());
+	}
+
+	public void testMissingBeanClass() {
+		DefaultListableBeanFactory original = new DefaultListableBeanFactory();
+		original.registerBeanDefinition("rod", new RootBeanDefinition(TestBean.class, null));
+		original.registerBeanDefinition("missing", new RootBeanDefinition("org.springframework.beans.NoSuchBean", null, null));
+		assertTrue(new BeanDefinitionSnapshot(this.file).write(original, "1"));
+
+		DefaultListableBeanFactory restored = new DefaultListableBeanFactory();
+		assertFalse(new BeanDefinitionSnapshot(this.file).read(restored, "1"));
+		assertEquals(0, restored.getBeanDefinitionCount());
+		BeanDefinitionSnapshot unresolved = new BeanDefinitionSnapshot(this.file);
+		unresolved.setBeanClassLoader(null);
+		assertTrue(unresolved.read(restored, "1"));
+		assertEquals(2, restored.getBeanDefinitionCount());
+	}
+
+	public void testChecksumDependsOnContent() throws IOException {
+		Resource test = new ClassPathResource("/org/springframework/beans/factory/xml/test.xml");
+		Resource child = new ClassPathResource("/org/springframework/beans/factory/xml/child.xml");
+		String checksum = BeanDefinitionSnapshot.computeChecksum(new Resource[] {test, child});
+		assertEquals(checksum, BeanDefinitionSnapshot.computeChecksum(new Resource[] {test, child}));
+		assertFalse(checksum.equals(BeanDefinitionSnapshot.computeChecksum(new Resource[] {child, test})));
+		assertFalse(checksum.equals(BeanDefinitionSnapshot.computeChecksum(new Resource[] {test})));
+	}
+
+
+	private String describeFactory(DefaultListableBeanFactory bf) {
+		StringBuffer sb = new StringBuffer();
+		String[] beanNames = bf.getBeanDefinitionNames();
+		for (int i = 0; i < beanNames.length; i++) {
+			List aliases = new ArrayList(Arrays.asList(bf.getAliases(beanNames[i])));
+			Collections.sort(aliases);
+			sb.append(beanNames[i]).append(' ').append(aliases).append(" = ");
+			sb.append(describe(bf.getBeanDefinition(beanNames[i]))).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private String describe(Object value) {
+		if (value instanceof AbstractBeanDefinition) {
+			AbstractBeanDefinition bd = (AbstractBeanDefinition) value;
+			StringBuffer sb = new StringBuffer(bd.toString());
+			sb.append("[singleton=").append(bd.isSingleton()).append(",lazyInit=").append(bd.isLazyInit());
+			sb.append(",resource=").append(bd.getResourceDescription());
+			if (bd instanceof RootBeanDefinition) {
+				RootBeanDefinition rbd = (RootBeanDefinition) bd;
+				sb.append(",autowire=").append(rbd.getAutowireMode());
+				sb.append(",dependencyCheck=").append(rbd.getDependencyCheck());
+				sb.append(",dependsOn=").append(rbd.getDependsOn() != null ? Arrays.asList(rbd.getDependsOn()) : null);
+				sb.append(",init=").append(rbd.getInitMethodName()).append(",destroy=").append(rbd.getDestroyMethodName());
+				ConstructorArgumentValues cargs = rbd.getConstructorArgumentValues();
+				sb.append(",indexedArgs=").append(describe(cargs.getIndexedArgumentValues()));
+				sb.append(",genericArgs=").append(describe(cargs.getGenericArgumentValues()));
+			}
+			PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+			for (int i = 0; i < pvs.length; i++) {
+				sb.append(',').append(pvs[i].getName()).append('=').append(describe(pvs[i].getValue()));
+			}
+			return sb.append(']').toString();
+		}
+		else if (value instanceof ConstructorArgumentValues.ValueHolder) {
+			ConstructorArgumentValues.ValueHolder holder = (ConstructorArgumentValues.ValueHolder) value;
+			return "(" + holder.getType() + ")" + describe(holder.getValue());
+		}
+		else if (value instanceof RuntimeBeanReference) {
+			return "<" + ((RuntimeBeanReference) value).getBeanName() + ">";
+		}
+		else if (value instanceof Collection || value instanceof Map) {
+			Collection elements = (value instanceof Map ? ((Map) value).entrySet() : (Collection) value);
+			List descriptions = new ArrayList();
+			for (Iterator it = elements.iterator(); it.hasNext();) {
+				Object element = it.next();
+				if (element instanceof Map.Entry) {
+					Map.Entry entry = (Map.Entry) element;
+					descriptions.add(describe(entry.getKey()) + "=" + describe(entry.getValue()));
+				}
+				else {
+					descriptions.add(describe(element));
+				}
+			}
+			if (!(value instanceof List)) {
+				Collections.sort(descriptions);
+			}
+			return value.getClass().getName() + descriptions;
+		}
+		return (value != null ? value.getClass().getName() + "'" + value + "'" : "null");
+	}
+
+}
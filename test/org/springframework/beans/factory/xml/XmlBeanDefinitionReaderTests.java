@@ -0,0 +1,282 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.TestBean;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.ChildBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * @author agent
+ */
+public class XmlBeanDefinitionReaderTests extends TestCase {
+
+	/**
+	 * Streaming mode must produce the same bean definitions and aliases as the
+	 * DOM-based parser for every bean definition file in the test tree, and fail
+	 * with the same exception for those that are invalid.
+	 */
+	public void testStreamingParityForAllTestDocuments() throws IOException {
+		List files = new ArrayList();
+		collectBeanDefinitionFiles(new File("test"), files);
+		assertTrue("Found bean definition files", files.size() > 50);
+		for (Iterator it = files.iterator(); it.hasNext();) {
+			Resource resource = new FileSystemResource((File) it.next());
+			assertParity(resource, true);
+			assertParity(resource, false);
+		}
+	}
+
+	public void testStreamingNestedValues() {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<!DOCTYPE beans PUBLIC \"-//SPRING//DTD BEAN//EN\" \"http://www.springframework.org/dtd/spring-beans.dtd\">\n" +
+				"<beans default-lazy-init=\"true\">\n" +
+				"<bean name=\"rod, roderick\" class=\"" + TestBean.class.getName() + "\">\n" +
+				"  <property name=\"name\"><description>the name</description><value>Rod &amp; co</value></property>\n" +
+				"  <property name=\"someMap\"><map>\n" +
+				"    <entry key=\"list\"><list><value>a</value><null/><ref bean=\"kerry\"/></list></entry>\n" +
+				"    <entry key=\"props\"><props><prop key=\"x\">\n  1\n  </prop></props></entry>\n" +
+				"    <entry key=\"inner\"><bean class=\"" + TestBean.class.getName() + "\" singleton=\"false\">" +
+				"<property name=\"age\"><value>5</value></property></bean></entry>\n" +
+				"  </map></property>\n" +
+				"</bean>\n" +
+				"<bean id=\"kerry\" parent=\"rod\"><property name=\"name\"><value>Kerry</value></property></bean>\n" +
+				"</beans>\n";
+		DefaultListableBeanFactory dom = new DefaultListableBeanFactory();
+		new XmlBeanDefinitionReader(dom).loadBeanDefinitions(
+				new InputStreamResource(new ByteArrayInputStream(xml.getBytes()), "nested values"));
+		DefaultListableBeanFactory streaming = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(streaming);
+		reader.setStreaming(true);
+		reader.loadBeanDefinitions(new InputStreamResource(new ByteArrayInputStream(xml.getBytes()), "nested values"));
+		assertEquals(describeFactory(dom), describeFactory(streaming));
+
+		TestBean rod = (TestBean) streaming.getBean("roderick");
+		assertEquals("Rod & co", rod.getName());
+		assertEquals("1", ((Properties) rod.getSomeMap().get("props")).getProperty("x"));
+		assertEquals(5, ((TestBean) rod.getSomeMap().get("inner")).getAge());
+		List list = (List) rod.getSomeMap().get("list");
+		assertEquals("a", list.get(0));
+		assertNull(list.get(1));
+		assertEquals("Kerry", ((TestBean) list.get(2)).getName());
+		assertTrue(((AbstractBeanDefinition) streaming.getBeanDefinition("rod")).isLazyInit());
+	}
+
+	public void testStreamingInvalidDocument() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(bf);
+		reader.setStreaming(true);
+		try {
+			reader.loadBeanDefinitions(new ClassPathResource("invalid.xml", getClass()));
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			// expected
+		}
+	}
+
+
+	private void collectBeanDefinitionFiles(File dir, List files) throws IOException {
+		File[] children = dir.listFiles();
+		for (int i = 0; i < children.length; i++) {
+			if (children[i].isDirectory()) {
+				collectBeanDefinitionFiles(children[i], files);
+			}
+			else if (children[i].getName().endsWith(".xml")) {
+				String content = readFile(children[i]);
+				// skip documents with other DTDs, which would be fetched over the network
+				if (content.indexOf("<!DOCTYPE") == -1 || content.indexOf("-//SPRING//DTD BEAN//EN") != -1) {
+					files.add(children[i]);
+				}
+			}
+		}
+	}
+
+	private String readFile(File file) throws IOException {
+		InputStream is = new FileInputStream(file);
+		try {
+			byte[] content = new byte[(int) file.length()];
+			int offset = 0;
+			while (offset < content.length) {
+				offset += is.read(content, offset, content.length - offset);
+			}
+			return new String(content, "UTF-8");
+		}
+		finally {
+			is.close();
+		}
+	}
+
+	private void assertParity(Resource resource, boolean validating) {
+		String mode = resource + (validating ? " (validating)" : " (not validating)");
+		DefaultListableBeanFactory dom = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader domReader = new XmlBeanDefinitionReader(dom);
+		domReader.setValidating(validating);
+		DefaultListableBeanFactory streaming = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader streamingReader = new XmlBeanDefinitionReader(streaming);
+		streamingReader.setValidating(validating);
+		streamingReader.setStreaming(true);
+
+		RuntimeException domEx = null;
+		try {
+			domReader.loadBeanDefinitions(resource);
+		}
+		catch (RuntimeException ex) {
+			domEx = ex;
+		}
+		RuntimeException streamingEx = null;
+		try {
+			streamingReader.loadBeanDefinitions(resource);
+		}
+		catch (RuntimeException ex) {
+			streamingEx = ex;
+		}
+
+		if (domEx != null) {
+			assertNotNull(mode + " should have failed like with DOM: " + domEx, streamingEx);
+			assertEquals(mode, domEx.getClass(), streamingEx.getClass());
+			assertEquals(mode, domEx.getMessage(), streamingEx.getMessage());
+		}
+		else {
+			if (streamingEx != null) {
+				throw streamingEx;
+			}
+			assertEquals(mode, describeFactory(dom), describeFactory(streaming));
+		}
+	}
+
+	private String describeFactory(DefaultListableBeanFactory bf) {
+		StringBuffer sb = new StringBuffer();
+		String[] beanNames = bf.getBeanDefinitionNames();
+		for (int i = 0; i < beanNames.length; i++) {
+			sb.append(beanNames[i]).append(' ');
+			List aliases = new ArrayList();
+			String[] aliasArr = bf.getAliases(beanNames[i]);
+			for (int j = 0; j < aliasArr.length; j++) {
+				aliases.add(aliasArr[j]);
+			}
+			Collections.sort(aliases);
+			sb.append(aliases).append(" = ");
+			sb.append(describe(bf.getBeanDefinition(beanNames[i]))).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Describe the given value in an order-independent way where iteration
+	 * order isn't defined, i.e. for sets, maps and generic constructor arguments.
+	 */
+	private String describe(Object value) {
+		if (value instanceof AbstractBeanDefinition) {
+			AbstractBeanDefinition bd = (AbstractBeanDefinition) value;
+			StringBuffer sb = new StringBuffer(bd.getClass().getName());
+			sb.append("[singleton=").append(bd.isSingleton());
+			sb.append(",lazyInit=").append(bd.isLazyInit());
+			sb.append(",resource=").append(bd.getResourceDescription());
+			if (bd instanceof RootBeanDefinition) {
+				RootBeanDefinition rbd = (RootBeanDefinition) bd;
+				sb.append(",class=").append(rbd.getBeanClassName());
+				sb.append(",autowire=").append(rbd.getAutowireMode());
+				sb.append(",dependencyCheck=").append(rbd.getDependencyCheck());
+				sb.append(",dependsOn=").append(rbd.getDependsOn() != null ? describe(toList(rbd.getDependsOn())) : null);
+				sb.append(",initMethod=").append(rbd.getInitMethodName());
+				sb.append(",destroyMethod=").append(rbd.getDestroyMethodName());
+				ConstructorArgumentValues cargs = rbd.getConstructorArgumentValues();
+				sb.append(",indexedArgs=").append(describe(cargs.getIndexedArgumentValues()));
+				sb.append(",genericArgs=").append(describe(cargs.getGenericArgumentValues()));
+			}
+			else {
+				sb.append(",parent=").append(((ChildBeanDefinition) bd).getParentName());
+			}
+			PropertyValue[] pvs = bd.getPropertyValues().getPropertyValues();
+			sb.append(",properties=[");
+			for (int i = 0; i < pvs.length; i++) {
+				sb.append(pvs[i].getName()).append('=').append(describe(pvs[i].getValue())).append(';');
+			}
+			return sb.append("]]").toString();
+		}
+		else if (value instanceof ConstructorArgumentValues.ValueHolder) {
+			ConstructorArgumentValues.ValueHolder holder = (ConstructorArgumentValues.ValueHolder) value;
+			return "(" + holder.getType() + ")" + describe(holder.getValue());
+		}
+		else if (value instanceof RuntimeBeanReference) {
+			return "<" + ((RuntimeBeanReference) value).getBeanName() + ">";
+		}
+		else if (value instanceof List) {
+			List descriptions = new ArrayList();
+			for (Iterator it = ((List) value).iterator(); it.hasNext();) {
+				descriptions.add(describe(it.next()));
+			}
+			return value.getClass().getName() + descriptions;
+		}
+		else if (value instanceof Collection) {
+			List descriptions = new ArrayList();
+			for (Iterator it = ((Collection) value).iterator(); it.hasNext();) {
+				descriptions.add(describe(it.next()));
+			}
+			Collections.sort(descriptions);
+			return value.getClass().getName() + descriptions;
+		}
+		else if (value instanceof Map) {
+			List descriptions = new ArrayList();
+			for (Iterator it = ((Map) value).entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				descriptions.add(describe(entry.getKey()) + "=" + describe(entry.getValue()));
+			}
+			Collections.sort(descriptions);
+			return value.getClass().getName() + descriptions;
+		}
+		else if (value != null) {
+			return value.getClass().getName() + "'" + value + "'";
+		}
+		return "null";
+	}
+
+	private List toList(String[] array) {
+		List list = new ArrayList();
+		for (int i = 0; i < array.length; i++) {
+			list.add(array[i]);
+		}
+		return list;
+	}
+
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.support.StaticApplicationContext;
+
+/**
+ * @author agent
+ */
+public class ApplicationEventMulticasterImplTests extends TestCase {
+
+	private ApplicationEventMulticasterImpl multicaster = new ApplicationEventMulticasterImpl();
+
+	public void testSynchronousDelivery() {
+		RecordingListener listener1 = new RecordingListener();
+		RecordingListener listener2 = new RecordingListener();
+		this.multicaster.addApplicationListener(listener1);
+		this.multicaster.addApplicationListener(listener2);
+		this.multicaster.addApplicationListener(listener1);
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 1));
+		assertEquals(1, listener1.getEvents().size());
+		assertEquals(1, listener2.getEvents().size());
+		this.multicaster.removeApplicationListener(listener1);
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 2));
+		assertEquals(1, listener1.getEvents().size());
+		assertEquals(2, listener2.getEvents().size());
+		this.multicaster.removeAllListeners();
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 3));
+		assertEquals(2, listener2.getEvents().size());
+	}
+
+	public void testSynchronousListenerExceptionPropagates() {
+		this.multicaster.addApplicationListener(new FailingListener());
+		try {
+			this.multicaster.onApplicationEvent(new NumberedEvent(this, 1));
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	public void testSmartListenerOnlyReceivesSupportedEvents() {
+		RecordingListener listener = new RecordingListener();
+		SmartRecordingListener smartListener = new SmartRecordingListener(NumberedEvent.class);
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.addApplicationListener(smartListener);
+		for (int i = 0; i < 2; i++) {
+			this.multicaster.onApplicationEvent(new NumberedEvent(this, i));
+			this.multicaster.onApplicationEvent(new ContextClosedEvent(new StaticApplicationContext()));
+		}
+		assertEquals(4, listener.getEvents().size());
+		assertEquals(2, smartListener.getEvents().size());
+		assertEquals(2, smartListener.getQueriedTypes().size());
+
+		// the cached listeners must reflect a new registration
+		RecordingListener lateListener = new RecordingListener();
+		this.multicaster.addApplicationListener(lateListener);
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 2));
+		assertEquals(1, lateListener.getEvents().size());
+		assertEquals(3, smartListener.getEvents().size());
+	}
+
+	public void testAsynchronousDeliveryPreservesOrderPerListener() throws Exception {
+		this.multicaster.setAsyncThreads(3);
+		this.multicaster.setQueueCapacity(10);
+		RecordingListener[] listeners = new RecordingListener[10];
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i] = new RecordingListener();
+			this.multicaster.addApplicationListener(listeners[i]);
+		}
+		for (int i = 0; i < 500; i++) {
+			this.multicaster.onApplicationEvent(new NumberedEvent(this, i));
+		}
+		this.multicaster.destroy();
+		assertEquals(0, this.multicaster.getPendingEventCount());
+		assertEquals(0, this.multicaster.getDiscardedEventCount());
+		for (int i = 0; i < listeners.length; i++) {
+			List events = listeners[i].getEvents();
+			assertEquals(500, events.size());
+			for (int j = 0; j < events.size(); j++) {
+				assertEquals(j, ((NumberedEvent) events.get(j)).getNumber());
+			}
+			assertTrue(listeners[i].getThreadNames().get(0).toString().startsWith("ApplicationEventMulticaster-"));
+		}
+	}
+
+	public void testAsynchronousDeliveryDiscardsWhenFull() throws Exception {
+		this.multicaster.setAsyncThreads(1);
+		this.multicaster.setQueueCapacity(2);
+		this.multicaster.setBlockWhenFull(false);
+		BlockingListener listener = new BlockingListener();
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 0));
+		listener.waitUntilBlocked();
+		for (int i = 1; i <= 5; i++) {
+			this.multicaster.onApplicationEvent(new NumberedEvent(this, i));
+		}
+		assertEquals(2, this.multicaster.getPendingEventCount());
+		assertEquals(3, this.multicaster.getDiscardedEventCount());
+		listener.release();
+		this.multicaster.destroy();
+		assertEquals(3, listener.getEvents().size());
+		assertEquals(2, ((NumberedEvent) listener.getEvents().get(2)).getNumber());
+	}
+
+	public void testAsynchronousDeliveryBlocksWhenFull() throws Exception {
+		this.multicaster.setAsyncThreads(1);
+		this.multicaster.setQueueCapacity(1);
+		final BlockingListener listener = new BlockingListener();
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 0));
+		listener.waitUntilBlocked();
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 1));
+		Thread publisher = new Thread() {
+			public void run() {
+				multicaster.onApplicationEvent(new NumberedEvent(this, 2));
+			}
+		};
+		publisher.start();
+		publisher.join(200);
+		assertTrue("Publisher should wait for space in the queue", publisher.isAlive());
+		listener.release();
+		publisher.join(5000);
+		assertFalse(publisher.isAlive());
+		this.multicaster.destroy();
+		assertEquals(3, listener.getEvents().size());
+		assertEquals(0, this.multicaster.getDiscardedEventCount());
+	}
+
+	public void testListenerRepublishingIntoFullQueue() throws Exception {
+		this.multicaster.setAsyncThreads(1);
+		this.multicaster.setQueueCapacity(1);
+		RepublishingListener listener = new RepublishingListener(this.multicaster, 3);
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 0));
+		// 1 + 2 + 4 + 8 events, unless the dispatcher waits for itself
+		long end = System.currentTimeMillis() + 5000;
+		while (listener.getEvents().size() < 15 && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		assertEquals("Republishing listener must not block its dispatcher", 15, listener.getEvents().size());
+		this.multicaster.destroy();
+		assertEquals(15, listener.getEvents().size());
+		assertEquals(0, this.multicaster.getDiscardedEventCount());
+	}
+
+	public void testAsynchronousListenerExceptionIsLogged() throws Exception {
+		this.multicaster.setAsyncThreads(1);
+		RecordingListener listener = new RecordingListener();
+		this.multicaster.addApplicationListener(new FailingListener());
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 0));
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 1));
+		this.multicaster.destroy();
+		assertEquals(2, listener.getEvents().size());
+	}
+
+	public void testEventsAfterDestructionAreDeliveredSynchronously() throws Exception {
+		this.multicaster.setAsyncThreads(2);
+		RecordingListener listener = new RecordingListener();
+		this.multicaster.addApplicationListener(listener);
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 0));
+		this.multicaster.destroy();
+		this.multicaster.onApplicationEvent(new NumberedEvent(this, 1));
+		assertEquals(2, listener.getEvents().size());
+		assertEquals(Thread.currentThread().getName(), listener.getThreadNames().get(1));
+	}
+
+	public void testMulticasterDefinedInContext() throws Exception {
+		StaticApplicationContext ac = new StaticApplicationContext();
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.addPropertyValue("asyncThreads", "1");
+		ac.registerSingleton("applicationEventMulticaster", ApplicationEventMulticasterImpl.class, pvs);
+		ac.registerSingleton("listener", RecordingListener.class, null);
+		ac.refresh();
+		ac.publishEvent(new NumberedEvent(this, 1));
+		ApplicationEventMulticasterImpl multicaster =
+				(ApplicationEventMulticasterImpl) ac.getBean("applicationEventMulticaster");
+		RecordingListener listener = (RecordingListener) ac.getBean("listener");
+		multicaster.destroy();
+		// ContextRefreshedEvent, NumberedEvent
+		assertEquals(2, listener.getEvents().size());
+		assertTrue(listener.getEvents().get(0) instanceof ContextRefreshedEvent);
+		assertFalse(listener.getThreadNames().contains(Thread.currentThread().getName()));
+		ac.close();
+		assertTrue(listener.getEvents().get(2) instanceof ContextClosedEvent);
+	}
+
+
+	public static class NumberedEvent extends ApplicationEvent {
+
+		private final int number;
+
+		public NumberedEvent(Object source, int number) {
+			super(source);
+			this.number = number;
+		}
+
+		public int getNumber() {
+			return number;
+		}
+	}
+
+
+	public static class RecordingListener implements ApplicationListener {
+
+		private final List events = new ArrayList();
+
+		private final List threadNames = new ArrayList();
+
+		public synchronized void onApplicationEvent(ApplicationEvent event) {
+			this.events.add(event);
+			this.threadNames.add(Thread.currentThread().getName());
+		}
+
+		public synchronized List getEvents() {
+			return new ArrayList(this.events);
+		}
+
+		public synchronized List getThreadNames() {
+			return new ArrayList(this.threadNames);
+		}
+	}
+
+
+	private static class SmartRecordingListener extends RecordingListener implements SmartApplicationListener {
+
+		private final Class supportedType;
+
+		private final List queriedTypes = new ArrayList();
+
+		public SmartRecordingListener(Class supportedType) {
+			this.supportedType = supportedType;
+		}
+
+		public synchronized boolean supportsEventType(Class eventType) {
+			this.queriedTypes.add(eventType);
+			return this.supportedType.isAssignableFrom(eventType);
+		}
+
+		public synchronized List getQueriedTypes() {
+			return this.queriedTypes;
+		}
+	}
+
+
+	private static class FailingListener implements ApplicationListener {
+
+		public void onApplicationEvent(ApplicationEvent event) {
+			throw new IllegalStateException("Failing on purpose");
+		}
+	}
+
+
+	/**
+	 * Listener that publishes two further events for each event
+	 * up to the given number.
+	 */
+	private static class RepublishingListener extends RecordingListener {
+
+		private final ApplicationEventMulticaster multicaster;
+
+		private final int maxNumber;
+
+		public RepublishingListener(ApplicationEventMulticaster multicaster, int maxNumber) {
+			this.multicaster = multicaster;
+			this.maxNumber = maxNumber;
+		}
+
+		public void onApplicationEvent(ApplicationEvent event) {
+			super.onApplicationEvent(event);
+			int number = ((NumberedEvent) event).getNumber();
+			if (number < this.maxNumber) {
+				this.multicaster.onApplicationEvent(new NumberedEvent(this, number + 1));
+				this.multicaster.onApplicationEvent(new NumberedEvent(this, number + 1));
+			}
+		}
+	}
+
+
+	/**
+	 * Listener that blocks on the first event until released.
+	 */
+	private static class BlockingListener extends RecordingListener {
+
+		private boolean blocked;
+
+		private boolean released;
+
+		public void onApplicationEvent(ApplicationEvent event) {
+			synchronized (this) {
+				if (!this.released) {
+					this.blocked = true;
+					notifyAll();
+					while (!this.released) {
+						try {
+							wait();
+						}
+						catch (InterruptedException ex) {
+							return;
+						}
+					}
+				}
+			}
+			super.onApplicationEvent(event);
+		}
+
+		public synchronized void waitUntilBlocked() throws InterruptedException {
+			while (!this.blocked) {
+				wait();
+			}
+		}
+
+		public synchronized void release() {
+			this.released = true;
+			notifyAll();
+		}
+	}
+
+}
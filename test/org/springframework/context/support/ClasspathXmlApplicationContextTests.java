@@ -16,8 +16,19 @@
 
 package org.springframework.context.support;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
 import junit.framework.TestCase;
 
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
 public class ClasspathXmlApplicationContextTests extends TestCase {
 	
 	public ClasspathXmlApplicationContextTests(String name) {
@@ -32,4 +43,133 @@ public class ClasspathXmlApplicationContextTests extends TestCase {
 				"/org/springframework/context/support/contextA.xml" });
 	}
 
+	public void testBeanDefinitionSnapshot() throws Exception {
+		String[] locations = new String[] {
+				"/org/springframework/context/support/contextB.xml",
+				"/org/springframework/context/support/contextC.xml",
+				"/org/springframework/context/support/contextA.xml" };
+		File file = File.createTempFile("beanDefinitions", ".snapshot");
+		file.delete();
+		try {
+			CountingXmlApplicationContext ctx = new CountingXmlApplicationContext(locations);
+			ctx.setBeanDefinitionSnapshotFile(file);
+			ctx.refresh();
+			assertEquals(1, ctx.loadCount);
+			assertTrue(file.exists());
+
+			CountingXmlApplicationContext restored = new CountingXmlApplicationContext(locations);
+			restored.setBeanDefinitionSnapshotFile(file);
+			restored.refresh();
+			assertEquals(0, restored.loadCount);
+			assertEquals(ctx.getBeanDefinitionCount(), restored.getBeanDefinitionCount());
+			Assembler assembler = (Assembler) restored.getBean("assemblerOne");
+			assertNotNull(assembler);
+
+			// different config files: snapshot is out of date
+			CountingXmlApplicationContext other = new CountingXmlApplicationContext(
+					new String[] {"/org/springframework/context/support/overrideBase.xml"});
+			other.setBeanDefinitionSnapshotFile(file);
+			other.refresh();
+			assertEquals(1, other.loadCount);
+			assertFalse(other.containsBeanDefinition("assemblerOne"));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	public void testBeanDefinitionSnapshotWithIncludedEntity() throws Exception {
+		File dir = File.createTempFile("snapshotTest", "");
+		dir.delete();
+		dir.mkdir();
+		File file = new File(dir, "beanDefinitions.snapshot");
+		File include = new File(dir, "include.xml");
+		try {
+			writeFile(new File(dir, "main.xml"),
+					"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+					"<!DOCTYPE beans PUBLIC \"-//SPRING//DTD BEAN//EN\" \"http://www.springframework.org/dtd/spring-beans.dtd\" [\n" +
+					"<!ENTITY include SYSTEM \"include.xml\">\n" +
+					"]>\n" +
+					"<beans>&include;</beans>\n");
+			writeFile(include, "<bean id=\"rod\" class=\"org.springframework.beans.TestBean\"/>");
+			DirectoryXmlApplicationContext ctx = new DirectoryXmlApplicationContext(dir, file);
+			assertEquals(1, ctx.loadCount);
+			assertTrue(ctx.containsBeanDefinition("rod"));
+			assertTrue(file.exists());
+
+			DirectoryXmlApplicationContext restored = new DirectoryXmlApplicationContext(dir, file);
+			assertEquals(0, restored.loadCount);
+			assertTrue(restored.containsBeanDefinition("rod"));
+
+			// changed included file: snapshot is out of date
+			writeFile(include, "<bean id=\"kerry\" class=\"org.springframework.beans.TestBean\"/>");
+			DirectoryXmlApplicationContext changed = new DirectoryXmlApplicationContext(dir, file);
+			assertEquals(1, changed.loadCount);
+			assertFalse(changed.containsBeanDefinition("rod"));
+			assertTrue(changed.containsBeanDefinition("kerry"));
+		}
+		finally {
+			File[] files = dir.listFiles();
+			for (int i = 0; i < files.length; i++) {
+				files[i].delete();
+			}
+			dir.delete();
+		}
+	}
+
+	private void writeFile(File file, String content) throws IOException {
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write(content);
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+
+	private static class CountingXmlApplicationContext extends ClassPathXmlApplicationContext {
+
+		private int loadCount;
+
+		public CountingXmlApplicationContext(String[] configLocations) {
+			super(configLocations, false);
+		}
+
+		protected void loadBeanDefinitions(XmlBeanDefinitionReader reader) throws BeansException, IOException {
+			this.loadCount++;
+			super.loadBeanDefinitions(reader);
+		}
+	}
+
+
+	/**
+	 * Loads "main.xml" from the given directory, resolving relative paths in it.
+	 */
+	private static class DirectoryXmlApplicationContext extends AbstractXmlApplicationContext {
+
+		private final File dir;
+
+		private int loadCount;
+
+		public DirectoryXmlApplicationContext(File dir, File snapshotFile) {
+			this.dir = dir;
+			setBeanDefinitionSnapshotFile(snapshotFile);
+			refresh();
+		}
+
+		protected String[] getConfigLocations() {
+			return new String[] {"main.xml"};
+		}
+
+		protected Resource getResourceByPath(String path) {
+			return new FileSystemResource(new File(this.dir, path));
+		}
+
+		protected void loadBeanDefinitions(XmlBeanDefinitionReader reader) throws BeansException, IOException {
+			this.loadCount++;
+			super.loadBeanDefinitions(reader);
+		}
+	}
+
 }
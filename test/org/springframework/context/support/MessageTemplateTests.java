@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.support;
+
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.TestBean;
+import org.springframework.context.NoSuchMessageException;
+
+/**
+ * @author agent
+ */
+public class MessageTemplateTests extends TestCase {
+
+	private static final String[] PATTERNS = new String[] {
+		"", "plain text", "It''s", "'{0}' is quoted", "quoted 'it''s' text", "'unterminated {0}",
+		"{0}", "{0}{1}", "{1} before {0}", "{0}, {0} again", "{2} out of range", "text }", "}{0}{",
+		"{00}", "{12}", "{0,number}", "{0,number,integer} of {1}", "{0,date,short}",
+		"{0,choice,0#none|1#one|1<{0,number} many}", "{ 0}", "{0", "{a}", "{}", "a{0}b'{'c'}'d"
+	};
+
+	private static final Object[][] ARGUMENTS = new Object[][] {
+		null, new Object[0], new Object[] {"a"}, new Object[] {"a", "b", "c"}, new Object[] {null, "b"},
+		new Object[] {new Integer(1234567), "b"}, new Object[] {"a", new Double(1.5)},
+		new Object[] {new Date(0), new TestBean("tb", 1)}, new Object[] {new Integer(0)}, new Object[] {new Integer(2)}
+	};
+
+	public void testSameResultsAsMessageFormat() {
+		for (int i = 0; i < PATTERNS.length; i++) {
+			MessageFormat messageFormat = null;
+			Exception formatEx = null;
+			try {
+				messageFormat = new MessageFormat(PATTERNS[i]);
+			}
+			catch (IllegalArgumentException ex) {
+				formatEx = ex;
+			}
+			MessageTemplate template = null;
+			try {
+				template = new MessageTemplate(PATTERNS[i]);
+				assertNull("Invalid pattern " + PATTERNS[i], formatEx);
+			}
+			catch (IllegalArgumentException ex) {
+				assertNotNull("Valid pattern " + PATTERNS[i], formatEx);
+				assertEquals(formatEx.getMessage(), ex.getMessage());
+				continue;
+			}
+			for (int j = 0; j < ARGUMENTS.length; j++) {
+				String expected = null;
+				String actual = null;
+				try {
+					expected = messageFormat.format(ARGUMENTS[j] != null ? ARGUMENTS[j] : new Object[0]);
+				}
+				catch (IllegalArgumentException ex) {
+					// e.g. a String for a number format
+					expected = ex.getClass().getName();
+				}
+				try {
+					actual = template.format(ARGUMENTS[j]);
+				}
+				catch (IllegalArgumentException ex) {
+					actual = ex.getClass().getName();
+				}
+				assertEquals("Pattern " + PATTERNS[i] + ", arguments " + j, expected, actual);
+			}
+		}
+	}
+
+	public void testLiteral() {
+		MessageTemplate template = new MessageTemplate("It''s 'quoted'");
+		assertTrue(template.isLiteral());
+		assertSame(template.format(null), template.format(new Object[] {"a"}));
+		assertEquals("It's quoted", template.format(null));
+		assertFalse(new MessageTemplate("{0}").isLiteral());
+		assertFalse(new MessageTemplate("{0,number}").isLiteral());
+		assertEquals("It''s 'quoted'", template.getPattern());
+	}
+
+	public void testMessageSourceUsesTemplates() {
+		StaticMessageSource ms = new StaticMessageSource();
+		ms.addMessage("literal", Locale.ENGLISH, "It''s");
+		ms.addMessage("simple", Locale.ENGLISH, "{0} and {1}");
+		ms.addMessage("number", Locale.ENGLISH, "{0,number,integer}");
+		ms.addMessage("nested", Locale.ENGLISH, "Nested: {0}");
+		assertEquals("It's", ms.getMessage("literal", new Object[] {"ignored"}, Locale.ENGLISH));
+		assertEquals("a and b", ms.getMessage("simple", new Object[] {"a", "b"}, Locale.ENGLISH));
+		assertEquals("{0} and {1}", ms.getMessage("simple", null, Locale.ENGLISH));
+		assertEquals("3", ms.getMessage("number", new Object[] {new Integer(3)}, Locale.ENGLISH));
+		Object[] args = new Object[] {new DefaultMessageSourceResolvable(new String[] {"literal"}, null)};
+		assertEquals("Nested: It's", ms.getMessage("nested", args, Locale.ENGLISH));
+		assertTrue("Caller's arguments untouched", args[0] instanceof DefaultMessageSourceResolvable);
+		try {
+			ms.getMessage("missing", null, Locale.ENGLISH);
+			fail("Should have thrown NoSuchMessageException");
+		}
+		catch (NoSuchMessageException ex) {
+			// expected
+		}
+	}
+
+	public void testResourceBundleMessageSourceCachesMissingCodes() {
+		ResourceBundleMessageSource ms = new ResourceBundleMessageSource();
+		ms.setBasenames(new String[] {"org/springframework/context/support/more-messages",
+		                              "org/springframework/context/support/messages"});
+		for (int i = 0; i < 2; i++) {
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+			assertEquals("missing", ms.getMessage("missing", null, "missing", Locale.ENGLISH));
+		}
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.support;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.TestBean;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+/**
+ * Checks that loading config files on multiple threads registers
+ * the same bean definitions as loading them one after the other.
+ * @author agent
+ */
+public class ParallelConfigLoadingTests extends TestCase {
+
+	private static final String BASE = "/org/springframework/context/support/overrideBase.xml";
+
+	private static final String SERVICES = "/org/springframework/context/support/overrideServices.xml";
+
+	private static final String LOCAL = "/org/springframework/context/support/overrideLocal.xml";
+
+	private static final String INVALID = "/org/springframework/context/support/overrideInvalid.xml";
+
+
+	public void testLaterFilesOverrideEarlierOnes() {
+		String[] locations = new String[] {BASE, SERVICES, LOCAL};
+		TestXmlApplicationContext serial = new TestXmlApplicationContext(locations, 1, true);
+		serial.refresh();
+		TestXmlApplicationContext parallel = new TestXmlApplicationContext(locations, 3, true);
+		parallel.refresh();
+
+		assertSameBeanDefinitions(serial.getBeanFactory(), parallel.getBeanFactory());
+		TestBean rod = (TestBean) parallel.getBean("roderick");
+		assertEquals("Kerry from local", rod.getSpouse().getName());
+		assertEquals(0, rod.getSpouse().getAge());
+		TestBean juergen = (TestBean) parallel.getBean("jenny");
+		assertEquals("Tony from local", juergen.getName());
+		assertEquals(30, juergen.getAge());
+	}
+
+	public void testReversedOrder() {
+		String[] locations = new String[] {LOCAL, SERVICES, BASE};
+		TestXmlApplicationContext serial = new TestXmlApplicationContext(locations, 1, true);
+		serial.refresh();
+		TestXmlApplicationContext parallel = new TestXmlApplicationContext(locations, 2, true);
+		parallel.refresh();
+
+		assertSameBeanDefinitions(serial.getBeanFactory(), parallel.getBeanFactory());
+		TestBean rod = (TestBean) parallel.getBean("rod");
+		assertEquals("Kerry", rod.getSpouse().getName());
+		assertEquals("Tony", ((TestBean) parallel.getBean("juergen")).getName());
+	}
+
+	public void testFailureInLaterFile() {
+		String[] locations = new String[] {BASE, INVALID, SERVICES};
+		BeanDefinitionStoreException serialEx = null;
+		try {
+			new TestXmlApplicationContext(locations, 1, true).refresh();
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			serialEx = ex;
+		}
+		TestXmlApplicationContext parallel = new TestXmlApplicationContext(locations, 3, true);
+		try {
+			parallel.refresh();
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertEquals(serialEx.getMessage(), ex.getMessage());
+		}
+		// definitions of the failing file up to the error, but nothing after it
+		DefaultListableBeanFactory bf = parallel.getLastBeanFactory();
+		assertEquals(Arrays.asList(new String[] {"rod", "kerry", "tony"}),
+				Arrays.asList(bf.getBeanDefinitionNames()));
+		assertEquals("Tony from invalid", ((TestBean) bf.getBean("tony")).getName());
+	}
+
+	public void testOverridingNotAllowed() {
+		String[] locations = new String[] {BASE, SERVICES};
+		BeanDefinitionStoreException serialEx = null;
+		try {
+			new TestXmlApplicationContext(locations, 1, false).refresh();
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			serialEx = ex;
+		}
+		try {
+			new TestXmlApplicationContext(locations, 2, false).refresh();
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertEquals(serialEx.getMessage(), ex.getMessage());
+		}
+	}
+
+	private void assertSameBeanDefinitions(ConfigurableListableBeanFactory expected,
+	                                       ConfigurableListableBeanFactory actual) {
+		String[] beanNames = expected.getBeanDefinitionNames();
+		assertEquals(Arrays.asList(beanNames), Arrays.asList(actual.getBeanDefinitionNames()));
+		for (int i = 0; i < beanNames.length; i++) {
+			assertEquals(Arrays.asList(expected.getAliases(beanNames[i])),
+					Arrays.asList(actual.getAliases(beanNames[i])));
+			assertEquals(expected.getBeanDefinition(beanNames[i]).getPropertyValues().toString(),
+					actual.getBeanDefinition(beanNames[i]).getPropertyValues().toString());
+		}
+	}
+
+
+	private static class TestXmlApplicationContext extends AbstractXmlApplicationContext {
+
+		private final String[] configLocations;
+
+		private final boolean allowBeanDefinitionOverriding;
+
+		private DefaultListableBeanFactory lastBeanFactory;
+
+		public TestXmlApplicationContext(String[] configLocations, int configLoadingThreads,
+		                                 boolean allowBeanDefinitionOverriding) {
+			this.configLocations = configLocations;
+			this.allowBeanDefinitionOverriding = allowBeanDefinitionOverriding;
+			setConfigLoadingThreads(configLoadingThreads);
+		}
+
+		protected String[] getConfigLocations() {
+			return this.configLocations;
+		}
+
+		protected DefaultListableBeanFactory createBeanFactory() {
+			this.lastBeanFactory = super.createBeanFactory();
+			this.lastBeanFactory.setAllowBeanDefinitionOverriding(this.allowBeanDefinitionOverriding);
+			return this.lastBeanFactory;
+		}
+
+		public DefaultListableBeanFactory getLastBeanFactory() {
+			return this.lastBeanFactory;
+		}
+	}
+
+}
@@ -16,8 +16,14 @@
 
 package org.springframework.context.support;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.MessageFormat;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.ResourceBundle;
 
 import junit.framework.TestCase;
 
@@ -176,4 +182,161 @@ public class ResourceBundleMessageSourceTests extends TestCase {
 		assertEquals("message1",  ms.getMessage("code1", null, Locale.ENGLISH));
 	}
 
+	public void testReloadableResourceBundleMessageSourceWithBackgroundRefresh() throws Exception {
+		File file = File.createTempFile("messages", ".properties");
+		try {
+			writeMessages(file, "code1=message1", 0);
+			ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+			ms.setBasename(getBasename(file));
+			ms.setCacheSeconds(1);
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+
+			writeMessages(file, "code1=message2", 10000);
+			Thread.sleep(1100);
+			// stale message while the file is getting refreshed
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+			for (int i = 0; i < 50 && "message1".equals(ms.getMessage("code1", null, Locale.ENGLISH)); i++) {
+				Thread.sleep(100);
+			}
+			assertEquals("message2", ms.getMessage("code1", null, Locale.ENGLISH));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	public void testReloadableResourceBundleMessageSourceWithSharedRefresherThread() throws Exception {
+		File file1 = File.createTempFile("messages", ".properties");
+		File file2 = File.createTempFile("messages", ".properties");
+		try {
+			writeMessages(file1, "code1=message1", 0);
+			writeMessages(file2, "code2=message2", 0);
+			ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+			ms.setBasenames(new String[] {getBasename(file1), getBasename(file2)});
+			ms.setCacheSeconds(1);
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+			assertEquals("message2", ms.getMessage("code2", null, Locale.ENGLISH));
+
+			writeMessages(file1, "code1=message1a", 10000);
+			writeMessages(file2, "code2=message2a", 10000);
+			Thread.sleep(1100);
+			// both files time out, but get refreshed by the same thread
+			assertEquals("message2", ms.getMessage("code2", null, Locale.ENGLISH));
+			assertTrue(countRefresherThreads() <= 1);
+			for (int i = 0; i < 50 && "message2".equals(ms.getMessage("code2", null, Locale.ENGLISH)); i++) {
+				Thread.sleep(100);
+			}
+			assertEquals("message1a", ms.getMessage("code1", null, Locale.ENGLISH));
+			assertEquals("message2a", ms.getMessage("code2", null, Locale.ENGLISH));
+			assertEquals(1, countRefresherThreads());
+		}
+		finally {
+			file1.delete();
+			file2.delete();
+		}
+	}
+
+	private int countRefresherThreads() {
+		Thread[] threads = new Thread[Thread.activeCount() + 10];
+		int count = Thread.enumerate(threads);
+		int refresherCount = 0;
+		for (int i = 0; i < count; i++) {
+			if (threads[i].getName().startsWith(ReloadableResourceBundleMessageSource.REFRESHER_THREAD_NAME)) {
+				refresherCount++;
+			}
+		}
+		return refresherCount;
+	}
+
+	public void testReloadableResourceBundleMessageSourceWithRefreshOnCallingThread() throws Exception {
+		File file = File.createTempFile("messages", ".properties");
+		try {
+			writeMessages(file, "code1=message1", 0);
+			ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+			ms.setBasename(getBasename(file));
+			ms.setCacheSeconds(1);
+			ms.setRefreshInBackground(false);
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+
+			writeMessages(file, "code1=message2", 10000);
+			Thread.sleep(1100);
+			assertEquals("message2", ms.getMessage("code1", null, Locale.ENGLISH));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	public void testResourceBundleMessageSourceWithCustomMessageFormatLookup() {
+		ResourceBundleMessageSource ms = new ResourceBundleMessageSource() {
+			protected MessageFormat getMessageFormat(ResourceBundle bundle, String code) {
+				MessageFormat messageFormat = super.getMessageFormat(bundle, code);
+				return new MessageFormat("custom " + messageFormat.toPattern());
+			}
+		};
+		ms.setBasename("org/springframework/context/support/messages");
+		assertEquals("custom message1", ms.getMessage("code1", null, Locale.ENGLISH));
+	}
+
+	public void testReloadableResourceBundleMessageSourceWithCustomResolveCode() {
+		ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource() {
+			protected MessageFormat resolveCode(String code, Locale locale) {
+				MessageFormat messageFormat = super.resolveCode(code, locale);
+				return (messageFormat != null ? new MessageFormat("custom " + messageFormat.toPattern()) : null);
+			}
+		};
+		ms.setBasename("org/springframework/context/support/messages");
+		assertEquals("custom message1", ms.getMessage("code1", null, Locale.ENGLISH));
+	}
+
+	public void testReloadableResourceBundleMessageSourceWithConcurrentAccess() throws Exception {
+		final ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+		ms.setBasename("org/springframework/context/support/messages");
+		final Throwable[] failures = new Throwable[4];
+		Thread[] threads = new Thread[failures.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						for (int j = 0; j < 2000; j++) {
+							String arg = index + "-" + j;
+							assertEquals(arg + ", " + index,
+									ms.getMessage("hello", new Object[] {arg, String.valueOf(index)}, Locale.ENGLISH));
+							assertEquals("nachricht2", ms.getMessage("code2", null, Locale.GERMAN));
+						}
+					}
+					catch (Throwable ex) {
+						failures[index] = ex;
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+			if (failures[i] != null) {
+				fail("Thread " + i + " failed: " + failures[i]);
+			}
+		}
+	}
+
+	private String getBasename(File file) throws IOException {
+		String location = file.toURL().toString();
+		return location.substring(0, location.length() - ReloadableResourceBundleMessageSource.PROPERTIES_SUFFIX.length());
+	}
+
+	private void writeMessages(File file, String content, long timestampOffset) throws IOException {
+		long timestamp = file.lastModified();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes());
+		}
+		finally {
+			out.close();
+		}
+		// make sure the change is detected despite the file system's timestamp resolution
+		file.setLastModified(timestamp + timestampOffset);
+	}
+
 }
@@ -16,6 +16,7 @@
 
 package org.springframework.context.support;
 
+import java.text.MessageFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Locale;
@@ -230,6 +231,17 @@ public class StaticMessageSourceTestSuite
 		}
 	}
 
+	public void testStaticMessageSourceWithCustomResolveCode() {
+		StaticMessageSource ms = new StaticMessageSource() {
+			protected MessageFormat resolveCode(String code, Locale locale) {
+				MessageFormat messageFormat = super.resolveCode(code, locale);
+				return (messageFormat != null ? new MessageFormat("custom " + messageFormat.toPattern()) : null);
+			}
+		};
+		ms.addMessage("code1", Locale.US, "message1");
+		assertEquals("custom message1", ms.getMessage("code1", null, Locale.US));
+	}
+
 	/** Run for each test */
 	protected ConfigurableApplicationContext createContext() throws Exception {
 		StaticApplicationContext parent = new StaticApplicationContext();
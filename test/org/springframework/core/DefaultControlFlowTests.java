@@ -33,8 +33,8 @@ public class DefaultControlFlowTests extends AbstractControlFlowTests {
 
 	protected ControlFlow createControlFlow() {
 		ControlFlow cf = ControlFlowFactory.createControlFlow();
-		boolean is14 = System.getProperty("java.version").indexOf("1.4") != -1;
-		assertEquals("Autodetection of JVM succeeded", is14, cf instanceof ControlFlowFactory.Jdk14ControlFlow);
+		boolean is13 = System.getProperty("java.version").startsWith("1.3");
+		assertEquals("Autodetection of JVM succeeded", !is13, cf instanceof ControlFlowFactory.Jdk14ControlFlow);
 		return cf;
 	}
 
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.BeanPropertySetter;
+import org.springframework.beans.TestBean;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.TypeMismatchDataAccessException;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.object.BeanPropertySqlQuery;
+
+/**
+ * Runs against an in-memory HSQLDB database.
+ * @author agent
+ */
+public class BeanPropertyRowMapperTests extends TestCase {
+
+	private SingleConnectionDataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	protected void setUp() {
+		this.dataSource = new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true);
+		this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+		this.jdbcTemplate.execute("CREATE TABLE PERSON (ID INTEGER, NAME VARCHAR, AGE INTEGER, MY_FLOAT DOUBLE, " +
+				"BIRTH_DATE TIMESTAMP, BALANCE DECIMAL, ACTIVE BIT, TOTAL BIGINT, NOTES VARCHAR)");
+		this.jdbcTemplate.update("INSERT INTO PERSON VALUES (1, 'Juergen', 30, 1.5, '2004-03-01 12:30:00', " +
+				"123.45, true, 10000000000, 'ignored')");
+		this.jdbcTemplate.update("INSERT INTO PERSON VALUES (2, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL)");
+	}
+
+	protected void tearDown() throws Exception {
+		this.jdbcTemplate.execute("DROP TABLE PERSON");
+		this.dataSource.destroy();
+	}
+
+	private List query(String sql, final RowMapper rowMapper) {
+		final List results = new ArrayList();
+		this.jdbcTemplate.query(sql, new RowCallbackHandler() {
+			public void processRow(ResultSet rs) throws SQLException {
+				results.add(rowMapper.mapRow(rs, results.size()));
+			}
+		});
+		return results;
+	}
+
+	public void testMapping() {
+		List people = query("SELECT * FROM PERSON ORDER BY ID", new BeanPropertyRowMapper(Person.class));
+		assertEquals(2, people.size());
+		Person person = (Person) people.get(0);
+		assertEquals(1, person.getId());
+		assertEquals("Juergen", person.getName());
+		assertEquals(new Integer(30), person.getAge());
+		assertEquals(1.5, person.getMyFloat(), 0.0);
+		assertEquals(Timestamp.valueOf("2004-03-01 12:30:00"), person.getBirthDate());
+		assertEquals(0, new BigDecimal("123.45").compareTo(person.getBalance()));
+		assertTrue(person.isActive());
+		assertEquals(10000000000L, person.getTotal());
+	}
+
+	public void testNullValues() {
+		List people = query("SELECT * FROM PERSON WHERE ID = 2", new BeanPropertyRowMapper(Person.class));
+		Person person = (Person) people.get(0);
+		assertEquals(2, person.getId());
+		assertNull(person.getName());
+		assertNull(person.getAge());
+		assertEquals("Primitive left at default value", -1.0, person.getMyFloat(), 0.0);
+		assertNull(person.getBirthDate());
+		assertNull(person.getBalance());
+		assertFalse(person.isActive());
+	}
+
+	public void testCaseInsensitiveMatchAndAliases() {
+		List beans = query("SELECT NAME AS nAmE, AGE, MY_FLOAT AS MYFLOAT, BIRTH_DATE AS \"DATE\" FROM PERSON WHERE ID = 1",
+				new BeanPropertyRowMapper(TestBean.class));
+		TestBean tb = (TestBean) beans.get(0);
+		assertEquals("Juergen", tb.getName());
+		assertEquals(30, tb.getAge());
+		assertEquals(new Float(1.5f), tb.getMyFloat());
+		assertEquals(Timestamp.valueOf("2004-03-01 12:30:00"), tb.getDate());
+	}
+
+	public void testManyRowsAndSharedMapper() {
+		for (int i = 3; i < 250; i++) {
+			this.jdbcTemplate.update("INSERT INTO PERSON (ID, NAME, AGE) VALUES (" + i + ", 'p" + i + "', " + i + ")");
+		}
+		BeanPropertyRowMapper rowMapper = new BeanPropertyRowMapper(Person.class);
+		for (int run = 0; run < 2; run++) {
+			List people = query("SELECT ID, NAME, AGE FROM PERSON WHERE ID > 2 ORDER BY ID", rowMapper);
+			assertEquals(247, people.size());
+			for (int i = 0; i < people.size(); i++) {
+				Person person = (Person) people.get(i);
+				assertEquals(i + 3, person.getId());
+				assertEquals("p" + (i + 3), person.getName());
+				assertEquals(new Integer(i + 3), person.getAge());
+			}
+			// a different set of columns with the same mapper
+			List names = query("SELECT NAME FROM PERSON WHERE ID = 1", rowMapper);
+			assertEquals("Juergen", ((Person) names.get(0)).getName());
+			assertEquals(0, ((Person) names.get(0)).getId());
+		}
+	}
+
+	public void testInterleavedQueriesWithSharedMapper() {
+		final int[] matchedColumns = new int[1];
+		final BeanPropertyRowMapper rowMapper = new BeanPropertyRowMapper(Person.class) {
+			protected BeanPropertySetter getSetterForColumn(String columnName) {
+				matchedColumns[0]++;
+				return super.getSetterForColumn(columnName);
+			}
+		};
+		final List names = new ArrayList();
+		List people = new ArrayList();
+		for (int run = 0; run < 3; run++) {
+			final List results = new ArrayList();
+			this.jdbcTemplate.query("SELECT ID, NAME FROM PERSON ORDER BY ID", new RowCallbackHandler() {
+				public void processRow(ResultSet rs) throws SQLException {
+					results.add(rowMapper.mapRow(rs, results.size()));
+					// a nested query mapped by the same mapper on the same thread
+					names.addAll(query("SELECT NAME FROM PERSON WHERE ID = 1", rowMapper));
+				}
+			});
+			people.addAll(results);
+		}
+		assertEquals(6, people.size());
+		assertEquals(2, ((Person) people.get(5)).getId());
+		assertEquals("Juergen", ((Person) people.get(0)).getName());
+		assertEquals(6, names.size());
+		assertEquals("Juergen", ((Person) names.get(5)).getName());
+		assertEquals("Columns matched once per distinct column list", 3, matchedColumns[0]);
+	}
+
+	public void testTypeMismatch() {
+		try {
+			query("SELECT NAME AS SPOUSE FROM PERSON WHERE ID = 1", new BeanPropertyRowMapper(TestBean.class));
+			fail("Should have thrown TypeMismatchDataAccessException");
+		}
+		catch (TypeMismatchDataAccessException ex) {
+			assertTrue(ex.getMessage().indexOf("spouse") != -1);
+		}
+	}
+
+	public void testBeanPropertySqlQuery() {
+		BeanPropertySqlQuery query = new BeanPropertySqlQuery(
+				this.dataSource, "SELECT * FROM PERSON WHERE AGE >= ? ORDER BY ID", Person.class);
+		query.declareParameter(new SqlParameter(Types.INTEGER));
+		query.compile();
+		List people = query.execute(20);
+		assertEquals(1, people.size());
+		assertEquals("Juergen", ((Person) people.get(0)).getName());
+		assertEquals(Person.class, query.getMappedClass());
+	}
+
+	public void testBeanPropertySqlQueryWithoutMappedClass() {
+		BeanPropertySqlQuery query = new BeanPropertySqlQuery();
+		query.setDataSource(this.dataSource);
+		query.setSql("SELECT * FROM PERSON");
+		try {
+			query.compile();
+			fail("Should have thrown InvalidDataAccessApiUsageException");
+		}
+		catch (InvalidDataAccessApiUsageException ex) {
+			// expected
+		}
+	}
+
+
+	public static class Person {
+
+		private int id;
+
+		private String name;
+
+		private Integer age;
+
+		private double myFloat = -1.0;
+
+		private Date birthDate;
+
+		private BigDecimal balance;
+
+		private boolean active;
+
+		private long total;
+
+		public int getId() {
+			return id;
+		}
+
+		public void setId(int id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public Integer getAge() {
+			return age;
+		}
+
+		public void setAge(Integer age) {
+			this.age = age;
+		}
+
+		public double getMyFloat() {
+			return myFloat;
+		}
+
+		public void setMyFloat(double myFloat) {
+			this.myFloat = myFloat;
+		}
+
+		public Date getBirthDate() {
+			return birthDate;
+		}
+
+		public void setBirthDate(Date birthDate) {
+			this.birthDate = birthDate;
+		}
+
+		public BigDecimal getBalance() {
+			return balance;
+		}
+
+		public void setBalance(BigDecimal balance) {
+			this.balance = balance;
+		}
+
+		public boolean isActive() {
+			return active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public void setTotal(long total) {
+			this.total = total;
+		}
+	}
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class ColumnIndexedMapTests extends TestCase {
+
+	private ColumnIndexedMap.ColumnIndex columnIndex =
+			new ColumnIndexedMap.ColumnIndex(new String[] {"ID", "NAME", "AGE"});
+
+	private ColumnIndexedMap createRow() {
+		return new ColumnIndexedMap(this.columnIndex, new Object[] {new Integer(1), "tb", null});
+	}
+
+	private Map createHashMap() {
+		Map map = new HashMap();
+		map.put("ID", new Integer(1));
+		map.put("NAME", "tb");
+		map.put("AGE", null);
+		return map;
+	}
+
+	public void testLookup() {
+		ColumnIndexedMap row = createRow();
+		assertEquals(3, row.size());
+		assertEquals(new Integer(1), row.get("ID"));
+		assertEquals("tb", row.get("NAME"));
+		assertNull(row.get("AGE"));
+		assertTrue(row.containsKey("AGE"));
+		assertFalse(row.containsKey("other"));
+		assertFalse(row.containsKey(null));
+		assertFalse(row.containsKey(new Integer(0)));
+	}
+
+	public void testCaseInsensitiveLookup() {
+		ColumnIndexedMap row = createRow();
+		assertEquals("tb", row.get("name"));
+		assertEquals("tb", row.get("Name"));
+		assertTrue(row.containsKey("age"));
+	}
+
+	public void testPutOnlyReplacesExactColumnName() {
+		ColumnIndexedMap row = createRow();
+		Map map = createHashMap();
+		assertEquals(map.put("age", new Integer(5)), row.put("age", new Integer(5)));
+		assertEquals(map, row);
+		assertEquals(4, row.size());
+		assertNull(row.get("AGE"));
+		assertEquals(new Integer(5), row.get("age"));
+		assertEquals(map.remove("age"), row.remove("age"));
+		assertTrue(row.containsKey("AGE"));
+		assertTrue(row.containsKey("age"));
+		assertEquals(3, row.size());
+		row.put("NAME", "tb2");
+		assertEquals("tb2", row.get("name"));
+	}
+
+	public void testCaseInsensitiveLookupWithTurkishDefaultLocale() {
+		Locale defaultLocale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			ColumnIndexedMap row = createRow();
+			// "id" would be upper-cased to a dotted capital I in Turkish
+			assertEquals(new Integer(1), row.get("id"));
+		}
+		finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	public void testExactMatchPreferred() {
+		ColumnIndexedMap.ColumnIndex index = new ColumnIndexedMap.ColumnIndex(new String[] {"name", "NAME"});
+		ColumnIndexedMap row = new ColumnIndexedMap(index, new Object[] {"lower", "upper"});
+		assertEquals("lower", row.get("name"));
+		assertEquals("upper", row.get("NAME"));
+		assertEquals("lower", row.get("Name"));
+	}
+
+	public void testDuplicateColumnNames() {
+		ColumnIndexedMap.ColumnIndex index = new ColumnIndexedMap.ColumnIndex(new String[] {"ID", "NAME", "ID"});
+		assertEquals(2, index.size());
+		assertEquals(0, index.getColumnPosition(1));
+		assertEquals(1, index.getColumnPosition(2));
+		assertEquals(0, index.getColumnPosition(3));
+		assertEquals(-1, index.getPosition("other"));
+	}
+
+	public void testEqualToHashMap() {
+		ColumnIndexedMap row = createRow();
+		Map map = createHashMap();
+		assertEquals(map, row);
+		assertEquals(row, map);
+		assertEquals(map.hashCode(), row.hashCode());
+		assertEquals(map.entrySet(), row.entrySet());
+		assertEquals(map.keySet(), row.keySet());
+		assertEquals(new HashMap(row), map);
+		assertFalse(row.equals(new HashMap()));
+	}
+
+	public void testModification() {
+		ColumnIndexedMap row = createRow();
+		Map map = createHashMap();
+		assertEquals(map.put("extra", "x"), row.put("extra", "x"));
+		assertEquals(map.put("ID", new Integer(2)), row.put("ID", new Integer(2)));
+		assertEquals(map.remove("NAME"), row.remove("NAME"));
+		assertEquals(map.remove("NAME"), row.remove("NAME"));
+		assertEquals(map.remove("extra"), row.remove("extra"));
+		assertEquals(map.put("NAME", "tb3"), row.put("NAME", "tb3"));
+		assertEquals(map.put(null, "n"), row.put(null, "n"));
+		assertEquals(map, row);
+		assertEquals(map.size(), row.size());
+		row.clear();
+		assertTrue(row.isEmpty());
+		assertNull(row.get("ID"));
+		row.put("AGE", new Integer(5));
+		assertEquals(1, row.size());
+		assertEquals(new Integer(5), row.get("age"));
+	}
+
+	public void testIteratorRemoveAndSetValue() {
+		ColumnIndexedMap row = createRow();
+		row.put("extra", "x");
+		for (Iterator it = row.entrySet().iterator(); it.hasNext();) {
+			Map.Entry entry = (Map.Entry) it.next();
+			if ("NAME".equals(entry.getKey()) || "extra".equals(entry.getKey())) {
+				it.remove();
+			}
+			else if ("ID".equals(entry.getKey())) {
+				entry.setValue(new Integer(2));
+			}
+		}
+		assertEquals(2, row.size());
+		assertEquals(new Integer(2), row.get("ID"));
+		assertFalse(row.containsKey("NAME"));
+		assertFalse(row.containsKey("extra"));
+		Iterator it = row.keySet().iterator();
+		assertEquals("ID", it.next());
+		assertEquals("AGE", it.next());
+		assertFalse(it.hasNext());
+	}
+
+	public void testSerialization() throws Exception {
+		ColumnIndexedMap row = createRow();
+		row.remove("AGE");
+		row.put("extra", "x");
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(row);
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+		Map copy = (Map) ois.readObject();
+		assertEquals(row, copy);
+		assertEquals("tb", copy.get("name"));
+	}
+
+	public void testWrongNumberOfValues() {
+		try {
+			new ColumnIndexedMap(this.columnIndex, new Object[2]);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+}
@@ -1780,6 +1780,123 @@ public class JdbcTemplateTestSuite extends JdbcTestCase {
 		ctrlStatement.verify();
 	}
 
+	public void testStatementSettingsAppliedToStaticQuery() throws Exception {
+		String sql = "SELECT NAME FROM CUSTMR";
+
+		MockControl ctrlResultSet = MockControl.createControl(ResultSet.class);
+		ResultSet mockResultSet = (ResultSet) ctrlResultSet.getMock();
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.close();
+		ctrlResultSet.setVoidCallable();
+
+		MockControl ctrlStatement = MockControl.createControl(Statement.class);
+		Statement mockStatement = (Statement) ctrlStatement.getMock();
+		mockStatement.setFetchSize(10);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setMaxRows(20);
+		ctrlStatement.setVoidCallable();
+		mockStatement.setQueryTimeout(30);
+		ctrlStatement.setVoidCallable();
+		mockStatement.executeQuery(sql);
+		ctrlStatement.setReturnValue(mockResultSet);
+		mockStatement.getWarnings();
+		ctrlStatement.setReturnValue(null);
+		mockStatement.close();
+		ctrlStatement.setVoidCallable();
+
+		mockConnection.createStatement();
+		ctrlConnection.setReturnValue(mockStatement);
+
+		ctrlResultSet.replay();
+		ctrlStatement.replay();
+		replay();
+
+		JdbcTemplate template = new JdbcTemplate(mockDataSource);
+		template.setFetchSize(10);
+		template.setMaxRows(20);
+		template.setQueryTimeout(30);
+		RowCountCallbackHandler rch = new RowCountCallbackHandler();
+		template.query(sql, rch);
+		assertEquals(0, rch.getRowCount());
+
+		ctrlResultSet.verify();
+		ctrlStatement.verify();
+	}
+
+	public void testStatementSettingsAppliedToPreparedQuery() throws Exception {
+		String sql = "SELECT NAME FROM CUSTMR WHERE ID = ?";
+
+		MockControl ctrlResultSet = MockControl.createControl(ResultSet.class);
+		ResultSet mockResultSet = (ResultSet) ctrlResultSet.getMock();
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.close();
+		ctrlResultSet.setVoidCallable();
+
+		MockControl ctrlPreparedStatement = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement mockPreparedStatement = (PreparedStatement) ctrlPreparedStatement.getMock();
+		mockPreparedStatement.setFetchSize(Integer.MIN_VALUE);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setMaxRows(20);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setObject(1, new Integer(1));
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.executeQuery();
+		ctrlPreparedStatement.setReturnValue(mockResultSet);
+		mockPreparedStatement.getWarnings();
+		ctrlPreparedStatement.setReturnValue(null);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable();
+
+		mockConnection.prepareStatement(sql);
+		ctrlConnection.setReturnValue(mockPreparedStatement);
+
+		ctrlResultSet.replay();
+		ctrlPreparedStatement.replay();
+		replay();
+
+		JdbcTemplate template = new JdbcTemplate(mockDataSource);
+		// driver-specific value for streaming results
+		template.setFetchSize(Integer.MIN_VALUE);
+		template.setMaxRows(20);
+		template.query(sql, new Object[] {new Integer(1)}, new RowCountCallbackHandler());
+
+		ctrlResultSet.verify();
+		ctrlPreparedStatement.verify();
+	}
+
+	public void testStatementSettingsAppliedToCall() throws Exception {
+		String callString = "{call SOME_PROC}";
+
+		MockControl ctrlCallableStatement = MockControl.createControl(CallableStatement.class);
+		CallableStatement mockCallableStatement = (CallableStatement) ctrlCallableStatement.getMock();
+		mockCallableStatement.setQueryTimeout(30);
+		ctrlCallableStatement.setVoidCallable();
+		mockCallableStatement.execute();
+		ctrlCallableStatement.setReturnValue(false);
+		mockCallableStatement.getWarnings();
+		ctrlCallableStatement.setReturnValue(null);
+		mockCallableStatement.close();
+		ctrlCallableStatement.setVoidCallable();
+
+		mockConnection.prepareCall(callString);
+		ctrlConnection.setReturnValue(mockCallableStatement);
+
+		ctrlCallableStatement.replay();
+		replay();
+
+		JdbcTemplate template = new JdbcTemplate(mockDataSource);
+		template.setQueryTimeout(30);
+		template.execute(callString, new CallableStatementCallback() {
+			public Object doInCallableStatement(CallableStatement cs) throws SQLException {
+				return new Boolean(cs.execute());
+			}
+		});
+
+		ctrlCallableStatement.verify();
+	}
+
 	
 	private static interface JdbcTemplateCallback {
 
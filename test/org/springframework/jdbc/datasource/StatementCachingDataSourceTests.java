@@ -0,0 +1,318 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+import org.easymock.MockControl;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs against an in-memory HSQLDB database, apart from the
+ * mock-based test for closing statements.
+ * @author agent
+ */
+public class StatementCachingDataSourceTests extends TestCase {
+
+	private SingleConnectionDataSource targetDataSource;
+
+	private StatementCachingDataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private TransactionTemplate transactionTemplate;
+
+	protected void setUp() {
+		this.targetDataSource = new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true);
+		this.dataSource = new StatementCachingDataSource(this.targetDataSource);
+		this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+		this.jdbcTemplate.execute("CREATE TABLE ITEM (ID INTEGER, NAME VARCHAR)");
+		for (int i = 0; i < 5; i++) {
+			this.jdbcTemplate.update("INSERT INTO ITEM VALUES (?, ?)", new Object[] {new Integer(i), "item" + i});
+		}
+		this.dataSource.resetCounts();
+		this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+	}
+
+	protected void tearDown() throws Exception {
+		this.jdbcTemplate.execute("DROP TABLE ITEM");
+		this.targetDataSource.destroy();
+	}
+
+	private int countItems(String name) {
+		return this.jdbcTemplate.queryForInt("SELECT COUNT(*) FROM ITEM WHERE NAME = ?", new Object[] {name});
+	}
+
+	public void testStatementsReusedWithinTransaction() {
+		this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				for (int i = 0; i < 5; i++) {
+					assertEquals(1, countItems("item" + i));
+					assertEquals(0, countItems("other" + i));
+				}
+			}
+		});
+		assertEquals(9, this.dataSource.getHitCount());
+		assertEquals(1, this.dataSource.getMissCount());
+	}
+
+	public void testStatementsNotReusedWithoutTransaction() {
+		assertEquals(1, countItems("item1"));
+		assertEquals(1, countItems("item2"));
+		assertEquals(0, this.dataSource.getHitCount());
+		assertEquals(2, this.dataSource.getMissCount());
+	}
+
+	public void testSettingsRestored() {
+		this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				JdbcTemplate limitedTemplate = new JdbcTemplate(dataSource);
+				limitedTemplate.setMaxRows(2);
+				assertEquals(2, limitedTemplate.queryForList("SELECT * FROM ITEM WHERE ID >= ?",
+						new Object[] {new Integer(0)}).size());
+				assertEquals(5, jdbcTemplate.queryForList("SELECT * FROM ITEM WHERE ID >= ?",
+						new Object[] {new Integer(0)}).size());
+			}
+		});
+		assertEquals(1, this.dataSource.getHitCount());
+	}
+
+	public void testLeastRecentlyUsedStatementEvicted() {
+		this.dataSource.setCacheSize(2);
+		this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				Object[] args = new Object[] {new Integer(1)};
+				jdbcTemplate.queryForInt("SELECT COUNT(*) FROM ITEM WHERE ID = ?", args);
+				jdbcTemplate.queryForInt("SELECT COUNT(*) FROM ITEM WHERE ID > ?", args);
+				jdbcTemplate.queryForInt("SELECT COUNT(*) FROM ITEM WHERE ID = ?", args);
+				jdbcTemplate.queryForInt("SELECT COUNT(*) FROM ITEM WHERE ID < ?", args);
+				jdbcTemplate.queryForInt("SELECT COUNT(*) FROM ITEM WHERE ID = ?", args);
+				jdbcTemplate.queryForInt("SELECT COUNT(*) FROM ITEM WHERE ID > ?", args);
+			}
+		});
+		assertEquals(2, this.dataSource.getHitCount());
+		assertEquals(4, this.dataSource.getMissCount());
+	}
+
+	public void testStatementInUseNotShared() {
+		final String sql = "SELECT ID FROM ITEM WHERE ID >= ?";
+		final Object[] args = new Object[] {new Integer(0)};
+		final int[] count = new int[1];
+		this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				jdbcTemplate.query(sql, args, new RowCallbackHandler() {
+					public void processRow(ResultSet rs) throws SQLException {
+						count[0] += jdbcTemplate.queryForList(sql, args).size();
+					}
+				});
+			}
+		});
+		assertEquals(25, count[0]);
+		assertEquals(0, this.dataSource.getHitCount());
+		assertEquals(6, this.dataSource.getMissCount());
+	}
+
+	public void testCachedStatementsClosedWithConnection() throws SQLException {
+		MockControl psControl = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement ps = (PreparedStatement) psControl.getMock();
+		ps.getFetchSize();
+		psControl.setReturnValue(0, 1);
+		ps.getMaxRows();
+		psControl.setReturnValue(0, 1);
+		ps.getQueryTimeout();
+		psControl.setReturnValue(0, 1);
+		ps.getMaxFieldSize();
+		psControl.setReturnValue(0, 1);
+		ps.getFetchDirection();
+		psControl.setReturnValue(ResultSet.FETCH_FORWARD, 1);
+		ps.clearParameters();
+		psControl.setVoidCallable(2);
+		ps.clearWarnings();
+		psControl.setVoidCallable(2);
+		ps.close();
+		psControl.setVoidCallable(1);
+		psControl.replay();
+
+		MockControl conControl = MockControl.createControl(Connection.class);
+		Connection con = (Connection) conControl.getMock();
+		con.prepareStatement("SELECT ID FROM ITEM");
+		conControl.setReturnValue(ps, 1);
+		con.close();
+		conControl.setVoidCallable(1);
+		conControl.replay();
+
+		MockControl dsControl = MockControl.createControl(DataSource.class);
+		DataSource ds = (DataSource) dsControl.getMock();
+		ds.getConnection();
+		dsControl.setReturnValue(con, 1);
+		dsControl.replay();
+
+		Connection conProxy = new StatementCachingDataSource(ds).getConnection();
+		PreparedStatement ps1 = conProxy.prepareStatement("SELECT ID FROM ITEM");
+		ps1.close();
+		PreparedStatement ps2 = conProxy.prepareStatement("SELECT ID FROM ITEM");
+		assertSame(ps1, ps2);
+		ps2.close();
+		conProxy.close();
+
+		dsControl.verify();
+		conControl.verify();
+		psControl.verify();
+	}
+
+	public void testSettingsRestoredWithMock() throws SQLException {
+		MockControl psControl = createStatementControl();
+		PreparedStatement ps = (PreparedStatement) psControl.getMock();
+		ps.setMaxFieldSize(100);
+		psControl.setVoidCallable(1);
+		ps.setFetchDirection(ResultSet.FETCH_REVERSE);
+		psControl.setVoidCallable(1);
+		ps.clearParameters();
+		psControl.setVoidCallable(1);
+		ps.clearWarnings();
+		psControl.setVoidCallable(1);
+		ps.setFetchSize(0);
+		psControl.setVoidCallable(1);
+		ps.setMaxRows(0);
+		psControl.setVoidCallable(1);
+		ps.setQueryTimeout(0);
+		psControl.setVoidCallable(1);
+		ps.setMaxFieldSize(0);
+		psControl.setVoidCallable(1);
+		ps.setFetchDirection(ResultSet.FETCH_FORWARD);
+		psControl.setVoidCallable(1);
+		psControl.replay();
+
+		Connection conProxy = createConnectionProxy(ps, 1);
+		PreparedStatement ps1 = conProxy.prepareStatement("SELECT ID FROM ITEM");
+		ps1.setMaxFieldSize(100);
+		ps1.setFetchDirection(ResultSet.FETCH_REVERSE);
+		ps1.close();
+		assertSame(ps1, conProxy.prepareStatement("SELECT ID FROM ITEM"));
+		assertEquals(1, this.dataSource.getHitCount());
+		psControl.verify();
+	}
+
+	public void testBatchCleared() throws SQLException {
+		MockControl psControl = createStatementControl();
+		PreparedStatement ps = (PreparedStatement) psControl.getMock();
+		ps.addBatch();
+		psControl.setVoidCallable(1);
+		ps.clearParameters();
+		psControl.setVoidCallable(1);
+		ps.clearBatch();
+		psControl.setVoidCallable(1);
+		ps.clearWarnings();
+		psControl.setVoidCallable(1);
+		psControl.replay();
+
+		Connection conProxy = createConnectionProxy(ps, 1);
+		PreparedStatement ps1 = conProxy.prepareStatement("SELECT ID FROM ITEM");
+		ps1.addBatch();
+		ps1.close();
+		assertSame(ps1, conProxy.prepareStatement("SELECT ID FROM ITEM"));
+		psControl.verify();
+	}
+
+	public void testStatementClosedIfBatchCannotBeCleared() throws SQLException {
+		MockControl psControl = createStatementControl();
+		PreparedStatement ps = (PreparedStatement) psControl.getMock();
+		ps.addBatch();
+		psControl.setVoidCallable(1);
+		ps.clearParameters();
+		psControl.setVoidCallable(1);
+		ps.clearBatch();
+		psControl.setThrowable(new SQLException("batch not supported"), 1);
+		ps.close();
+		psControl.setVoidCallable(1);
+		psControl.replay();
+
+		Connection conProxy = createConnectionProxy(ps, 2);
+		PreparedStatement ps1 = conProxy.prepareStatement("SELECT ID FROM ITEM");
+		ps1.addBatch();
+		ps1.close();
+		// not reused, but prepared again
+		conProxy.prepareStatement("SELECT ID FROM ITEM");
+		assertEquals(0, this.dataSource.getHitCount());
+		assertEquals(2, this.dataSource.getMissCount());
+		psControl.verify();
+	}
+
+	public void testStatementClosedIfEscapeProcessingChanged() throws SQLException {
+		MockControl psControl = createStatementControl();
+		PreparedStatement ps = (PreparedStatement) psControl.getMock();
+		ps.setEscapeProcessing(false);
+		psControl.setVoidCallable(1);
+		ps.close();
+		psControl.setVoidCallable(1);
+		psControl.replay();
+
+		Connection conProxy = createConnectionProxy(ps, 2);
+		PreparedStatement ps1 = conProxy.prepareStatement("SELECT ID FROM ITEM");
+		ps1.setEscapeProcessing(false);
+		ps1.close();
+		conProxy.prepareStatement("SELECT ID FROM ITEM");
+		assertEquals(0, this.dataSource.getHitCount());
+		psControl.verify();
+	}
+
+	/**
+	 * Create a mock PreparedStatement control that expects the settings
+	 * to be read when the statement gets cached.
+	 */
+	private MockControl createStatementControl() throws SQLException {
+		MockControl psControl = MockControl.createControl(PreparedStatement.class);
+		PreparedStatement ps = (PreparedStatement) psControl.getMock();
+		ps.getFetchSize();
+		psControl.setReturnValue(0, 1, 2);
+		ps.getMaxRows();
+		psControl.setReturnValue(0, 1, 2);
+		ps.getQueryTimeout();
+		psControl.setReturnValue(0, 1, 2);
+		ps.getMaxFieldSize();
+		psControl.setReturnValue(0, 1, 2);
+		ps.getFetchDirection();
+		psControl.setReturnValue(ResultSet.FETCH_FORWARD, 1, 2);
+		return psControl;
+	}
+
+	/**
+	 * Return a proxy of a mock Connection that prepares the given statement
+	 * the given number of times, using this test's StatementCachingDataSource.
+	 */
+	private Connection createConnectionProxy(PreparedStatement ps, int prepareCount) throws SQLException {
+		MockControl conControl = MockControl.createControl(Connection.class);
+		Connection con = (Connection) conControl.getMock();
+		con.prepareStatement("SELECT ID FROM ITEM");
+		conControl.setReturnValue(ps, prepareCount);
+		conControl.replay();
+		this.dataSource.resetCounts();
+		return this.dataSource.getStatementCachingConnectionProxy(con);
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2004 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.object;
+
+import java.sql.Types;
+
+import junit.framework.TestCase;
+
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs against an in-memory HSQLDB database.
+ * @author agent
+ */
+public class BatchSqlUpdateTests extends TestCase {
+
+	private static final String INSERT_SQL = "INSERT INTO ITEM (ID, NAME) VALUES (?, ?)";
+
+	private SingleConnectionDataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	protected void setUp() {
+		this.dataSource = new SingleConnectionDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:.", "sa", "", true);
+		this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+		this.jdbcTemplate.execute("CREATE TABLE ITEM (ID INTEGER, NAME VARCHAR)");
+	}
+
+	protected void tearDown() throws Exception {
+		this.jdbcTemplate.execute("DROP TABLE ITEM");
+		this.dataSource.destroy();
+	}
+
+	private static Object[] args(int id, String name) {
+		return new Object[] {new Integer(id), name};
+	}
+
+	private int countItems() {
+		return this.jdbcTemplate.queryForInt("SELECT COUNT(*) FROM ITEM");
+	}
+
+	public void testFlushAtBatchSizeAndExplicitly() {
+		BatchSqlUpdate update = new BatchSqlUpdate(
+				this.dataSource, INSERT_SQL, new int[] {Types.INTEGER, Types.VARCHAR}, 3);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(-1, update.update(args(i, "item" + i)));
+		}
+		assertEquals("Flushed after 3 updates", 3, countItems());
+		assertEquals(2, update.getQueueCount());
+		int[] rowsAffected = update.flush();
+		assertEquals(2, rowsAffected.length);
+		assertEquals(5, countItems());
+		assertEquals(0, update.getQueueCount());
+		assertEquals(0, update.flush().length);
+		assertEquals(5, update.getRowsAffected().length);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(1, update.getRowsAffected()[i]);
+		}
+		update.reset();
+		assertEquals(0, update.getRowsAffected().length);
+	}
+
+	public void testRowsAffectedPerStatement() {
+		BatchSqlUpdate insert = new BatchSqlUpdate(this.dataSource, INSERT_SQL, new int[] {Types.INTEGER, Types.VARCHAR});
+		insert.update(args(1, "a"));
+		insert.update(args(1, "b"));
+		insert.update(args(2, "c"));
+		insert.update(args(2, "d"));
+		insert.flush();
+		BatchSqlUpdate rename = new BatchSqlUpdate(this.dataSource, "UPDATE ITEM SET NAME = ? WHERE ID = ?");
+		rename.declareParameter(new SqlParameter(Types.VARCHAR));
+		rename.declareParameter(new SqlParameter(Types.INTEGER));
+		rename.update(new Object[] {"x", new Integer(1)});
+		rename.update(new Object[] {"y", new Integer(2)});
+		rename.update(new Object[] {"z", new Integer(3)});
+		int[] rowsAffected = rename.flush();
+		assertEquals(3, rowsAffected.length);
+		assertEquals(2, rowsAffected[0]);
+		assertEquals(2, rowsAffected[1]);
+		assertEquals(0, rowsAffected[2]);
+	}
+
+	public void testRequiredRowsAffected() {
+		BatchSqlUpdate update = new BatchSqlUpdate(
+				this.dataSource, "DELETE FROM ITEM WHERE ID = ?", new int[] {Types.INTEGER});
+		update.setRequiredRowsAffected(1);
+		update.update(1);
+		try {
+			update.flush();
+			fail("Should have thrown JdbcUpdateAffectedIncorrectNumberOfRowsException");
+		}
+		catch (JdbcUpdateAffectedIncorrectNumberOfRowsException ex) {
+			// expected
+		}
+	}
+
+	public void testFlushedOnCommit() {
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+		final BatchSqlUpdate update = new BatchSqlUpdate(
+				this.dataSource, INSERT_SQL, new int[] {Types.INTEGER, Types.VARCHAR}, 100);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				for (int i = 0; i < 10; i++) {
+					update.update(args(i, "item" + i));
+				}
+				assertEquals(0, countItems());
+			}
+		});
+		assertEquals(10, countItems());
+		assertEquals(10, update.getRowsAffected().length);
+
+		// the update can be used for another transaction
+		tt.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				update.update(args(10, "item10"));
+			}
+		});
+		assertEquals(11, countItems());
+	}
+
+	public void testDiscardedOnRollback() {
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+		final BatchSqlUpdate update = new BatchSqlUpdate(
+				this.dataSource, INSERT_SQL, new int[] {Types.INTEGER, Types.VARCHAR}, 3);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				for (int i = 0; i < 5; i++) {
+					update.update(args(i, "item" + i));
+				}
+				status.setRollbackOnly();
+			}
+		});
+		assertEquals("Flushed batch rolled back", 0, countItems());
+		assertEquals("Queued updates discarded", 0, update.getQueueCount());
+	}
+
+}
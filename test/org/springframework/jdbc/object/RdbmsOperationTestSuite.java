@@ -73,6 +73,36 @@ public class RdbmsOperationTestSuite extends TestCase {
 		}
 	}
 
+	public void testStatementSettingsAfterCompile() {
+		TestRdbmsOperation operation = new TestRdbmsOperation();
+		operation.setDataSource(new MockDataSource());
+		operation.setSql("select * from mytable");
+		operation.setFetchSize(10);
+		operation.compile();
+		try {
+			operation.setFetchSize(20);
+			fail("Shouldn't allow setting fetch size after compile");
+		}
+		catch (InvalidDataAccessApiUsageException idaauex) {
+			// OK
+		}
+		try {
+			operation.setMaxRows(20);
+			fail("Shouldn't allow setting max rows after compile");
+		}
+		catch (InvalidDataAccessApiUsageException idaauex) {
+			// OK
+		}
+		try {
+			operation.setQueryTimeout(20);
+			fail("Shouldn't allow setting query timeout after compile");
+		}
+		catch (InvalidDataAccessApiUsageException idaauex) {
+			// OK
+		}
+		assertEquals(10, operation.getFetchSize());
+	}
+
 	public void testTooFewParameters() {
 		TestRdbmsOperation operation = new TestRdbmsOperation();
 		operation.setSql("select * from mytable");
@@ -126,6 +126,92 @@ public class SqlQueryTestSuite extends JdbcTestCase {
 		}
 	}
 
+	public void testQueryWithStatementSettings() throws SQLException {
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(true);
+		mockResultSet.getInt(1);
+		ctrlResultSet.setReturnValue(1);
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.close();
+		ctrlResultSet.setVoidCallable();
+
+		mockPreparedStatement.setFetchSize(500);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setMaxRows(1000);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setQueryTimeout(60);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.executeQuery();
+		ctrlPreparedStatement.setReturnValue(mockResultSet);
+		mockPreparedStatement.getWarnings();
+		ctrlPreparedStatement.setReturnValue(null);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable();
+
+		mockConnection.prepareStatement(SELECT_ID);
+		ctrlConnection.setReturnValue(mockPreparedStatement);
+
+		replay();
+
+		SqlQuery query = new MappingSqlQuery() {
+			protected Object mapRow(ResultSet rs, int rownum) throws SQLException {
+				return new Integer(rs.getInt(1));
+			}
+		};
+		query.setDataSource(mockDataSource);
+		query.setSql(SELECT_ID);
+		query.setFetchSize(500);
+		query.setMaxRows(1000);
+		query.setQueryTimeout(60);
+		query.compile();
+		List list = query.execute();
+		assertEquals(1, list.size());
+
+		ctrlPreparedStatement.verify();
+	}
+
+	public void testQueryWithStatementSettingsAndSharedJdbcTemplate() throws SQLException {
+		mockResultSet.next();
+		ctrlResultSet.setReturnValue(false);
+		mockResultSet.close();
+		ctrlResultSet.setVoidCallable();
+
+		mockPreparedStatement.setFetchSize(500);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.setMaxRows(1000);
+		ctrlPreparedStatement.setVoidCallable();
+		mockPreparedStatement.executeQuery();
+		ctrlPreparedStatement.setReturnValue(mockResultSet);
+		mockPreparedStatement.getWarnings();
+		ctrlPreparedStatement.setReturnValue(null);
+		mockPreparedStatement.close();
+		ctrlPreparedStatement.setVoidCallable();
+
+		mockConnection.prepareStatement(SELECT_ID);
+		ctrlConnection.setReturnValue(mockPreparedStatement);
+
+		replay();
+
+		SqlQuery query = new MappingSqlQuery() {
+			protected Object mapRow(ResultSet rs, int rownum) throws SQLException {
+				return new Integer(rs.getInt(1));
+			}
+		};
+		query.setSql(SELECT_ID);
+		query.setFetchSize(500);
+		query.setMaxRows(1000);
+		// settings must survive setting a shared template, and not affect it
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(mockDataSource);
+		query.setJdbcTemplate(jdbcTemplate);
+		query.compile();
+		assertEquals(0, query.execute().size());
+		assertEquals(0, jdbcTemplate.getFetchSize());
+		assertEquals(0, jdbcTemplate.getMaxRows());
+
+		ctrlPreparedStatement.verify();
+	}
+
 	public void testQueryWithoutEnoughParams() {
 		replay();
 
@@ -140,6 +140,34 @@ public class StoredProcedureTestSuite extends JdbcTestCase {
 		testAddInvoice(1106, 3);
 	}
 
+	public void testStoredProcedureWithStatementSettings() throws Exception {
+		mockCallable.setQueryTimeout(30);
+		ctrlCallable.setVoidCallable();
+		mockCallable.setObject(1, new Integer(1106), Types.INTEGER);
+		ctrlCallable.setVoidCallable();
+		mockCallable.execute();
+		ctrlCallable.setReturnValue(false);
+		mockCallable.getWarnings();
+		ctrlCallable.setReturnValue(null);
+		mockCallable.close();
+		ctrlCallable.setVoidCallable();
+
+		mockConnection.prepareCall("{call " + AddInvoice.SQL + "(?)}");
+		ctrlConnection.setReturnValue(mockCallable);
+
+		replay();
+
+		StoredProcedure sp = new StoredProcedure() {};
+		sp.setQueryTimeout(30);
+		sp.setJdbcTemplate(new JdbcTemplate(mockDataSource));
+		sp.setSql(AddInvoice.SQL);
+		sp.declareParameter(new SqlParameter("amount", Types.INTEGER));
+		sp.compile();
+		Map in = new HashMap();
+		in.put("amount", new Integer(1106));
+		sp.execute(in);
+	}
+
 	public void testAddInvoicesWithinTransaction() throws Exception {
 		mockCallable.setObject(1, new Integer(1106), Types.INTEGER);
 		ctrlCallable.setVoidCallable();
@@ -76,6 +76,36 @@ public class ContextLoaderTestSuite extends TestCase {
 		assertTrue("Destroyed", lb.isDestroyed());
 	}
 
+	public void testContextLoaderWithConfigLoadingThreads() throws Exception {
+		MockServletContext sc = new MockServletContext("");
+		sc.addInitParameter(ContextLoader.CONFIG_LOCATION_PARAM,
+												"/org/springframework/web/context/WEB-INF/applicationContext.xml /org/springframework/web/context/WEB-INF/context-addition.xml");
+		sc.addInitParameter(ContextLoader.CONFIG_LOADING_THREADS_PARAM, "2");
+		ServletContextListener listener = new ContextLoaderListener();
+		ServletContextEvent event = new ServletContextEvent(sc);
+		listener.contextInitialized(event);
+		XmlWebApplicationContext context = (XmlWebApplicationContext) sc.getAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE);
+		assertEquals(2, context.getConfigLoadingThreads());
+		assertTrue("Has rod", context.containsBean("rod"));
+		assertTrue("Has kerry", context.containsBean("kerry"));
+		listener.contextDestroyed(event);
+	}
+
+	public void testContextLoaderWithInvalidConfigLoadingThreads() throws Exception {
+		MockServletContext sc = new MockServletContext("");
+		sc.addInitParameter(ContextLoader.CONFIG_LOCATION_PARAM, "/org/springframework/web/context/WEB-INF/applicationContext.xml");
+		sc.addInitParameter(ContextLoader.CONFIG_LOADING_THREADS_PARAM, "two");
+		ServletContextListener listener = new ContextLoaderListener();
+		try {
+			listener.contextInitialized(new ServletContextEvent(sc));
+			fail("Should have thrown ApplicationContextException");
+		}
+		catch (ApplicationContextException ex) {
+			// expected
+			assertTrue(ex.getCause() instanceof NumberFormatException);
+		}
+	}
+
 	public void testContextLoaderWithCustomContext() throws Exception {
 		MockServletContext sc = new MockServletContext("");
 		sc.addInitParameter(ContextLoader.CONTEXT_CLASS_PARAM, "org.springframework.web.servlet.SimpleWebApplicationContext");
@@ -154,6 +184,18 @@ public class ContextLoaderTestSuite extends TestCase {
 		assertTrue(servlet.getWebApplicationContext().containsBean("kerryX"));
 	}
 
+	public void testFrameworkServletWithConfigLoadingThreads() throws Exception {
+		DispatcherServlet servlet = new DispatcherServlet();
+		MockServletConfig config = new MockServletConfig(new MockServletContext(""), "test");
+		config.addInitParameter("contextConfigLocation", "/org/springframework/web/context/WEB-INF/testNamespace.xml /org/springframework/web/context/WEB-INF/context-addition.xml");
+		config.addInitParameter("contextConfigLoadingThreads", "2");
+		servlet.init(config);
+		XmlWebApplicationContext context = (XmlWebApplicationContext) servlet.getWebApplicationContext();
+		assertEquals(2, context.getConfigLoadingThreads());
+		assertTrue(context.containsBean("kerry"));
+		assertTrue(context.containsBean("kerryX"));
+	}
+
 	public void testClassPathXmlApplicationContext() throws IOException {
 		ApplicationContext context = new ClassPathXmlApplicationContext("/org/springframework/web/context/WEB-INF/applicationContext.xml");
 		assertTrue("Has father", context.containsBean("father"));